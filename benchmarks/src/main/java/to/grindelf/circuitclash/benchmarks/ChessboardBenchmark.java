@@ -0,0 +1,66 @@
+package to.grindelf.circuitclash.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import to.grindelf.circuitclash.domain.Chessboard;
+import to.grindelf.circuitclash.domain.Move;
+import to.grindelf.circuitclash.domain.Piece;
+import to.grindelf.circuitclash.domain.Position;
+import to.grindelf.circuitclash.errors.WrongMoveException;
+import to.grindelf.circuitclash.visualization.BoardVisualizer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of chessboard operations.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChessboardBenchmark {
+
+    /**
+     * Opening moves of white knights. Each move is taken back right after it is made, so
+     * the board stays in the initial state and its undo stack does not grow.
+     */
+    private final Move[] moves = {
+            new Move(new Position(6, 0), new Position(5, 2)),
+            new Move(new Position(1, 0), new Position(2, 2))
+    };
+
+    private Chessboard chessboard;
+    private int moveIndex;
+
+    @Setup
+    public void setUp() {
+        this.chessboard = new Chessboard();
+        this.moveIndex = 0;
+    }
+
+    @Benchmark
+    public Piece movePiece() throws WrongMoveException {
+        Move move = this.moves[this.moveIndex];
+        this.moveIndex ^= 1;
+
+        Piece movedPiece = this.chessboard.movePiece(move);
+        this.chessboard.undoMove();
+
+        return movedPiece;
+    }
+
+    @Benchmark
+    public String visualizeAsString() {
+        return BoardVisualizer.visualizeAsString(this.chessboard);
+    }
+}
@@ -0,0 +1,38 @@
+package to.grindelf.circuitclash.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import to.grindelf.circuitclash.domain.Move;
+import to.grindelf.circuitclash.domain.Position;
+import to.grindelf.circuitclash.errors.WrongMoveException;
+import to.grindelf.circuitclash.utils.MoveValidator;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of move validation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoveValidatorBenchmark {
+
+    private final MoveValidator validator = new MoveValidator();
+    private final Move move = new Move(new Position(4, 1), new Position(4, 3));
+
+    @Benchmark
+    public Move isWithinTheBoard() throws WrongMoveException {
+        this.validator.isWithinTheBoard(this.move);
+        return this.move;
+    }
+}
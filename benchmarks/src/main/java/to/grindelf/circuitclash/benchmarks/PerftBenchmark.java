@@ -0,0 +1,103 @@
+package to.grindelf.circuitclash.benchmarks;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import to.grindelf.circuitclash.domain.Chessboard;
+import to.grindelf.circuitclash.domain.Fen;
+import to.grindelf.circuitclash.domain.Move;
+import to.grindelf.circuitclash.domain.Position;
+import to.grindelf.circuitclash.errors.FenFormatException;
+import to.grindelf.circuitclash.errors.WrongMoveException;
+import to.grindelf.circuitclash.utils.MoveGenerator;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Perft benchmark: counts leaf nodes of the legal move tree to a fixed depth. Besides the time
+ * per run, it reports the {@code nodes} counter, which JMH shows as nodes per second.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PerftBenchmark {
+
+    /**
+     * Starting position: the initial setup, moves played from it, or a position
+     * with many castlings, promotions and en passant captures given in FEN.
+     */
+    @Param({"initial", "open-game", "kiwipete"})
+    public String position;
+
+    @Param({"1", "2", "3", "4", "5", "6"})
+    public int depth;
+
+    private Chessboard chessboard;
+    private int[][] moves;
+
+    /**
+     * Counter of visited leaf nodes, reported per second.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Nodes {
+        public long nodes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            this.nodes = 0;
+        }
+    }
+
+    @Setup
+    public void setUp() throws WrongMoveException, FenFormatException {
+        this.chessboard = new Chessboard();
+        this.moves = new int[this.depth][MoveGenerator.MAX_MOVES];
+        if (this.position.equals("open-game")) {
+            for (String move : new String[]{"e2e4", "e7e5", "g1f3", "b8c6", "f1c4", "f8c5"}) {
+                this.chessboard.movePiece(new Move(
+                        new Position(move.charAt(0) - 'a', move.charAt(1) - '1'),
+                        new Position(move.charAt(2) - 'a', move.charAt(3) - '1')
+                ));
+            }
+        } else if (this.position.equals("kiwipete")) {
+            this.chessboard = Fen.parse("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        }
+    }
+
+    @Benchmark
+    public long perft(Nodes counter) {
+        long nodes = perft(this.chessboard, this.depth);
+        counter.nodes += nodes;
+
+        return nodes;
+    }
+
+    private long perft(Chessboard board, int depth) {
+        int[] moves = this.moves[depth - 1];
+        int count = MoveGenerator.generateLegalMoves(board, moves);
+        if (depth == 1) return count;
+
+        long nodes = 0;
+        for (int i = 0; i < count; i++) {
+            board.makeMove(moves[i]);
+            nodes += perft(board, depth - 1);
+            board.undoMove();
+        }
+
+        return nodes;
+    }
+}
@@ -0,0 +1,45 @@
+package to.grindelf.circuitclash.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import to.grindelf.circuitclash.domain.Position;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of position hashing and comparison, which every map-based board lookup performs.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PositionBenchmark {
+
+    private final Position position = new Position(4, 3);
+    private final Position samePosition = new Position(4, 3);
+    private final Position otherPosition = new Position(3, 4);
+
+    @Benchmark
+    public int hashCodeOfPosition() {
+        return this.position.hashCode();
+    }
+
+    @Benchmark
+    public boolean equalPositions() {
+        return this.position.equals(this.samePosition);
+    }
+
+    @Benchmark
+    public boolean differentPositions() {
+        return this.position.equals(this.otherPosition);
+    }
+}
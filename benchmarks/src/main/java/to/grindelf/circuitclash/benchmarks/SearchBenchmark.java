@@ -0,0 +1,83 @@
+package to.grindelf.circuitclash.benchmarks;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import to.grindelf.circuitclash.domain.Chessboard;
+import to.grindelf.circuitclash.domain.ParallelSearch;
+import to.grindelf.circuitclash.domain.SearchLimits;
+import to.grindelf.circuitclash.domain.SearchResult;
+import to.grindelf.circuitclash.domain.TranspositionTable;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Search benchmark: runs a fixed-time parallel search of the initial position with a growing
+ * number of threads. Besides searches per second, it reports the combined {@code nodes} and the
+ * completed {@code depth}, which shows how the effective depth scales with threads.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchBenchmark {
+
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    @Param({"500"})
+    public long timeMillis;
+
+    private TranspositionTable table;
+    private ParallelSearch parallelSearch;
+
+    /**
+     * Counters of visited nodes and completed depth.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Stats {
+        public long nodes;
+        public long depth;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            this.nodes = 0;
+            this.depth = 0;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        this.table = new TranspositionTable(64);
+        this.parallelSearch = new ParallelSearch(this.table, this.threads);
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.parallelSearch.close();
+    }
+
+    @Benchmark
+    public SearchResult search(Stats stats) {
+        this.table.clear();
+        SearchResult result = this.parallelSearch.search(new Chessboard(), SearchLimits.time(this.timeMillis));
+        stats.nodes += result.nodes();
+        stats.depth += result.depth();
+
+        return result;
+    }
+}
@@ -10,6 +10,7 @@ module to.grindelf.circuitclash {
     requires org.kordamp.bootstrapfx.core;
     requires com.almasb.fxgl.all;
     requires annotations;
+    requires java.management;
 
     opens to.grindelf.circuitclash to javafx.fxml;
     exports to.grindelf.circuitclash;
@@ -17,4 +18,5 @@ module to.grindelf.circuitclash {
     opens to.grindelf.circuitclash.controllers to javafx.fxml;
 
     exports to.grindelf.circuitclash.domain;
+    exports to.grindelf.circuitclash.metrics;
 }
\ No newline at end of file
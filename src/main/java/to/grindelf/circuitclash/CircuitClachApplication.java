@@ -5,6 +5,8 @@ import javafx.fxml.FXMLLoader;
 import javafx.scene.Scene;
 import javafx.stage.Stage;
 import org.jetbrains.annotations.NotNull;
+import to.grindelf.circuitclash.metrics.Metrics;
+
 import java.io.IOException;
 
 public class CircuitClachApplication extends Application {
@@ -24,6 +26,7 @@ public class CircuitClachApplication extends Application {
     }
 
     public static void main(String[] args) {
+        Metrics.registerMBeans();
         launch();
     }
 }
\ No newline at end of file
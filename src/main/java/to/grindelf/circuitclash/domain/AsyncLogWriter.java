@@ -0,0 +1,378 @@
+package to.grindelf.circuitclash.domain;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Asynchronous appender of text to files. Texts of any number of files (see {@link #open(Path)})
+ * are put on one bounded queue, and a single writer thread drains them in batches into the
+ * channels of the files, which stay open until the files are closed. The texts a batch has
+ * for a file are written with one write call, and files are forced to the disk once per
+ * flush interval instead of once per text (group commit), so {@link LogFile#append(String)}
+ * does not wait for the disk unless the queue is full. Many logs, like the logs of all games
+ * of a {@link GameSessionHost}, share one writer and one thread.
+ * <p>
+ * Errors of the writer thread are reported by the next call of {@link LogFile#append(String)},
+ * {@link LogFile#flush()} or {@link LogFile#close()} of the file which failed.
+ */
+final class AsyncLogWriter implements Closeable {
+
+    /**
+     * Default capacity of the queue of texts.
+     */
+    static final int DEFAULT_QUEUE_CAPACITY = 1024;
+    /**
+     * Default interval of forcing written texts to the disk, in milliseconds.
+     */
+    static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 200;
+
+    /**
+     * Queue item with a text to append to a file.
+     *
+     * @param file is a file to append to.
+     * @param text is a text to append.
+     */
+    private record Text(LogFile file, String text) {
+    }
+
+    /**
+     * Queue item which asks the writer thread to force all previous texts of a file to the disk.
+     *
+     * @param file is a file to force, or null to close all files and stop the writer.
+     * @param done is a latch released when the texts are forced.
+     * @param last is true if the file has to be closed after the flush.
+     */
+    private record FlushRequest(LogFile file, CountDownLatch done, boolean last) {
+    }
+
+    /**
+     * File written by the writer. Texts are appended to it in the order they were given.
+     */
+    final class LogFile implements Closeable {
+
+        private final Path path;
+        /**
+         * First error of writing the file, null if there was none.
+         */
+        private volatile IOException failure;
+        private volatile boolean closed;
+        /**
+         * Open channel of the file, null until the first write; used by the writer thread only.
+         */
+        private FileChannel channel;
+        /**
+         * Texts collected from the current batch; used by the writer thread only.
+         */
+        private final StringBuilder pending = new StringBuilder();
+        private boolean unforced;
+
+        /**
+         * Initializes a file.
+         *
+         * @param path is a file to append texts to. It is created on the first write.
+         */
+        private LogFile(Path path) {
+            this.path = path;
+        }
+
+        /**
+         * Puts a text on the queue to be appended to the file.
+         *
+         * @param text is a text to append.
+         * @throws IOException if the file or the writer is closed or a previous write failed.
+         */
+        void append(@NotNull String text) throws IOException {
+            checkState();
+            try {
+                if (!enqueue(new Text(this, text))) throw new IOException("The log writer has stopped.");
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while appending to the log.", exception);
+            }
+        }
+
+        /**
+         * Waits until all appended texts are written and forced to the disk.
+         *
+         * @throws IOException if the file or the writer is closed or a write failed.
+         */
+        void flush() throws IOException {
+            checkState();
+            awaitFlush(this, false);
+            checkState();
+        }
+
+        /**
+         * Writes all appended texts and closes the file. Closing a closed file does nothing.
+         *
+         * @throws IOException if a write failed.
+         */
+        @Override
+        public void close() throws IOException {
+            if (this.closed) return;
+            awaitFlush(this, true);
+            this.closed = true;
+            if (this.failure != null) throw this.failure;
+        }
+
+        /**
+         * Checks that the file accepts texts.
+         *
+         * @throws IOException if the file or the writer is closed or a previous write failed.
+         */
+        private void checkState() throws IOException {
+            if (this.failure != null) throw this.failure;
+            if (this.closed || AsyncLogWriter.this.closed) throw new IOException("The log is closed.");
+        }
+
+        /**
+         * Records an error of the file, keeping the first one, and drops texts not written yet.
+         *
+         * @param exception is an error.
+         */
+        private void fail(IOException exception) {
+            if (this.failure == null) this.failure = exception;
+            this.pending.setLength(0);
+        }
+    }
+
+    private final long flushIntervalMillis;
+    private final BlockingQueue<Object> queue;
+    private final Thread writerThread;
+    private volatile boolean closed;
+
+    /**
+     * Initializes a writer with default queue capacity and flush interval and starts its thread.
+     */
+    AsyncLogWriter() {
+        this(DEFAULT_QUEUE_CAPACITY, DEFAULT_FLUSH_INTERVAL_MILLIS);
+    }
+
+    /**
+     * Initializes a writer and starts its thread.
+     *
+     * @param queueCapacity       is a maximum number of texts waiting to be written; when the queue
+     *                            is full, {@link LogFile#append(String)} waits.
+     * @param flushIntervalMillis is a maximum time in milliseconds a written text may stay
+     *                            unforced to the disk.
+     */
+    AsyncLogWriter(int queueCapacity, long flushIntervalMillis) {
+        if (queueCapacity < 1) throw new IllegalArgumentException("Queue capacity must be positive.");
+        if (flushIntervalMillis < 1) throw new IllegalArgumentException("Flush interval must be positive.");
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.writerThread = new Thread(this::run, "game-log-writer");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    /**
+     * Opens a file to append texts to with this writer.
+     *
+     * @param file is a file to append texts to. It is created on the first write.
+     * @return a file to append texts to.
+     * @throws IOException if the writer is closed.
+     */
+    @NotNull
+    LogFile open(@NotNull Path file) throws IOException {
+        if (this.closed) throw new IOException("The log writer is closed.");
+
+        return new LogFile(file);
+    }
+
+    /**
+     * Writes all appended texts, closes all files and stops the writer thread.
+     * Closing a closed writer does nothing.
+     *
+     * @throws IOException if interrupted while waiting for the writer thread.
+     */
+    @Override
+    public void close() throws IOException {
+        if (this.closed) return;
+        this.closed = true;
+        awaitFlush(null, true);
+    }
+
+    /**
+     * Puts a flush request on the queue and waits until the writer thread handles it.
+     *
+     * @param file is a file to flush, or null to close all files and stop the writer.
+     * @param last is true if the file has to be closed after the flush.
+     * @throws IOException if interrupted while waiting.
+     */
+    private void awaitFlush(LogFile file, boolean last) throws IOException {
+        FlushRequest request = new FlushRequest(file, new CountDownLatch(1), last);
+        try {
+            if (!enqueue(request)) return;
+            while (!request.done().await(this.flushIntervalMillis, TimeUnit.MILLISECONDS)) {
+                if (!this.writerThread.isAlive()) break;
+            }
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while flushing the log.", exception);
+        }
+    }
+
+    /**
+     * Puts an item on the queue, waiting while the queue is full as long as the writer
+     * thread is alive to drain it.
+     *
+     * @param item is a text or a flush request.
+     * @return true if the item was put, false if the writer thread has stopped.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    private boolean enqueue(Object item) throws InterruptedException {
+        while (!this.queue.offer(item, this.flushIntervalMillis, TimeUnit.MILLISECONDS)) {
+            if (!this.writerThread.isAlive()) return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Body of the writer thread: drains the queue in batches until a request to stop.
+     * All files are closed when the thread stops, whether the last writes succeeded or not.
+     */
+    private void run() {
+        List<Object> batch = new ArrayList<>();
+        List<LogFile> pendingFiles = new ArrayList<>();
+        List<LogFile> openFiles = new ArrayList<>();
+        long lastForce = System.currentTimeMillis();
+        boolean running = true;
+
+        try {
+            while (running) {
+                Object first = this.queue.poll(this.flushIntervalMillis, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    this.queue.drainTo(batch);
+                }
+
+                for (Object item : batch) {
+                    if (item instanceof Text text) {
+                        if (text.file().pending.length() == 0) pendingFiles.add(text.file());
+                        text.file().pending.append(text.text());
+                        continue;
+                    }
+
+                    FlushRequest request = (FlushRequest) item;
+                    if (request.file() == null) {
+                        for (LogFile file : pendingFiles) {
+                            write(file, openFiles);
+                        }
+                        pendingFiles.clear();
+                        for (LogFile file : openFiles) {
+                            force(file, openFiles);
+                            closeChannel(file);
+                        }
+                        openFiles.clear();
+                        running = false;
+                    } else {
+                        force(request.file(), openFiles);
+                        if (request.last()) {
+                            closeChannel(request.file());
+                            openFiles.remove(request.file());
+                        }
+                    }
+                    request.done().countDown();
+                }
+                batch.clear();
+
+                for (LogFile file : pendingFiles) {
+                    write(file, openFiles);
+                }
+                pendingFiles.clear();
+
+                if (System.currentTimeMillis() - lastForce >= this.flushIntervalMillis) {
+                    for (LogFile file : openFiles) {
+                        if (file.unforced) force(file, openFiles);
+                    }
+                    lastForce = System.currentTimeMillis();
+                }
+            }
+        } catch (InterruptedException exception) {
+            // the writer is stopped, open files are closed below
+        } finally {
+            for (LogFile file : openFiles) {
+                closeChannel(file);
+            }
+        }
+    }
+
+    /**
+     * Writes texts collected for a file and forces the file to the disk.
+     *
+     * @param file      is a file.
+     * @param openFiles is open files, to add the file to if it is opened.
+     */
+    private void force(LogFile file, List<LogFile> openFiles) {
+        write(file, openFiles);
+        if (file.channel == null || file.failure != null) return;
+        try {
+            file.channel.force(false);
+            file.unforced = false;
+        } catch (IOException exception) {
+            file.fail(exception);
+        }
+    }
+
+    /**
+     * Writes texts collected for a file with one write call, opening the file if needed.
+     *
+     * @param file      is a file.
+     * @param openFiles is open files, to add the file to if it is opened.
+     */
+    private void write(LogFile file, List<LogFile> openFiles) {
+        if (file.pending.length() == 0) return;
+        if (file.failure != null) {
+            file.pending.setLength(0);
+            return;
+        }
+
+        try {
+            if (file.channel == null) {
+                file.channel = FileChannel.open(file.path,
+                        StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+                openFiles.add(file);
+            }
+
+            ByteBuffer buffer = StandardCharsets.UTF_8.encode(file.pending.toString());
+            file.pending.setLength(0);
+            while (buffer.hasRemaining()) {
+                file.channel.write(buffer);
+            }
+            file.unforced = true;
+        } catch (IOException exception) {
+            file.fail(exception);
+        }
+    }
+
+    /**
+     * Closes the channel of a file, recording an error as a failure of the file.
+     *
+     * @param file is a file.
+     */
+    private void closeChannel(LogFile file) {
+        if (file.channel == null) return;
+        try {
+            file.channel.close();
+        } catch (IOException exception) {
+            file.fail(exception);
+        } finally {
+            file.channel = null;
+        }
+    }
+}
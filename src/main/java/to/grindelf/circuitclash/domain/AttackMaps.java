@@ -0,0 +1,185 @@
+package to.grindelf.circuitclash.domain;
+
+import org.jetbrains.annotations.NotNull;
+import to.grindelf.circuitclash.utils.AttackTables;
+
+import java.util.Arrays;
+
+/**
+ * Attack maps of a {@link Chessboard}: for each side, a number of its pieces attacking every
+ * square and a bitboard of attacked squares. The maps are updated by the chessboard whenever
+ * a piece is put or removed: the attacks of the piece itself are added or subtracted, and
+ * the rays of sliding pieces which pass through its square are cut or extended. Other
+ * pieces are not touched, so questions like "is the king in check" or "is this square
+ * attacked" become a single mask test.
+ * <p>
+ * Maps are enabled on a chessboard by {@link Chessboard#enableAttackMaps()}.
+ */
+public final class AttackMaps {
+
+    private static final int ROOK = PieceType.ROOK.ordinal();
+    private static final int KNIGHT = PieceType.KNIGHT.ordinal();
+    private static final int BISHOP = PieceType.BISHOP.ordinal();
+    private static final int QUEEN = PieceType.QUEEN.ordinal();
+    private static final int KING = PieceType.KING.ordinal();
+
+    /**
+     * Numbers of attackers, indexed by {@code color * 64 + square}.
+     */
+    private final byte[] attackerCounts = new byte[2 * 64];
+    /**
+     * Bitboards of attacked squares, indexed by a color ordinal.
+     */
+    private final long[] attackedSquares = new long[2];
+
+    /**
+     * Initializes empty attack maps.
+     */
+    AttackMaps() {
+    }
+
+    /**
+     * Initializes attack maps as a copy of other attack maps.
+     *
+     * @param other is attack maps to copy.
+     */
+    AttackMaps(@NotNull AttackMaps other) {
+        System.arraycopy(other.attackerCounts, 0, this.attackerCounts, 0, this.attackerCounts.length);
+        System.arraycopy(other.attackedSquares, 0, this.attackedSquares, 0, this.attackedSquares.length);
+    }
+
+    /**
+     * Returns squares attacked by pieces of a color.
+     *
+     * @param color is a color of attacking pieces.
+     * @return a bitboard of attacked squares.
+     */
+    public long getAttackedSquares(@NotNull PieceColor color) {
+        return this.attackedSquares[color.ordinal()];
+    }
+
+    /**
+     * Checks if a square is attacked by pieces of a color.
+     *
+     * @param square is a square index.
+     * @param color  is a color of attacking pieces.
+     * @return true if the square is attacked.
+     */
+    public boolean isAttacked(int square, @NotNull PieceColor color) {
+        return (this.attackedSquares[color.ordinal()] & 1L << square) != 0;
+    }
+
+    /**
+     * Returns a number of pieces of a color attacking a square.
+     *
+     * @param square is a square index.
+     * @param color  is a color of attacking pieces.
+     * @return a number of attackers.
+     */
+    public int getAttackerCount(int square, @NotNull PieceColor color) {
+        return this.attackerCounts[color.ordinal() * 64 + square];
+    }
+
+    /**
+     * Clears the maps.
+     */
+    void clear() {
+        Arrays.fill(this.attackerCounts, (byte) 0);
+        Arrays.fill(this.attackedSquares, 0L);
+    }
+
+    /**
+     * Updates the maps after a piece was put on an empty square.
+     *
+     * @param pieceIndex  is an index of the piece.
+     * @param square      is a square of the piece.
+     * @param pieceBoards is bitboards of pieces of the board, with the piece already put.
+     * @param occupancy   is occupied squares of the board, with the piece already put.
+     */
+    void piecePut(int pieceIndex, int square, long[] pieceBoards, long occupancy) {
+        updateRaysThrough(square, pieceBoards, occupancy & ~(1L << square), occupancy);
+        add(pieceIndex / 6, attacks(pieceIndex, square, occupancy), 1);
+    }
+
+    /**
+     * Updates the maps after a piece was removed from a square.
+     *
+     * @param pieceIndex  is an index of the piece.
+     * @param square      is a square the piece stood on.
+     * @param pieceBoards is bitboards of pieces of the board, with the piece already removed.
+     * @param occupancy   is occupied squares of the board, with the piece already removed.
+     */
+    void pieceRemoved(int pieceIndex, int square, long[] pieceBoards, long occupancy) {
+        add(pieceIndex / 6, attacks(pieceIndex, square, occupancy | 1L << square), -1);
+        updateRaysThrough(square, pieceBoards, occupancy | 1L << square, occupancy);
+    }
+
+    /**
+     * Updates attacks of sliding pieces whose rays pass through a square which became
+     * occupied or empty: squares behind it are added to or subtracted from their attacks.
+     *
+     * @param square         is a square which changed.
+     * @param pieceBoards    is bitboards of pieces of the board.
+     * @param oldOccupancy   is occupied squares before the change.
+     * @param newOccupancy   is occupied squares after the change.
+     */
+    private void updateRaysThrough(int square, long[] pieceBoards, long oldOccupancy, long newOccupancy) {
+        for (int color = 0; color < 2; color++) {
+            int base = color * 6;
+            long queens = pieceBoards[base + QUEEN];
+            long straightSliders = AttackTables.rookAttacks(square, newOccupancy) & (pieceBoards[base + ROOK] | queens);
+            for (; straightSliders != 0; straightSliders &= straightSliders - 1) {
+                int slider = Long.numberOfTrailingZeros(straightSliders);
+                long before = AttackTables.rookAttacks(slider, oldOccupancy);
+                long after = AttackTables.rookAttacks(slider, newOccupancy);
+                add(color, after & ~before, 1);
+                add(color, before & ~after, -1);
+            }
+
+            long diagonalSliders = AttackTables.bishopAttacks(square, newOccupancy) & (pieceBoards[base + BISHOP] | queens);
+            for (; diagonalSliders != 0; diagonalSliders &= diagonalSliders - 1) {
+                int slider = Long.numberOfTrailingZeros(diagonalSliders);
+                long before = AttackTables.bishopAttacks(slider, oldOccupancy);
+                long after = AttackTables.bishopAttacks(slider, newOccupancy);
+                add(color, after & ~before, 1);
+                add(color, before & ~after, -1);
+            }
+        }
+    }
+
+    /**
+     * Adds a number to attacker counts of squares.
+     *
+     * @param color   is a color ordinal of attackers.
+     * @param squares is a bitboard of squares.
+     * @param delta   is 1 or -1.
+     */
+    private void add(int color, long squares, int delta) {
+        int base = color * 64;
+        for (; squares != 0; squares &= squares - 1) {
+            int square = Long.numberOfTrailingZeros(squares);
+            int count = this.attackerCounts[base + square] += (byte) delta;
+            if (count == 0) this.attackedSquares[color] &= ~(1L << square);
+            else this.attackedSquares[color] |= 1L << square;
+        }
+    }
+
+    /**
+     * Returns squares attacked by a piece.
+     *
+     * @param pieceIndex is an index of the piece.
+     * @param square     is a square of the piece.
+     * @param occupancy  is occupied squares, for sliding pieces.
+     * @return a bitboard of attacked squares.
+     */
+    private static long attacks(int pieceIndex, int square, long occupancy) {
+        int type = pieceIndex % 6;
+        if (type == ROOK) return AttackTables.rookAttacks(square, occupancy);
+        if (type == KNIGHT) return AttackTables.knightAttacks(square);
+        if (type == BISHOP) return AttackTables.bishopAttacks(square, occupancy);
+        if (type == QUEEN) return AttackTables.queenAttacks(square, occupancy);
+        if (type == KING) return AttackTables.kingAttacks(square);
+
+        return AttackTables.pawnAttacks(pieceIndex / 6, square);
+    }
+}
@@ -12,7 +12,23 @@ public interface BoardStateRearranger {
      * Moves a piece on the chessboard.
      *
      * @param move is a description of a move to be made.
-     * @return
+     * @return a piece which was moved.
      */
     public abstract Piece movePiece(@NotNull Move move) throws WrongMoveException;
+
+    /**
+     * Takes back the last move made on the chessboard.
+     *
+     * @return a piece which was moved back.
+     * @throws WrongMoveException if no moves were made.
+     */
+    public abstract Piece unmakeMove() throws WrongMoveException;
+
+    /**
+     * Returns a piece at given position.
+     *
+     * @param position is a position of a required piece.
+     * @return a piece at given position or null if the position is empty.
+     */
+    public abstract Piece getPieceAt(@NotNull Position position);
 }
@@ -3,68 +3,854 @@ package to.grindelf.circuitclash.domain;
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
 import to.grindelf.circuitclash.errors.WrongMoveException;
-import to.grindelf.circuitclash.visualization.BoardVisualizer;
+import to.grindelf.circuitclash.metrics.Metrics;
+import to.grindelf.circuitclash.utils.AttackTables;
+import to.grindelf.circuitclash.visualization.BoardRenderer;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
 
 import static to.grindelf.circuitclash.domain.PieceColor.BLACK;
 import static to.grindelf.circuitclash.domain.PieceColor.WHITE;
 
 /**
- * Representation of a chessboard, on which the game is played.
+ * Representation of a chessboard, on which the game is played. The state of the board
+ * is stored as bitboards: one 64-bit mask per piece type and color, where bit number
+ * {@code y * 8 + x} is set when such a piece stands on the square (x, y), plus the
+ * occupancy masks of each color and of the whole board. Besides the pieces, the board
+ * keeps the side to move, castling rights, the en passant square, the halfmove clock and the
+ * fullmove number, and a Zobrist key
+ * of all of these, which is updated incrementally by every move. Every move also updates
+ * material and piece-square scores of {@link Evaluation}. Made moves are recorded
+ * on an undo stack, so they can be taken back in place.
  */
-class Chessboard implements BoardStateRearranger {
+public class Chessboard implements BoardStateRearranger {
 
     /**
-     * State of the chessboard, represented as a map of positions (key) and pieces (values).
+     * Number of squares on the chessboard.
      */
-    private final Map<Position, Piece> state;
+    static final int SQUARES = 64;
+    /**
+     * Number of different pieces (6 types of 2 colors).
+     */
+    static final int PIECE_KINDS = 12;
+
+    /**
+     * Castling rights flags.
+     */
+    public static final int WHITE_KING_SIDE = 1;
+    public static final int WHITE_QUEEN_SIDE = 2;
+    public static final int BLACK_KING_SIDE = 4;
+    public static final int BLACK_QUEEN_SIDE = 8;
+    public static final int ALL_CASTLING_RIGHTS = 15;
+    /**
+     * Maximum number of moves the undo stack holds. When it is full, the older half of the moves
+     * is forgotten, so a board which is only moved forward, like the board of a long game,
+     * keeps a bounded amount of memory.
+     */
+    public static final int MAX_UNDO_DEPTH = 1024;
+
+    /**
+     * Initial number of moves the undo stack can hold before it has to grow.
+     */
+    private static final int INITIAL_UNDO_CAPACITY = 256;
+    /**
+     * Flag of an undo stack entry of a null move.
+     */
+    private static final long NULL_MOVE_FLAG = 1L << 31;
+
+    /**
+     * Castling rights which remain after a piece moves from or to a square. Moving a king
+     * or a rook from its initial square, or capturing a rook there, loses the rights.
+     */
+    private static final int[] CASTLING_MASKS = new int[SQUARES];
+
+    static {
+        Arrays.fill(CASTLING_MASKS, ALL_CASTLING_RIGHTS);
+        CASTLING_MASKS[0] &= ~WHITE_QUEEN_SIDE;
+        CASTLING_MASKS[4] &= ~(WHITE_KING_SIDE | WHITE_QUEEN_SIDE);
+        CASTLING_MASKS[7] &= ~WHITE_KING_SIDE;
+        CASTLING_MASKS[56] &= ~BLACK_QUEEN_SIDE;
+        CASTLING_MASKS[60] &= ~(BLACK_KING_SIDE | BLACK_QUEEN_SIDE);
+        CASTLING_MASKS[63] &= ~BLACK_KING_SIDE;
+    }
+
+    /**
+     * Bitboards of pieces, indexed by a piece index.
+     */
+    private final long[] pieceBoards;
+    /**
+     * Bitboards of squares occupied by each color, indexed by a color ordinal.
+     */
+    private final long[] colorOccupancy;
+    /**
+     * Bitboard of all occupied squares.
+     */
+    private long occupancy;
+    /**
+     * Color of pieces which make the next move.
+     */
+    private PieceColor sideToMove;
+    /**
+     * Castling rights, a combination of castling rights flags.
+     */
+    private int castlingRights;
+    /**
+     * Square which a pawn has just skipped by a double push, or -1 if there is no such square.
+     */
+    private int enPassantSquare;
+    /**
+     * Number of moves since the last capture or pawn move, for the fifty-move rule.
+     */
+    private int halfmoveClock;
+    /**
+     * Number of the current full move, starting from 1 and incremented after each move of black.
+     */
+    private int fullmoveNumber;
+    /**
+     * Zobrist key of the current state of the board.
+     */
+    private long zobristKey;
+    /**
+     * Sums of middlegame and endgame scores of all pieces on their squares, from the point of
+     * view of white, see {@link Evaluation}.
+     */
+    private int middlegameScore;
+    private int endgameScore;
+    /**
+     * Game phase, a sum of phase weights of all pieces on the board.
+     */
+    private int gamePhase;
+    /**
+     * Undo stack of made moves. Each entry packs the move (bits 0-15), the captured piece
+     * index plus one (bits 16-19), castling rights (bits 20-23) and the en passant square
+     * plus one (bits 24-30) as they were before the move, a null move flag (bit 31) and
+     * the halfmove clock before the move (bits 32-47).
+     */
+    private long[] undoStates;
+    /**
+     * Zobrist keys before each move of the undo stack.
+     */
+    private long[] undoKeys;
+    /**
+     * Number of entries in the undo stack.
+     */
+    private int undoCount;
+    /**
+     * Renderer of the text of the board, created when the board is printed first.
+     */
+    private BoardRenderer renderer;
+    /**
+     * Attack maps updated with each put or removed piece, or null if they are not enabled.
+     */
+    private AttackMaps attackMaps;
 
     /**
      * Initializes a chessboard with all pieces on their initial positions.
      */
     public Chessboard() {
-        state = new HashMap<>();
+        this.pieceBoards = new long[PIECE_KINDS];
+        this.colorOccupancy = new long[2];
+        this.sideToMove = WHITE;
+        this.castlingRights = ALL_CASTLING_RIGHTS;
+        this.enPassantSquare = -1;
+        this.fullmoveNumber = 1;
+        this.undoStates = new long[INITIAL_UNDO_CAPACITY];
+        this.undoKeys = new long[INITIAL_UNDO_CAPACITY];
         initializeFiguresRow(WHITE);
         initializePawnRow(WHITE);
         initializePawnRow(BLACK);
         initializeFiguresRow(BLACK);
+        this.zobristKey = computeZobristKey();
+    }
+
+    /**
+     * Initializes a chessboard as a copy of another chessboard.
+     *
+     * @param other is a chessboard to copy.
+     */
+    public Chessboard(@NotNull Chessboard other) {
+        this.pieceBoards = other.pieceBoards.clone();
+        this.colorOccupancy = other.colorOccupancy.clone();
+        this.occupancy = other.occupancy;
+        this.sideToMove = other.sideToMove;
+        this.castlingRights = other.castlingRights;
+        this.enPassantSquare = other.enPassantSquare;
+        this.halfmoveClock = other.halfmoveClock;
+        this.fullmoveNumber = other.fullmoveNumber;
+        this.zobristKey = other.zobristKey;
+        this.middlegameScore = other.middlegameScore;
+        this.endgameScore = other.endgameScore;
+        this.gamePhase = other.gamePhase;
+        this.undoStates = other.undoStates.clone();
+        this.undoKeys = other.undoKeys.clone();
+        this.undoCount = other.undoCount;
+        this.attackMaps = other.attackMaps == null ? null : new AttackMaps(other.attackMaps);
     }
 
     /**
      * Function returns a piece at given position.
      *
      * @param position is a position of a required piece.
-     * @return a piece at given position.
+     * @return a piece at given position or null if the position is empty.
      */
-    public Piece getPieceAt(Position position) {
-        return state.get(position);
+    @Override
+    public Piece getPieceAt(@NotNull Position position) {
+        int square = squareOf(position);
+        if (square < 0) return null;
+        int pieceIndex = pieceIndexAt(square);
+
+        return pieceIndex < 0 ? null : Piece.of(pieceIndex);
     }
 
     /**
      * Moves a piece on the chessboard.
      *
      * @param move is a description of a move to be made.
-     * @return
+     * @return a piece which was moved.
      */
     @Override
     public Piece movePiece(@NotNull Move move) throws WrongMoveException {
-        if (this.state.get(move.from()) == null) throw new WrongMoveException("You can't move a non-existing piece.");
+        long start = Metrics.start();
         validateBySituation(move);
-        this.state.put(move.to(), this.state.get(move.from()));
-        this.state.remove(move.from());
+        int movedPieceIndex = pieceIndexAt(squareOf(move.from()));
+        makeMove(encodeMove(move));
+        Metrics.BOARD_UPDATE.recordSince(start);
+
+        return Piece.of(movedPieceIndex);
+    }
+
+    /**
+     * Takes back the last move made on the chessboard.
+     *
+     * @return a piece which was moved back.
+     * @throws WrongMoveException if no moves were made.
+     */
+    @Override
+    public Piece unmakeMove() throws WrongMoveException {
+        if (this.undoCount == 0) throw new WrongMoveException("You can't take back a move, no moves were made.");
+        int lastMove = (int) this.undoStates[this.undoCount - 1] & 0xFFFF;
+        undoMove();
+
+        return Piece.of(pieceIndexAt(PackedMove.from(lastMove)));
+    }
+
+    /**
+     * Makes a packed move. Castling also moves the rook, en passant removes the captured
+     * pawn and promotion replaces the pawn. The move is expected to be well-formed,
+     * it is not validated. The move is pushed to the undo stack.
+     *
+     * @param move is a packed move, see {@link PackedMove}.
+     */
+    public void makeMove(int move) {
+        int from = PackedMove.from(move);
+        int to = PackedMove.to(move);
+        int flags = PackedMove.flags(move);
+        int movedPieceIndex = pieceIndexAt(from);
+        int colorOrdinal = movedPieceIndex / 6;
+        int capturedSquare = flags == PackedMove.EN_PASSANT ? (colorOrdinal == 0 ? to - 8 : to + 8) : to;
+        int capturedPieceIndex = pieceIndexAt(capturedSquare);
+        pushUndoState(move, capturedPieceIndex);
+
+        if (capturedPieceIndex >= 0) removePiece(capturedPieceIndex, capturedSquare);
+
+        removePiece(movedPieceIndex, from);
+        PieceType promotion = PackedMove.promotionType(move);
+        putPiece(promotion == null ? movedPieceIndex : colorOrdinal * 6 + promotion.ordinal(), to);
+
+        if (flags == PackedMove.KING_CASTLE) {
+            int rookIndex = colorOrdinal * 6 + PieceType.ROOK.ordinal();
+            removePiece(rookIndex, from + 3);
+            putPiece(rookIndex, from + 1);
+        } else if (flags == PackedMove.QUEEN_CASTLE) {
+            int rookIndex = colorOrdinal * 6 + PieceType.ROOK.ordinal();
+            removePiece(rookIndex, from - 4);
+            putPiece(rookIndex, from - 1);
+        }
+
+        int castlingRights = this.castlingRights & CASTLING_MASKS[from] & CASTLING_MASKS[to];
+        this.zobristKey ^= Zobrist.CASTLING[this.castlingRights] ^ Zobrist.CASTLING[castlingRights];
+        this.castlingRights = castlingRights;
+
+        if (this.enPassantSquare >= 0) this.zobristKey ^= Zobrist.EN_PASSANT_FILE[this.enPassantSquare & 7];
+        this.enPassantSquare = -1;
+        if (flags == PackedMove.DOUBLE_PAWN_PUSH) {
+            int skippedSquare = (from + to) >>> 1;
+            long enemyPawns = this.pieceBoards[pieceIndex(PieceType.PAWN, colorOrdinal == 0 ? BLACK : WHITE)];
+            // the square is remembered only if an enemy pawn can capture on it, so that
+            // equal positions have equal keys
+            if ((AttackTables.pawnAttacks(colorOrdinal, skippedSquare) & enemyPawns) != 0) {
+                this.enPassantSquare = skippedSquare;
+                this.zobristKey ^= Zobrist.EN_PASSANT_FILE[skippedSquare & 7];
+            }
+        }
+
+        boolean pawnMove = movedPieceIndex % 6 == PieceType.PAWN.ordinal();
+        this.halfmoveClock = pawnMove || capturedPieceIndex >= 0 ? 0 : this.halfmoveClock + 1;
+        if (colorOrdinal == 1) this.fullmoveNumber++;
+
+        PieceColor sideToMove = colorOrdinal == 0 ? BLACK : WHITE;
+        if (sideToMove != this.sideToMove) this.zobristKey ^= Zobrist.BLACK_TO_MOVE;
+        this.sideToMove = sideToMove;
+    }
+
+    /**
+     * Passes the move to the other side without moving a piece. Search uses null moves to
+     * check if a position is so good that even a free move for the opponent does not help.
+     * The null move is pushed to the undo stack and is taken back by {@link #undoMove()}.
+     */
+    public void makeNullMove() {
+        pushUndoState(PackedMove.NONE, -1);
+        this.undoStates[this.undoCount - 1] |= NULL_MOVE_FLAG;
+
+        if (this.enPassantSquare >= 0) this.zobristKey ^= Zobrist.EN_PASSANT_FILE[this.enPassantSquare & 7];
+        this.enPassantSquare = -1;
+        this.halfmoveClock++;
+        if (this.sideToMove == BLACK) this.fullmoveNumber++;
+        this.sideToMove = this.sideToMove == WHITE ? BLACK : WHITE;
+        this.zobristKey ^= Zobrist.BLACK_TO_MOVE;
+    }
+
+    /**
+     * Takes back the last move of the undo stack. The undo stack is expected to be non-empty.
+     */
+    public void undoMove() {
+        long state = this.undoStates[--this.undoCount];
+        if ((state & NULL_MOVE_FLAG) != 0) {
+            this.enPassantSquare = (int) (state >>> 24 & 0x7F) - 1;
+            this.halfmoveClock = (int) (state >>> 32 & 0xFFFF);
+            this.sideToMove = this.sideToMove == WHITE ? BLACK : WHITE;
+            if (this.sideToMove == BLACK) this.fullmoveNumber--;
+            this.zobristKey = this.undoKeys[this.undoCount];
+            return;
+        }
+
+        int move = (int) state & 0xFFFF;
+        int capturedPieceIndex = (int) (state >>> 16 & 0xF) - 1;
+        int from = PackedMove.from(move);
+        int to = PackedMove.to(move);
+        int flags = PackedMove.flags(move);
+        int movedPieceIndex = pieceIndexAt(to);
+        int colorOrdinal = movedPieceIndex / 6;
+
+        removePiece(movedPieceIndex, to);
+        putPiece(PackedMove.isPromotion(move) ? colorOrdinal * 6 + PieceType.PAWN.ordinal() : movedPieceIndex, from);
+
+        if (flags == PackedMove.EN_PASSANT) {
+            putPiece(capturedPieceIndex, colorOrdinal == 0 ? to - 8 : to + 8);
+        } else if (capturedPieceIndex >= 0) {
+            putPiece(capturedPieceIndex, to);
+        } else if (flags == PackedMove.KING_CASTLE) {
+            int rookIndex = colorOrdinal * 6 + PieceType.ROOK.ordinal();
+            removePiece(rookIndex, from + 1);
+            putPiece(rookIndex, from + 3);
+        } else if (flags == PackedMove.QUEEN_CASTLE) {
+            int rookIndex = colorOrdinal * 6 + PieceType.ROOK.ordinal();
+            removePiece(rookIndex, from - 1);
+            putPiece(rookIndex, from - 4);
+        }
+
+        this.castlingRights = (int) (state >>> 20 & 0xF);
+        this.enPassantSquare = (int) (state >>> 24 & 0x7F) - 1;
+        this.halfmoveClock = (int) (state >>> 32 & 0xFFFF);
+        this.sideToMove = colorOrdinal == 0 ? WHITE : BLACK;
+        if (colorOrdinal == 1) this.fullmoveNumber--;
+        this.zobristKey = this.undoKeys[this.undoCount];
+    }
+
+    /**
+     * Returns a number of moves which can be taken back. It is at most {@link #MAX_UNDO_DEPTH},
+     * and only recent moves of a longer game can be taken back.
+     *
+     * @return a size of the undo stack.
+     */
+    public int getUndoCount() {
+        return this.undoCount;
+    }
+
+    /**
+     * Returns a Zobrist key the board had before a move of the undo stack was made.
+     *
+     * @param index is an index in the undo stack, from 0 (the first move) to
+     *              {@link #getUndoCount()} - 1 (the last move).
+     * @return a 64-bit position key.
+     */
+    public long getZobristKeyBefore(int index) {
+        return this.undoKeys[index];
+    }
+
+    /**
+     * Pushes the state which a move is about to change to the undo stack, growing it if needed.
+     * A full stack of {@link #MAX_UNDO_DEPTH} moves drops its older half instead of growing.
+     *
+     * @param move               is a packed move about to be made.
+     * @param capturedPieceIndex is an index of a piece captured by the move or -1.
+     */
+    private void pushUndoState(int move, int capturedPieceIndex) {
+        if (this.undoCount == MAX_UNDO_DEPTH) {
+            int kept = MAX_UNDO_DEPTH / 2;
+            System.arraycopy(this.undoStates, this.undoCount - kept, this.undoStates, 0, kept);
+            System.arraycopy(this.undoKeys, this.undoCount - kept, this.undoKeys, 0, kept);
+            this.undoCount = kept;
+        } else if (this.undoCount == this.undoStates.length) {
+            this.undoStates = Arrays.copyOf(this.undoStates, Math.min(this.undoCount * 2, MAX_UNDO_DEPTH));
+            this.undoKeys = Arrays.copyOf(this.undoKeys, Math.min(this.undoCount * 2, MAX_UNDO_DEPTH));
+        }
+        this.undoStates[this.undoCount] = (move & 0xFFFFL)
+                | (long) (capturedPieceIndex + 1) << 16
+                | (long) this.castlingRights << 20
+                | (long) (this.enPassantSquare + 1) << 24
+                | (long) Math.min(this.halfmoveClock, 0xFFFF) << 32;
+        this.undoKeys[this.undoCount++] = this.zobristKey;
+    }
+
+    /**
+     * Packs a move description, deriving move flags from the current state of the board.
+     * A pawn reaching the last row is promoted to the piece requested by the move, or to
+     * a queen if none is requested.
+     *
+     * @param move is a description of a move.
+     * @return a packed move or {@link PackedMove#NONE} if the move is not within the
+     * chessboard or there is no piece to move.
+     */
+    public int encodeMove(@NotNull Move move) {
+        int from = squareOf(move.from());
+        int to = squareOf(move.to());
+        if (from < 0 || to < 0) return PackedMove.NONE;
+
+        return encodeMove(from, to, move.promotion());
+    }
+
+    /**
+     * Packs a move given by its squares, deriving move flags from the current state of the
+     * board, like {@link #encodeMove(Move)}.
+     *
+     * @param from      is a square the piece moves from.
+     * @param to        is a square the piece moves to.
+     * @param promotion is a type of piece a pawn is promoted to, or null for a queen.
+     * @return a packed move or {@link PackedMove#NONE} if there is no piece to move.
+     */
+    public int encodeMove(int from, int to, PieceType promotion) {
+        int movedPieceIndex = pieceIndexAt(from);
+        if (movedPieceIndex < 0) return PackedMove.NONE;
+
+        boolean capture = (this.occupancy & (1L << to)) != 0;
+        int movedPieceType = movedPieceIndex % 6;
+        if (movedPieceType == PieceType.PAWN.ordinal()) {
+            if (to >>> 3 == 0 || to >>> 3 == 7) {
+                return PackedMove.promotion(from, to, promotion == null ? PieceType.QUEEN : promotion, capture);
+            } else if (to == this.enPassantSquare && (from & 7) != (to & 7)) {
+                return PackedMove.of(from, to, PackedMove.EN_PASSANT);
+            } else if (Math.abs(to - from) == 16) {
+                return PackedMove.of(from, to, PackedMove.DOUBLE_PAWN_PUSH);
+            }
+        } else if (movedPieceType == PieceType.KING.ordinal() && Math.abs(to - from) == 2) {
+            return PackedMove.of(from, to, to > from ? PackedMove.KING_CASTLE : PackedMove.QUEEN_CASTLE);
+        }
+
+        return PackedMove.of(from, to, capture ? PackedMove.CAPTURE : PackedMove.QUIET);
+    }
+
+    /**
+     * Returns a bitboard of pieces of given color which attack a square.
+     *
+     * @param square        is a square index.
+     * @param attackerColor is a color of attacking pieces.
+     * @param occupancy     is a bitboard of occupied squares to use for sliding pieces,
+     *                      which allows to check attacks as if some pieces were moved.
+     * @return a bitboard of squares of attacking pieces.
+     */
+    public long attackersOf(int square, @NotNull PieceColor attackerColor, long occupancy) {
+        int base = attackerColor.ordinal() * 6;
+        long queens = this.pieceBoards[base + PieceType.QUEEN.ordinal()];
+
+        return AttackTables.pawnAttacks(attackerColor.ordinal() ^ 1, square) & this.pieceBoards[base + PieceType.PAWN.ordinal()]
+                | AttackTables.knightAttacks(square) & this.pieceBoards[base + PieceType.KNIGHT.ordinal()]
+                | AttackTables.kingAttacks(square) & this.pieceBoards[base + PieceType.KING.ordinal()]
+                | AttackTables.rookAttacks(square, occupancy) & (this.pieceBoards[base + PieceType.ROOK.ordinal()] | queens)
+                | AttackTables.bishopAttacks(square, occupancy) & (this.pieceBoards[base + PieceType.BISHOP.ordinal()] | queens);
+    }
+
+    /**
+     * Checks if a square is attacked by pieces of given color.
+     *
+     * @param square        is a square index.
+     * @param attackerColor is a color of attacking pieces.
+     * @return true if the square is attacked.
+     */
+    public boolean isSquareAttacked(int square, @NotNull PieceColor attackerColor) {
+        if (this.attackMaps != null) return this.attackMaps.isAttacked(square, attackerColor);
+
+        return attackersOf(square, attackerColor, this.occupancy) != 0;
+    }
+
+    /**
+     * Checks if a king of given color is in check.
+     *
+     * @param color is a color of the king.
+     * @return true if the king is attacked.
+     */
+    public boolean isInCheck(@NotNull PieceColor color) {
+        int kingSquare = getKingSquare(color);
+        return kingSquare >= 0 && isSquareAttacked(kingSquare, color == WHITE ? BLACK : WHITE);
+    }
+
+    /**
+     * Enables attack maps, which are built for the current position and then updated with
+     * every move. They make {@link #isSquareAttacked(int, PieceColor)} and
+     * {@link #isInCheck(PieceColor)} a mask test, at the cost of slower moves, so they pay
+     * off for boards which are asked about attacks more often than they are changed. A copy
+     * of a board copies its attack maps.
+     *
+     * @return the attack maps of the board.
+     */
+    @NotNull
+    public AttackMaps enableAttackMaps() {
+        if (this.attackMaps == null) {
+            this.attackMaps = new AttackMaps();
+            rebuildAttackMaps();
+        }
+
+        return this.attackMaps;
+    }
+
+    /**
+     * Disables attack maps, so that moves don't update them.
+     */
+    public void disableAttackMaps() {
+        this.attackMaps = null;
+    }
+
+    /**
+     * Returns attack maps of the board.
+     *
+     * @return the attack maps or null if they are not enabled.
+     */
+    public AttackMaps getAttackMaps() {
+        return this.attackMaps;
+    }
+
+    /**
+     * Builds the attack maps from scratch, putting pieces on an empty board one by one.
+     */
+    private void rebuildAttackMaps() {
+        this.attackMaps.clear();
+        long[] pieceBoards = new long[PIECE_KINDS];
+        long occupancy = 0;
+        for (long squares = this.occupancy; squares != 0; squares &= squares - 1) {
+            int square = Long.numberOfTrailingZeros(squares);
+            int pieceIndex = pieceIndexAt(square);
+            pieceBoards[pieceIndex] |= 1L << square;
+            occupancy |= 1L << square;
+            this.attackMaps.piecePut(pieceIndex, square, pieceBoards, occupancy);
+        }
+    }
+
+    /**
+     * Returns a square of a king of given color.
+     *
+     * @param color is a color of the king.
+     * @return a square index or -1 if there is no such king on the board.
+     */
+    public int getKingSquare(@NotNull PieceColor color) {
+        long king = this.pieceBoards[pieceIndex(PieceType.KING, color)];
+        return king == 0 ? -1 : Long.numberOfTrailingZeros(king);
+    }
+
+    /**
+     * Returns a Zobrist key of the current state of the board: pieces, side to move,
+     * castling rights and en passant file. Equal states have equal keys, and different
+     * states have different keys with a very high probability.
+     *
+     * @return a 64-bit position key.
+     */
+    public long getZobristKey() {
+        return this.zobristKey;
+    }
+
+    /**
+     * Computes a Zobrist key of the current state from scratch.
+     *
+     * @return a 64-bit position key.
+     */
+    long computeZobristKey() {
+        long key = 0;
+        for (int pieceIndex = 0; pieceIndex < PIECE_KINDS; pieceIndex++) {
+            long pieces = this.pieceBoards[pieceIndex];
+            while (pieces != 0) {
+                key ^= Zobrist.PIECE_SQUARE[pieceIndex][Long.numberOfTrailingZeros(pieces)];
+                pieces &= pieces - 1;
+            }
+        }
+        key ^= Zobrist.CASTLING[this.castlingRights];
+        if (this.enPassantSquare >= 0) key ^= Zobrist.EN_PASSANT_FILE[this.enPassantSquare & 7];
+        if (this.sideToMove == BLACK) key ^= Zobrist.BLACK_TO_MOVE;
+
+        return key;
+    }
+
+    /**
+     * Returns a sum of middlegame material and piece-square scores of all pieces.
+     *
+     * @return a score in centipawns from the point of view of white.
+     */
+    public int getMiddlegameScore() {
+        return this.middlegameScore;
+    }
+
+    /**
+     * Returns a sum of endgame material and piece-square scores of all pieces.
+     *
+     * @return a score in centipawns from the point of view of white.
+     */
+    public int getEndgameScore() {
+        return this.endgameScore;
+    }
+
+    /**
+     * Returns the game phase, which decreases as pieces are captured.
+     *
+     * @return a sum of phase weights of pieces, 24 for the initial position or more after promotions.
+     */
+    public int getGamePhase() {
+        return this.gamePhase;
+    }
+
+    /**
+     * Returns a color of pieces which make the next move.
+     *
+     * @return a color of the side to move.
+     */
+    public PieceColor getSideToMove() {
+        return this.sideToMove;
+    }
+
+    /**
+     * Returns castling rights.
+     *
+     * @return a combination of castling rights flags.
+     */
+    public int getCastlingRights() {
+        return this.castlingRights;
+    }
+
+    /**
+     * Returns an en passant square.
+     *
+     * @return a square which a pawn has just skipped by a double push, or -1 if there is none.
+     */
+    public int getEnPassantSquare() {
+        return this.enPassantSquare;
+    }
+
+    /**
+     * Returns the halfmove clock.
+     *
+     * @return a number of moves since the last capture or pawn move.
+     */
+    public int getHalfmoveClock() {
+        return this.halfmoveClock;
+    }
+
+    /**
+     * Returns the fullmove number.
+     *
+     * @return a number of the current full move, starting from 1.
+     */
+    public int getFullmoveNumber() {
+        return this.fullmoveNumber;
+    }
+
+    /**
+     * Returns a bitboard of pieces of given type and color.
+     *
+     * @param type  is a type of pieces.
+     * @param color is a color of pieces.
+     * @return a bitboard of squares occupied by such pieces.
+     */
+    public long getPieces(@NotNull PieceType type, @NotNull PieceColor color) {
+        return this.pieceBoards[pieceIndex(type, color)];
+    }
+
+    /**
+     * Returns a bitboard of squares occupied by pieces of given color.
+     *
+     * @param color is a color of pieces.
+     * @return a bitboard of squares occupied by pieces of this color.
+     */
+    public long getOccupancy(@NotNull PieceColor color) {
+        return this.colorOccupancy[color.ordinal()];
+    }
+
+    /**
+     * Returns a bitboard of all occupied squares.
+     *
+     * @return a bitboard of occupied squares.
+     */
+    public long getOccupancy() {
+        return this.occupancy;
+    }
+
+    /**
+     * Returns an index of a piece standing on given square.
+     *
+     * @param square is a square index from 0 (a1) to 63 (h8).
+     * @return a piece index or -1 if the square is empty.
+     */
+    public int pieceIndexAt(int square) {
+        long bit = 1L << square;
+        if ((this.occupancy & bit) == 0) return -1;
 
-        return this.state.get(move.to());
+        int firstIndex = (this.colorOccupancy[WHITE.ordinal()] & bit) != 0 ? 0 : 6;
+        for (int pieceIndex = firstIndex; pieceIndex < firstIndex + 6; pieceIndex++) {
+            if ((this.pieceBoards[pieceIndex] & bit) != 0) return pieceIndex;
+        }
+
+        return -1;
     }
 
+    /**
+     * Returns an index of a piece of given type and color. White pieces have indices
+     * from 0 to 5 and black pieces from 6 to 11, in order of {@link PieceType}.
+     *
+     * @param type  is a type of piece.
+     * @param color is a color of piece.
+     * @return a piece index.
+     */
     @Contract(pure = true)
-    private void validateBySituation(@NotNull Move move) throws WrongMoveException {
-        if (this.state.get(move.to()) != null && this.state.get(move.to()).color == this.state.get(move.from()).color) {
+    public static int pieceIndex(@NotNull PieceType type, @NotNull PieceColor color) {
+        return color.ordinal() * 6 + type.ordinal();
+    }
+
+    /**
+     * Returns a square index of given position.
+     *
+     * @param position is a position on the chessboard.
+     * @return a square index from 0 (a1) to 63 (h8) or -1 if the position is not within the chessboard.
+     */
+    public static int squareOf(@NotNull Position position) {
+        int x = position.getNumerical().x();
+        int y = position.getNumerical().y();
+        if ((x | y) < 0 || x > 7 || y > 7) return -1;
+
+        return y * 8 + x;
+    }
+
+    /**
+     * Checks if a move is possible in the current situation on the board, regardless of the
+     * game rules: there is a piece to move and it is not moved on a piece of the same color.
+     *
+     * @param move is a description of a move to be made.
+     * @throws WrongMoveException if the move is impossible.
+     */
+    void validateBySituation(@NotNull Move move) throws WrongMoveException {
+        int from = squareOf(move.from());
+        int to = squareOf(move.to());
+        int movedPieceIndex = from < 0 ? -1 : pieceIndexAt(from);
+        if (movedPieceIndex < 0) throw new WrongMoveException("You can't move a non-existing piece.");
+        if (to < 0) throw new WrongMoveException("Move is ended not within the chessboard.");
+        if ((this.colorOccupancy[movedPieceIndex / 6] & (1L << to)) != 0) {
             throw new WrongMoveException("You can't move your piece on your piece.");
         }
     }
 
+    /**
+     * Removes all pieces and clears the undo stack, before a position is set up piece by piece
+     * with {@link #placePiece(int, int)} and {@link #setState(PieceColor, int, int, int, int)}.
+     */
+    void clear() {
+        Arrays.fill(this.pieceBoards, 0L);
+        Arrays.fill(this.colorOccupancy, 0L);
+        this.occupancy = 0;
+        this.middlegameScore = 0;
+        this.endgameScore = 0;
+        this.gamePhase = 0;
+        this.undoCount = 0;
+        if (this.attackMaps != null) this.attackMaps.clear();
+    }
+
+    /**
+     * Puts a piece on an empty square while a position is set up.
+     *
+     * @param pieceIndex is an index of piece to put.
+     * @param square     is a square to put the piece on.
+     */
+    void placePiece(int pieceIndex, int square) {
+        putPiece(pieceIndex, square);
+    }
+
+    /**
+     * Completes setting up a position. Castling rights are kept only for kings and rooks
+     * standing on their initial squares, and the en passant square only if an enemy pawn can
+     * capture on it, the same as {@link #makeMove(int)} does, so that equal positions have
+     * equal keys.
+     *
+     * @param sideToMove      is a color of pieces which make the next move.
+     * @param castlingRights  is a combination of castling rights flags.
+     * @param enPassantSquare is a square skipped by a double push or -1.
+     * @param halfmoveClock   is a number of moves since the last capture or pawn move.
+     * @param fullmoveNumber  is a number of the current full move.
+     */
+    void setState(PieceColor sideToMove, int castlingRights, int enPassantSquare, int halfmoveClock, int fullmoveNumber) {
+        long whiteRooks = this.pieceBoards[pieceIndex(PieceType.ROOK, WHITE)];
+        long blackRooks = this.pieceBoards[pieceIndex(PieceType.ROOK, BLACK)];
+        if ((this.pieceBoards[pieceIndex(PieceType.KING, WHITE)] & 1L << 4) == 0) castlingRights &= ~(WHITE_KING_SIDE | WHITE_QUEEN_SIDE);
+        if ((this.pieceBoards[pieceIndex(PieceType.KING, BLACK)] & 1L << 60) == 0) castlingRights &= ~(BLACK_KING_SIDE | BLACK_QUEEN_SIDE);
+        if ((whiteRooks & 1L << 7) == 0) castlingRights &= ~WHITE_KING_SIDE;
+        if ((whiteRooks & 1L) == 0) castlingRights &= ~WHITE_QUEEN_SIDE;
+        if ((blackRooks & 1L << 63) == 0) castlingRights &= ~BLACK_KING_SIDE;
+        if ((blackRooks & 1L << 56) == 0) castlingRights &= ~BLACK_QUEEN_SIDE;
+
+        if (enPassantSquare >= 0) {
+            long capturingPawns = this.pieceBoards[pieceIndex(PieceType.PAWN, sideToMove)];
+            int opponentOrdinal = sideToMove == WHITE ? 1 : 0;
+            if ((AttackTables.pawnAttacks(opponentOrdinal, enPassantSquare) & capturingPawns) == 0) enPassantSquare = -1;
+        }
+
+        this.sideToMove = sideToMove;
+        this.castlingRights = castlingRights;
+        this.enPassantSquare = enPassantSquare;
+        this.halfmoveClock = halfmoveClock;
+        this.fullmoveNumber = fullmoveNumber;
+        this.zobristKey = computeZobristKey();
+    }
+
+    /**
+     * Puts a piece on an empty square and updates occupancy masks, the Zobrist key and
+     * evaluation scores, as well as attack maps if they are enabled.
+     *
+     * @param pieceIndex is an index of piece to put.
+     * @param square     is a square to put the piece on.
+     */
+    private void putPiece(int pieceIndex, int square) {
+        long bit = 1L << square;
+        this.pieceBoards[pieceIndex] |= bit;
+        this.colorOccupancy[pieceIndex / 6] |= bit;
+        this.occupancy |= bit;
+        this.zobristKey ^= Zobrist.PIECE_SQUARE[pieceIndex][square];
+        this.middlegameScore += Evaluation.MIDDLEGAME_SCORES[pieceIndex][square];
+        this.endgameScore += Evaluation.ENDGAME_SCORES[pieceIndex][square];
+        this.gamePhase += Evaluation.PHASE[pieceIndex];
+        if (this.attackMaps != null) this.attackMaps.piecePut(pieceIndex, square, this.pieceBoards, this.occupancy);
+    }
+
+    /**
+     * Removes a piece from a square and updates occupancy masks, the Zobrist key and
+     * evaluation scores, as well as attack maps if they are enabled.
+     *
+     * @param pieceIndex is an index of piece to remove.
+     * @param square     is a square to remove the piece from.
+     */
+    private void removePiece(int pieceIndex, int square) {
+        long mask = ~(1L << square);
+        this.pieceBoards[pieceIndex] &= mask;
+        this.colorOccupancy[pieceIndex / 6] &= mask;
+        this.occupancy &= mask;
+        this.zobristKey ^= Zobrist.PIECE_SQUARE[pieceIndex][square];
+        this.middlegameScore -= Evaluation.MIDDLEGAME_SCORES[pieceIndex][square];
+        this.endgameScore -= Evaluation.ENDGAME_SCORES[pieceIndex][square];
+        this.gamePhase -= Evaluation.PHASE[pieceIndex];
+        if (this.attackMaps != null) this.attackMaps.pieceRemoved(pieceIndex, square, this.pieceBoards, this.occupancy);
+    }
 
     /**
      * Function initializes a sequence of figures on the chessboard's 1st (for white) and
@@ -73,19 +859,15 @@ class Chessboard implements BoardStateRearranger {
      * @param color is a color of figures to initialize.
      */
     private void initializeFiguresRow(PieceColor color) {
-        Map<Position, Piece> figures = new HashMap<>();
-        int rowIndex = color == WHITE ? 0 : 7;
+        int rowStart = color == WHITE ? 0 : 56;
+        PieceType[] figures = {
+                PieceType.ROOK, PieceType.KNIGHT, PieceType.BISHOP, PieceType.QUEEN,
+                PieceType.KING, PieceType.BISHOP, PieceType.KNIGHT, PieceType.ROOK
+        };
 
-        figures.put(new Position(0, rowIndex), new Rook(color));
-        figures.put(new Position(1, rowIndex), new Knight(color));
-        figures.put(new Position(2, rowIndex), new Bishop(color));
-        figures.put(new Position(3, rowIndex), new Queen(color));
-        figures.put(new Position(4, rowIndex), new King(color));
-        figures.put(new Position(5, rowIndex), new Bishop(color));
-        figures.put(new Position(6, rowIndex), new Knight(color));
-        figures.put(new Position(7, rowIndex), new Rook(color));
-
-        state.putAll(figures);
+        for (int i = 0; i < 8; i++) {
+            putPiece(pieceIndex(figures[i], color), rowStart + i);
+        }
     }
 
     /**
@@ -95,22 +877,27 @@ class Chessboard implements BoardStateRearranger {
      * @param color is a color of pawns to initialize.
      */
     private void initializePawnRow(PieceColor color) {
-        Map<Position, Piece> pawns = new HashMap<>();
+        int rowStart = color == WHITE ? 8 : 48;
 
         for (int i = 0; i < 8; i++) {
-            pawns.put(new Position(i, color == WHITE ? 1 : 6), new Pawn(color));
+            putPiece(pieceIndex(PieceType.PAWN, color), rowStart + i);
         }
-
-        state.putAll(pawns);
     }
 
     /**
-     * Overrides toString method to print a chessboard.
+     * Overrides toString method to print a chessboard. Only squares changed since the last
+     * call are redrawn, see {@link BoardRenderer}.
      *
      * @return a string representation of a chessboard.
      */
     @Override
     public String toString() {
-        return BoardVisualizer.visualizeAsString(this.state);
+        BoardRenderer renderer = this.renderer;
+        if (renderer == null) {
+            renderer = new BoardRenderer();
+            this.renderer = renderer;
+        }
+
+        return renderer.render(this);
     }
 }
@@ -0,0 +1,314 @@
+package to.grindelf.circuitclash.domain;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Endgame table of one material balance: a king with one or two pieces (the strong side)
+ * against a lone king. For every position the table stores whether the side to move wins,
+ * draws or loses, in 2 bits, so the table of a king with two pieces takes about 1.3 MB.
+ * Tables are written by {@link EndgameTableGenerator}.
+ * <p>
+ * Positions are stored with the strong side as white; positions where black is strong are
+ * flipped before a lookup. Without pawns the board is also mirrored and turned so that the
+ * strong king stands in the triangle a1-d1-d4 (10 squares), with pawns it is only mirrored
+ * so that the strong king stands on files a-d (32 squares). A position index is then
+ * {@code (((strongKing * 64 + weakKing) * 64 + firstPiece) * 64 + secondPiece) * 2 + sideToMove},
+ * where pieces are ordered by {@link PieceType} and the side to move is 0 for the strong side.
+ * <p>
+ * A table file starts with a header of {@link #HEADER_BYTES} bytes: the magic number
+ * {@link #MAGIC}, the format {@link #VERSION} (2 bytes), the number of pieces of the strong
+ * side (1 byte) and their type ordinals (1 byte each). Values of positions follow, four per
+ * byte, starting from the lowest bits. The file is memory-mapped, so a lookup reads one byte.
+ */
+public final class EndgameTable implements Closeable {
+
+    /**
+     * Value of a position which is not in the table, or of an impossible position.
+     */
+    public static final int UNKNOWN = 0;
+    /**
+     * Values of positions from the point of view of the side to move.
+     */
+    public static final int WIN = 1;
+    public static final int DRAW = 2;
+    public static final int LOSS = 3;
+
+    /**
+     * Magic number of a table file, "CCTB" in ASCII.
+     */
+    static final int MAGIC = 0x43435442;
+    /**
+     * Version of the format.
+     */
+    static final short VERSION = 1;
+    static final int HEADER_BYTES = 16;
+    /**
+     * Maximum number of pieces of the strong side besides the king.
+     */
+    static final int MAX_STRONG_PIECES = 2;
+
+    private static final int PAWNLESS_KING_SQUARES = 10;
+    private static final int PAWN_KING_SQUARES = 32;
+    /**
+     * Indices of squares of the triangle a1-d1-d4, or -1 for other squares.
+     */
+    private static final int[] TRIANGLE_INDICES = new int[64];
+    /**
+     * Squares of the triangle a1-d1-d4, indexed by their triangle indices.
+     */
+    private static final int[] TRIANGLE_SQUARES = new int[PAWNLESS_KING_SQUARES];
+    private static final PieceType[] TYPES = PieceType.values();
+
+    static {
+        Arrays.fill(TRIANGLE_INDICES, -1);
+        int index = 0;
+        for (int square = 0; square < 64; square++) {
+            int file = square & 7;
+            int row = square >>> 3;
+            if (file <= 3 && row <= file) {
+                TRIANGLE_SQUARES[index] = square;
+                TRIANGLE_INDICES[square] = index++;
+            }
+        }
+    }
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    /**
+     * Types of pieces of the strong side besides the king, ordered by {@link PieceType}.
+     */
+    private final PieceType[] pieces;
+    /**
+     * Squares of pieces of a probed position. A table is probed by all threads of a search,
+     * so every thread has its own array.
+     */
+    private final ThreadLocal<int[]> squares = ThreadLocal.withInitial(() -> new int[MAX_STRONG_PIECES]);
+
+    /**
+     * Opens and maps a table file.
+     *
+     * @param file is a file to read.
+     * @throws IOException if the file cannot be read or is not a valid table.
+     */
+    public EndgameTable(@NotNull Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            long size = this.channel.size();
+            if (size < HEADER_BYTES) throw new IOException("Not an endgame table file.");
+            this.buffer = this.channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (this.buffer.getInt(0) != MAGIC) throw new IOException("Not an endgame table file.");
+            if (this.buffer.getShort(4) != VERSION) {
+                throw new IOException("Unsupported endgame table version " + this.buffer.getShort(4) + ".");
+            }
+
+            int pieceCount = this.buffer.get(6);
+            if (pieceCount < 1 || pieceCount > MAX_STRONG_PIECES) throw new IOException("Endgame table header is corrupted.");
+            this.pieces = new PieceType[pieceCount];
+            for (int i = 0; i < pieceCount; i++) {
+                int type = this.buffer.get(7 + i);
+                if (type < 0 || type >= PieceType.KING.ordinal()) throw new IOException("Endgame table header is corrupted.");
+                this.pieces[i] = TYPES[type];
+            }
+            if (!isOrdered(this.pieces) || size != HEADER_BYTES + (size(this.pieces) + 3) / 4) {
+                throw new IOException("Endgame table header is corrupted.");
+            }
+        } catch (IOException exception) {
+            this.channel.close();
+            throw exception;
+        }
+    }
+
+    /**
+     * Returns a name of the material balance of the table, like KBNK.
+     *
+     * @return a name of the table.
+     */
+    @NotNull
+    public String getName() {
+        return name(this.pieces);
+    }
+
+    /**
+     * Looks up the value of a position.
+     *
+     * @param board is a chessboard with the position.
+     * @return {@link #WIN}, {@link #DRAW} or {@link #LOSS} for the side to move, or
+     * {@link #UNKNOWN} if the material does not match the table or castling is possible.
+     */
+    public int probe(@NotNull Chessboard board) {
+        if (board.getCastlingRights() != 0) return UNKNOWN;
+        PieceColor strong = Long.bitCount(board.getOccupancy(PieceColor.WHITE)) > 1 ? PieceColor.WHITE : PieceColor.BLACK;
+        PieceColor weak = strong == PieceColor.WHITE ? PieceColor.BLACK : PieceColor.WHITE;
+        if (Long.bitCount(board.getOccupancy(weak)) != 1 || Long.bitCount(board.getOccupancy(strong)) != this.pieces.length + 1) {
+            return UNKNOWN;
+        }
+
+        // squares are flipped when black is strong, so that the strong side plays up the board
+        int flip = strong == PieceColor.WHITE ? 0 : 56;
+        int[] squares = this.squares.get();
+        long remaining = board.getOccupancy(strong) & ~board.getPieces(PieceType.KING, strong);
+        for (int i = 0; i < this.pieces.length; i++) {
+            long candidates = remaining & board.getPieces(this.pieces[i], strong);
+            if (candidates == 0) return UNKNOWN;
+            int square = Long.numberOfTrailingZeros(candidates);
+            remaining &= ~(1L << square);
+            squares[i] = square ^ flip;
+        }
+
+        long index = index(this.pieces, board.getKingSquare(strong) ^ flip, board.getKingSquare(weak) ^ flip,
+                squares, board.getSideToMove() == strong);
+
+        return this.buffer.get(HEADER_BYTES + (int) (index >>> 2)) >>> ((index & 3) << 1) & 3;
+    }
+
+    /**
+     * Closes the file. The mapping itself is released when the table is garbage collected.
+     *
+     * @throws IOException if an error occurs while closing the file.
+     */
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+
+    /**
+     * Returns a number of positions of a table.
+     *
+     * @param pieces is types of pieces of the strong side besides the king.
+     * @return a number of positions, including impossible ones.
+     */
+    static long size(@NotNull PieceType[] pieces) {
+        long size = hasPawns(pieces) ? PAWN_KING_SQUARES : PAWNLESS_KING_SQUARES;
+        for (int i = 0; i <= pieces.length; i++) {
+            size *= 64;
+        }
+
+        return size * 2;
+    }
+
+    /**
+     * Computes an index of a position, bringing it to the canonical orientation first.
+     *
+     * @param pieces       is types of pieces of the strong side besides the king, ordered by {@link PieceType}.
+     * @param strongKing   is a square of the strong king, with the strong side playing as white.
+     * @param weakKing     is a square of the weak king.
+     * @param squares      is squares of the pieces, in the order of their types. Elements after
+     *                     the squares of the pieces are ignored.
+     * @param strongToMove is true if the strong side is to move.
+     * @return an index of the position.
+     */
+    static long index(@NotNull PieceType[] pieces, int strongKing, int weakKing, @NotNull int[] squares, boolean strongToMove) {
+        int transform = 0;
+        int kingIndex;
+        if (hasPawns(pieces)) {
+            if ((strongKing & 7) > 3) transform = 7;
+            int square = strongKing ^ transform;
+            kingIndex = (square >>> 3) * 4 + (square & 7);
+        } else {
+            if ((strongKing & 7) > 3) transform |= 7;
+            if (strongKing >>> 3 > 3) transform |= 56;
+            int square = strongKing ^ transform;
+            if (square >>> 3 > (square & 7)) transform |= 64;
+            kingIndex = TRIANGLE_INDICES[transform(strongKing, transform)];
+        }
+
+        long index = kingIndex * 64L + transform(weakKing, transform);
+        for (int i = 0; i < pieces.length; i++) {
+            index = index * 64 + transform(squares[i], transform);
+        }
+
+        return index * 2 + (strongToMove ? 0 : 1);
+    }
+
+    /**
+     * Decodes the squares of the kings and pieces of a position index.
+     *
+     * @param pieces  is types of pieces of the strong side besides the king.
+     * @param index   is an index of the position.
+     * @param squares is an array to store squares of the pieces to, followed by the square of
+     *                the strong king and the square of the weak king.
+     * @return true if the strong side is to move.
+     */
+    static boolean decode(@NotNull PieceType[] pieces, long index, @NotNull int[] squares) {
+        boolean strongToMove = (index & 1) == 0;
+        index >>>= 1;
+        for (int i = pieces.length - 1; i >= 0; i--) {
+            squares[i] = (int) (index & 63);
+            index >>>= 6;
+        }
+        squares[pieces.length + 1] = (int) (index & 63);
+        int kingIndex = (int) (index >>> 6);
+        squares[pieces.length] = hasPawns(pieces) ? (kingIndex >>> 2) * 8 + (kingIndex & 3) : TRIANGLE_SQUARES[kingIndex];
+
+        return strongToMove;
+    }
+
+    /**
+     * Returns a name of a material balance, like KBNK.
+     *
+     * @param pieces is types of pieces of the strong side besides the king.
+     * @return a name with pieces from the queen to the pawn.
+     */
+    @NotNull
+    static String name(@NotNull PieceType[] pieces) {
+        StringBuilder name = new StringBuilder("K");
+        for (PieceType type : new PieceType[]{PieceType.QUEEN, PieceType.ROOK, PieceType.BISHOP, PieceType.KNIGHT, PieceType.PAWN}) {
+            for (PieceType piece : pieces) {
+                if (piece == type) name.append("PRNBQ".charAt(type.ordinal()));
+            }
+        }
+
+        return name.append('K').toString();
+    }
+
+    /**
+     * Checks if pieces are ordered by {@link PieceType}.
+     *
+     * @param pieces is types of pieces.
+     * @return true if the pieces are ordered.
+     */
+    static boolean isOrdered(@NotNull PieceType[] pieces) {
+        for (int i = 1; i < pieces.length; i++) {
+            if (pieces[i - 1].ordinal() > pieces[i].ordinal()) return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Checks if there are pawns among pieces.
+     *
+     * @param pieces is types of pieces.
+     * @return true if there is a pawn.
+     */
+    static boolean hasPawns(@NotNull PieceType[] pieces) {
+        for (PieceType piece : pieces) {
+            if (piece == PieceType.PAWN) return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Applies a symmetry to a square.
+     *
+     * @param square    is a square index.
+     * @param transform is a combination of 7 (mirror files), 56 (mirror rows) and 64
+     *                  (swap files and rows, applied after the mirroring).
+     * @return a transformed square index.
+     */
+    private static int transform(int square, int transform) {
+        square ^= transform & 63;
+        if ((transform & 64) != 0) square = (square & 7) << 3 | square >>> 3;
+
+        return square;
+    }
+}
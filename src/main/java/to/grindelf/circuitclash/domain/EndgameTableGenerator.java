@@ -0,0 +1,531 @@
+package to.grindelf.circuitclash.domain;
+
+import org.jetbrains.annotations.NotNull;
+import to.grindelf.circuitclash.utils.AttackTables;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Generator of {@link EndgameTable}s by retrograde analysis. All positions of a table are
+ * enumerated by their indices and resolved in passes: a position where the side to move
+ * is mated is lost, a position with a move to a lost position is won, and a position of
+ * the weak side where every move leads to a won position is lost. Passes repeat until no
+ * position changes, then the rest are draws. Captures and promotions lead to smaller
+ * tables, which are generated first and kept in memory.
+ * <p>
+ * Every pass is split into ranges of positions, resolved in parallel. A position only
+ * changes once, from unresolved to its final value, so threads can read values written by
+ * other threads in the same pass without locks: a stale read only delays a position to the
+ * next pass.
+ */
+public final class EndgameTableGenerator {
+
+    /**
+     * Value of a position which is not resolved yet.
+     */
+    private static final byte UNRESOLVED = 4;
+    private static final int POSITIONS_PER_TASK = 1 << 14;
+    private static final PieceType[] PROMOTIONS = {PieceType.QUEEN, PieceType.ROOK, PieceType.BISHOP, PieceType.KNIGHT};
+    private static final int BUFFER_BYTES = 64 * 1024;
+
+    private final int threads;
+    /**
+     * Values of generated tables, by table name.
+     */
+    private final Map<String, byte[]> tables = new HashMap<>();
+
+    /**
+     * Initializes a generator with a thread per processor.
+     */
+    public EndgameTableGenerator() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Initializes a generator.
+     *
+     * @param threads is a number of threads, at least 1.
+     */
+    public EndgameTableGenerator(int threads) {
+        if (threads < 1) throw new IllegalArgumentException("A generator needs at least one thread.");
+        this.threads = threads;
+    }
+
+    /**
+     * Generates tables given by names and writes them to a directory.
+     *
+     * @param args is the directory followed by table names, like KQK KRK KPK KBNK.
+     * @throws IOException if a table cannot be written.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: EndgameTableGenerator <directory> <table>... (e.g. KQK KRK KPK KBNK)");
+            return;
+        }
+
+        EndgameTableGenerator generator = new EndgameTableGenerator();
+        for (int i = 1; i < args.length; i++) {
+            long startTime = System.currentTimeMillis();
+            Path file = generator.generate(Path.of(args[0]), parseName(args[i]));
+            System.out.println(file + " generated in " + (System.currentTimeMillis() - startTime) + " ms.");
+        }
+    }
+
+    /**
+     * Generates a table and writes it to a directory, to a file named after the table, like
+     * KBNK.cctb, replacing an existing one.
+     *
+     * @param directory is a directory to write the table to.
+     * @param pieces    is types of one or two pieces of the strong side besides the king.
+     * @return a written file.
+     * @throws IOException if an error occurs while writing.
+     */
+    @NotNull
+    public Path generate(@NotNull Path directory, @NotNull PieceType... pieces) throws IOException {
+        PieceType[] ordered = order(pieces);
+        byte[] values = values(ordered);
+        Path file = directory.resolve(EndgameTable.name(ordered) + ".cctb");
+        Files.createDirectories(directory);
+
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+            buffer.putInt(EndgameTable.MAGIC).putShort(EndgameTable.VERSION).put((byte) ordered.length);
+            for (PieceType piece : ordered) {
+                buffer.put((byte) piece.ordinal());
+            }
+            while (buffer.position() < EndgameTable.HEADER_BYTES) {
+                buffer.put((byte) 0);
+            }
+
+            for (int i = 0; i < values.length; i += 4) {
+                int packed = 0;
+                for (int j = 0; j < 4 && i + j < values.length; j++) {
+                    packed |= values[i + j] << (j << 1);
+                }
+                if (!buffer.hasRemaining()) drain(buffer, channel);
+                buffer.put((byte) packed);
+            }
+            drain(buffer, channel);
+        }
+
+        return file;
+    }
+
+    /**
+     * Parses a table name, like KBNK.
+     *
+     * @param name is a name of a table.
+     * @return types of pieces of the strong side besides the king, ordered by {@link PieceType}.
+     */
+    @NotNull
+    static PieceType[] parseName(@NotNull String name) {
+        int pieceCount = name.length() - 2;
+        if (pieceCount < 1 || pieceCount > EndgameTable.MAX_STRONG_PIECES || name.charAt(0) != 'K' || name.charAt(name.length() - 1) != 'K') {
+            throw new IllegalArgumentException("Endgame table " + name + " is not supported.");
+        }
+
+        PieceType[] pieces = new PieceType[pieceCount];
+        for (int i = 0; i < pieceCount; i++) {
+            int type = "PRNBQ".indexOf(name.charAt(i + 1));
+            if (type < 0) throw new IllegalArgumentException("Endgame table " + name + " is not supported.");
+            pieces[i] = PieceType.values()[type];
+        }
+
+        return order(pieces);
+    }
+
+    /**
+     * Returns values of a table, generating it and the tables it leads to if needed.
+     *
+     * @param pieces is types of pieces of the strong side besides the king, ordered by {@link PieceType}.
+     * @return values of positions by their indices.
+     * @throws IOException if the generation is interrupted.
+     */
+    private byte[] values(PieceType[] pieces) throws IOException {
+        String name = EndgameTable.name(pieces);
+        byte[] values = this.tables.get(name);
+        if (values != null) return values;
+
+        for (int i = 0; i < pieces.length; i++) {
+            if (pieces.length > 1) values(without(pieces, i));
+            if (pieces[i] == PieceType.PAWN) {
+                for (PieceType promotion : PROMOTIONS) {
+                    values(order(replaced(pieces, i, promotion)));
+                }
+            }
+        }
+
+        values = new byte[(int) EndgameTable.size(pieces)];
+        Arrays.fill(values, UNRESOLVED);
+        ExecutorService executor = Executors.newFixedThreadPool(this.threads, runnable -> {
+            Thread thread = new Thread(runnable, "endgame-table-generator");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            // every pass resolves positions one move further from the end of the game
+            byte[] tableValues = values;
+            boolean changed;
+            do {
+                changed = runPass(executor, values.length, (start, end) -> resolveRange(pieces, tableValues, start, end));
+            } while (changed);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] == UNRESOLVED) values[i] = EndgameTable.DRAW;
+        }
+        this.tables.put(name, values);
+
+        return values;
+    }
+
+    /**
+     * Range of positions resolved by one task of a pass.
+     */
+    @FunctionalInterface
+    private interface RangeTask {
+
+        /**
+         * Resolves positions of a range.
+         *
+         * @param start is the first index of the range.
+         * @param end   is the index after the last one of the range.
+         * @return true if any position was resolved.
+         */
+        boolean run(int start, int end);
+    }
+
+    /**
+     * Runs a pass over all positions, split into ranges resolved in parallel.
+     *
+     * @param executor is an executor to run ranges on.
+     * @param size     is a number of positions.
+     * @param task     is a task resolving a range.
+     * @return true if any position was resolved.
+     * @throws IOException if the pass is interrupted.
+     */
+    private static boolean runPass(ExecutorService executor, int size, RangeTask task) throws IOException {
+        List<Callable<Boolean>> ranges = new ArrayList<>();
+        for (int start = 0; start < size; start += POSITIONS_PER_TASK) {
+            int rangeStart = start;
+            int rangeEnd = Math.min(size, start + POSITIONS_PER_TASK);
+            ranges.add(() -> task.run(rangeStart, rangeEnd));
+        }
+
+        try {
+            boolean changed = false;
+            for (Future<Boolean> range : executor.invokeAll(ranges)) {
+                changed |= range.get();
+            }
+
+            return changed;
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Endgame table generation was interrupted.");
+        } catch (ExecutionException exception) {
+            if (exception.getCause() instanceof RuntimeException runtimeException) throw runtimeException;
+            throw new IllegalStateException(exception.getCause());
+        }
+    }
+
+    /**
+     * Resolves unresolved positions of a range.
+     *
+     * @param pieces is types of pieces of the strong side besides the king.
+     * @param values is values of positions of the table.
+     * @param start  is the first index of the range.
+     * @param end    is the index after the last one of the range.
+     * @return true if any position was resolved.
+     */
+    private boolean resolveRange(PieceType[] pieces, byte[] values, int start, int end) {
+        int[] squares = new int[pieces.length + 2];
+        boolean changed = false;
+        for (int index = start; index < end; index++) {
+            if (values[index] != UNRESOLVED) continue;
+            int value = resolve(pieces, values, index, squares);
+            if (value != UNRESOLVED) {
+                values[index] = (byte) value;
+                changed = true;
+            }
+        }
+
+        return changed;
+    }
+
+    /**
+     * Tries to resolve a position.
+     *
+     * @param pieces  is types of pieces of the strong side besides the king.
+     * @param values  is values of positions of the table.
+     * @param index   is an index of the position.
+     * @param squares is a scratch array for squares of the pieces and the kings.
+     * @return a value of the position, {@link EndgameTable#UNKNOWN} for an impossible position,
+     * or {@link #UNRESOLVED}.
+     */
+    private int resolve(PieceType[] pieces, byte[] values, int index, int[] squares) {
+        boolean strongToMove = EndgameTable.decode(pieces, index, squares);
+        int pieceCount = pieces.length;
+        int strongKing = squares[pieceCount];
+        int weakKing = squares[pieceCount + 1];
+        long weakKingBit = 1L << weakKing;
+        long strongPieces = 1L << strongKing;
+        for (int i = 0; i < pieceCount; i++) {
+            strongPieces |= 1L << squares[i];
+            if (pieces[i] == PieceType.PAWN && (squares[i] >>> 3 == 0 || squares[i] >>> 3 == 7)) return EndgameTable.UNKNOWN;
+        }
+        long occupancy = strongPieces | weakKingBit;
+        if (Long.bitCount(occupancy) != pieceCount + 2 || (AttackTables.kingAttacks(strongKing) & weakKingBit) != 0) {
+            return EndgameTable.UNKNOWN;
+        }
+        boolean weakInCheck = (strongAttacks(pieces, squares, -1, occupancy) & weakKingBit) != 0;
+        if (strongToMove && weakInCheck) return EndgameTable.UNKNOWN;
+
+        if (strongToMove) {
+            boolean canMove = false;
+            long kingTargets = AttackTables.kingAttacks(strongKing) & ~strongPieces & ~AttackTables.kingAttacks(weakKing);
+            for (; kingTargets != 0; kingTargets &= kingTargets - 1) {
+                canMove = true;
+                squares[pieceCount] = Long.numberOfTrailingZeros(kingTargets);
+                if (lookup(pieces, values, squares, false) == EndgameTable.LOSS) return EndgameTable.WIN;
+            }
+            squares[pieceCount] = strongKing;
+
+            for (int i = 0; i < pieceCount; i++) {
+                int from = squares[i];
+                if (pieces[i] == PieceType.PAWN) {
+                    int to = from + 8;
+                    if ((occupancy & 1L << to) != 0) continue;
+                    canMove = true;
+                    if (to >>> 3 == 7) {
+                        for (PieceType promotion : PROMOTIONS) {
+                            if (lookupPromotion(pieces, squares, i, to, promotion) == EndgameTable.LOSS) return EndgameTable.WIN;
+                        }
+                        continue;
+                    }
+                    squares[i] = to;
+                    if (lookup(pieces, values, squares, false) == EndgameTable.LOSS) return EndgameTable.WIN;
+                    if (from >>> 3 == 1 && (occupancy & 1L << to + 8) == 0) {
+                        squares[i] = to + 8;
+                        if (lookup(pieces, values, squares, false) == EndgameTable.LOSS) return EndgameTable.WIN;
+                    }
+                } else {
+                    long targets = attacks(pieces[i], from, occupancy) & ~strongPieces & ~weakKingBit;
+                    for (; targets != 0; targets &= targets - 1) {
+                        canMove = true;
+                        squares[i] = Long.numberOfTrailingZeros(targets);
+                        if (lookup(pieces, values, squares, false) == EndgameTable.LOSS) return EndgameTable.WIN;
+                    }
+                }
+                squares[i] = from;
+            }
+
+            return canMove ? UNRESOLVED : EndgameTable.DRAW;
+        }
+
+        boolean canMove = false;
+        boolean allWon = true;
+        long kingTargets = AttackTables.kingAttacks(weakKing) & ~AttackTables.kingAttacks(strongKing);
+        long occupancyWithoutKing = occupancy & ~weakKingBit;
+        for (; kingTargets != 0; kingTargets &= kingTargets - 1) {
+            int to = Long.numberOfTrailingZeros(kingTargets);
+            int captured = -1;
+            for (int i = 0; i < pieceCount; i++) {
+                if (squares[i] == to) captured = i;
+            }
+            if ((strongAttacks(pieces, squares, captured, occupancyWithoutKing) & 1L << to) != 0) continue;
+
+            canMove = true;
+            squares[pieceCount + 1] = to;
+            int value = captured >= 0 ? lookupCapture(pieces, squares, captured) : lookup(pieces, values, squares, true);
+            squares[pieceCount + 1] = weakKing;
+            if (value == EndgameTable.DRAW) return EndgameTable.DRAW;
+            if (value != EndgameTable.WIN) allWon = false;
+        }
+
+        if (!canMove) return weakInCheck ? EndgameTable.LOSS : EndgameTable.DRAW;
+
+        return allWon ? EndgameTable.LOSS : UNRESOLVED;
+    }
+
+    /**
+     * Looks up a value of a position of the same table.
+     *
+     * @param pieces       is types of pieces of the strong side besides the king.
+     * @param values       is values of positions of the table.
+     * @param squares      is squares of the pieces, the strong king and the weak king.
+     * @param strongToMove is true if the strong side is to move.
+     * @return a value of the position.
+     */
+    private static int lookup(PieceType[] pieces, byte[] values, int[] squares, boolean strongToMove) {
+        int pieceCount = pieces.length;
+
+        return values[(int) EndgameTable.index(pieces, squares[pieceCount], squares[pieceCount + 1], squares, strongToMove)];
+    }
+
+    /**
+     * Looks up a value of a position after the weak king captures a piece, with the strong
+     * side to move.
+     *
+     * @param pieces   is types of pieces of the strong side besides the king.
+     * @param squares  is squares of the pieces, the strong king and the weak king after the capture.
+     * @param captured is an index of the captured piece.
+     * @return a value of the position, a draw if only the kings are left.
+     */
+    private int lookupCapture(PieceType[] pieces, int[] squares, int captured) {
+        if (pieces.length == 1) return EndgameTable.DRAW;
+
+        int left = 1 - captured;
+        PieceType[] remaining = {pieces[left]};
+
+        return this.tables.get(EndgameTable.name(remaining))[(int) EndgameTable.index(remaining,
+                squares[pieces.length], squares[pieces.length + 1], new int[]{squares[left]}, true)];
+    }
+
+    /**
+     * Looks up a value of a position after a pawn is promoted, with the weak side to move.
+     *
+     * @param pieces    is types of pieces of the strong side besides the king.
+     * @param squares   is squares of the pieces, the strong king and the weak king.
+     * @param pawn      is an index of the promoted pawn.
+     * @param to        is a square of promotion.
+     * @param promotion is a type of the new piece.
+     * @return a value of the position.
+     */
+    private int lookupPromotion(PieceType[] pieces, int[] squares, int pawn, int to, PieceType promotion) {
+        PieceType[] promoted = replaced(pieces, pawn, promotion);
+        int[] pieceSquares = new int[pieces.length];
+        for (int i = 0; i < pieces.length; i++) {
+            pieceSquares[i] = i == pawn ? to : squares[i];
+        }
+        if (pieces.length == 2 && promoted[0].ordinal() > promoted[1].ordinal()) {
+            promoted = new PieceType[]{promoted[1], promoted[0]};
+            pieceSquares = new int[]{pieceSquares[1], pieceSquares[0]};
+        }
+
+        return this.tables.get(EndgameTable.name(promoted))[(int) EndgameTable.index(promoted,
+                squares[pieces.length], squares[pieces.length + 1], pieceSquares, false)];
+    }
+
+    /**
+     * Returns squares attacked by the strong side.
+     *
+     * @param pieces    is types of pieces of the strong side besides the king.
+     * @param squares   is squares of the pieces followed by the square of the strong king.
+     * @param excluded  is an index of a piece which is left out, or -1.
+     * @param occupancy is a bitboard of occupied squares for sliding pieces.
+     * @return a bitboard of attacked squares.
+     */
+    private static long strongAttacks(PieceType[] pieces, int[] squares, int excluded, long occupancy) {
+        long attacks = AttackTables.kingAttacks(squares[pieces.length]);
+        for (int i = 0; i < pieces.length; i++) {
+            if (i != excluded) attacks |= attacks(pieces[i], squares[i], occupancy);
+        }
+
+        return attacks;
+    }
+
+    /**
+     * Returns squares attacked by a piece of the strong side, which plays as white.
+     *
+     * @param type      is a type of the piece.
+     * @param square    is a square of the piece.
+     * @param occupancy is a bitboard of occupied squares.
+     * @return a bitboard of attacked squares.
+     */
+    private static long attacks(PieceType type, int square, long occupancy) {
+        return switch (type) {
+            case PAWN -> AttackTables.pawnAttacks(PieceColor.WHITE.ordinal(), square);
+            case KNIGHT -> AttackTables.knightAttacks(square);
+            case BISHOP -> AttackTables.bishopAttacks(square, occupancy);
+            case ROOK -> AttackTables.rookAttacks(square, occupancy);
+            case QUEEN -> AttackTables.queenAttacks(square, occupancy);
+            case KING -> AttackTables.kingAttacks(square);
+        };
+    }
+
+    /**
+     * Returns pieces ordered by {@link PieceType}, checking that a table of them is supported.
+     *
+     * @param pieces is types of pieces.
+     * @return an ordered copy.
+     */
+    private static PieceType[] order(PieceType[] pieces) {
+        if (pieces.length < 1 || pieces.length > EndgameTable.MAX_STRONG_PIECES) {
+            throw new IllegalArgumentException("Endgame tables of 1 or 2 pieces besides the king are supported.");
+        }
+        PieceType[] ordered = pieces.clone();
+        if (ordered.length == 2 && ordered[0].ordinal() > ordered[1].ordinal()) {
+            ordered = new PieceType[]{ordered[1], ordered[0]};
+        }
+        for (PieceType piece : ordered) {
+            if (piece == PieceType.KING) throw new IllegalArgumentException("The strong side has only one king.");
+        }
+
+        return ordered;
+    }
+
+    /**
+     * Returns pieces without one of them.
+     *
+     * @param pieces is types of pieces.
+     * @param index  is an index of the piece to leave out.
+     * @return a new array of pieces.
+     */
+    private static PieceType[] without(PieceType[] pieces, int index) {
+        PieceType[] remaining = new PieceType[pieces.length - 1];
+        for (int i = 0, j = 0; i < pieces.length; i++) {
+            if (i != index) remaining[j++] = pieces[i];
+        }
+
+        return remaining;
+    }
+
+    /**
+     * Returns pieces with one of them replaced.
+     *
+     * @param pieces is types of pieces.
+     * @param index  is an index of the piece to replace.
+     * @param type   is a new type of the piece.
+     * @return a new array of pieces.
+     */
+    private static PieceType[] replaced(PieceType[] pieces, int index, PieceType type) {
+        PieceType[] replaced = pieces.clone();
+        replaced[index] = type;
+
+        return replaced;
+    }
+
+    /**
+     * Writes buffered bytes to a channel and clears the buffer.
+     *
+     * @param buffer  is a buffer in write mode.
+     * @param channel is a channel to write to.
+     * @throws IOException if an error occurs while writing.
+     */
+    private static void drain(ByteBuffer buffer, FileChannel channel) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
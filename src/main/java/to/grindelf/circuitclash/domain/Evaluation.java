@@ -0,0 +1,307 @@
+package to.grindelf.circuitclash.domain;
+
+import org.jetbrains.annotations.NotNull;
+import to.grindelf.circuitclash.utils.AttackTables;
+
+/**
+ * Static evaluation of a position. The main part is a tapered score: material and
+ * piece-square values are kept separately for the middlegame and the endgame, and blended
+ * by the game phase, which is counted from the pieces left on the board. The chessboard
+ * keeps both sums and the phase up to date with every move (see
+ * {@link Chessboard#getMiddlegameScore()}), so this part costs a few additions. Mobility and
+ * king safety need attack generation, so they are computed on each call, and skipped when
+ * the score is already far outside the search window.
+ */
+public final class Evaluation {
+
+    /**
+     * Game phase of a position with all pieces on the board.
+     */
+    static final int MAX_PHASE = 24;
+    /**
+     * Margin beyond the search window within which mobility and king safety are still computed.
+     * It is not a bound of these terms: king danger alone adds up to {@link #MAX_KING_DANGER}
+     * and mobility is unbounded, but in usual positions they change the score by less.
+     */
+    static final int LAZY_MARGIN = 300;
+
+    /**
+     * Values of pieces in the middlegame and in the endgame, indexed by a piece type ordinal.
+     */
+    private static final int[] MIDDLEGAME_VALUES = {82, 477, 337, 365, 1025, 0};
+    private static final int[] ENDGAME_VALUES = {94, 512, 281, 297, 936, 0};
+    /**
+     * Contribution of a piece to the game phase, indexed by a piece type ordinal.
+     */
+    private static final int[] PHASE_WEIGHTS = {0, 2, 1, 1, 4, 0};
+
+    /**
+     * Piece-square tables from the point of view of white, written from a8 to h1 as on a
+     * printed board. Where the endgame needs no table of its own, the middlegame one is used.
+     */
+    private static final int[] PAWN_MIDDLEGAME = {
+            0, 0, 0, 0, 0, 0, 0, 0,
+            50, 50, 50, 50, 50, 50, 50, 50,
+            10, 10, 20, 30, 30, 20, 10, 10,
+            5, 5, 10, 25, 25, 10, 5, 5,
+            0, 0, 0, 20, 20, 0, 0, 0,
+            5, -5, -10, 0, 0, -10, -5, 5,
+            5, 10, 10, -20, -20, 10, 10, 5,
+            0, 0, 0, 0, 0, 0, 0, 0
+    };
+    private static final int[] PAWN_ENDGAME = {
+            0, 0, 0, 0, 0, 0, 0, 0,
+            80, 80, 80, 80, 80, 80, 80, 80,
+            50, 50, 50, 50, 50, 50, 50, 50,
+            30, 30, 30, 30, 30, 30, 30, 30,
+            15, 15, 15, 15, 15, 15, 15, 15,
+            5, 5, 5, 5, 5, 5, 5, 5,
+            0, 0, 0, 0, 0, 0, 0, 0,
+            0, 0, 0, 0, 0, 0, 0, 0
+    };
+    private static final int[] ROOK_TABLE = {
+            0, 0, 0, 0, 0, 0, 0, 0,
+            5, 10, 10, 10, 10, 10, 10, 5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            0, 0, 0, 5, 5, 0, 0, 0
+    };
+    private static final int[] KNIGHT_TABLE = {
+            -50, -40, -30, -30, -30, -30, -40, -50,
+            -40, -20, 0, 0, 0, 0, -20, -40,
+            -30, 0, 10, 15, 15, 10, 0, -30,
+            -30, 5, 15, 20, 20, 15, 5, -30,
+            -30, 0, 15, 20, 20, 15, 0, -30,
+            -30, 5, 10, 15, 15, 10, 5, -30,
+            -40, -20, 0, 5, 5, 0, -20, -40,
+            -50, -40, -30, -30, -30, -30, -40, -50
+    };
+    private static final int[] BISHOP_TABLE = {
+            -20, -10, -10, -10, -10, -10, -10, -20,
+            -10, 0, 0, 0, 0, 0, 0, -10,
+            -10, 0, 5, 10, 10, 5, 0, -10,
+            -10, 5, 5, 10, 10, 5, 5, -10,
+            -10, 0, 10, 10, 10, 10, 0, -10,
+            -10, 10, 10, 10, 10, 10, 10, -10,
+            -10, 5, 0, 0, 0, 0, 5, -10,
+            -20, -10, -10, -10, -10, -10, -10, -20
+    };
+    private static final int[] QUEEN_TABLE = {
+            -20, -10, -10, -5, -5, -10, -10, -20,
+            -10, 0, 0, 0, 0, 0, 0, -10,
+            -10, 0, 5, 5, 5, 5, 0, -10,
+            -5, 0, 5, 5, 5, 5, 0, -5,
+            0, 0, 5, 5, 5, 5, 0, -5,
+            -10, 5, 5, 5, 5, 5, 0, -10,
+            -10, 0, 5, 0, 0, 0, 0, -10,
+            -20, -10, -10, -5, -5, -10, -10, -20
+    };
+    private static final int[] KING_MIDDLEGAME = {
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -20, -30, -30, -40, -40, -30, -30, -20,
+            -10, -20, -20, -20, -20, -20, -20, -10,
+            20, 20, 0, 0, 0, 0, 20, 20,
+            20, 30, 10, 0, 0, 10, 30, 20
+    };
+    private static final int[] KING_ENDGAME = {
+            -50, -40, -30, -20, -20, -30, -40, -50,
+            -30, -20, -10, 0, 0, -10, -20, -30,
+            -30, -10, 20, 30, 30, 20, -10, -30,
+            -30, -10, 30, 40, 40, 30, -10, -30,
+            -30, -10, 30, 40, 40, 30, -10, -30,
+            -30, -10, 20, 30, 30, 20, -10, -30,
+            -30, -30, 0, 0, 0, 0, -30, -30,
+            -50, -30, -30, -30, -30, -30, -30, -50
+    };
+
+    /**
+     * Middlegame and endgame scores of pieces on squares, including material, indexed by
+     * piece index and square. Scores of black pieces are negative, so the sum over the board
+     * is a score from the point of view of white.
+     */
+    static final int[][] MIDDLEGAME_SCORES = new int[Chessboard.PIECE_KINDS][Chessboard.SQUARES];
+    static final int[][] ENDGAME_SCORES = new int[Chessboard.PIECE_KINDS][Chessboard.SQUARES];
+    /**
+     * Contribution of a piece to the game phase, indexed by piece index.
+     */
+    static final int[] PHASE = new int[Chessboard.PIECE_KINDS];
+
+    /**
+     * Mobility scores per attacked square which is not occupied by own pieces and not attacked
+     * by enemy pawns, indexed by a piece type ordinal.
+     */
+    private static final int[] MIDDLEGAME_MOBILITY = {0, 2, 4, 5, 1, 0};
+    private static final int[] ENDGAME_MOBILITY = {0, 4, 4, 5, 2, 0};
+    /**
+     * Weights of pieces attacking squares around the enemy king, indexed by a piece type ordinal.
+     */
+    private static final int[] KING_ATTACK_WEIGHTS = {0, 3, 2, 2, 5, 0};
+    private static final int MAX_KING_DANGER = 500;
+    private static final int PAWN_SHIELD_BONUS = 10;
+
+    /**
+     * Piece colors and types indexed by ordinal, cached since {@code values()} copies its array.
+     */
+    private static final PieceColor[] COLORS = PieceColor.values();
+    private static final PieceType[] TYPES = PieceType.values();
+
+    static {
+        int[][] middlegameTables = {PAWN_MIDDLEGAME, ROOK_TABLE, KNIGHT_TABLE, BISHOP_TABLE, QUEEN_TABLE, KING_MIDDLEGAME};
+        int[][] endgameTables = {PAWN_ENDGAME, ROOK_TABLE, KNIGHT_TABLE, BISHOP_TABLE, QUEEN_TABLE, KING_ENDGAME};
+        for (int type = 0; type < 6; type++) {
+            for (int square = 0; square < Chessboard.SQUARES; square++) {
+                // tables are written from a8, so white looks rows up mirrored and black as is
+                int whiteIndex = (7 - (square >>> 3)) * 8 + (square & 7);
+                MIDDLEGAME_SCORES[type][square] = MIDDLEGAME_VALUES[type] + middlegameTables[type][whiteIndex];
+                ENDGAME_SCORES[type][square] = ENDGAME_VALUES[type] + endgameTables[type][whiteIndex];
+                MIDDLEGAME_SCORES[type + 6][square] = -(MIDDLEGAME_VALUES[type] + middlegameTables[type][square]);
+                ENDGAME_SCORES[type + 6][square] = -(ENDGAME_VALUES[type] + endgameTables[type][square]);
+            }
+            PHASE[type] = PHASE_WEIGHTS[type];
+            PHASE[type + 6] = PHASE_WEIGHTS[type];
+        }
+    }
+
+    private Evaluation() {
+    }
+
+    /**
+     * Evaluates a position.
+     *
+     * @param board is a chessboard with the position.
+     * @return a score in centipawns from the point of view of the side to move.
+     */
+    public static int evaluate(@NotNull Chessboard board) {
+        return evaluate(board, -Integer.MAX_VALUE, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Evaluates a position for a search with a window. If the tapered material and
+     * piece-square score is more than {@link #LAZY_MARGIN} outside the window, mobility and
+     * king safety are not computed. This is a heuristic: in rare positions these terms are
+     * larger than the margin, and then a score outside the window is returned where the full
+     * evaluation would be inside it.
+     *
+     * @param board is a chessboard with the position.
+     * @param alpha is a lower bound of the window.
+     * @param beta  is an upper bound of the window.
+     * @return a score in centipawns from the point of view of the side to move, exact if it
+     * is within the window widened by the margin.
+     */
+    public static int evaluate(@NotNull Chessboard board, int alpha, int beta) {
+        int phase = Math.min(board.getGamePhase(), MAX_PHASE);
+        int middlegame = board.getMiddlegameScore();
+        int endgame = board.getEndgameScore();
+        int sign = board.getSideToMove() == PieceColor.WHITE ? 1 : -1;
+
+        int score = sign * taper(middlegame, endgame, phase);
+        if (score + LAZY_MARGIN <= alpha || score - LAZY_MARGIN >= beta) return score;
+
+        long whitePawnAttacks = pawnAttacks(board, PieceColor.WHITE);
+        long blackPawnAttacks = pawnAttacks(board, PieceColor.BLACK);
+        for (PieceColor color : COLORS) {
+            int colorSign = color == PieceColor.WHITE ? 1 : -1;
+            long enemyPawnAttacks = color == PieceColor.WHITE ? blackPawnAttacks : whitePawnAttacks;
+            PieceColor enemy = color == PieceColor.WHITE ? PieceColor.BLACK : PieceColor.WHITE;
+            int enemyKingSquare = board.getKingSquare(enemy);
+            long enemyKingZone = enemyKingSquare < 0 ? 0 : AttackTables.kingAttacks(enemyKingSquare) | 1L << enemyKingSquare;
+            long available = ~board.getOccupancy(color) & ~enemyPawnAttacks;
+            int kingDanger = 0;
+            int kingAttackers = 0;
+
+            for (int type = PieceType.ROOK.ordinal(); type <= PieceType.QUEEN.ordinal(); type++) {
+                long pieces = board.getPieces(TYPES[type], color);
+                while (pieces != 0) {
+                    int square = Long.numberOfTrailingZeros(pieces);
+                    pieces &= pieces - 1;
+                    long attacks = attacks(type, square, board.getOccupancy());
+                    int mobility = Long.bitCount(attacks & available);
+                    middlegame += colorSign * mobility * MIDDLEGAME_MOBILITY[type];
+                    endgame += colorSign * mobility * ENDGAME_MOBILITY[type];
+                    if ((attacks & enemyKingZone) != 0) {
+                        kingAttackers++;
+                        kingDanger += KING_ATTACK_WEIGHTS[type] * Long.bitCount(attacks & enemyKingZone);
+                    }
+                }
+            }
+
+            // a single attacker is rarely dangerous, the danger grows quickly with more of them
+            if (kingAttackers >= 2) middlegame += colorSign * Math.min(kingDanger * kingDanger, MAX_KING_DANGER);
+            middlegame += colorSign * PAWN_SHIELD_BONUS * countShieldPawns(board, color);
+        }
+
+        return sign * taper(middlegame, endgame, phase);
+    }
+
+    /**
+     * Blends middlegame and endgame scores by the game phase.
+     *
+     * @param middlegame is a middlegame score.
+     * @param endgame    is an endgame score.
+     * @param phase      is a game phase from 0 (only kings and pawns) to {@link #MAX_PHASE}.
+     * @return a blended score.
+     */
+    private static int taper(int middlegame, int endgame, int phase) {
+        return (middlegame * phase + endgame * (MAX_PHASE - phase)) / MAX_PHASE;
+    }
+
+    /**
+     * Returns squares attacked by a piece.
+     *
+     * @param type      is a piece type ordinal, a rook, a knight, a bishop or a queen.
+     * @param square    is a square of the piece.
+     * @param occupancy is a bitboard of occupied squares.
+     * @return a bitboard of attacked squares.
+     */
+    private static long attacks(int type, int square, long occupancy) {
+        if (type == PieceType.KNIGHT.ordinal()) return AttackTables.knightAttacks(square);
+        if (type == PieceType.BISHOP.ordinal()) return AttackTables.bishopAttacks(square, occupancy);
+        if (type == PieceType.ROOK.ordinal()) return AttackTables.rookAttacks(square, occupancy);
+
+        return AttackTables.queenAttacks(square, occupancy);
+    }
+
+    /**
+     * Returns squares attacked by pawns of a color.
+     *
+     * @param board is a chessboard.
+     * @param color is a color of pawns.
+     * @return a bitboard of attacked squares.
+     */
+    private static long pawnAttacks(Chessboard board, PieceColor color) {
+        long pawns = board.getPieces(PieceType.PAWN, color);
+        long notFileA = 0xFEFEFEFEFEFEFEFEL;
+        long notFileH = 0x7F7F7F7F7F7F7F7FL;
+        if (color == PieceColor.WHITE) return (pawns << 7 & notFileH) | (pawns << 9 & notFileA);
+
+        return (pawns >>> 9 & notFileH) | (pawns >>> 7 & notFileA);
+    }
+
+    /**
+     * Counts own pawns on the two rows in front of a king which stands on its first two rows.
+     *
+     * @param board is a chessboard.
+     * @param color is a color of the king.
+     * @return a number of pawns covering the king.
+     */
+    private static int countShieldPawns(Chessboard board, PieceColor color) {
+        int kingSquare = board.getKingSquare(color);
+        if (kingSquare < 0) return 0;
+        int row = kingSquare >>> 3;
+        if (color == PieceColor.WHITE ? row > 1 : row < 6) return 0;
+
+        int file = kingSquare & 7;
+        long files = 0x0101010101010101L << file;
+        if (file > 0) files |= 0x0101010101010101L << file - 1;
+        if (file < 7) files |= 0x0101010101010101L << file + 1;
+        long rows = color == PieceColor.WHITE ? 0xFFFFL << 8 * (row + 1) : 0xFFFFL << 8 * (row - 2);
+
+        return Long.bitCount(board.getPieces(PieceType.PAWN, color) & files & rows);
+    }
+}
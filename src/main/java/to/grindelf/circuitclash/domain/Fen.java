@@ -0,0 +1,356 @@
+package to.grindelf.circuitclash.domain;
+
+import org.jetbrains.annotations.NotNull;
+import to.grindelf.circuitclash.errors.FenFormatException;
+
+import java.nio.ByteBuffer;
+
+import static to.grindelf.circuitclash.domain.PieceColor.BLACK;
+import static to.grindelf.circuitclash.domain.PieceColor.WHITE;
+
+/**
+ * Forsyth-Edwards Notation (FEN) of positions, like
+ * {@code rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1}: piece placement,
+ * side to move, castling rights, en passant square, halfmove clock and fullmove number.
+ * The last two fields may be omitted and default to 0 and 1.
+ * <p>
+ * Parsing and writing go character by character over a {@link CharSequence} or a
+ * {@link ByteBuffer} into an existing {@link Chessboard}, without creating strings or other
+ * objects, so files with millions of positions, one per line, can be loaded into a single
+ * reused board. As the board keeps an en passant square only if a pawn can capture on it,
+ * a written FEN may show {@code -} where the parsed one had a square.
+ */
+public final class Fen {
+
+    /**
+     * FEN of the initial position.
+     */
+    public static final String INITIAL_POSITION = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    /**
+     * Piece letters in order of piece indices, white pieces in upper case.
+     */
+    private static final String PIECE_LETTERS = "PRNBQKprnbqk";
+    private static final String CASTLING_LETTERS = "KQkq";
+
+    private Fen() {
+    }
+
+    /**
+     * Creates a chessboard with a position given in FEN.
+     *
+     * @param fen is a position in FEN.
+     * @return a new chessboard.
+     * @throws FenFormatException if the text is not a valid position.
+     */
+    @NotNull
+    public static Chessboard parse(@NotNull CharSequence fen) throws FenFormatException {
+        Chessboard chessboard = new Chessboard();
+        parse(fen, 0, chessboard);
+
+        return chessboard;
+    }
+
+    /**
+     * Sets up a position given in FEN on a chessboard. Previous moves of the board are forgotten.
+     * If the text is not valid, the board is left in an unspecified state.
+     *
+     * @param fen        is a text containing a position in FEN.
+     * @param start      is an index the position starts at.
+     * @param chessboard is a chessboard to set up.
+     * @return an index after the end of the line containing the position.
+     * @throws FenFormatException if the text is not a valid position.
+     */
+    public static int parse(@NotNull CharSequence fen, int start, @NotNull Chessboard chessboard) throws FenFormatException {
+        return parse(fen, null, start, fen.length(), chessboard);
+    }
+
+    /**
+     * Sets up a position given in FEN on a chessboard, reading an ASCII line from a buffer.
+     * The buffer is read from its position, which is moved after the end of the line.
+     * Previous moves of the board are forgotten. If the line is not valid, the board is left
+     * in an unspecified state.
+     *
+     * @param buffer     is a buffer containing positions in FEN, one per line.
+     * @param chessboard is a chessboard to set up.
+     * @throws FenFormatException if the line is not a valid position.
+     */
+    public static void parse(@NotNull ByteBuffer buffer, @NotNull Chessboard chessboard) throws FenFormatException {
+        buffer.position(parse(null, buffer, buffer.position(), buffer.limit(), chessboard));
+    }
+
+    /**
+     * Writes a position in FEN.
+     *
+     * @param chessboard is a chessboard with the position.
+     * @return the position in FEN.
+     */
+    @NotNull
+    public static String toString(@NotNull Chessboard chessboard) {
+        StringBuilder stringBuilder = new StringBuilder(90);
+        appendTo(stringBuilder, chessboard);
+
+        return stringBuilder.toString();
+    }
+
+    /**
+     * Appends a position in FEN to a string builder.
+     *
+     * @param stringBuilder is a string builder to append to.
+     * @param chessboard    is a chessboard with the position.
+     */
+    public static void appendTo(@NotNull StringBuilder stringBuilder, @NotNull Chessboard chessboard) {
+        write(stringBuilder, null, chessboard);
+    }
+
+    /**
+     * Writes a position in FEN to a buffer as ASCII, without a line break.
+     *
+     * @param buffer     is a buffer to write to, with at least 90 bytes remaining.
+     * @param chessboard is a chessboard with the position.
+     */
+    public static void write(@NotNull ByteBuffer buffer, @NotNull Chessboard chessboard) {
+        write(null, buffer, chessboard);
+    }
+
+    /**
+     * Parses a position from either a character sequence or a byte buffer.
+     *
+     * @param text       is a character sequence to read or null.
+     * @param buffer     is a byte buffer to read if the sequence is null.
+     * @param start      is an index the position starts at.
+     * @param end        is an index to stop reading at.
+     * @param chessboard is a chessboard to set up.
+     * @return an index after the end of the line containing the position.
+     * @throws FenFormatException if the text is not a valid position.
+     */
+    private static int parse(CharSequence text, ByteBuffer buffer, int start, int end, Chessboard chessboard)
+            throws FenFormatException {
+        int i = skipSpaces(text, buffer, start, end);
+        chessboard.clear();
+
+        int rank = 7;
+        int file = 0;
+        for (; i < end && !isSeparator(charAt(text, buffer, i)); i++) {
+            char c = charAt(text, buffer, i);
+            int pieceIndex = PIECE_LETTERS.indexOf(c);
+            if (c == '/') {
+                if (file != 8 || rank == 0) throw new FenFormatException("Rank " + (rank + 1) + " does not have 8 squares.");
+                rank--;
+                file = 0;
+            } else if (c >= '1' && c <= '8') {
+                file += c - '0';
+                if (file > 8) throw new FenFormatException("Rank " + (rank + 1) + " has more than 8 squares.");
+            } else if (pieceIndex >= 0) {
+                if (file > 7) throw new FenFormatException("Rank " + (rank + 1) + " has more than 8 squares.");
+                chessboard.placePiece(pieceIndex, rank * 8 + file++);
+            } else {
+                throw new FenFormatException("Unexpected character '" + c + "' in piece placement.");
+            }
+        }
+        if (rank != 0 || file != 8) throw new FenFormatException("Piece placement does not have 8 full ranks.");
+
+        i = skipSpaces(text, buffer, i, end);
+        char side = i < end ? charAt(text, buffer, i++) : ' ';
+        if (side != 'w' && side != 'b') throw new FenFormatException("Side to move must be w or b.");
+
+        i = skipSpaces(text, buffer, i, end);
+        int castlingRights = 0;
+        if (i < end && charAt(text, buffer, i) == '-') {
+            i++;
+        } else {
+            for (; i < end && !isSeparator(charAt(text, buffer, i)); i++) {
+                int flag = CASTLING_LETTERS.indexOf(charAt(text, buffer, i));
+                if (flag < 0) throw new FenFormatException("Castling rights must be - or letters of KQkq.");
+                castlingRights |= 1 << flag;
+            }
+        }
+
+        i = skipSpaces(text, buffer, i, end);
+        int enPassantSquare = -1;
+        if (i < end && charAt(text, buffer, i) == '-') {
+            i++;
+        } else {
+            char enPassantFile = i < end ? charAt(text, buffer, i) : ' ';
+            char enPassantRank = i + 1 < end ? charAt(text, buffer, i + 1) : ' ';
+            if (enPassantFile < 'a' || enPassantFile > 'h' || enPassantRank != (side == 'w' ? '6' : '3')) {
+                throw new FenFormatException("En passant square must be - or a square on the 3rd or 6th rank.");
+            }
+            enPassantSquare = (enPassantRank - '1') * 8 + enPassantFile - 'a';
+            i += 2;
+        }
+
+        int halfmoveClock = 0;
+        int fullmoveNumber = 1;
+        i = skipSpaces(text, buffer, i, end);
+        if (i < end && isDigit(charAt(text, buffer, i))) {
+            halfmoveClock = 0;
+            for (; i < end && isDigit(charAt(text, buffer, i)); i++) {
+                halfmoveClock = halfmoveClock * 10 + charAt(text, buffer, i) - '0';
+            }
+            i = skipSpaces(text, buffer, i, end);
+            if (i < end && isDigit(charAt(text, buffer, i))) {
+                fullmoveNumber = 0;
+                for (; i < end && isDigit(charAt(text, buffer, i)); i++) {
+                    fullmoveNumber = fullmoveNumber * 10 + charAt(text, buffer, i) - '0';
+                }
+            }
+        }
+
+        i = skipSpaces(text, buffer, i, end);
+        if (i < end && charAt(text, buffer, i) == '\r') i++;
+        if (i < end && charAt(text, buffer, i) != '\n') {
+            throw new FenFormatException("Unexpected character '" + charAt(text, buffer, i) + "' after the position.");
+        }
+        if (i < end) i++;
+
+        PieceColor sideToMove = side == 'w' ? WHITE : BLACK;
+        validate(chessboard, sideToMove);
+        chessboard.setState(sideToMove, castlingRights, enPassantSquare, halfmoveClock, Math.max(1, fullmoveNumber));
+
+        return i;
+    }
+
+    /**
+     * Checks that a position can be played: each side has one king, there are no pawns on
+     * the first and last ranks and the side which has just moved is not in check.
+     *
+     * @param chessboard is a chessboard with placed pieces.
+     * @param sideToMove is a color of pieces which make the next move.
+     * @throws FenFormatException if the position is not valid.
+     */
+    private static void validate(Chessboard chessboard, PieceColor sideToMove) throws FenFormatException {
+        if (Long.bitCount(chessboard.getPieces(PieceType.KING, WHITE)) != 1
+                || Long.bitCount(chessboard.getPieces(PieceType.KING, BLACK)) != 1) {
+            throw new FenFormatException("Each side must have exactly one king.");
+        }
+        long pawns = chessboard.getPieces(PieceType.PAWN, WHITE) | chessboard.getPieces(PieceType.PAWN, BLACK);
+        if ((pawns & 0xFF000000000000FFL) != 0) throw new FenFormatException("Pawns can't stand on the first or last rank.");
+        PieceColor opponent = sideToMove == WHITE ? BLACK : WHITE;
+        if (chessboard.isSquareAttacked(chessboard.getKingSquare(opponent), sideToMove)) {
+            throw new FenFormatException("The side which is not to move is in check.");
+        }
+    }
+
+    /**
+     * Writes a position to either a string builder or a byte buffer.
+     *
+     * @param stringBuilder is a string builder to append to or null.
+     * @param buffer        is a byte buffer to write to if the string builder is null.
+     * @param chessboard    is a chessboard with the position.
+     */
+    private static void write(StringBuilder stringBuilder, ByteBuffer buffer, Chessboard chessboard) {
+        for (int rank = 7; rank >= 0; rank--) {
+            int emptySquares = 0;
+            for (int file = 0; file < 8; file++) {
+                int pieceIndex = chessboard.pieceIndexAt(rank * 8 + file);
+                if (pieceIndex < 0) {
+                    emptySquares++;
+                    continue;
+                }
+                if (emptySquares > 0) put(stringBuilder, buffer, (char) ('0' + emptySquares));
+                emptySquares = 0;
+                put(stringBuilder, buffer, PIECE_LETTERS.charAt(pieceIndex));
+            }
+            if (emptySquares > 0) put(stringBuilder, buffer, (char) ('0' + emptySquares));
+            if (rank > 0) put(stringBuilder, buffer, '/');
+        }
+
+        put(stringBuilder, buffer, ' ');
+        put(stringBuilder, buffer, chessboard.getSideToMove() == WHITE ? 'w' : 'b');
+        put(stringBuilder, buffer, ' ');
+        int castlingRights = chessboard.getCastlingRights();
+        if (castlingRights == 0) put(stringBuilder, buffer, '-');
+        for (int flag = 0; flag < CASTLING_LETTERS.length(); flag++) {
+            if ((castlingRights & 1 << flag) != 0) put(stringBuilder, buffer, CASTLING_LETTERS.charAt(flag));
+        }
+
+        put(stringBuilder, buffer, ' ');
+        int enPassantSquare = chessboard.getEnPassantSquare();
+        if (enPassantSquare < 0) {
+            put(stringBuilder, buffer, '-');
+        } else {
+            put(stringBuilder, buffer, (char) ('a' + (enPassantSquare & 7)));
+            put(stringBuilder, buffer, (char) ('1' + (enPassantSquare >>> 3)));
+        }
+
+        put(stringBuilder, buffer, ' ');
+        putNumber(stringBuilder, buffer, chessboard.getHalfmoveClock());
+        put(stringBuilder, buffer, ' ');
+        putNumber(stringBuilder, buffer, chessboard.getFullmoveNumber());
+    }
+
+    /**
+     * Writes a non-negative number in decimal digits.
+     *
+     * @param stringBuilder is a string builder to append to or null.
+     * @param buffer        is a byte buffer to write to if the string builder is null.
+     * @param number        is a number to write.
+     */
+    private static void putNumber(StringBuilder stringBuilder, ByteBuffer buffer, int number) {
+        int divisor = 1;
+        while (divisor <= number / 10) divisor *= 10;
+        for (; divisor > 0; divisor /= 10) {
+            put(stringBuilder, buffer, (char) ('0' + number / divisor % 10));
+        }
+    }
+
+    /**
+     * Writes a character.
+     *
+     * @param stringBuilder is a string builder to append to or null.
+     * @param buffer        is a byte buffer to write to if the string builder is null.
+     * @param c             is an ASCII character to write.
+     */
+    private static void put(StringBuilder stringBuilder, ByteBuffer buffer, char c) {
+        if (stringBuilder != null) stringBuilder.append(c);
+        else buffer.put((byte) c);
+    }
+
+    /**
+     * Reads a character.
+     *
+     * @param text   is a character sequence to read or null.
+     * @param buffer is a byte buffer to read if the sequence is null.
+     * @param index  is an index of the character.
+     * @return the character.
+     */
+    private static char charAt(CharSequence text, ByteBuffer buffer, int index) {
+        return text != null ? text.charAt(index) : (char) (buffer.get(index) & 0xFF);
+    }
+
+    /**
+     * Skips spaces and tabs.
+     *
+     * @param text   is a character sequence to read or null.
+     * @param buffer is a byte buffer to read if the sequence is null.
+     * @param index  is an index to start from.
+     * @param end    is an index to stop at.
+     * @return an index of the first character which is not a space or a tab.
+     */
+    private static int skipSpaces(CharSequence text, ByteBuffer buffer, int index, int end) {
+        while (index < end && (charAt(text, buffer, index) == ' ' || charAt(text, buffer, index) == '\t')) index++;
+
+        return index;
+    }
+
+    /**
+     * Checks if a character ends a field.
+     *
+     * @param c is a character.
+     * @return true if the character is a space, a tab or a line break.
+     */
+    private static boolean isSeparator(char c) {
+        return c == ' ' || c == '\t' || c == '\r' || c == '\n';
+    }
+
+    /**
+     * Checks if a character is a decimal digit.
+     *
+     * @param c is a character.
+     * @return true if the character is a digit.
+     */
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
@@ -1,40 +1,126 @@
 package to.grindelf.circuitclash.domain;
 
 import org.jetbrains.annotations.NotNull;
+import to.grindelf.circuitclash.metrics.Metrics;
 
-import java.io.BufferedWriter;
+import java.io.Closeable;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 
 /**
  * Class for storing a game log. A game log contains information about
- * all moves made in a game with the move times.
+ * all moves made in a game with the move times. Entries are written to the log file
+ * asynchronously by an {@link AsyncLogWriter}, so updating the log does not wait for the disk.
+ * The writer can be shared by the logs of many games, otherwise the log starts its own.
  */
-class GameLog {
+class GameLog implements Closeable {
 
     /**
      * A list of log entries.
      */
     private final List<LogEntry> entries;
     /**
-     * A file to write to log entries.
+     * A file to write to log entries, or null if the log is kept only in memory.
      */
     private final File logFile;
+    /**
+     * Interval of forcing written entries to the disk, in milliseconds.
+     */
+    private final long flushIntervalMillis;
+    /**
+     * A writer of log files, shared with other logs or started with the first entry.
+     */
+    private AsyncLogWriter writer;
+    /**
+     * True if the writer is started by this log and has to be closed with it.
+     */
+    private final boolean ownsWriter;
+    /**
+     * The log file opened by the writer with the first entry.
+     */
+    private AsyncLogWriter.LogFile logWriter;
 
     /**
      * Initializes a game log objet.
      */
     public GameLog() {
-        this.entries = new ArrayList<>();
-        this.logFile = new File("game_log_" +
+        this(AsyncLogWriter.DEFAULT_FLUSH_INTERVAL_MILLIS);
+    }
+
+    /**
+     * Initializes a game log objet with custom flush interval.
+     *
+     * @param flushIntervalMillis is a maximum time in milliseconds a written entry may stay
+     *                            unforced to the disk.
+     */
+    public GameLog(long flushIntervalMillis) {
+        this(new File("game_log_" +
                 new Date().toString().replace(' ', '_') +
                 ".log"
-        );
+        ), flushIntervalMillis);
+    }
+
+    /**
+     * Initializes a game log objet with custom log file and flush interval.
+     *
+     * @param logFile             is a file to write to log entries, or null to keep the log only in memory.
+     * @param flushIntervalMillis is a maximum time in milliseconds a written entry may stay
+     *                            unforced to the disk.
+     */
+    public GameLog(File logFile, long flushIntervalMillis) {
+        this.entries = new ArrayList<>();
+        this.logFile = logFile;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.ownsWriter = true;
+    }
+
+    /**
+     * Initializes a game log objet which writes its log file with a shared writer.
+     *
+     * @param logFile is a file to write to log entries, or null to keep the log only in memory.
+     * @param writer  is a writer shared with other logs; it is not closed with this log.
+     */
+    GameLog(File logFile, @NotNull AsyncLogWriter writer) {
+        this.entries = new ArrayList<>();
+        this.logFile = logFile;
+        this.flushIntervalMillis = AsyncLogWriter.DEFAULT_FLUSH_INTERVAL_MILLIS;
+        this.writer = writer;
+        this.ownsWriter = false;
+    }
+
+    /**
+     * Returns log entries in the order the moves were made.
+     *
+     * @return an unmodifiable list of log entries.
+     */
+    @NotNull
+    List<LogEntry> getEntries() {
+        return Collections.unmodifiableList(this.entries);
+    }
+
+    /**
+     * Packs logged moves, replaying them from the initial position to derive move flags.
+     *
+     * @return an array of packed moves in the order they were made.
+     * @throws IOException if a logged move can't be made.
+     */
+    @NotNull
+    int[] packMoves() throws IOException {
+        int[] moves = new int[this.entries.size()];
+        Chessboard chessboard = new Chessboard();
+        for (int i = 0; i < moves.length; i++) {
+            Move move = this.entries.get(i).move();
+            moves[i] = chessboard.encodeMove(move);
+            if (moves[i] == PackedMove.NONE) throw new IOException("Logged move " + move + " can't be made.");
+            chessboard.makeMove(moves[i]);
+        }
+
+        return moves;
     }
 
     /**
@@ -54,48 +140,63 @@ class GameLog {
     }
 
     /**
-     * Updates a game log with a new move and writes the new log entry.
+     * Updates a game log with a new move and queues the new log entry for writing.
      *
      * @param move       is a description of a move to be made.
-     * @param movedPiece
-     * @throws IOException if an error occurs while writing to a file.
+     * @param movedPiece is a piece that was moved.
+     * @throws IOException if the log is closed or an earlier write failed.
      */
     public void update(Move move, Piece movedPiece) throws IOException {
+        long start = Metrics.start();
         Date timestamp = new Date();
 
         this.entries.add(new LogEntry(move, movedPiece, timestamp));
         writeToTextFile();
+        Metrics.LOG_WRITE.recordSince(start);
     }
 
     /**
-     * Writes the last log entry to a text file.
+     * Waits until all entries are written to the log file.
      *
-     * @throws IOException if an error occurs while writing to a file.
+     * @throws IOException if the log is closed or a write failed.
      */
-    private void writeToTextFile() throws IOException {
-        LogEntry lastLogEntry = this.entries.get(entries.size() - 1);
-
-        if (this.entries.size() == 1) writeLogHeaderToFile();
-        // adding header note with information about the date when the game was played
-        // before the first log entry is written
+    public void flush() throws IOException {
+        if (this.logWriter != null) this.logWriter.flush();
+    }
 
-        lastLogEntry.writeToTextFile(this.logFile);
+    /**
+     * Writes all entries to the log file and closes it.
+     *
+     * @throws IOException if a write failed.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            if (this.logWriter != null) this.logWriter.close();
+        } finally {
+            if (this.ownsWriter && this.writer != null) this.writer.close();
+        }
     }
 
     /**
-     * Writes a header to a log file. A header contains information about
-     * the date when the game was played.
+     * Queues the last log entry for writing to a text file.
+     *
+     * @throws IOException if the log is closed or an earlier write failed.
      */
-    private void writeLogHeaderToFile() {
+    private void writeToTextFile() throws IOException {
+        if (this.logFile == null) return;
+        LogEntry lastLogEntry = this.entries.get(entries.size() - 1);
 
-        try {
-            FileWriter fileWriter = new FileWriter(this.logFile, true);
-            BufferedWriter bufferedWriter = new BufferedWriter(fileWriter);
-            bufferedWriter.write("-- Game log for game played on " + LocalDate.now() + ". --\n");
-            bufferedWriter.close();
-            fileWriter.close();
-        } catch (IOException exception) {
-            System.out.println("Error writing to file.");
+        if (this.logWriter == null) {
+            if (this.writer == null) {
+                this.writer = new AsyncLogWriter(AsyncLogWriter.DEFAULT_QUEUE_CAPACITY, this.flushIntervalMillis);
+            }
+            this.logWriter = this.writer.open(this.logFile.toPath());
+            // adding header note with information about the date when the game was played
+            // before the first log entry is written
+            this.logWriter.append("-- Game log for game played on " + LocalDate.now() + ". --\n");
         }
+
+        this.logWriter.append(lastLogEntry.toString());
     }
 }
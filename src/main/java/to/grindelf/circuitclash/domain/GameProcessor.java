@@ -1,10 +1,20 @@
 package to.grindelf.circuitclash.domain;
 
 import org.jetbrains.annotations.NotNull;
+import to.grindelf.circuitclash.metrics.Metrics;
 import to.grindelf.circuitclash.utils.MoveValidator;
 import to.grindelf.circuitclash.errors.WrongMoveException;
 
 import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Random;
 
 class GameProcessor {
@@ -17,18 +27,56 @@ class GameProcessor {
      * The log of the game.
      */
     private final GameLog gameLog;
+    /**
+     * The validator of moves, shared by all moves of the game.
+     */
+    private final MoveValidator validator = new MoveValidator();
 
     /**
      * The players of the game.
      */
     private final PlayerInfo[] players;
 
+    /**
+     * Zobrist keys of all positions of the game, starting from the initial one.
+     */
+    private long[] positionKeys;
+    /**
+     * Number of positions stored in the position keys array.
+     */
+    private int positionCount;
+
+    /**
+     * Size of the transposition table of the computer opponent, in megabytes.
+     */
+    static final int SEARCH_TABLE_MEGABYTES = 16;
+    /**
+     * The computer opponent, either shared with other games or created on the first search.
+     * It uses as many threads as configured by {@link ParallelSearch#THREADS_PROPERTY}.
+     */
+    private ParallelSearch search;
+    /**
+     * True if the search was created by this processor and has to be closed with it.
+     */
+    private boolean ownsSearch;
+    /**
+     * The opening book the computer opponent plays from before searching, or null.
+     */
+    private OpeningBook openingBook;
+    /**
+     * Source of random numbers for selecting book moves.
+     */
+    private final Random random = new Random();
+
     /**
      * Initializes a game processor object with default players' names.
      */
     public GameProcessor() {
         this.chessboard = new Chessboard();
+        this.chessboard.enableAttackMaps();
         this.gameLog = new GameLog();
+        this.positionKeys = new long[]{this.chessboard.getZobristKey()};
+        this.positionCount = 1;
         PieceColor[] playerColors = this.initializePlayerColors();
         this.players = new PlayerInfo[]{
                 new PlayerInfo(1, "BoardStateRearranger 1", playerColors[0]),
@@ -40,12 +88,40 @@ class GameProcessor {
         return chessboard;
     }
 
+    /**
+     * Returns a Zobrist key of the current position, which identifies it
+     * (see {@link Chessboard#getZobristKey()}).
+     *
+     * @return a 64-bit position key.
+     */
+    public long getPositionKey() {
+        return this.chessboard.getZobristKey();
+    }
+
+    /**
+     * Counts how many times the current position has occurred in the game, including now.
+     *
+     * @return a number of occurrences of the current position.
+     */
+    public int countRepetitions() {
+        long currentKey = this.chessboard.getZobristKey();
+        int repetitions = 0;
+        for (int i = 0; i < this.positionCount; i++) {
+            if (this.positionKeys[i] == currentKey) repetitions++;
+        }
+
+        return repetitions;
+    }
+
     /**
      * Initializes a game processor object with custom players' names.
      */
     public GameProcessor(String firstPlayerName, String secondPlayerName) {
         this.chessboard = new Chessboard();
+        this.chessboard.enableAttackMaps();
         this.gameLog = new GameLog();
+        this.positionKeys = new long[]{this.chessboard.getZobristKey()};
+        this.positionCount = 1;
         PieceColor[] playerColors = this.initializePlayerColors();
         this.players = new PlayerInfo[]{
                 new PlayerInfo(1, firstPlayerName, playerColors[0]),
@@ -61,9 +137,26 @@ class GameProcessor {
             String secondPlayerName,
             PieceColor firstPlayerColor,
             PieceColor secondPlayerColor
+    ) {
+        this(firstPlayerName, secondPlayerName, firstPlayerColor, secondPlayerColor, new GameLog());
+    }
+
+    /**
+     * Initializes a game processor object with custom players' names, custom players' colors
+     * and a custom game log.
+     */
+    GameProcessor(
+            String firstPlayerName,
+            String secondPlayerName,
+            PieceColor firstPlayerColor,
+            PieceColor secondPlayerColor,
+            GameLog gameLog
     ) {
         this.chessboard = new Chessboard();
-        this.gameLog = new GameLog();
+        this.chessboard.enableAttackMaps();
+        this.gameLog = gameLog;
+        this.positionKeys = new long[]{this.chessboard.getZobristKey()};
+        this.positionCount = 1;
         this.players = new PlayerInfo[]{
                 new PlayerInfo(1, firstPlayerName, firstPlayerColor),
                 new PlayerInfo(2, secondPlayerName, secondPlayerColor)
@@ -71,23 +164,228 @@ class GameProcessor {
     }
 
 
+    /**
+     * Validates a move and makes it on the chessboard, then updates the game log.
+     *
+     * @param move is a description of a move to be made.
+     * @throws IOException        if an error occurs while writing the game log.
+     * @throws WrongMoveException if the move is impossible or violates the rules of the game
+     *                            (in the latter case it is a {@link to.grindelf.circuitclash.errors.RulesViolationException}).
+     */
     public void makeMove(@NotNull Move move) throws IOException, WrongMoveException {
-        MoveValidator validator = new MoveValidator();
+        long start = Metrics.start();
+        try {
+            validate(move);
+        } catch (WrongMoveException exception) {
+            Metrics.recordWrongMove();
+            throw exception;
+        }
+        Metrics.MOVE_VALIDATION.recordSince(start);
+
+        Piece movedPiece = this.chessboard.movePiece(move);
+        recordPositionKey();
+        this.gameLog.update(move, movedPiece);
+    }
 
+    /**
+     * Validates moves and makes them one after another, like a sequence of
+     * {@link #makeMove(Move)} calls, but stops at the first invalid move instead of throwing
+     * an exception. Moves before the invalid one stay made.
+     *
+     * @param moves is a list of moves to be made in order.
+     * @return an index of the first move which is impossible or violates the rules of the game,
+     * or -1 if all moves were made.
+     * @throws IOException if an error occurs while writing the game log.
+     */
+    public int makeMoves(@NotNull List<Move> moves) throws IOException {
+        for (int i = 0; i < moves.size(); i++) {
+            if (!tryMakeMove(moves.get(i))) return i;
+        }
+
+        return -1;
+    }
+
+    /**
+     * Validates moves and makes them one after another, stopping at the first invalid move
+     * (see {@link #makeMoves(List)}).
+     *
+     * @param moves is an array of moves to be made in order.
+     * @return an index of the first move which is impossible or violates the rules of the game,
+     * or -1 if all moves were made.
+     * @throws IOException if an error occurs while writing the game log.
+     */
+    public int makeMoves(@NotNull Move[] moves) throws IOException {
+        for (int i = 0; i < moves.length; i++) {
+            if (!tryMakeMove(moves[i])) return i;
+        }
+
+        return -1;
+    }
+
+    /**
+     * Waits until all moves made so far are written to the game log.
+     *
+     * @throws IOException if a write to the game log failed.
+     */
+    public void flushLog() throws IOException {
+        this.gameLog.flush();
+    }
+
+    /**
+     * Writes all moves to the game log and closes it. No moves can be made after that.
+     *
+     * @throws IOException if a write to the game log failed.
+     */
+    public void closeLog() throws IOException {
+        this.gameLog.close();
+    }
+
+    /**
+     * Closes the game log and stops the threads of the search created by this processor.
+     * A search shared with other games is left running.
+     *
+     * @throws IOException if a write to the game log failed.
+     */
+    public void close() throws IOException {
         try {
-            validator.isWithinTheBoard(move);
+            closeLog();
+        } finally {
+            if (this.ownsSearch) {
+                this.search.close();
+                this.search = null;
+                this.ownsSearch = false;
+            }
+        }
+    }
+
+    /**
+     * Writes the game played so far to a PGN file, replacing an existing one.
+     *
+     * @param file is a file to write.
+     * @throws IOException if an error occurs while writing.
+     */
+    public void exportPgn(@NotNull Path file) throws IOException {
+        Map<String, String> tags = new LinkedHashMap<>();
+        tags.put("Event", "Circuit Clash game");
+        tags.put("Date", LocalDate.now().format(DateTimeFormatter.ofPattern("yyyy.MM.dd")));
+        for (PlayerInfo player : this.players) {
+            tags.put(player.color() == PieceColor.WHITE ? "White" : "Black", player.name());
+        }
+
+        try (PgnWriter pgnWriter = new PgnWriter(FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING))) {
+            pgnWriter.write(this.gameLog, tags);
+        }
+    }
+
+    /**
+     * Creates a replay of the game played so far (see {@link GameReplay}).
+     *
+     * @param snapshotInterval is a number of plies between snapshots of the replay.
+     * @return a replay positioned at the start of the game.
+     * @throws IOException if a logged move can't be made.
+     */
+    @NotNull
+    public GameReplay createReplay(int snapshotInterval) throws IOException {
+        int[] moves = this.gameLog.packMoves();
+
+        return new GameReplay(new Chessboard(), moves, moves.length, snapshotInterval);
+    }
+
+    /**
+     * Sets an opening book. While the current position is in the book, {@link #findBestMove}
+     * plays a book move instead of searching.
+     *
+     * @param openingBook is an opening book or null to always search.
+     */
+    public void setOpeningBook(OpeningBook openingBook) {
+        this.openingBook = openingBook;
+    }
+
+    /**
+     * Sets a search shared with other games, which {@link #findBestMove} uses instead of
+     * creating a search of its own. The processor does not close a shared search.
+     *
+     * @param search is a shared search.
+     */
+    public void setSearch(@NotNull ParallelSearch search) {
+        if (this.ownsSearch) this.search.close();
+        this.search = search;
+        this.ownsSearch = false;
+    }
+
+    /**
+     * Searches for the best move of the side to move in the current position, or selects
+     * a move from the opening book if the position is there.
+     *
+     * @param nodeBudget       is a maximum number of positions to search, 0 for no limit.
+     * @param timeBudgetMillis is a maximum search time in milliseconds, 0 for no limit.
+     * @return the best move found or null if the side to move has no legal moves.
+     */
+    public Move findBestMove(long nodeBudget, long timeBudgetMillis) {
+        if (this.openingBook != null) {
+            int bookMove = this.openingBook.selectMove(this.chessboard, this.random);
+            if (bookMove != PackedMove.NONE) return PackedMove.toMove(bookMove);
+        }
+        if (this.search == null) {
+            this.search = new ParallelSearch(new TranspositionTable(SEARCH_TABLE_MEGABYTES));
+            this.ownsSearch = true;
+        }
+
+        return this.search.search(this.chessboard, new SearchLimits(0, nodeBudget, timeBudgetMillis)).getBestMove();
+    }
+
+    /**
+     * Makes a move if it is legal, then updates the game log.
+     *
+     * @param move is a description of a move to be made.
+     * @return true if the move was made, false if it is impossible or violates the rules of the game.
+     * @throws IOException if an error occurs while writing the game log.
+     */
+    private boolean tryMakeMove(Move move) throws IOException {
+        long start = Metrics.start();
+        int packedMove = this.validator.encodeLegalMove(move, this.chessboard);
+        if (packedMove == PackedMove.NONE) {
+            Metrics.recordWrongMove();
+            return false;
+        }
+        Metrics.MOVE_VALIDATION.recordSince(start);
+
+        start = Metrics.start();
+        Piece movedPiece = Piece.of(this.chessboard.pieceIndexAt(PackedMove.from(packedMove)));
+        this.chessboard.makeMove(packedMove);
+        Metrics.BOARD_UPDATE.recordSince(start);
+        recordPositionKey();
+        this.gameLog.update(move, movedPiece);
+
+        return true;
+    }
+
+    /**
+     * Checks if a move is possible and follows the rules of the game.
+     *
+     * @param move is a description of a move to be made.
+     * @throws WrongMoveException if the move is impossible or violates the rules of the game.
+     */
+    private void validate(Move move) throws WrongMoveException {
+        try {
+            this.validator.isWithinTheBoard(move);
         } catch (WrongMoveException exception) {
             throw new WrongMoveException(exception.getMessage());
         }
 
-        /*try {
-            validator.isCorrect(move);
-        } catch (RulesViolationException e) {
-            throw new RuntimeException(e);
-        }*/ // TODO: uncomment this to enable rules validation (not implemented yet)
+        this.chessboard.validateBySituation(move);
+        this.validator.isCorrect(move, this.chessboard);
+    }
 
-        Piece movedPiece = this.chessboard.movePiece(move);
-        this.gameLog.update(move, movedPiece);
+    /**
+     * Appends the key of the current position to the history of position keys.
+     */
+    private void recordPositionKey() {
+        if (this.positionCount == this.positionKeys.length) {
+            this.positionKeys = Arrays.copyOf(this.positionKeys, this.positionCount * 2);
+        }
+        this.positionKeys[this.positionCount++] = this.chessboard.getZobristKey();
     }
 
     /**
@@ -0,0 +1,204 @@
+package to.grindelf.circuitclash.domain;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static to.grindelf.circuitclash.domain.GameRecordWriter.FILE_HEADER_BYTES;
+import static to.grindelf.circuitclash.domain.GameRecordWriter.GAME_HEADER_BYTES;
+import static to.grindelf.circuitclash.domain.GameRecordWriter.MAGIC;
+import static to.grindelf.circuitclash.domain.GameRecordWriter.MOVE_RECORD_BYTES;
+import static to.grindelf.circuitclash.domain.GameRecordWriter.TRAILER_BYTES;
+import static to.grindelf.circuitclash.domain.GameRecordWriter.VERSION;
+
+/**
+ * Reader of a binary archive of games written by {@link GameRecordWriter}. The archive is
+ * memory-mapped, and moves are read straight from the mapped file with absolute reads, so
+ * neither random access nor iteration allocates per move. Archives up to 2 GB are supported.
+ */
+public final class GameRecordReader implements Closeable {
+
+    /**
+     * Receiver of moves of a game during iteration.
+     */
+    @FunctionalInterface
+    public interface MoveVisitor {
+
+        /**
+         * Receives a move.
+         *
+         * @param index     is an index of the move in the game.
+         * @param move      is a packed move.
+         * @param timestamp is the time of the move in milliseconds since the epoch.
+         */
+        void visit(int index, int move, long timestamp);
+    }
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int indexOffset;
+    private final int gameCount;
+
+    /**
+     * Opens and maps an archive file.
+     *
+     * @param file is a file to read.
+     * @throws IOException if the file cannot be read or is not a valid archive.
+     */
+    public GameRecordReader(@NotNull Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            long size = this.channel.size();
+            if (size > Integer.MAX_VALUE) throw new IOException("Game record is larger than 2 GB.");
+            if (size < FILE_HEADER_BYTES + TRAILER_BYTES) throw new IOException("Not a game record file.");
+            this.buffer = this.channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+
+            int trailer = (int) size - TRAILER_BYTES;
+            if (this.buffer.getInt(0) != MAGIC || this.buffer.getInt(trailer + 12) != MAGIC) {
+                throw new IOException("Not a game record file.");
+            }
+            if (this.buffer.getShort(4) != VERSION) {
+                throw new IOException("Unsupported game record version " + this.buffer.getShort(4) + ".");
+            }
+            this.indexOffset = (int) this.buffer.getLong(trailer);
+            this.gameCount = this.buffer.getInt(trailer + 8);
+            if (this.gameCount < 0 || (long) this.indexOffset + (long) this.gameCount * Long.BYTES != trailer) {
+                throw new IOException("Game record index is corrupted.");
+            }
+        } catch (IOException exception) {
+            this.channel.close();
+            throw exception;
+        }
+    }
+
+    /**
+     * Returns a number of games in the archive.
+     *
+     * @return a number of games.
+     */
+    public int getGameCount() {
+        return this.gameCount;
+    }
+
+    /**
+     * Returns a number of moves of a game.
+     *
+     * @param game is an index of the game.
+     * @return a number of moves.
+     */
+    public int getMoveCount(int game) {
+        return this.buffer.getInt(gameOffset(game));
+    }
+
+    /**
+     * Returns the time of the first move of a game.
+     *
+     * @param game is an index of the game.
+     * @return the time in milliseconds since the epoch, 0 if the game has no moves.
+     */
+    public long getStartTime(int game) {
+        return this.buffer.getLong(gameOffset(game) + 4);
+    }
+
+    /**
+     * Returns a move of a game.
+     *
+     * @param game  is an index of the game.
+     * @param index is an index of the move in the game.
+     * @return a packed move.
+     */
+    public int getMove(int game, int index) {
+        return this.buffer.getShort(moveOffset(game, index)) & 0xFFFF;
+    }
+
+    /**
+     * Returns the time of a move of a game.
+     *
+     * @param game  is an index of the game.
+     * @param index is an index of the move in the game.
+     * @return the time in milliseconds since the epoch.
+     */
+    public long getTimestamp(int game, int index) {
+        return getStartTime(game) + (this.buffer.getInt(moveOffset(game, index) + 2) & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Passes all moves of a game with their times to a visitor, in order.
+     *
+     * @param game    is an index of the game.
+     * @param visitor is a receiver of the moves.
+     */
+    public void forEachMove(int game, @NotNull MoveVisitor visitor) {
+        int count = getMoveCount(game);
+        int offset = gameOffset(game) + GAME_HEADER_BYTES;
+        long startTime = getStartTime(game);
+        for (int i = 0; i < count; i++, offset += MOVE_RECORD_BYTES) {
+            long timestamp = startTime + (this.buffer.getInt(offset + 2) & 0xFFFFFFFFL);
+            visitor.visit(i, this.buffer.getShort(offset) & 0xFFFF, timestamp);
+        }
+    }
+
+    /**
+     * Replays a game from the initial position.
+     *
+     * @param game  is an index of the game.
+     * @param plies is a number of moves to make.
+     * @return a chessboard after the moves.
+     */
+    @NotNull
+    public Chessboard replay(int game, int plies) {
+        Chessboard chessboard = new Chessboard();
+        int count = Math.min(plies, getMoveCount(game));
+        for (int i = 0; i < count; i++) {
+            chessboard.makeMove(getMove(game, i));
+        }
+
+        return chessboard;
+    }
+
+    /**
+     * Closes the file. The mapping itself is released when the reader is garbage collected.
+     *
+     * @throws IOException if an error occurs while closing the file.
+     */
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+
+    /**
+     * Returns a file offset of a game header.
+     *
+     * @param game is an index of the game.
+     * @return a file offset.
+     */
+    private int gameOffset(int game) {
+        if (game < 0 || game >= this.gameCount) {
+            throw new IndexOutOfBoundsException("Game " + game + " is out of " + this.gameCount + " games.");
+        }
+
+        return (int) this.buffer.getLong(this.indexOffset + game * Long.BYTES);
+    }
+
+    /**
+     * Returns a file offset of a move record.
+     *
+     * @param game  is an index of the game.
+     * @param index is an index of the move in the game.
+     * @return a file offset.
+     */
+    private int moveOffset(int game, int index) {
+        int offset = gameOffset(game);
+        int count = this.buffer.getInt(offset);
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("Move " + index + " is out of " + count + " moves.");
+        }
+
+        return offset + GAME_HEADER_BYTES + index * MOVE_RECORD_BYTES;
+    }
+}
@@ -0,0 +1,171 @@
+package to.grindelf.circuitclash.domain;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Writer of a binary archive of games, which is read by {@link GameRecordReader}.
+ * <p>
+ * An archive starts with a file header: the magic number {@link #MAGIC} and the format
+ * {@link #VERSION} (4 + 2 bytes, and 2 reserved bytes). Every game is a game header,
+ * a number of moves (4 bytes) and the time of the first move in milliseconds since the epoch
+ * (8 bytes), followed by move records of {@link #MOVE_RECORD_BYTES} bytes: a packed move
+ * (see {@link PackedMove}, 2 bytes) and milliseconds passed since the first move (4 bytes),
+ * so the time of any move is read without summing the times of previous moves.
+ * The archive ends with an index of file offsets of all games (8 bytes each) and a trailer:
+ * the offset of the index (8 bytes), the number of games (4 bytes) and the magic number again.
+ * Fixed-size records let a reader find any move of any game without scanning the archive.
+ */
+public final class GameRecordWriter implements Closeable {
+
+    /**
+     * Magic number of an archive, "CCGR" in ASCII.
+     */
+    static final int MAGIC = 0x43434752;
+    /**
+     * Version of the format.
+     */
+    static final short VERSION = 2;
+    /**
+     * Sizes of parts of an archive in bytes.
+     */
+    static final int FILE_HEADER_BYTES = 8;
+    static final int GAME_HEADER_BYTES = 12;
+    static final int MOVE_RECORD_BYTES = 6;
+    static final int TRAILER_BYTES = 16;
+
+    private static final int BUFFER_BYTES = 64 * 1024;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+    /**
+     * File offsets of written games.
+     */
+    private long[] gameOffsets = new long[64];
+    private int gameCount;
+    /**
+     * File offset of the next byte to be written.
+     */
+    private long position;
+    private boolean closed;
+
+    /**
+     * Creates an archive file, replacing an existing one, and writes its header.
+     *
+     * @param file is a file to write.
+     * @throws IOException if the file cannot be created.
+     */
+    public GameRecordWriter(@NotNull Path file) throws IOException {
+        this.channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        this.buffer.putInt(MAGIC).putShort(VERSION).putShort((short) 0);
+        this.position = FILE_HEADER_BYTES;
+    }
+
+    /**
+     * Writes a game.
+     *
+     * @param moves      is an array of packed moves of the game.
+     * @param timestamps is an array of times of the moves in milliseconds since the epoch.
+     * @param count      is a number of moves in the arrays.
+     * @throws IOException if an error occurs while writing to the file.
+     */
+    public void writeGame(@NotNull int[] moves, @NotNull long[] timestamps, int count) throws IOException {
+        if (this.closed) throw new IOException("The game record is closed.");
+        if (this.gameCount == this.gameOffsets.length) {
+            this.gameOffsets = Arrays.copyOf(this.gameOffsets, this.gameCount * 2);
+        }
+        this.gameOffsets[this.gameCount++] = this.position;
+
+        long startTime = count > 0 ? timestamps[0] : 0;
+        ensureSpace(GAME_HEADER_BYTES);
+        this.buffer.putInt(count).putLong(startTime);
+        for (int i = 0; i < count; i++) {
+            long elapsed = Math.min(Math.max(timestamps[i] - startTime, 0), 0xFFFFFFFFL);
+            ensureSpace(MOVE_RECORD_BYTES);
+            this.buffer.putShort((short) moves[i]).putInt((int) elapsed);
+        }
+        this.position += GAME_HEADER_BYTES + (long) count * MOVE_RECORD_BYTES;
+    }
+
+    /**
+     * Writes a game from its log.
+     *
+     * @param gameLog is a log of the game.
+     * @throws IOException if a logged move cannot be made or an error occurs while writing.
+     */
+    void writeGame(@NotNull GameLog gameLog) throws IOException {
+        List<LogEntry> entries = gameLog.getEntries();
+        int[] moves = gameLog.packMoves();
+        long[] timestamps = new long[entries.size()];
+        for (int i = 0; i < entries.size(); i++) {
+            timestamps[i] = entries.get(i).timestamp().getTime();
+        }
+
+        writeGame(moves, timestamps, entries.size());
+    }
+
+    /**
+     * Returns a number of games written so far.
+     *
+     * @return a number of games.
+     */
+    public int getGameCount() {
+        return this.gameCount;
+    }
+
+    /**
+     * Writes the index of games and the trailer, and closes the file.
+     *
+     * @throws IOException if an error occurs while writing to the file.
+     */
+    @Override
+    public void close() throws IOException {
+        if (this.closed) return;
+        this.closed = true;
+
+        try {
+            long indexOffset = this.position;
+            for (int i = 0; i < this.gameCount; i++) {
+                ensureSpace(Long.BYTES);
+                this.buffer.putLong(this.gameOffsets[i]);
+            }
+            ensureSpace(TRAILER_BYTES);
+            this.buffer.putLong(indexOffset).putInt(this.gameCount).putInt(MAGIC);
+            drain();
+        } finally {
+            this.channel.close();
+        }
+    }
+
+    /**
+     * Makes room in the buffer, writing it to the file if needed.
+     *
+     * @param bytes is a number of bytes to be put.
+     * @throws IOException if an error occurs while writing to the file.
+     */
+    private void ensureSpace(int bytes) throws IOException {
+        if (this.buffer.remaining() < bytes) drain();
+    }
+
+    /**
+     * Writes the buffer to the file.
+     *
+     * @throws IOException if an error occurs while writing to the file.
+     */
+    private void drain() throws IOException {
+        this.buffer.flip();
+        while (this.buffer.hasRemaining()) {
+            this.channel.write(this.buffer);
+        }
+        this.buffer.clear();
+    }
+}
@@ -0,0 +1,229 @@
+package to.grindelf.circuitclash.domain;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+
+/**
+ * Replay of a finished game which can jump to any ply quickly. When a replay is created, the
+ * game is played through once and a snapshot of the board is stored every
+ * {@code snapshotInterval} plies. Seeking restores the nearest snapshot at or before the
+ * target ply and makes at most {@code snapshotInterval - 1} moves, so the cost of a seek does
+ * not depend on the length of the game. Short steps from the current ply, forwards or
+ * backwards, are made with moves and undos without restoring a snapshot.
+ * <p>
+ * A snapshot takes {@value #SNAPSHOT_LONGS} longs (32 bytes): the occupancy bitboard, the
+ * piece index of every occupied square in 4 bits, in the order of squares (two longs hold
+ * up to 32 pieces), and the state of the game (side to move, castling rights, the en
+ * passant square, the halfmove clock and the fullmove number).
+ * <p>
+ * A replay keeps its own chessboard, which is returned by {@link #seek(int)} and must not
+ * be changed by the caller. A replay is not thread-safe; independent replays of the same
+ * game can be used by different threads.
+ */
+public final class GameReplay {
+
+    /**
+     * Default number of plies between snapshots.
+     */
+    public static final int DEFAULT_SNAPSHOT_INTERVAL = 16;
+
+    static final int SNAPSHOT_LONGS = 4;
+    private static final int MAX_SNAPSHOT_PIECES = 32;
+
+    /**
+     * Packed moves of the game.
+     */
+    private final int[] moves;
+    private final int snapshotInterval;
+    /**
+     * Snapshots of plies 0, {@code snapshotInterval}, {@code 2 * snapshotInterval} and so on,
+     * {@value #SNAPSHOT_LONGS} longs each.
+     */
+    private final long[] snapshots;
+    private final Chessboard board = new Chessboard();
+    /**
+     * Ply of the position on the board.
+     */
+    private int ply;
+
+    /**
+     * Initializes a replay of a game, playing it through to take snapshots. The replay
+     * starts at ply 0.
+     *
+     * @param start            is a position the game starts from; it is not changed.
+     * @param moves            is packed moves of the game.
+     * @param moveCount        is a number of moves of the game.
+     * @param snapshotInterval is a number of plies between snapshots, at least 1.
+     */
+    public GameReplay(@NotNull Chessboard start, @NotNull int[] moves, int moveCount, int snapshotInterval) {
+        if (snapshotInterval < 1) throw new IllegalArgumentException("A snapshot interval must be at least 1.");
+        if (Long.bitCount(start.getOccupancy()) > MAX_SNAPSHOT_PIECES) {
+            throw new IllegalArgumentException("A position to replay can't have more than 32 pieces.");
+        }
+        this.moves = Arrays.copyOf(moves, moveCount);
+        this.snapshotInterval = snapshotInterval;
+        this.snapshots = new long[(moveCount / snapshotInterval + 1) * SNAPSHOT_LONGS];
+
+        Chessboard chessboard = new Chessboard(start);
+        for (int i = 0; ; i++) {
+            if (i % snapshotInterval == 0) takeSnapshot(chessboard, i / snapshotInterval * SNAPSHOT_LONGS);
+            if (i == moveCount) break;
+            chessboard.makeMove(this.moves[i]);
+        }
+        restoreSnapshot(0);
+    }
+
+    /**
+     * Initializes a replay of a game from the initial position with the default snapshot interval.
+     *
+     * @param moves is packed moves of the game.
+     */
+    public GameReplay(@NotNull int[] moves) {
+        this(new Chessboard(), moves, moves.length, DEFAULT_SNAPSHOT_INTERVAL);
+    }
+
+    /**
+     * Moves to a ply of the game.
+     *
+     * @param ply is a number of moves made from the start, from 0 to {@link #getPlyCount()}.
+     * @return the board of the replay with the position after the moves.
+     * @throws IndexOutOfBoundsException if the ply is out of range.
+     */
+    @NotNull
+    public Chessboard seek(int ply) {
+        if (ply < 0 || ply > this.moves.length) {
+            throw new IndexOutOfBoundsException("Ply " + ply + " is out of range 0.." + this.moves.length + ".");
+        }
+
+        int distance = ply - this.ply;
+        boolean nearAhead = distance >= 0 && distance < this.snapshotInterval;
+        boolean nearBehind = distance < 0 && -distance < this.snapshotInterval && -distance <= this.board.getUndoCount();
+        if (!nearAhead && !nearBehind) {
+            restoreSnapshot(ply / this.snapshotInterval);
+        }
+        while (this.ply > ply) {
+            this.board.undoMove();
+            this.ply--;
+        }
+        while (this.ply < ply) {
+            this.board.makeMove(this.moves[this.ply++]);
+        }
+
+        return this.board;
+    }
+
+    /**
+     * Moves one ply forward, if the game is not at its end.
+     *
+     * @return the board of the replay.
+     */
+    @NotNull
+    public Chessboard next() {
+        return seek(Math.min(this.ply + 1, this.moves.length));
+    }
+
+    /**
+     * Moves one ply back, if the game is not at its start.
+     *
+     * @return the board of the replay.
+     */
+    @NotNull
+    public Chessboard previous() {
+        return seek(Math.max(this.ply - 1, 0));
+    }
+
+    /**
+     * Returns the board of the replay with the position of the current ply.
+     *
+     * @return the board of the replay.
+     */
+    @NotNull
+    public Chessboard getBoard() {
+        return this.board;
+    }
+
+    /**
+     * Returns the current ply.
+     *
+     * @return a number of moves made from the start.
+     */
+    public int getPly() {
+        return this.ply;
+    }
+
+    /**
+     * Returns a number of moves of the game.
+     *
+     * @return a number of plies.
+     */
+    public int getPlyCount() {
+        return this.moves.length;
+    }
+
+    /**
+     * Returns a move of the game.
+     *
+     * @param ply is a ply the move is made at, from 0 to {@link #getPlyCount()} - 1.
+     * @return a packed move.
+     */
+    public int getMove(int ply) {
+        return this.moves[ply];
+    }
+
+    /**
+     * Returns a number of plies between snapshots.
+     *
+     * @return a snapshot interval.
+     */
+    public int getSnapshotInterval() {
+        return this.snapshotInterval;
+    }
+
+    /**
+     * Stores a snapshot of a position.
+     *
+     * @param chessboard is a chessboard with the position.
+     * @param offset     is an offset of the snapshot in the snapshots array.
+     */
+    private void takeSnapshot(Chessboard chessboard, int offset) {
+        long occupancy = chessboard.getOccupancy();
+        long firstPieces = 0;
+        long secondPieces = 0;
+        int piece = 0;
+        for (long squares = occupancy; squares != 0; squares &= squares - 1, piece++) {
+            long pieceIndex = chessboard.pieceIndexAt(Long.numberOfTrailingZeros(squares));
+            if (piece < 16) firstPieces |= pieceIndex << (piece * 4);
+            else secondPieces |= pieceIndex << ((piece - 16) * 4);
+        }
+
+        this.snapshots[offset] = occupancy;
+        this.snapshots[offset + 1] = firstPieces;
+        this.snapshots[offset + 2] = secondPieces;
+        this.snapshots[offset + 3] = chessboard.getSideToMove().ordinal()
+                | (long) chessboard.getCastlingRights() << 1
+                | (long) (chessboard.getEnPassantSquare() + 1) << 5
+                | (long) chessboard.getHalfmoveClock() << 12
+                | (long) chessboard.getFullmoveNumber() << 32;
+    }
+
+    /**
+     * Sets up the board from a snapshot.
+     *
+     * @param index is an index of the snapshot.
+     */
+    private void restoreSnapshot(int index) {
+        int offset = index * SNAPSHOT_LONGS;
+        this.board.clear();
+        int piece = 0;
+        for (long squares = this.snapshots[offset]; squares != 0; squares &= squares - 1, piece++) {
+            long pieces = this.snapshots[offset + 1 + piece / 16];
+            this.board.placePiece((int) (pieces >>> ((piece % 16) * 4)) & 15, Long.numberOfTrailingZeros(squares));
+        }
+
+        long state = this.snapshots[offset + 3];
+        this.board.setState(PieceColor.values()[(int) state & 1], (int) (state >>> 1) & 15,
+                (int) (state >>> 5 & 127) - 1, (int) (state >>> 12) & 0xFFFFF, (int) (state >>> 32));
+        this.ply = index * this.snapshotInterval;
+    }
+}
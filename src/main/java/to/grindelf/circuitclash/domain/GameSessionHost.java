@@ -0,0 +1,359 @@
+package to.grindelf.circuitclash.domain;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Host of many concurrent games, each identified by a game ID. Games do not own threads:
+ * every game has a queue of tasks, and when the queue is not empty the game is scheduled
+ * on a shared executor, which runs its tasks one after another. So tasks of one game never
+ * run at the same time (a single writer for each {@link GameProcessor}), while different
+ * games run in parallel. The executor creates a virtual thread per task when the runtime
+ * supports them, otherwise it is a pool with a thread per processor. Log files of all games
+ * are written by one {@link AsyncLogWriter}, and moves of the computer opponent of all games
+ * are searched by one {@link ParallelSearch}, so the number of threads and the memory of
+ * transposition tables do not grow with the number of games.
+ * <p>
+ * Games are looked up in a {@link ConcurrentHashMap}, which reads without locks.
+ */
+public final class GameSessionHost implements AutoCloseable {
+
+    /**
+     * Maximum number of tasks a game runs before it lets other games run.
+     */
+    private static final int TASKS_PER_TURN = 64;
+
+    /**
+     * Task run on a game.
+     *
+     * @param <T> is a type of the task result.
+     */
+    @FunctionalInterface
+    interface GameTask<T> {
+
+        /**
+         * Runs the task.
+         *
+         * @param gameProcessor is a processor of the game.
+         * @return a result of the task.
+         * @throws Exception if the task fails.
+         */
+        T run(GameProcessor gameProcessor) throws Exception;
+    }
+
+    /**
+     * Task of a game queued together with the future of its result.
+     *
+     * @param task   is a task to run.
+     * @param result is a future of the task result.
+     * @param <T>    is a type of the task result.
+     */
+    private record QueuedTask<T>(GameTask<T> task, CompletableFuture<T> result) {
+
+        /**
+         * Runs the task and completes the future with its result or error.
+         *
+         * @param gameProcessor is a processor of the game.
+         */
+        void run(GameProcessor gameProcessor) {
+            try {
+                this.result.complete(this.task.run(gameProcessor));
+            } catch (Exception exception) {
+                this.result.completeExceptionally(exception);
+            }
+        }
+    }
+
+    /**
+     * A hosted game with its queue of tasks.
+     */
+    private final class Session implements Runnable {
+
+        private final GameProcessor gameProcessor;
+        private final Queue<QueuedTask<?>> tasks = new ConcurrentLinkedQueue<>();
+        /**
+         * True while the session is waiting for or running on the executor.
+         */
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        private Session(GameProcessor gameProcessor) {
+            this.gameProcessor = gameProcessor;
+        }
+
+        /**
+         * Adds a task to the queue and schedules the session if it is not scheduled yet.
+         *
+         * @param task is a task to run.
+         */
+        private void enqueue(QueuedTask<?> task) {
+            this.tasks.add(task);
+            // a task added after the host is closed is failed here, or by close() if it
+            // drains the queue later
+            if (closed) failQueuedTasks();
+            else schedule();
+        }
+
+        /**
+         * Schedules the session on the executor if it is not scheduled yet. If the executor
+         * is shut down, queued tasks are failed instead.
+         */
+        private void schedule() {
+            if (!this.scheduled.compareAndSet(false, true)) return;
+            try {
+                executor.execute(this);
+            } catch (RejectedExecutionException exception) {
+                this.scheduled.set(false);
+                failQueuedTasks();
+            }
+        }
+
+        /**
+         * Completes futures of all queued tasks exceptionally, because the host is closed.
+         */
+        private void failQueuedTasks() {
+            QueuedTask<?> task;
+            while ((task = this.tasks.poll()) != null) {
+                task.result().completeExceptionally(new RejectedExecutionException("The game host is closed."));
+            }
+        }
+
+        /**
+         * Runs queued tasks, then reschedules the session if tasks remain.
+         */
+        @Override
+        public void run() {
+            QueuedTask<?> task;
+            for (int i = 0; i < TASKS_PER_TURN && (task = this.tasks.poll()) != null; i++) {
+                task.run(this.gameProcessor);
+            }
+            this.scheduled.set(false);
+            if (!this.tasks.isEmpty()) schedule();
+        }
+    }
+
+    private final ConcurrentHashMap<Long, Session> sessions = new ConcurrentHashMap<>();
+    private final AtomicLong nextGameId = new AtomicLong(1);
+    private final ExecutorService executor;
+    /**
+     * Directory of log files of games, or null if logs are kept only in memory.
+     */
+    private final Path logDirectory;
+    /**
+     * Writer of log files of all games, or null if logs are kept only in memory.
+     */
+    private final AsyncLogWriter logWriter;
+    /**
+     * Search of the computer opponent shared by all games.
+     */
+    private final ParallelSearch search = new ParallelSearch(new TranspositionTable(GameProcessor.SEARCH_TABLE_MEGABYTES));
+    private volatile boolean closed;
+
+    /**
+     * Initializes a host which keeps game logs only in memory.
+     */
+    public GameSessionHost() {
+        this(null);
+    }
+
+    /**
+     * Initializes a host.
+     *
+     * @param logDirectory is a directory to write a log file of each game to, named after
+     *                     the game ID, or null to keep logs only in memory.
+     */
+    public GameSessionHost(Path logDirectory) {
+        this.logDirectory = logDirectory;
+        this.logWriter = logDirectory == null ? null : new AsyncLogWriter();
+        this.executor = createExecutor();
+    }
+
+    /**
+     * Starts a new game.
+     *
+     * @param whitePlayerName is a name of the player of white pieces.
+     * @param blackPlayerName is a name of the player of black pieces.
+     * @return an ID of the game.
+     */
+    public long createGame(@NotNull String whitePlayerName, @NotNull String blackPlayerName) {
+        long gameId = this.nextGameId.getAndIncrement();
+        GameLog gameLog = this.logWriter == null
+                ? new GameLog(null, AsyncLogWriter.DEFAULT_FLUSH_INTERVAL_MILLIS)
+                : new GameLog(this.logDirectory.resolve("game_" + gameId + ".log").toFile(), this.logWriter);
+        GameProcessor gameProcessor = new GameProcessor(whitePlayerName, blackPlayerName,
+                PieceColor.WHITE, PieceColor.BLACK, gameLog);
+        gameProcessor.setSearch(this.search);
+        this.sessions.put(gameId, new Session(gameProcessor));
+
+        return gameId;
+    }
+
+    /**
+     * Makes a move in a game after all previously submitted tasks of the game.
+     *
+     * @param gameId is an ID of the game.
+     * @param move   is a description of a move to be made.
+     * @return a future which completes when the move is made, or completes exceptionally with
+     * {@link to.grindelf.circuitclash.errors.WrongMoveException} if the move can't be made.
+     */
+    @NotNull
+    public CompletableFuture<Void> makeMove(long gameId, @NotNull Move move) {
+        return submit(gameId, gameProcessor -> {
+            gameProcessor.makeMove(move);
+            return null;
+        });
+    }
+
+    /**
+     * Makes moves in a game one after another, after all previously submitted tasks of the game,
+     * stopping at the first invalid move (see {@link GameProcessor#makeMoves(List)}).
+     *
+     * @param gameId is an ID of the game.
+     * @param moves  is a list of moves to be made in order, like buffered premoves of a player.
+     * @return a future of an index of the first invalid move, or -1 if all moves were made.
+     */
+    @NotNull
+    public CompletableFuture<Integer> makeMoves(long gameId, @NotNull List<Move> moves) {
+        return submit(gameId, gameProcessor -> gameProcessor.makeMoves(moves));
+    }
+
+    /**
+     * Returns a Zobrist key of the current position of a game, after all previously submitted
+     * tasks of the game.
+     *
+     * @param gameId is an ID of the game.
+     * @return a future of the position key.
+     */
+    @NotNull
+    public CompletableFuture<Long> getPositionKey(long gameId) {
+        return submit(gameId, GameProcessor::getPositionKey);
+    }
+
+    /**
+     * Finds the best move of the side to move in a game, after all previously submitted tasks
+     * of the game (see {@link GameProcessor#findBestMove(long, long)}). Searches of all games
+     * share the threads of the host and run one at a time.
+     *
+     * @param gameId           is an ID of the game.
+     * @param nodeBudget       is a maximum number of positions to search, 0 for no limit.
+     * @param timeBudgetMillis is a maximum search time in milliseconds, 0 for no limit.
+     * @return a future of the best move, or of null if the side to move has no legal moves.
+     */
+    @NotNull
+    public CompletableFuture<Move> findBestMove(long gameId, long nodeBudget, long timeBudgetMillis) {
+        return submit(gameId, gameProcessor -> gameProcessor.findBestMove(nodeBudget, timeBudgetMillis));
+    }
+
+    /**
+     * Ends a game after all previously submitted tasks of the game: closes its log and
+     * removes it from the host.
+     *
+     * @param gameId is an ID of the game.
+     * @return a future which completes when the game is ended.
+     */
+    @NotNull
+    public CompletableFuture<Void> endGame(long gameId) {
+        return submit(gameId, gameProcessor -> {
+            this.sessions.remove(gameId);
+            gameProcessor.close();
+            return null;
+        });
+    }
+
+    /**
+     * Checks if a game is hosted.
+     *
+     * @param gameId is an ID of the game.
+     * @return true if the game exists and is not ended.
+     */
+    public boolean hasGame(long gameId) {
+        return this.sessions.containsKey(gameId);
+    }
+
+    /**
+     * Returns a number of hosted games.
+     *
+     * @return a number of games.
+     */
+    public int getGameCount() {
+        return this.sessions.size();
+    }
+
+    /**
+     * Stops the executor and the search threads, and closes log files of all games. Futures of tasks which are not
+     * started yet, and of tasks submitted later, fail with {@link RejectedExecutionException}.
+     */
+    @Override
+    public void close() {
+        if (this.closed) return;
+        this.closed = true;
+        this.executor.shutdownNow();
+        this.search.close();
+        for (Session session : this.sessions.values()) {
+            session.failQueuedTasks();
+        }
+
+        if (this.logWriter != null) {
+            try {
+                this.logWriter.close();
+            } catch (IOException exception) {
+                throw new UncheckedIOException(exception);
+            }
+        }
+    }
+
+    /**
+     * Queues a task of a game.
+     *
+     * @param gameId is an ID of the game.
+     * @param task   is a task to run on the processor of the game.
+     * @param <T>    is a type of the task result.
+     * @return a future of the task result, failed with {@link IllegalArgumentException}
+     * if there is no such game, or with {@link RejectedExecutionException} if the host is closed.
+     */
+    @NotNull
+    <T> CompletableFuture<T> submit(long gameId, @NotNull GameTask<T> task) {
+        if (this.closed) {
+            return CompletableFuture.failedFuture(new RejectedExecutionException("The game host is closed."));
+        }
+        Session session = this.sessions.get(gameId);
+        if (session == null) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Game " + gameId + " does not exist."));
+        }
+
+        CompletableFuture<T> result = new CompletableFuture<>();
+        session.enqueue(new QueuedTask<>(task, result));
+
+        return result;
+    }
+
+    /**
+     * Creates an executor of game tasks: a virtual thread per task if the runtime has virtual
+     * threads, otherwise a pool of daemon threads, one per processor.
+     *
+     * @return an executor.
+     */
+    private static ExecutorService createExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException exception) {
+            return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), runnable -> {
+                Thread thread = new Thread(runnable, "game-session");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+}
@@ -2,7 +2,6 @@ package to.grindelf.circuitclash.domain;
 
 import org.jetbrains.annotations.NotNull;
 
-import java.io.*;
 import java.time.LocalTime;
 import java.time.temporal.ChronoUnit;
 import java.util.Date;
@@ -29,21 +28,4 @@ record LogEntry(Move move, Piece movedPiece, Date timestamp) {
         return "Moved " + movedPieceColor + " " + movedPiece.type.toString().toLowerCase() + " " +
                 move.toString() + " at " + LocalTime.now().truncatedTo(ChronoUnit.SECONDS) + ".\n";
     }
-
-    /**
-     * Writes a log record to a text file.
-     * @param file is a file to write to.
-     */
-    public void writeToTextFile(File file) throws IOException {
-
-        try {
-            FileWriter fileWriter = new FileWriter(file, true);
-            BufferedWriter bufferedWriter = new BufferedWriter(fileWriter);
-            bufferedWriter.write(this.toString());
-            bufferedWriter.close();
-            fileWriter.close();
-        } catch (IOException exception) {
-            throw new IOException("Error writing to file.");
-        }
-    }
 }
@@ -0,0 +1,152 @@
+package to.grindelf.circuitclash.domain;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import to.grindelf.circuitclash.errors.WrongMoveException;
+import to.grindelf.circuitclash.visualization.BoardVisualizer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static to.grindelf.circuitclash.domain.PieceColor.BLACK;
+import static to.grindelf.circuitclash.domain.PieceColor.WHITE;
+import static to.grindelf.circuitclash.domain.PieceType.*;
+
+/**
+ * Representation of a chessboard, on which the game is played, backed by a map of
+ * positions and pieces. This is the original board representation, kept as an
+ * alternative to the bitboard-backed {@link Chessboard}.
+ */
+class MapChessboard implements BoardStateRearranger {
+
+    /**
+     * State of the chessboard, represented as a map of positions (key) and pieces (values).
+     */
+    private final Map<Position, Piece> state;
+    /**
+     * Moves made on the chessboard, in order.
+     */
+    private final List<Move> madeMoves;
+    /**
+     * Pieces captured by each of the made moves, null for moves without capture.
+     */
+    private final List<Piece> capturedPieces;
+
+    /**
+     * Initializes a chessboard with all pieces on their initial positions.
+     */
+    public MapChessboard() {
+        state = new HashMap<>();
+        madeMoves = new ArrayList<>();
+        capturedPieces = new ArrayList<>();
+        initializeFiguresRow(WHITE);
+        initializePawnRow(WHITE);
+        initializePawnRow(BLACK);
+        initializeFiguresRow(BLACK);
+    }
+
+    /**
+     * Function returns a piece at given position.
+     *
+     * @param position is a position of a required piece.
+     * @return a piece at given position.
+     */
+    @Override
+    public Piece getPieceAt(@NotNull Position position) {
+        return state.get(position);
+    }
+
+    /**
+     * Moves a piece on the chessboard.
+     *
+     * @param move is a description of a move to be made.
+     * @return a piece which was moved.
+     */
+    @Override
+    public Piece movePiece(@NotNull Move move) throws WrongMoveException {
+        if (this.state.get(move.from()) == null) throw new WrongMoveException("You can't move a non-existing piece.");
+        validateBySituation(move);
+        this.madeMoves.add(move);
+        this.capturedPieces.add(this.state.put(move.to(), this.state.get(move.from())));
+        this.state.remove(move.from());
+
+        return this.state.get(move.to());
+    }
+
+    /**
+     * Takes back the last move made on the chessboard and restores a captured piece.
+     *
+     * @return a piece which was moved back.
+     * @throws WrongMoveException if no moves were made.
+     */
+    @Override
+    public Piece unmakeMove() throws WrongMoveException {
+        if (this.madeMoves.isEmpty()) throw new WrongMoveException("You can't take back a move, no moves were made.");
+        Move move = this.madeMoves.remove(this.madeMoves.size() - 1);
+        Piece capturedPiece = this.capturedPieces.remove(this.capturedPieces.size() - 1);
+
+        Piece movedPiece = this.state.remove(move.to());
+        this.state.put(move.from(), movedPiece);
+        if (capturedPiece != null) this.state.put(move.to(), capturedPiece);
+
+        return movedPiece;
+    }
+
+    @Contract(pure = true)
+    private void validateBySituation(@NotNull Move move) throws WrongMoveException {
+        if (this.state.get(move.to()) != null && this.state.get(move.to()).color == this.state.get(move.from()).color) {
+            throw new WrongMoveException("You can't move your piece on your piece.");
+        }
+    }
+
+
+    /**
+     * Function initializes a sequence of figures on the chessboard's 1st (for white) and
+     * 8th (for black) row.
+     *
+     * @param color is a color of figures to initialize.
+     */
+    private void initializeFiguresRow(PieceColor color) {
+        Map<Position, Piece> figures = new HashMap<>();
+        int rowIndex = color == WHITE ? 0 : 7;
+
+        figures.put(Position.of(0, rowIndex), Piece.of(ROOK, color));
+        figures.put(Position.of(1, rowIndex), Piece.of(KNIGHT, color));
+        figures.put(Position.of(2, rowIndex), Piece.of(BISHOP, color));
+        figures.put(Position.of(3, rowIndex), Piece.of(QUEEN, color));
+        figures.put(Position.of(4, rowIndex), Piece.of(KING, color));
+        figures.put(Position.of(5, rowIndex), Piece.of(BISHOP, color));
+        figures.put(Position.of(6, rowIndex), Piece.of(KNIGHT, color));
+        figures.put(Position.of(7, rowIndex), Piece.of(ROOK, color));
+
+        state.putAll(figures);
+    }
+
+    /**
+     * Function initializes a sequence of pawns on the chessboard's 2nd (for white) and
+     * 7th (for black) row.
+     *
+     * @param color is a color of pawns to initialize.
+     */
+    private void initializePawnRow(PieceColor color) {
+        Map<Position, Piece> pawns = new HashMap<>();
+
+        for (int i = 0; i < 8; i++) {
+            pawns.put(Position.of(i, color == WHITE ? 1 : 6), Piece.of(PAWN, color));
+        }
+
+        state.putAll(pawns);
+    }
+
+    /**
+     * Overrides toString method to print a chessboard.
+     *
+     * @return a string representation of a chessboard.
+     */
+    @Override
+    public String toString() {
+        return BoardVisualizer.visualizeAsString(this);
+    }
+}
@@ -5,8 +5,23 @@ import org.jetbrains.annotations.NotNull;
 /**
  * Class for describing a move. A move contains information from where
  * a piece is moved and where it is moved to.
+ *
+ * @param from      is a position a piece is moved from.
+ * @param to        is a position a piece is moved to.
+ * @param promotion is a type of piece a pawn is promoted to, or null if it should be
+ *                  promoted to a queen or the move is not a promotion.
  */
-public record Move(Position from, Position to) {
+public record Move(Position from, Position to, PieceType promotion) {
+
+    /**
+     * Initializes a move which is not a promotion (or a promotion to a queen).
+     *
+     * @param from is a position a piece is moved from.
+     * @param to   is a position a piece is moved to.
+     */
+    public Move(Position from, Position to) {
+        this(from, to, null);
+    }
 
     /**
      * Overrides the toString method and generates a string representation of a move.
@@ -16,6 +31,7 @@ public record Move(Position from, Position to) {
     @NotNull
     @Override
     public String toString() {
-        return "from " + from.getAlphanumerical() + " to " + to.getAlphanumerical();
+        String description = "from " + from.getAlphanumerical() + " to " + to.getAlphanumerical();
+        return promotion == null ? description : description + " promoting to " + promotion.toString().toLowerCase();
     }
 }
@@ -0,0 +1,231 @@
+package to.grindelf.circuitclash.domain;
+
+import org.jetbrains.annotations.NotNull;
+import to.grindelf.circuitclash.utils.MoveGenerator;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+/**
+ * Opening book in the Polyglot binary format. A book is a sequence of 16-byte big-endian
+ * entries sorted by position key: the key (8 bytes), a move (2 bytes), a weight (2 bytes)
+ * and a learn value (4 bytes, not used). A move stores the target square in bits 0-5, the
+ * source square in bits 6-11, both numbered like {@link Chessboard} squares, and a promotion
+ * piece in bits 12-14 (1 for a knight up to 4 for a queen). Castling is stored as the king
+ * capturing its own rook, e1h1 for the white short castling.
+ * <p>
+ * Positions are keyed either by the standard Polyglot keys (see {@link PolyglotKey}), so
+ * books written by other tools can be read, or by {@link Chessboard#getZobristKey()}, which
+ * is cheaper to get but can only be used for books written by {@link OpeningBookWriter}
+ * without a {@link PolyglotKey}.
+ * <p>
+ * The book is memory-mapped and searched with binary search right in the mapped file, so
+ * a book takes no heap space and a lookup reads a few dozen bytes. Books up to 2 GB are
+ * supported.
+ */
+public final class OpeningBook implements Closeable {
+
+    /**
+     * Size of a book entry in bytes.
+     */
+    static final int ENTRY_BYTES = 16;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int entryCount;
+    /**
+     * Function of position keys of the book, null if positions are keyed by their Zobrist keys.
+     */
+    private final PolyglotKey polyglotKey;
+
+    /**
+     * Opens and maps a book file with positions keyed by their Zobrist keys.
+     *
+     * @param file is a file to read.
+     * @throws IOException if the file cannot be read or is not a valid book.
+     */
+    public OpeningBook(@NotNull Path file) throws IOException {
+        this(file, null);
+    }
+
+    /**
+     * Opens and maps a book file.
+     *
+     * @param file        is a file to read.
+     * @param polyglotKey is a function of Polyglot position keys for a book in the standard
+     *                    format, or null if positions are keyed by their Zobrist keys.
+     * @throws IOException if the file cannot be read or is not a valid book.
+     */
+    public OpeningBook(@NotNull Path file, PolyglotKey polyglotKey) throws IOException {
+        this.polyglotKey = polyglotKey;
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            long size = this.channel.size();
+            if (size > Integer.MAX_VALUE) throw new IOException("Opening book is larger than 2 GB.");
+            if (size % ENTRY_BYTES != 0) throw new IOException("Not an opening book file.");
+            this.buffer = this.channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            this.entryCount = (int) (size / ENTRY_BYTES);
+        } catch (IOException exception) {
+            this.channel.close();
+            throw exception;
+        }
+    }
+
+    /**
+     * Returns a number of entries in the book.
+     *
+     * @return a number of entries.
+     */
+    public int getEntryCount() {
+        return this.entryCount;
+    }
+
+    /**
+     * Returns legal book moves of a position with their weights.
+     *
+     * @param board   is a chessboard with the position.
+     * @param moves   is an array to store packed moves to.
+     * @param weights is an array to store weights of the moves to.
+     * @return a number of stored moves, at most the length of the arrays.
+     */
+    public int getMoves(@NotNull Chessboard board, @NotNull int[] moves, @NotNull int[] weights) {
+        long key = keyOf(board);
+        int count = 0;
+        for (int index = findFirstEntry(key); index < this.entryCount && count < moves.length
+                && this.buffer.getLong(index * ENTRY_BYTES) == key; index++) {
+            int move = decodeMove(board, this.buffer.getShort(index * ENTRY_BYTES + 8) & 0xFFFF);
+            if (move == PackedMove.NONE) continue;
+            moves[count] = move;
+            weights[count++] = this.buffer.getShort(index * ENTRY_BYTES + 10) & 0xFFFF;
+        }
+
+        return count;
+    }
+
+    /**
+     * Selects a book move of a position at random, with probabilities proportional to the
+     * move weights. Moves with zero weight are selected only if all moves have zero weight.
+     *
+     * @param board  is a chessboard with the position.
+     * @param random is a source of random numbers.
+     * @return a legal packed move or {@link PackedMove#NONE} if the position is not in the book.
+     */
+    public int selectMove(@NotNull Chessboard board, @NotNull Random random) {
+        long key = keyOf(board);
+        int first = findFirstEntry(key);
+        int end = first;
+        long totalWeight = 0;
+        while (end < this.entryCount && this.buffer.getLong(end * ENTRY_BYTES) == key) {
+            totalWeight += this.buffer.getShort(end * ENTRY_BYTES + 10) & 0xFFFF;
+            end++;
+        }
+        if (first == end) return PackedMove.NONE;
+
+        // the selected entry is tried first, then the rest in order, in case it is illegal
+        // because of a key collision
+        int selected = first;
+        if (totalWeight > 0) {
+            long target = (long) (random.nextDouble() * totalWeight);
+            while (target >= (this.buffer.getShort(selected * ENTRY_BYTES + 10) & 0xFFFF)) {
+                target -= this.buffer.getShort(selected * ENTRY_BYTES + 10) & 0xFFFF;
+                selected++;
+            }
+        }
+        for (int i = 0; i < end - first; i++) {
+            int index = first + (selected - first + i) % (end - first);
+            int move = decodeMove(board, this.buffer.getShort(index * ENTRY_BYTES + 8) & 0xFFFF);
+            if (move != PackedMove.NONE) return move;
+        }
+
+        return PackedMove.NONE;
+    }
+
+    /**
+     * Closes the file. The mapping itself is released when the book is garbage collected.
+     *
+     * @throws IOException if an error occurs while closing the file.
+     */
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+
+    /**
+     * Returns a key of a position the book is sorted by.
+     *
+     * @param board is a chessboard with the position.
+     * @return a Polyglot key or a Zobrist key of the position.
+     */
+    private long keyOf(Chessboard board) {
+        return this.polyglotKey != null ? this.polyglotKey.compute(board) : board.getZobristKey();
+    }
+
+    /**
+     * Finds the first entry of a position. Keys are compared as unsigned numbers, the same
+     * as Polyglot sorts them.
+     *
+     * @param key is a position key.
+     * @return an index of the first entry with a key not less than the given one.
+     */
+    private int findFirstEntry(long key) {
+        int low = 0;
+        int high = this.entryCount;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (Long.compareUnsigned(this.buffer.getLong(middle * ENTRY_BYTES), key) < 0) low = middle + 1;
+            else high = middle;
+        }
+
+        return low;
+    }
+
+    /**
+     * Converts a Polyglot move to a packed move.
+     *
+     * @param board        is a chessboard with the position of the move.
+     * @param polyglotMove is a Polyglot move.
+     * @return a packed move or {@link PackedMove#NONE} if the move is not legal in the position.
+     */
+    private static int decodeMove(Chessboard board, int polyglotMove) {
+        int to = polyglotMove & 63;
+        int from = polyglotMove >>> 6 & 63;
+        int promotion = polyglotMove >>> 12 & 7;
+        int movedPieceIndex = board.pieceIndexAt(from);
+        if (movedPieceIndex < 0) return PackedMove.NONE;
+
+        int ownRookIndex = movedPieceIndex / 6 * 6 + PieceType.ROOK.ordinal();
+        if (movedPieceIndex % 6 == PieceType.KING.ordinal() && board.pieceIndexAt(to) == ownRookIndex) {
+            to = to > from ? from + 2 : from - 2;
+        }
+        PieceType promotionType = switch (promotion) {
+            case 1 -> PieceType.KNIGHT;
+            case 2 -> PieceType.BISHOP;
+            case 3 -> PieceType.ROOK;
+            default -> PieceType.QUEEN;
+        };
+        int move = board.encodeMove(from, to, promotionType);
+
+        return move != PackedMove.NONE && MoveGenerator.isLegal(board, move) ? move : PackedMove.NONE;
+    }
+
+    /**
+     * Converts a packed move to a Polyglot move.
+     *
+     * @param move is a packed move.
+     * @return a Polyglot move.
+     */
+    static int encodeMove(int move) {
+        int from = PackedMove.from(move);
+        int to = PackedMove.to(move);
+        if (PackedMove.flags(move) == PackedMove.KING_CASTLE) to = from + 3;
+        else if (PackedMove.flags(move) == PackedMove.QUEEN_CASTLE) to = from - 4;
+        int promotion = PackedMove.isPromotion(move) ? (PackedMove.flags(move) & 3) + 1 : 0;
+
+        return to | from << 6 | promotion << 12;
+    }
+}
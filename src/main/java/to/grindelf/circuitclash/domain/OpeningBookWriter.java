@@ -0,0 +1,146 @@
+package to.grindelf.circuitclash.domain;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Builder of an opening book, which is read by {@link OpeningBook}. Book moves are collected
+ * in memory, then sorted and written in the Polyglot format. Repeated moves of a position
+ * are merged into one entry with the sum of their weights. Positions are keyed by their
+ * Zobrist keys, or by the standard Polyglot keys if a {@link PolyglotKey} is given, so that
+ * other tools can read the book.
+ */
+public final class OpeningBookWriter {
+
+    private static final int BUFFER_BYTES = 64 * 1024;
+    private static final int MAX_WEIGHT = 0xFFFF;
+
+    private long[] keys = new long[256];
+    /**
+     * Polyglot moves of the entries, see {@link OpeningBook}.
+     */
+    private int[] moves = new int[256];
+    private int[] weights = new int[256];
+    private int entryCount;
+    /**
+     * Function of position keys of the book, null if positions are keyed by their Zobrist keys.
+     */
+    private final PolyglotKey polyglotKey;
+
+    /**
+     * Initializes a builder of a book with positions keyed by their Zobrist keys.
+     */
+    public OpeningBookWriter() {
+        this(null);
+    }
+
+    /**
+     * Initializes a builder.
+     *
+     * @param polyglotKey is a function of Polyglot position keys to write a book in the
+     *                    standard format, or null to key positions by their Zobrist keys.
+     */
+    public OpeningBookWriter(PolyglotKey polyglotKey) {
+        this.polyglotKey = polyglotKey;
+    }
+
+    /**
+     * Adds a book move.
+     *
+     * @param board  is a chessboard with the position of the move.
+     * @param move   is a legal packed move.
+     * @param weight is a weight of the move, the more the more often it is selected.
+     */
+    public void add(@NotNull Chessboard board, int move, int weight) {
+        if (this.entryCount == this.keys.length) {
+            this.keys = Arrays.copyOf(this.keys, this.entryCount * 2);
+            this.moves = Arrays.copyOf(this.moves, this.entryCount * 2);
+            this.weights = Arrays.copyOf(this.weights, this.entryCount * 2);
+        }
+        this.keys[this.entryCount] = this.polyglotKey != null ? this.polyglotKey.compute(board) : board.getZobristKey();
+        this.moves[this.entryCount] = OpeningBook.encodeMove(move);
+        this.weights[this.entryCount++] = weight;
+    }
+
+    /**
+     * Adds the first moves of a game played from the initial position.
+     *
+     * @param moves  is an array of packed moves of the game.
+     * @param plies  is a number of moves to add.
+     * @param weight is a weight of every added move.
+     */
+    public void addGame(@NotNull int[] moves, int plies, int weight) {
+        Chessboard chessboard = new Chessboard();
+        int count = Math.min(plies, moves.length);
+        for (int i = 0; i < count; i++) {
+            add(chessboard, moves[i], weight);
+            chessboard.makeMove(moves[i]);
+        }
+    }
+
+    /**
+     * Returns a number of added moves.
+     *
+     * @return a number of moves before merging.
+     */
+    public int getEntryCount() {
+        return this.entryCount;
+    }
+
+    /**
+     * Writes the book to a file, replacing an existing one.
+     *
+     * @param file is a file to write.
+     * @throws IOException if an error occurs while writing.
+     */
+    public void write(@NotNull Path file) throws IOException {
+        Integer[] order = new Integer[this.entryCount];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (first, second) -> {
+            int byKey = Long.compareUnsigned(this.keys[first], this.keys[second]);
+            return byKey != 0 ? byKey : Integer.compare(this.moves[first], this.moves[second]);
+        });
+
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+            for (int i = 0; i < order.length; ) {
+                int entry = order[i];
+                long weight = 0;
+                for (; i < order.length && this.keys[order[i]] == this.keys[entry] && this.moves[order[i]] == this.moves[entry]; i++) {
+                    weight += this.weights[order[i]];
+                }
+
+                if (buffer.remaining() < OpeningBook.ENTRY_BYTES) drain(buffer, channel);
+                buffer.putLong(this.keys[entry])
+                        .putShort((short) this.moves[entry])
+                        .putShort((short) Math.min(weight, MAX_WEIGHT))
+                        .putInt(0);
+            }
+            drain(buffer, channel);
+        }
+    }
+
+    /**
+     * Writes buffered bytes to a channel and clears the buffer.
+     *
+     * @param buffer  is a buffer in write mode.
+     * @param channel is a channel to write to.
+     * @throws IOException if an error occurs while writing.
+     */
+    private static void drain(ByteBuffer buffer, FileChannel channel) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,192 @@
+package to.grindelf.circuitclash.domain;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Helper for moves packed into 16 bits of an int. Bits 0-5 hold the square a piece is moved
+ * from, bits 6-11 hold the square it is moved to and bits 12-15 hold move flags. Squares are
+ * numbered from 0 (a1) to 63 (h8), row by row. Packed moves are used by move generation and
+ * search, where allocating a {@link Move} per move would be too expensive.
+ */
+public final class PackedMove {
+
+    /**
+     * Value meaning "no move".
+     */
+    public static final int NONE = 0;
+
+    /**
+     * Move flags.
+     */
+    public static final int QUIET = 0;
+    public static final int DOUBLE_PAWN_PUSH = 1;
+    public static final int KING_CASTLE = 2;
+    public static final int QUEEN_CASTLE = 3;
+    public static final int CAPTURE = 4;
+    public static final int EN_PASSANT = 5;
+    /**
+     * Promotion flag. Two lowest flag bits select a piece (knight, bishop, rook, queen),
+     * {@link #CAPTURE} bit marks a promotion with capture.
+     */
+    public static final int PROMOTION = 8;
+
+    private PackedMove() {
+    }
+
+    /**
+     * Packs a move.
+     *
+     * @param from  is a square a piece is moved from.
+     * @param to    is a square a piece is moved to.
+     * @param flags is a combination of move flags.
+     * @return a packed move.
+     */
+    @Contract(pure = true)
+    public static int of(int from, int to, int flags) {
+        return from | to << 6 | flags << 12;
+    }
+
+    /**
+     * Packs a promotion.
+     *
+     * @param from      is a square a pawn is moved from.
+     * @param to        is a square a pawn is moved to.
+     * @param promotion is a type of piece the pawn is promoted to.
+     * @param capture   is true if the promotion captures a piece.
+     * @return a packed move.
+     */
+    @Contract(pure = true)
+    public static int promotion(int from, int to, @NotNull PieceType promotion, boolean capture) {
+        int pieceBits = switch (promotion) {
+            case KNIGHT -> 0;
+            case BISHOP -> 1;
+            case ROOK -> 2;
+            default -> 3;
+        };
+
+        return of(from, to, PROMOTION | (capture ? CAPTURE : 0) | pieceBits);
+    }
+
+    /**
+     * Returns a square a piece is moved from.
+     *
+     * @param move is a packed move.
+     * @return a square index.
+     */
+    @Contract(pure = true)
+    public static int from(int move) {
+        return move & 0x3F;
+    }
+
+    /**
+     * Returns a square a piece is moved to.
+     *
+     * @param move is a packed move.
+     * @return a square index.
+     */
+    @Contract(pure = true)
+    public static int to(int move) {
+        return move >>> 6 & 0x3F;
+    }
+
+    /**
+     * Returns flags of a move.
+     *
+     * @param move is a packed move.
+     * @return move flags.
+     */
+    @Contract(pure = true)
+    public static int flags(int move) {
+        return move >>> 12 & 0xF;
+    }
+
+    /**
+     * Checks if a move captures a piece, including en passant.
+     *
+     * @param move is a packed move.
+     * @return true if the move is a capture.
+     */
+    @Contract(pure = true)
+    public static boolean isCapture(int move) {
+        return (flags(move) & CAPTURE) != 0;
+    }
+
+    /**
+     * Checks if a move is a pawn promotion.
+     *
+     * @param move is a packed move.
+     * @return true if the move is a promotion.
+     */
+    @Contract(pure = true)
+    public static boolean isPromotion(int move) {
+        return (flags(move) & PROMOTION) != 0;
+    }
+
+    /**
+     * Checks if a move is a castling.
+     *
+     * @param move is a packed move.
+     * @return true if the move is a castling.
+     */
+    @Contract(pure = true)
+    public static boolean isCastling(int move) {
+        int flags = flags(move);
+        return flags == KING_CASTLE || flags == QUEEN_CASTLE;
+    }
+
+    /**
+     * Returns a type of piece a pawn is promoted to.
+     *
+     * @param move is a packed move.
+     * @return a promotion piece type or null if the move is not a promotion.
+     */
+    @Contract(pure = true)
+    public static PieceType promotionType(int move) {
+        if (!isPromotion(move)) return null;
+
+        return switch (flags(move) & 3) {
+            case 0 -> PieceType.KNIGHT;
+            case 1 -> PieceType.BISHOP;
+            case 2 -> PieceType.ROOK;
+            default -> PieceType.QUEEN;
+        };
+    }
+
+    /**
+     * Converts a packed move to a move description.
+     *
+     * @param move is a packed move.
+     * @return a move description.
+     */
+    @NotNull
+    public static Move toMove(int move) {
+        int from = from(move);
+        int to = to(move);
+
+        return new Move(
+                Position.ofSquare(from),
+                Position.ofSquare(to),
+                promotionType(move)
+        );
+    }
+
+    /**
+     * Generates a string representation of a packed move in coordinate notation (e2e4, e7e8q).
+     *
+     * @param move is a packed move.
+     * @return a string representation of a move.
+     */
+    @NotNull
+    public static String toString(int move) {
+        int from = from(move);
+        int to = to(move);
+        StringBuilder stringBuilder = new StringBuilder(5)
+                .append((char) ('a' + (from & 7))).append((char) ('1' + (from >>> 3)))
+                .append((char) ('a' + (to & 7))).append((char) ('1' + (to >>> 3)));
+        PieceType promotion = promotionType(move);
+        if (promotion != null) stringBuilder.append("nbrq".charAt(flags(move) & 3));
+
+        return stringBuilder.toString();
+    }
+}
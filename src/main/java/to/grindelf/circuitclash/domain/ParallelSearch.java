@@ -0,0 +1,215 @@
+package to.grindelf.circuitclash.domain;
+
+import org.jetbrains.annotations.NotNull;
+import to.grindelf.circuitclash.metrics.Metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Parallel search which uses several threads (Lazy SMP). Every thread runs its own
+ * {@link SearchEngine} on the same position, and the threads share one lock-free
+ * {@link TranspositionTable}: results found by one thread cut off the search of others,
+ * so together they reach a greater depth than a single thread. Helper threads skip some
+ * depths of iterative deepening, so they work ahead of the main thread instead of
+ * repeating it. The search ends when the main thread ends, and the result of the thread
+ * which completed the deepest iteration is taken.
+ * <p>
+ * The calling thread works as the main thread, helper threads are kept in a pool until
+ * {@link #close()} is called. Searches run one at a time, so one search with its threads
+ * and table can be shared by many games, like the games of a {@link GameSessionHost}.
+ */
+public final class ParallelSearch implements AutoCloseable {
+
+    /**
+     * Name of the system property which sets a number of search threads.
+     */
+    public static final String THREADS_PROPERTY = "circuitclash.search.threads";
+
+    /**
+     * Engines of all threads, the first one is used by the main thread.
+     */
+    private final SearchEngine[] engines;
+    /**
+     * The shared transposition table.
+     */
+    private final TranspositionTable table;
+    /**
+     * Pool of helper threads, null if the search is single-threaded.
+     */
+    private final ExecutorService helpers;
+    /**
+     * Results of each thread in the last search.
+     */
+    private SearchResult[] threadResults = new SearchResult[0];
+
+    /**
+     * Initializes a parallel search with a number of threads taken from configuration
+     * (see {@link #configuredThreads()}).
+     *
+     * @param table is a transposition table shared by all threads.
+     */
+    public ParallelSearch(@NotNull TranspositionTable table) {
+        this(table, configuredThreads());
+    }
+
+    /**
+     * Initializes a parallel search.
+     *
+     * @param table   is a transposition table shared by all threads.
+     * @param threads is a number of threads, at least 1.
+     */
+    public ParallelSearch(@NotNull TranspositionTable table, int threads) {
+        if (threads < 1) throw new IllegalArgumentException("A search needs at least one thread.");
+        this.table = table;
+        this.engines = new SearchEngine[threads];
+        for (int i = 0; i < threads; i++) {
+            this.engines[i] = new SearchEngine(table, i);
+        }
+
+        this.helpers = threads == 1 ? null : Executors.newFixedThreadPool(threads - 1, runnable -> {
+            Thread thread = new Thread(runnable, "search-helper");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Returns a number of search threads set by the {@value #THREADS_PROPERTY} system property,
+     * or a number of available processors if the property is not set.
+     *
+     * @return a number of threads, at least 1.
+     */
+    public static int configuredThreads() {
+        int processors = Runtime.getRuntime().availableProcessors();
+        String threads = System.getProperty(THREADS_PROPERTY);
+        if (threads == null) return processors;
+
+        try {
+            return Math.max(1, Integer.parseInt(threads.trim()));
+        } catch (NumberFormatException exception) {
+            return processors;
+        }
+    }
+
+    /**
+     * Searches for the best move in a position with all threads. The position is not changed.
+     * A node limit is split evenly between the threads. If another search is running, this
+     * one waits until it ends.
+     *
+     * @param position is a position to search.
+     * @param limits   is limits of the search.
+     * @return a result of the thread which completed the deepest iteration, with nodes
+     * and time of the whole search.
+     */
+    @NotNull
+    public synchronized SearchResult search(@NotNull Chessboard position, @NotNull SearchLimits limits) {
+        long startTime = System.currentTimeMillis();
+        long start = Metrics.start();
+        int threads = this.engines.length;
+        SearchLimits threadLimits = limits.nodes() > 0
+                ? new SearchLimits(limits.depth(), (limits.nodes() + threads - 1) / threads, limits.timeMillis())
+                : limits;
+
+        this.table.newSearch();
+        for (SearchEngine engine : this.engines) {
+            engine.clearStop();
+        }
+
+        List<Future<SearchResult>> futures = new ArrayList<>(threads - 1);
+        for (int i = 1; i < threads; i++) {
+            SearchEngine engine = this.engines[i];
+            futures.add(this.helpers.submit(() -> engine.iterate(position, threadLimits)));
+        }
+
+        SearchResult[] results = new SearchResult[threads];
+        results[0] = this.engines[0].iterate(position, threadLimits);
+        for (int i = 1; i < threads; i++) {
+            this.engines[i].stop();
+        }
+        for (int i = 1; i < threads; i++) {
+            results[i] = awaitResult(futures.get(i - 1));
+        }
+        this.threadResults = results;
+
+        SearchResult best = results[0];
+        long nodes = 0;
+        for (SearchResult result : results) {
+            nodes += result.nodes();
+            if (result.depth() > best.depth() && result.bestMove() != PackedMove.NONE) best = result;
+        }
+        Metrics.recordSearch(nodes, start);
+
+        return new SearchResult(best.bestMove(), best.score(), best.depth(), nodes,
+                System.currentTimeMillis() - startTime, best.principalVariation());
+    }
+
+    /**
+     * Sets a tablebase for all threads (see {@link SearchEngine#setTablebase(Tablebase)}).
+     *
+     * @param tablebase is a tablebase or null to search all positions.
+     */
+    public void setTablebase(Tablebase tablebase) {
+        for (SearchEngine engine : this.engines) {
+            engine.setTablebase(tablebase);
+        }
+    }
+
+    /**
+     * Asks a running search to stop on all threads.
+     */
+    public void stop() {
+        for (SearchEngine engine : this.engines) {
+            engine.stop();
+        }
+    }
+
+    /**
+     * Returns results of each thread in the last search, the first one is of the main thread.
+     *
+     * @return an array of results, empty if there was no search yet.
+     */
+    @NotNull
+    public SearchResult[] getThreadResults() {
+        return this.threadResults.clone();
+    }
+
+    /**
+     * Returns a number of search threads.
+     *
+     * @return a number of threads.
+     */
+    public int getThreads() {
+        return this.engines.length;
+    }
+
+    /**
+     * Stops the helper threads.
+     */
+    @Override
+    public void close() {
+        stop();
+        if (this.helpers != null) this.helpers.shutdownNow();
+    }
+
+    /**
+     * Waits for a helper thread to finish its search.
+     *
+     * @param future is a pending result of the helper thread.
+     * @return the result of the helper thread.
+     */
+    private static SearchResult awaitResult(Future<SearchResult> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Search was interrupted.", exception);
+        } catch (ExecutionException exception) {
+            throw new IllegalStateException("Search thread failed.", exception.getCause());
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package to.grindelf.circuitclash.domain;
+
+import org.jetbrains.annotations.NotNull;
+import to.grindelf.circuitclash.errors.FenFormatException;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A game read from or written to PGN.
+ * <p>
+ * A game which does not start from the initial position has the tags SetUp "1" and FEN with
+ * its start position (see {@link #withStartPosition(Map, Chessboard, int[], String)}).
+ *
+ * @param tags   is tag pairs of the game in their order, like Event, White and Black.
+ * @param moves  is packed moves of the game, played from the start position.
+ * @param result is the result of the game: 1-0, 0-1, 1/2-1/2 or * for an unfinished game.
+ */
+public record PgnGame(Map<String, String> tags, int[] moves, String result) {
+
+    /**
+     * Results of a game.
+     */
+    public static final String WHITE_WINS = "1-0";
+    public static final String BLACK_WINS = "0-1";
+    public static final String DRAW = "1/2-1/2";
+    public static final String UNFINISHED = "*";
+    /**
+     * Tags of a game which starts from a set-up position.
+     */
+    public static final String SET_UP_TAG = "SetUp";
+    public static final String FEN_TAG = "FEN";
+
+    /**
+     * Creates a game played from a position. If it is not the initial position, the SetUp
+     * and FEN tags describing it are added to the tags.
+     *
+     * @param tags          is tag pairs of the game in their order, like Event, White and Black.
+     * @param startPosition is a position the game starts from.
+     * @param moves         is packed moves of the game.
+     * @param result        is the result of the game.
+     * @return a game.
+     */
+    @NotNull
+    public static PgnGame withStartPosition(@NotNull Map<String, String> tags, @NotNull Chessboard startPosition,
+                                            @NotNull int[] moves, @NotNull String result) {
+        Map<String, String> gameTags = new LinkedHashMap<>(tags);
+        gameTags.remove(SET_UP_TAG);
+        gameTags.remove(FEN_TAG);
+        String fen = Fen.toString(startPosition);
+        if (!fen.equals(Fen.INITIAL_POSITION)) {
+            gameTags.put(SET_UP_TAG, "1");
+            gameTags.put(FEN_TAG, fen);
+        }
+
+        return new PgnGame(gameTags, moves, result);
+    }
+
+    /**
+     * Returns a value of a tag.
+     *
+     * @param name is a name of the tag.
+     * @return a value of the tag or null if the game has no such tag.
+     */
+    public String getTag(@NotNull String name) {
+        return tags.get(name);
+    }
+
+    /**
+     * Returns the position the game starts from: the position of the FEN tag, unless the
+     * SetUp tag is 0, or the initial position if there is no FEN tag.
+     *
+     * @return a new chessboard with the start position.
+     * @throws IllegalStateException if the FEN tag is not a valid position.
+     */
+    @NotNull
+    public Chessboard getStartPosition() {
+        try {
+            return startPosition(tags);
+        } catch (FenFormatException exception) {
+            throw new IllegalStateException("Invalid FEN tag: " + exception.getMessage(), exception);
+        }
+    }
+
+    /**
+     * Replays moves of the game from its start position.
+     *
+     * @param plies is a number of moves to make.
+     * @return a chessboard after the moves.
+     */
+    @NotNull
+    public Chessboard replay(int plies) {
+        Chessboard chessboard = getStartPosition();
+        for (int i = 0; i < Math.min(plies, moves.length); i++) {
+            chessboard.makeMove(moves[i]);
+        }
+
+        return chessboard;
+    }
+
+    /**
+     * Creates a replay of the game, which moves between plies without replaying all moves
+     * before them (see {@link GameReplay}).
+     *
+     * @param snapshotInterval is a number of plies between snapshots of the replay.
+     * @return a replay positioned at the start of the game.
+     */
+    @NotNull
+    public GameReplay createReplay(int snapshotInterval) {
+        return new GameReplay(getStartPosition(), moves, moves.length, snapshotInterval);
+    }
+
+    /**
+     * Returns the start position of a game given by its tags (see {@link #getStartPosition()}).
+     *
+     * @param tags is tag pairs of the game.
+     * @return a new chessboard with the start position.
+     * @throws FenFormatException if the FEN tag is not a valid position.
+     */
+    @NotNull
+    static Chessboard startPosition(@NotNull Map<String, String> tags) throws FenFormatException {
+        String fen = tags.get(FEN_TAG);
+
+        return fen == null || "0".equals(tags.get(SET_UP_TAG)) ? new Chessboard() : Fen.parse(fen);
+    }
+}
@@ -0,0 +1,349 @@
+package to.grindelf.circuitclash.domain;
+
+import org.jetbrains.annotations.NotNull;
+import to.grindelf.circuitclash.errors.FenFormatException;
+import to.grindelf.circuitclash.errors.PgnFormatException;
+import to.grindelf.circuitclash.utils.MoveGenerator;
+import to.grindelf.circuitclash.utils.SanNotation;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Streaming reader of PGN files. The channel is read and decoded chunk by chunk, so a file
+ * of any size is read with a fixed amount of memory, and the text is split into games
+ * before moves are parsed. Splitting is cheap and sequential, while parsing moves, which
+ * replays them on a {@link Chessboard}, is the expensive part and can run for many games
+ * in parallel (see {@link #readAll(ReadableByteChannel, ExecutorService)}).
+ */
+public final class PgnReader implements Closeable {
+
+    private static final int CHUNK_BYTES = 64 * 1024;
+
+    private final ReadableByteChannel channel;
+    private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private final ByteBuffer bytes = ByteBuffer.allocate(CHUNK_BYTES);
+    private final CharBuffer chars = CharBuffer.allocate(CHUNK_BYTES);
+    private final StringBuilder line = new StringBuilder();
+    /**
+     * A tag line which starts the next game, read while looking for the end of the previous one.
+     */
+    private String pendingLine;
+    private boolean endOfInput;
+
+    /**
+     * Initializes a reader of a channel.
+     *
+     * @param channel is a channel with PGN text in UTF-8.
+     */
+    public PgnReader(@NotNull ReadableByteChannel channel) {
+        this.channel = channel;
+        this.chars.flip();
+    }
+
+    /**
+     * Reads all games of a channel, parsing them in parallel.
+     *
+     * @param channel  is a channel with PGN text in UTF-8.
+     * @param executor is an executor which parses games.
+     * @return games in the order they appear in the channel.
+     * @throws IOException if an error occurs while reading or a game can't be parsed.
+     */
+    @NotNull
+    public static List<PgnGame> readAll(@NotNull ReadableByteChannel channel, @NotNull ExecutorService executor) throws IOException {
+        List<Future<PgnGame>> futures = new ArrayList<>();
+        PgnReader reader = new PgnReader(channel);
+        for (String gameText = reader.nextGameText(); gameText != null; gameText = reader.nextGameText()) {
+            String text = gameText;
+            futures.add(executor.submit(() -> parse(text)));
+        }
+
+        List<PgnGame> games = new ArrayList<>(futures.size());
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                games.add(futures.get(i).get());
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while reading PGN.", exception);
+            } catch (ExecutionException exception) {
+                throw new PgnFormatException("Game " + (i + 1) + ": " + exception.getCause().getMessage());
+            }
+        }
+
+        return games;
+    }
+
+    /**
+     * Reads and parses the next game.
+     *
+     * @return the next game or null if there are no more games.
+     * @throws IOException if an error occurs while reading or the game can't be parsed.
+     */
+    public PgnGame nextGame() throws IOException {
+        String gameText = nextGameText();
+
+        return gameText == null ? null : parse(gameText);
+    }
+
+    /**
+     * Reads the text of the next game: its tag pairs and its moves.
+     *
+     * @return the text of the next game or null if there are no more games.
+     * @throws IOException if an error occurs while reading.
+     */
+    public String nextGameText() throws IOException {
+        StringBuilder game = new StringBuilder();
+        boolean hasMoves = false;
+
+        String line = this.pendingLine;
+        this.pendingLine = null;
+        if (line == null) line = readLine();
+        while (line != null) {
+            boolean tag = line.startsWith("[");
+            if (tag && hasMoves) {
+                this.pendingLine = line;
+                break;
+            }
+            if (!tag && !line.isBlank() && !line.startsWith("%")) hasMoves = true;
+            game.append(line).append('\n');
+            line = readLine();
+        }
+
+        return game.toString().isBlank() ? null : game.toString();
+    }
+
+    /**
+     * Parses the text of one game. Moves are played from the position of the FEN tag if the
+     * game has one, see {@link PgnGame#getStartPosition()}.
+     *
+     * @param text is tag pairs and moves of a game.
+     * @return the game.
+     * @throws PgnFormatException if a tag pair or the FEN tag is malformed or a move is not legal.
+     */
+    @NotNull
+    public static PgnGame parse(@NotNull CharSequence text) throws PgnFormatException {
+        Map<String, String> tags = new LinkedHashMap<>();
+        Chessboard chessboard = null;
+        int[] legalMoves = new int[MoveGenerator.MAX_MOVES];
+        int[] moves = new int[128];
+        int moveCount = 0;
+        String result = PgnGame.UNFINISHED;
+        int length = text.length();
+        int variationDepth = 0;
+
+        int i = 0;
+        while (i < length) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c) || c == '.') {
+                i++;
+            } else if (c == '{') {
+                i = skipPast(text, i, '}');
+            } else if (c == ';' || c == '%' && (i == 0 || text.charAt(i - 1) == '\n')) {
+                i = skipPast(text, i, '\n');
+            } else if (c == '(') {
+                variationDepth++;
+                i++;
+            } else if (c == ')') {
+                variationDepth--;
+                i++;
+            } else if (c == '[' && variationDepth == 0) {
+                i = parseTag(text, i, tags);
+            } else {
+                int end = i;
+                while (end < length && !Character.isWhitespace(text.charAt(end))
+                        && "{}()[];".indexOf(text.charAt(end)) < 0) {
+                    end++;
+                }
+                if (end == i) end++;
+
+                if (variationDepth > 0 || c == '$') {
+                    i = end;
+                } else if (isResult(text, i, end)) {
+                    result = text.subSequence(i, end).toString();
+                    i = end;
+                } else if (Character.isDigit(c) && !isCastling(text, i)) {
+                    int digits = i;
+                    while (digits < end && Character.isDigit(text.charAt(digits))) digits++;
+                    if (digits == end || text.charAt(digits) != '.') {
+                        throw new PgnFormatException("Unexpected token " + text.subSequence(i, end) + ".");
+                    }
+                    i = digits;
+                } else {
+                    // tags come before moves, so the start position is known at the first move
+                    if (chessboard == null) chessboard = startPosition(tags);
+                    int move = SanNotation.parse(chessboard, text, i, end, legalMoves);
+                    if (move == PackedMove.NONE) {
+                        throw new PgnFormatException("Illegal move " + text.subSequence(i, end) + " after "
+                                + moveCount + " plies.");
+                    }
+                    chessboard.makeMove(move);
+                    if (moveCount == moves.length) moves = Arrays.copyOf(moves, moveCount * 2);
+                    moves[moveCount++] = move;
+                    i = end;
+                }
+            }
+        }
+
+        return new PgnGame(tags, Arrays.copyOf(moves, moveCount), result);
+    }
+
+    /**
+     * Closes the channel.
+     *
+     * @throws IOException if an error occurs while closing the channel.
+     */
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+
+    /**
+     * Reads the next line of the channel, decoding more chunks as needed.
+     *
+     * @return a line without the line break, or null at the end of the channel.
+     * @throws IOException if an error occurs while reading.
+     */
+    private String readLine() throws IOException {
+        this.line.setLength(0);
+        while (true) {
+            while (this.chars.hasRemaining()) {
+                char c = this.chars.get();
+                if (c == '\n') return this.line.toString();
+                if (c != '\r') this.line.append(c);
+            }
+            if (!fillChars()) return this.line.length() > 0 ? this.line.toString() : null;
+        }
+    }
+
+    /**
+     * Reads and decodes the next chunk of the channel.
+     *
+     * @return false if the channel has ended and all of it is decoded.
+     * @throws IOException if an error occurs while reading.
+     */
+    private boolean fillChars() throws IOException {
+        if (this.endOfInput) return false;
+        this.chars.clear();
+        while (this.chars.position() == 0) {
+            int read = this.channel.read(this.bytes);
+            this.bytes.flip();
+            if (read < 0) {
+                this.endOfInput = true;
+                this.decoder.decode(this.bytes, this.chars, true);
+                this.decoder.flush(this.chars);
+                break;
+            }
+            this.decoder.decode(this.bytes, this.chars, false);
+            this.bytes.compact();
+        }
+        this.chars.flip();
+
+        return this.chars.hasRemaining();
+    }
+
+    /**
+     * Returns the start position of a game given by its tags.
+     *
+     * @param tags is tag pairs of the game.
+     * @return a new chessboard with the start position.
+     * @throws PgnFormatException if the FEN tag is malformed.
+     */
+    private static Chessboard startPosition(Map<String, String> tags) throws PgnFormatException {
+        try {
+            return PgnGame.startPosition(tags);
+        } catch (FenFormatException exception) {
+            throw new PgnFormatException("Invalid FEN tag: " + exception.getMessage());
+        }
+    }
+
+    /**
+     * Parses a tag pair like {@code [White "Carlsen, Magnus"]}.
+     *
+     * @param text  is the text of a game.
+     * @param start is an index of the opening bracket.
+     * @param tags  is a map to put the tag to.
+     * @return an index after the closing bracket.
+     * @throws PgnFormatException if the tag pair is malformed.
+     */
+    private static int parseTag(CharSequence text, int start, Map<String, String> tags) throws PgnFormatException {
+        int i = start + 1;
+        int nameStart = i;
+        while (i < text.length() && !Character.isWhitespace(text.charAt(i)) && text.charAt(i) != '"') i++;
+        String name = text.subSequence(nameStart, i).toString();
+        while (i < text.length() && text.charAt(i) != '"') i++;
+        if (name.isEmpty() || i == text.length()) throw new PgnFormatException("Malformed tag pair " + name + ".");
+
+        StringBuilder value = new StringBuilder();
+        for (i++; i < text.length() && text.charAt(i) != '"'; i++) {
+            if (text.charAt(i) == '\\' && i + 1 < text.length()) i++;
+            value.append(text.charAt(i));
+        }
+        int end = skipPast(text, i, ']');
+        if (i == text.length() || text.charAt(end - 1) != ']') throw new PgnFormatException("Malformed tag pair " + name + ".");
+        tags.put(name, value.toString());
+
+        return end;
+    }
+
+    /**
+     * Returns an index after the first occurrence of a character.
+     *
+     * @param text  is a text to search.
+     * @param start is an index to search from.
+     * @param c     is a character to find.
+     * @return an index after the character or the length of the text if there is none.
+     */
+    private static int skipPast(CharSequence text, int start, char c) {
+        for (int i = start; i < text.length(); i++) {
+            if (text.charAt(i) == c) return i + 1;
+        }
+
+        return text.length();
+    }
+
+    /**
+     * Checks if a token is a castling move written with zeros, like 0-0, which could be
+     * taken for a move number.
+     *
+     * @param text  is the text of a game.
+     * @param start is an index of the token.
+     * @return true if the token is castling.
+     */
+    private static boolean isCastling(CharSequence text, int start) {
+        return start + 2 < text.length() && text.charAt(start) == '0' && text.charAt(start + 1) == '-'
+                && text.charAt(start + 2) == '0';
+    }
+
+    /**
+     * Checks if a token is a game result.
+     *
+     * @param text  is the text of a game.
+     * @param start is an index of the token.
+     * @param end   is an index after the token.
+     * @return true if the token is a result.
+     */
+    private static boolean isResult(CharSequence text, int start, int end) {
+        String[] results = {PgnGame.WHITE_WINS, PgnGame.BLACK_WINS, PgnGame.DRAW, PgnGame.UNFINISHED};
+        for (String result : results) {
+            if (end - start == result.length() && result.contentEquals(text.subSequence(start, end))) return true;
+        }
+
+        return false;
+    }
+}
@@ -0,0 +1,178 @@
+package to.grindelf.circuitclash.domain;
+
+import org.jetbrains.annotations.NotNull;
+import to.grindelf.circuitclash.utils.MoveGenerator;
+import to.grindelf.circuitclash.utils.SanNotation;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Writer of games in PGN. Every game is written with its tag pairs, led by the Seven Tag
+ * Roster (Event, Site, Date, Round, White, Black, Result), and its moves in standard
+ * algebraic notation, wrapped to lines of at most 80 characters.
+ */
+public final class PgnWriter implements Closeable {
+
+    private static final int LINE_LENGTH = 80;
+    private static final String[] SEVEN_TAG_ROSTER = {"Event", "Site", "Date", "Round", "White", "Black", "Result"};
+
+    private final WritableByteChannel channel;
+    private final StringBuilder text = new StringBuilder();
+    private final int[] legalMoves = new int[MoveGenerator.MAX_MOVES];
+
+    /**
+     * Initializes a writer to a channel.
+     *
+     * @param channel is a channel to write PGN text in UTF-8 to.
+     */
+    public PgnWriter(@NotNull WritableByteChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Writes a game. A game which does not start from the initial position gets the SetUp and
+     * FEN tags after the Seven Tag Roster, and its move numbers continue from the position.
+     *
+     * @param game is a game to write.
+     * @throws IOException if an error occurs while writing.
+     */
+    public void write(@NotNull PgnGame game) throws IOException {
+        this.text.setLength(0);
+        for (String name : SEVEN_TAG_ROSTER) {
+            String value = name.equals("Result") ? game.result() : game.tags().getOrDefault(name, "?");
+            appendTag(name, value);
+        }
+        Chessboard chessboard = game.getStartPosition();
+        String fen = Fen.toString(chessboard);
+        boolean setUp = !fen.equals(Fen.INITIAL_POSITION);
+        if (setUp) {
+            appendTag(PgnGame.SET_UP_TAG, "1");
+            appendTag(PgnGame.FEN_TAG, fen);
+        }
+        for (Map.Entry<String, String> tag : game.tags().entrySet()) {
+            if (!isInSevenTagRoster(tag.getKey()) && !isStartPositionTag(tag.getKey())) {
+                appendTag(tag.getKey(), tag.getValue());
+            }
+        }
+        this.text.append('\n');
+
+        int lineStart = this.text.length();
+        int[] moves = game.moves();
+        for (int i = 0; i < moves.length; i++) {
+            int tokenStart = this.text.length();
+            if (tokenStart > lineStart) this.text.append(' ');
+            if (chessboard.getSideToMove() == PieceColor.WHITE) {
+                this.text.append(chessboard.getFullmoveNumber()).append(". ");
+            } else if (i == 0) {
+                this.text.append(chessboard.getFullmoveNumber()).append("... ");
+            }
+            SanNotation.appendTo(this.text, chessboard, moves[i], this.legalMoves);
+            chessboard.makeMove(moves[i]);
+            lineStart = wrap(lineStart, tokenStart);
+        }
+        int tokenStart = this.text.length();
+        if (tokenStart > lineStart) this.text.append(' ');
+        this.text.append(game.result());
+        wrap(lineStart, tokenStart);
+        this.text.append("\n\n");
+
+        ByteBuffer buffer = StandardCharsets.UTF_8.encode(this.text.toString());
+        while (buffer.hasRemaining()) {
+            this.channel.write(buffer);
+        }
+    }
+
+    /**
+     * Writes a game from its log. The result is taken from the final position: a checkmate
+     * or a stalemate ends the game, otherwise it is unfinished.
+     *
+     * @param gameLog is a log of the game.
+     * @param tags    is tag pairs of the game, like White and Black.
+     * @throws IOException if a logged move can't be made or an error occurs while writing.
+     */
+    void write(@NotNull GameLog gameLog, @NotNull Map<String, String> tags) throws IOException {
+        int[] moves = gameLog.packMoves();
+        Chessboard chessboard = new Chessboard();
+        for (int move : moves) {
+            chessboard.makeMove(move);
+        }
+
+        String result = PgnGame.UNFINISHED;
+        if (MoveGenerator.generateLegalMoves(chessboard, this.legalMoves) == 0) {
+            if (!chessboard.isInCheck(chessboard.getSideToMove())) result = PgnGame.DRAW;
+            else result = chessboard.getSideToMove() == PieceColor.WHITE ? PgnGame.BLACK_WINS : PgnGame.WHITE_WINS;
+        }
+
+        write(new PgnGame(new LinkedHashMap<>(tags), moves, result));
+    }
+
+    /**
+     * Closes the channel.
+     *
+     * @throws IOException if an error occurs while closing the channel.
+     */
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+
+    /**
+     * Appends a tag pair, escaping quotes and backslashes of its value.
+     *
+     * @param name  is a name of the tag.
+     * @param value is a value of the tag.
+     */
+    private void appendTag(String name, String value) {
+        this.text.append('[').append(name).append(" \"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') this.text.append('\\');
+            this.text.append(c);
+        }
+        this.text.append("\"]\n");
+    }
+
+    /**
+     * Moves the last token to a new line if the current line became too long.
+     *
+     * @param lineStart  is an index of the first character of the current line.
+     * @param tokenStart is an index where the last token starts, including a space before it.
+     * @return an index of the first character of the current line after wrapping.
+     */
+    private int wrap(int lineStart, int tokenStart) {
+        if (this.text.length() - lineStart <= LINE_LENGTH || tokenStart == lineStart) return lineStart;
+        this.text.setCharAt(tokenStart, '\n');
+
+        return tokenStart + 1;
+    }
+
+    /**
+     * Checks if a tag belongs to the Seven Tag Roster, which is written first.
+     *
+     * @param name is a name of the tag.
+     * @return true if the tag is in the roster.
+     */
+    private static boolean isInSevenTagRoster(String name) {
+        for (String rosterName : SEVEN_TAG_ROSTER) {
+            if (rosterName.equals(name)) return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Checks if a tag describes the start position, which is written from the position itself.
+     *
+     * @param name is a name of the tag.
+     * @return true if the tag is SetUp or FEN.
+     */
+    private static boolean isStartPositionTag(String name) {
+        return name.equals(PgnGame.SET_UP_TAG) || name.equals(PgnGame.FEN_TAG);
+    }
+}
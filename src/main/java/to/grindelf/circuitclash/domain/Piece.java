@@ -5,13 +5,26 @@ import org.jetbrains.annotations.NotNull;
 import to.grindelf.circuitclash.utils.Playable;
 import to.grindelf.circuitclash.visualization.PieceVisualizer;
 
+import static to.grindelf.circuitclash.domain.PieceColor.BLACK;
+import static to.grindelf.circuitclash.domain.PieceColor.WHITE;
 import static to.grindelf.circuitclash.domain.PieceType.*;
 
 /**
- * Representation of a chess piece.
+ * Representation of a chess piece. Pieces are immutable, so {@link #of(PieceType, PieceColor)}
+ * returns one shared instance per type and color.
  */
 public abstract class Piece {
 
+    /**
+     * Canonical pieces, indexed by {@code color.ordinal() * 6 + type.ordinal()}.
+     */
+    private static final Piece[] PIECES = {
+            new Pawn(WHITE), new Rook(WHITE), new Knight(WHITE),
+            new Bishop(WHITE), new Queen(WHITE), new King(WHITE),
+            new Pawn(BLACK), new Rook(BLACK), new Knight(BLACK),
+            new Bishop(BLACK), new Queen(BLACK), new King(BLACK)
+    };
+
     /**
      * Piece type.
      */
@@ -32,6 +45,47 @@ public abstract class Piece {
         this.color = color;
     }
 
+    /**
+     * Returns a piece of given type and color.
+     *
+     * @param type  is a type of piece.
+     * @param color is a color of piece.
+     * @return a shared piece instance.
+     */
+    @NotNull
+    public static Piece of(@NotNull PieceType type, @NotNull PieceColor color) {
+        return PIECES[color.ordinal() * 6 + type.ordinal()];
+    }
+
+    /**
+     * Returns a piece by its index, see {@link Chessboard#pieceIndex(PieceType, PieceColor)}.
+     *
+     * @param pieceIndex is an index of piece from 0 to 11.
+     * @return a shared piece instance.
+     */
+    @NotNull
+    static Piece of(int pieceIndex) {
+        return PIECES[pieceIndex];
+    }
+
+    /**
+     * Returns a type of this piece.
+     *
+     * @return a piece type.
+     */
+    public PieceType getType() {
+        return type;
+    }
+
+    /**
+     * Returns a color of this piece.
+     *
+     * @return a piece color.
+     */
+    public PieceColor getColor() {
+        return color;
+    }
+
     /**
      * Overrides equals method to compare two pieces.
      *
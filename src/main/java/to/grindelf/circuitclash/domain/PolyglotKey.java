@@ -0,0 +1,128 @@
+package to.grindelf.circuitclash.domain;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Position key of the Polyglot book format, which books written by other tools are sorted by.
+ * A key is a XOR of entries of the Polyglot Random64 table of {@link #TABLE_SIZE} numbers:
+ * an entry of every piece on its square, entries of castling rights, an entry of the en
+ * passant file if a pawn of the side to move can capture en passant, and an entry XORed when
+ * white is to move. The table is the one published with the Polyglot book format; it is
+ * loaded from a file with {@link #load(Path)}.
+ * <p>
+ * Keys are computed from scratch, so they are meant for book lookups, not for the search,
+ * which uses {@link Chessboard#getZobristKey()}.
+ */
+public final class PolyglotKey {
+
+    /**
+     * Number of entries of the Random64 table.
+     */
+    public static final int TABLE_SIZE = 781;
+
+    /**
+     * Offsets of parts of the table: pieces on squares, castling rights, en passant files
+     * and the side to move.
+     */
+    private static final int CASTLING_OFFSET = 768;
+    private static final int EN_PASSANT_OFFSET = 772;
+    private static final int TURN_OFFSET = 780;
+    /**
+     * Polyglot piece kinds of black pieces, indexed by a piece type ordinal; a white piece
+     * has the next kind. Polyglot orders types as pawn, knight, bishop, rook, queen, king.
+     */
+    private static final int[] BLACK_PIECE_KINDS = {0, 6, 2, 4, 8, 10};
+    private static final Pattern ENTRY = Pattern.compile("0[xX]([0-9A-Fa-f]{16})");
+    private static final PieceType[] TYPES = PieceType.values();
+
+    private final long[] random64;
+
+    /**
+     * Initializes a key function.
+     *
+     * @param random64 is the Random64 table of {@link #TABLE_SIZE} entries.
+     */
+    public PolyglotKey(@NotNull long[] random64) {
+        if (random64.length != TABLE_SIZE) {
+            throw new IllegalArgumentException("Random64 table must have " + TABLE_SIZE + " entries.");
+        }
+        this.random64 = Arrays.copyOf(random64, TABLE_SIZE);
+    }
+
+    /**
+     * Loads the Random64 table from a text file, like the source of Polyglot or the book
+     * format description, where entries are written as hexadecimal numbers of 16 digits
+     * with the {@code 0x} prefix. Any other text in the file is skipped.
+     *
+     * @param file is a file with the table.
+     * @return a key function with the table.
+     * @throws IOException if the file cannot be read or does not have {@link #TABLE_SIZE} entries.
+     */
+    @NotNull
+    public static PolyglotKey load(@NotNull Path file) throws IOException {
+        long[] random64 = new long[TABLE_SIZE];
+        int count = 0;
+        Matcher matcher = ENTRY.matcher(Files.readString(file));
+        while (matcher.find()) {
+            if (count == TABLE_SIZE) throw new IOException("Random64 table has more than " + TABLE_SIZE + " entries.");
+            random64[count++] = Long.parseUnsignedLong(matcher.group(1), 16);
+        }
+        if (count != TABLE_SIZE) {
+            throw new IOException("Random64 table has " + count + " entries instead of " + TABLE_SIZE + ".");
+        }
+
+        return new PolyglotKey(random64);
+    }
+
+    /**
+     * Computes a Polyglot key of a position.
+     *
+     * @param board is a chessboard with the position.
+     * @return a 64-bit Polyglot key.
+     */
+    public long compute(@NotNull Chessboard board) {
+        long key = 0;
+        for (PieceType type : TYPES) {
+            int blackKind = BLACK_PIECE_KINDS[type.ordinal()];
+            key ^= pieceKeys(board.getPieces(type, PieceColor.BLACK), blackKind);
+            key ^= pieceKeys(board.getPieces(type, PieceColor.WHITE), blackKind + 1);
+        }
+
+        // castling rights flags are in the Polyglot order: white short, white long,
+        // black short, black long
+        int castlingRights = board.getCastlingRights();
+        for (int i = 0; i < 4; i++) {
+            if ((castlingRights & 1 << i) != 0) key ^= this.random64[CASTLING_OFFSET + i];
+        }
+        // the board keeps the en passant square only if a pawn can capture on it, the same
+        // as Polyglot requires
+        if (board.getEnPassantSquare() >= 0) key ^= this.random64[EN_PASSANT_OFFSET + (board.getEnPassantSquare() & 7)];
+        if (board.getSideToMove() == PieceColor.WHITE) key ^= this.random64[TURN_OFFSET];
+
+        return key;
+    }
+
+    /**
+     * Returns a XOR of entries of pieces of one kind.
+     *
+     * @param pieces is a bitboard of the pieces.
+     * @param kind   is a Polyglot piece kind.
+     * @return a XOR of the entries.
+     */
+    private long pieceKeys(long pieces, int kind) {
+        long key = 0;
+        while (pieces != 0) {
+            key ^= this.random64[kind * Chessboard.SQUARES + Long.numberOfTrailingZeros(pieces)];
+            pieces &= pieces - 1;
+        }
+
+        return key;
+    }
+}
@@ -1,13 +1,24 @@
 package to.grindelf.circuitclash.domain;
 
-import java.util.Objects;
-
 /**
  * Representation of a position of a piece on the chessboard. Position is
- * depicted as a Coordinates object.
+ * depicted as a Coordinates object. Positions are immutable, so positions within
+ * the chessboard are shared: {@link #of(int, int)} returns one canonical instance
+ * per square instead of allocating a new one.
  */
 public class Position {
 
+    /**
+     * Canonical positions of all squares, indexed by {@code y * 8 + x}.
+     */
+    private static final Position[] POSITIONS = new Position[64];
+
+    static {
+        for (int square = 0; square < 64; square++) {
+            POSITIONS[square] = new Position(square & 7, square >>> 3);
+        }
+    }
+
     /**
      * Coordinates of a position.
      */
@@ -22,6 +33,27 @@ public class Position {
         coordinates = new Coordinates(x, y);
     }
 
+    /**
+     * Returns a position with given coordinates. Positions within the chessboard are
+     * taken from a table of canonical instances, other positions are created.
+     * @param x is a number of column, starting from 0.
+     * @param y is a number of row, starting from 0.
+     * @return a position with given coordinates.
+     */
+    public static Position of(int x, int y) {
+        if ((x | y) < 0 || x > 7 || y > 7) return new Position(x, y);
+        return POSITIONS[y * 8 + x];
+    }
+
+    /**
+     * Returns a canonical position of a square.
+     * @param square is a square index from 0 (a1) to 63 (h8).
+     * @return a position of the square.
+     */
+    public static Position ofSquare(int square) {
+        return POSITIONS[square];
+    }
+
     /**
      * Returns numerical coordinates of a position.
      * @return Coordinates object.
@@ -62,6 +94,7 @@ public class Position {
      */
     @Override
     public boolean equals(Object object) {
+        if (this == object) return true;
         boolean isEqual = false;
 
         if (object instanceof Position other) {
@@ -76,6 +109,6 @@ public class Position {
      */
     @Override
     public int hashCode() {
-        return Objects.hash(this.x(), this.y());
+        return this.y() * 8 + this.x();
     }
 }
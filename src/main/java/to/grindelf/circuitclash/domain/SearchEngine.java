@@ -0,0 +1,456 @@
+package to.grindelf.circuitclash.domain;
+
+import org.jetbrains.annotations.NotNull;
+import to.grindelf.circuitclash.metrics.Metrics;
+import to.grindelf.circuitclash.utils.MoveGenerator;
+import to.grindelf.circuitclash.utils.MoveOrdering;
+
+import java.util.Arrays;
+
+/**
+ * Computer opponent: searches for the best move with negamax alpha-beta and iterative
+ * deepening. The first move of every node is searched with a full window and the rest with
+ * a null window (principal variation search). Quiet moves late in the move list are searched
+ * with reduced depth, and positions where even passing the move keeps the score above beta
+ * are cut off (null-move pruning). Results are cached in a {@link TranspositionTable},
+ * positions are scored by {@link Evaluation} and moves are ordered by {@link MoveOrdering}.
+ * <p>
+ * The engine searches on its own copy of the board with make/undo, and all per-node
+ * data lives in arrays allocated once per engine, so a search does not allocate per node.
+ * An engine is not thread-safe, one engine should be used by one thread.
+ */
+public final class SearchEngine {
+
+    /**
+     * Score of a checkmate at the root; a mate in n plies scores {@code MATE - n}.
+     */
+    public static final int MATE = 32000;
+    /**
+     * Maximum search depth in plies.
+     */
+    public static final int MAX_PLY = 128;
+
+    private static final int INFINITY = MATE + 1;
+    private static final int MATE_BOUND = MATE - MAX_PLY;
+    /**
+     * Score of a position won according to a tablebase, below any mate score.
+     */
+    private static final int TABLEBASE_WIN = MATE_BOUND - MAX_PLY;
+    private static final int NULL_MOVE_REDUCTION = 2;
+    private static final int REPETITION_WINDOW = 100;
+    private static final int CHECK_INTERVAL = 1024;
+
+    /**
+     * Depth skipping pattern of helper threads of a parallel search: helper {@code i} skips
+     * depth {@code d} if {@code (d + SKIP_PHASE[i]) / SKIP_SIZE[i]} is odd, so helpers spread
+     * over different depths instead of repeating the work of the main thread.
+     */
+    private static final int[] SKIP_SIZE = {1, 1, 2, 2, 2, 2, 3, 3, 3, 3, 3, 3, 4, 4, 4, 4, 4, 4, 4, 4};
+    private static final int[] SKIP_PHASE = {0, 1, 0, 1, 2, 3, 0, 1, 2, 3, 4, 5, 0, 1, 2, 3, 4, 5, 6, 7};
+
+    /**
+     * Shared cache of search results.
+     */
+    private final TranspositionTable table;
+    /**
+     * Index of the thread in a parallel search, 0 for the main thread or a single engine.
+     */
+    private final int threadIndex;
+    /**
+     * Move lists of each ply.
+     */
+    private final int[][] moves = new int[MAX_PLY][MoveGenerator.MAX_MOVES];
+    /**
+     * Ordering scores of moves of each ply.
+     */
+    private final int[][] moveScores = new int[MAX_PLY][MoveGenerator.MAX_MOVES];
+    /**
+     * Moves which led to the node of each ply, {@link PackedMove#NONE} after a null move.
+     */
+    private final int[] previousMoves = new int[MAX_PLY];
+    private final MoveOrdering ordering = new MoveOrdering(MAX_PLY);
+    /**
+     * Triangular table of principal variations found at each ply.
+     */
+    private final int[][] principalVariations = new int[MAX_PLY][MAX_PLY];
+    private final int[] principalVariationLengths = new int[MAX_PLY];
+
+    /**
+     * Tablebase of endgames with known outcomes, or null.
+     */
+    private Tablebase tablebase;
+    private Chessboard board;
+    private long nodes;
+    private long nodeLimit;
+    private long deadline;
+    private volatile boolean stopped;
+
+    /**
+     * Initializes a search engine.
+     *
+     * @param table is a transposition table to use, which may be shared with other engines.
+     */
+    public SearchEngine(@NotNull TranspositionTable table) {
+        this(table, 0);
+    }
+
+    /**
+     * Initializes a search engine of a parallel search.
+     *
+     * @param table       is a transposition table shared by all threads of the search.
+     * @param threadIndex is an index of the thread, 0 for the main thread and above 0 for helpers,
+     *                    which skip some depths of iterative deepening.
+     */
+    SearchEngine(@NotNull TranspositionTable table, int threadIndex) {
+        this.table = table;
+        this.threadIndex = threadIndex;
+    }
+
+    /**
+     * Sets a tablebase. Positions with few pieces found there are not searched further.
+     *
+     * @param tablebase is a tablebase or null to search all positions.
+     */
+    public void setTablebase(Tablebase tablebase) {
+        this.tablebase = tablebase;
+    }
+
+    /**
+     * Searches for the best move in a position. The position is copied, so it is not changed.
+     *
+     * @param position is a position to search.
+     * @param limits   is limits of the search. If no limit is set, the search goes to
+     *                 {@link #MAX_PLY} or until {@link #stop()} is called.
+     * @return a result of the deepest completed iteration.
+     */
+    @NotNull
+    public SearchResult search(@NotNull Chessboard position, @NotNull SearchLimits limits) {
+        long start = Metrics.start();
+        this.stopped = false;
+        this.table.newSearch();
+        SearchResult result = iterate(position, limits);
+        Metrics.recordSearch(result.nodes(), start);
+
+        return result;
+    }
+
+    /**
+     * Runs iterative deepening on a copy of a position. Unlike {@link #search(Chessboard, SearchLimits)},
+     * it neither starts a new generation of the transposition table nor clears a stop request,
+     * so a parallel search can do both once for all of its threads.
+     *
+     * @param position is a position to search.
+     * @param limits   is limits of the search.
+     * @return a result of the deepest completed iteration.
+     */
+    @NotNull
+    SearchResult iterate(@NotNull Chessboard position, @NotNull SearchLimits limits) {
+        long startTime = System.currentTimeMillis();
+        this.board = new Chessboard(position);
+        // the search makes far more moves than it asks about attacks, so keeping attack maps
+        // up to date would only slow it down
+        this.board.disableAttackMaps();
+        this.nodes = 0;
+        this.nodeLimit = limits.nodes() > 0 ? limits.nodes() : Long.MAX_VALUE;
+        this.deadline = limits.timeMillis() > 0 ? startTime + limits.timeMillis() : Long.MAX_VALUE;
+        this.ordering.newSearch();
+        this.previousMoves[0] = PackedMove.NONE;
+        int maxDepth = limits.depth() > 0 ? Math.min(limits.depth(), MAX_PLY - 1) : MAX_PLY - 1;
+
+        int rootMoveCount = MoveGenerator.generateLegalMoves(this.board, this.moves[0]);
+        int bestMove = rootMoveCount > 0 ? this.moves[0][0] : PackedMove.NONE;
+        int bestScore = 0;
+        int completedDepth = 0;
+        int[] principalVariation = new int[0];
+
+        for (int depth = 1; depth <= maxDepth && rootMoveCount > 0; depth++) {
+            if (skipsDepth(depth) && depth < maxDepth) continue;
+            int score = search(depth, 0, -INFINITY, INFINITY, false);
+            if (this.stopped && completedDepth > 0) break;
+
+            completedDepth = depth;
+            bestScore = score;
+            if (this.principalVariationLengths[0] > 0) {
+                bestMove = this.principalVariations[0][0];
+                principalVariation = Arrays.copyOf(this.principalVariations[0], this.principalVariationLengths[0]);
+            }
+            if (this.stopped || Math.abs(score) >= MATE_BOUND) break;
+        }
+
+        return new SearchResult(bestMove, bestScore, completedDepth, this.nodes,
+                System.currentTimeMillis() - startTime, principalVariation);
+    }
+
+    /**
+     * Asks a running search to stop. The search returns the result of the last completed iteration.
+     */
+    public void stop() {
+        this.stopped = true;
+    }
+
+    /**
+     * Clears a stop request before a search started with {@link #iterate(Chessboard, SearchLimits)}.
+     */
+    void clearStop() {
+        this.stopped = false;
+    }
+
+    /**
+     * Checks if a helper thread of a parallel search skips a depth of iterative deepening.
+     *
+     * @param depth is a depth of the iteration.
+     * @return true if the depth is skipped.
+     */
+    private boolean skipsDepth(int depth) {
+        if (this.threadIndex == 0) return false;
+        int pattern = (this.threadIndex - 1) % SKIP_SIZE.length;
+
+        return ((depth + SKIP_PHASE[pattern]) / SKIP_SIZE[pattern]) % 2 != 0;
+    }
+
+    /**
+     * Returns a number of nodes visited by the current or the last search.
+     *
+     * @return a number of nodes.
+     */
+    public long getNodes() {
+        return this.nodes;
+    }
+
+    /**
+     * Searches a node with alpha-beta.
+     *
+     * @param depth     is a remaining depth in plies.
+     * @param ply       is a distance from the root.
+     * @param alpha     is a lower bound of the score.
+     * @param beta      is an upper bound of the score.
+     * @param afterNull is true if the previous move was a null move.
+     * @return the score of the node from the point of view of the side to move.
+     */
+    private int search(int depth, int ply, int alpha, int beta, boolean afterNull) {
+        this.principalVariationLengths[ply] = 0;
+        if (ply > 0 && isRepetition()) return 0;
+        if (ply > 0 && this.tablebase != null && Long.bitCount(this.board.getOccupancy()) <= Tablebase.MAX_PIECES) {
+            int value = this.tablebase.probe(this.board);
+            if (value == EndgameTable.WIN) return TABLEBASE_WIN - ply;
+            if (value == EndgameTable.LOSS) return -TABLEBASE_WIN + ply;
+            if (value == EndgameTable.DRAW) return 0;
+        }
+        if (depth <= 0) return quiescence(ply, alpha, beta);
+        if (countNode() || ply >= MAX_PLY - 1) return Evaluation.evaluate(this.board, alpha, beta);
+
+        boolean principalNode = beta - alpha > 1;
+        long key = this.board.getZobristKey();
+        long entry = this.table.probe(key);
+        int hashMove = PackedMove.NONE;
+        if (entry != TranspositionTable.NO_ENTRY) {
+            hashMove = TranspositionTable.move(entry);
+            if (ply > 0 && !principalNode && TranspositionTable.depth(entry) >= depth) {
+                int score = scoreFromTable(TranspositionTable.score(entry), ply);
+                int bound = TranspositionTable.bound(entry);
+                if (bound == TranspositionTable.EXACT
+                        || bound == TranspositionTable.LOWER_BOUND && score >= beta
+                        || bound == TranspositionTable.UPPER_BOUND && score <= alpha) {
+                    return score;
+                }
+            }
+        }
+
+        PieceColor us = this.board.getSideToMove();
+        boolean inCheck = this.board.isInCheck(us);
+        if (inCheck) depth++;
+
+        if (!principalNode && !inCheck && !afterNull && depth >= 3 && hasPiecesBesidesPawns(us)
+                && Evaluation.evaluate(this.board, beta - 1, beta) >= beta) {
+            this.board.makeNullMove();
+            this.previousMoves[ply + 1] = PackedMove.NONE;
+            int score = -search(depth - 1 - NULL_MOVE_REDUCTION, ply + 1, -beta, -beta + 1, true);
+            this.board.undoMove();
+            if (this.stopped) return 0;
+            if (score >= beta) return score >= MATE_BOUND ? beta : score;
+        }
+
+        int[] moves = this.moves[ply];
+        int moveCount = MoveGenerator.generateLegalMoves(this.board, moves);
+        if (moveCount == 0) return inCheck ? -MATE + ply : 0;
+        int[] scores = this.moveScores[ply];
+        this.ordering.scoreMoves(this.board, moves, scores, moveCount, ply, hashMove, this.previousMoves[ply]);
+
+        int bestScore = -INFINITY;
+        int bestMove = PackedMove.NONE;
+        int originalAlpha = alpha;
+        for (int i = 0; i < moveCount; i++) {
+            int move = MoveOrdering.pickMove(moves, scores, i, moveCount);
+            boolean quiet = !PackedMove.isCapture(move) && !PackedMove.isPromotion(move);
+            this.board.makeMove(move);
+            this.previousMoves[ply + 1] = move;
+
+            int score;
+            if (i == 0) {
+                score = -search(depth - 1, ply + 1, -beta, -alpha, false);
+            } else {
+                int reduction = 0;
+                if (depth >= 3 && i >= 3 && quiet && !inCheck && !this.board.isInCheck(this.board.getSideToMove())) {
+                    reduction = i >= 8 ? 2 : 1;
+                }
+                score = -search(depth - 1 - reduction, ply + 1, -alpha - 1, -alpha, false);
+                if (score > alpha && reduction > 0) {
+                    score = -search(depth - 1, ply + 1, -alpha - 1, -alpha, false);
+                }
+                if (score > alpha && score < beta) {
+                    score = -search(depth - 1, ply + 1, -beta, -alpha, false);
+                }
+            }
+
+            this.board.undoMove();
+            if (this.stopped) return 0;
+
+            if (score > bestScore) {
+                bestScore = score;
+                bestMove = move;
+                if (score > alpha) {
+                    alpha = score;
+                    updatePrincipalVariation(ply, move);
+                    if (alpha >= beta) {
+                        this.ordering.recordCutoff(us, moves, i, ply, depth, this.previousMoves[ply]);
+                        break;
+                    }
+                }
+            }
+        }
+
+        int bound = bestScore >= beta ? TranspositionTable.LOWER_BOUND
+                : bestScore > originalAlpha ? TranspositionTable.EXACT : TranspositionTable.UPPER_BOUND;
+        this.table.store(key, bestMove, scoreToTable(bestScore, ply), depth, bound, 0);
+
+        return bestScore;
+    }
+
+    /**
+     * Searches only captures and promotions until the position is quiet, so that the
+     * evaluation is not taken in the middle of an exchange.
+     *
+     * @param ply   is a distance from the root.
+     * @param alpha is a lower bound of the score.
+     * @param beta  is an upper bound of the score.
+     * @return the score of the node from the point of view of the side to move.
+     */
+    private int quiescence(int ply, int alpha, int beta) {
+        this.principalVariationLengths[ply] = 0;
+        int standPat = Evaluation.evaluate(this.board, alpha, beta);
+        if (countNode() || ply >= MAX_PLY - 1) return standPat;
+        if (standPat >= beta) return standPat;
+        if (standPat > alpha) alpha = standPat;
+
+        int[] moves = this.moves[ply];
+        int moveCount = MoveGenerator.generateLegalCaptures(this.board, moves);
+        int[] scores = this.moveScores[ply];
+        this.ordering.scoreMoves(this.board, moves, scores, moveCount, ply, PackedMove.NONE, PackedMove.NONE);
+
+        int bestScore = standPat;
+        for (int i = 0; i < moveCount; i++) {
+            int move = MoveOrdering.pickMove(moves, scores, i, moveCount);
+            this.board.makeMove(move);
+            int score = -quiescence(ply + 1, -beta, -alpha);
+            this.board.undoMove();
+            if (this.stopped) return 0;
+
+            if (score > bestScore) {
+                bestScore = score;
+                if (score > alpha) {
+                    alpha = score;
+                    if (alpha >= beta) break;
+                }
+            }
+        }
+
+        return bestScore;
+    }
+
+    /**
+     * Puts a move in front of the principal variation of the next ply.
+     *
+     * @param ply  is a distance from the root.
+     * @param move is the best move of the ply.
+     */
+    private void updatePrincipalVariation(int ply, int move) {
+        int[] principalVariation = this.principalVariations[ply];
+        principalVariation[0] = move;
+        int childLength = this.principalVariationLengths[ply + 1];
+        System.arraycopy(this.principalVariations[ply + 1], 0, principalVariation, 1, childLength);
+        this.principalVariationLengths[ply] = childLength + 1;
+    }
+
+    /**
+     * Counts a visited node and checks if the search has to stop.
+     *
+     * @return true if the search is stopped.
+     */
+    private boolean countNode() {
+        this.nodes++;
+        if (this.nodes >= this.nodeLimit) {
+            this.stopped = true;
+        } else if ((this.nodes & (CHECK_INTERVAL - 1)) == 0 && System.currentTimeMillis() >= this.deadline) {
+            this.stopped = true;
+        }
+
+        return this.stopped;
+    }
+
+    /**
+     * Checks if the current position has occurred before, looking back through recent moves
+     * made by the same side. A repetition is scored as a draw.
+     *
+     * @return true if the position is a repetition.
+     */
+    private boolean isRepetition() {
+        long key = this.board.getZobristKey();
+        int undoCount = this.board.getUndoCount();
+        int oldest = Math.max(0, undoCount - REPETITION_WINDOW);
+        for (int index = undoCount - 2; index >= oldest; index -= 2) {
+            if (this.board.getZobristKeyBefore(index) == key) return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Checks if a side has pieces other than pawns and the king. Null-move pruning is unsafe
+     * in pawn endings, where passing the move would be an advantage (zugzwang).
+     *
+     * @param color is a color of the side.
+     * @return true if the side has a knight, a bishop, a rook or a queen.
+     */
+    private boolean hasPiecesBesidesPawns(PieceColor color) {
+        return (this.board.getOccupancy(color)
+                & ~this.board.getPieces(PieceType.PAWN, color)
+                & ~this.board.getPieces(PieceType.KING, color)) != 0;
+    }
+
+    /**
+     * Converts a mate score relative to the root to a score relative to the current node,
+     * so it can be reused at a different distance from the root.
+     *
+     * @param score is a score relative to the root.
+     * @param ply   is a distance from the root.
+     * @return a score to store.
+     */
+    private static int scoreToTable(int score, int ply) {
+        if (score >= MATE_BOUND) return score + ply;
+        if (score <= -MATE_BOUND) return score - ply;
+        return score;
+    }
+
+    /**
+     * Converts a stored score back to a score relative to the root.
+     *
+     * @param score is a stored score.
+     * @param ply   is a distance from the root.
+     * @return a score relative to the root.
+     */
+    private static int scoreFromTable(int score, int ply) {
+        if (score >= MATE_BOUND) return score - ply;
+        if (score <= -MATE_BOUND) return score + ply;
+        return score;
+    }
+}
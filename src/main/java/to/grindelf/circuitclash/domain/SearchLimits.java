@@ -0,0 +1,51 @@
+package to.grindelf.circuitclash.domain;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Limits of a search. A search stops at whichever limit is reached first,
+ * a zero value means the limit is not set.
+ *
+ * @param depth      is a maximum depth of iterative deepening, in plies.
+ * @param nodes      is a maximum number of visited nodes.
+ * @param timeMillis is a maximum search time in milliseconds.
+ */
+public record SearchLimits(int depth, long nodes, long timeMillis) {
+
+    /**
+     * Returns limits which stop a search at given depth.
+     *
+     * @param depth is a maximum depth in plies.
+     * @return search limits.
+     */
+    @NotNull
+    @Contract(pure = true)
+    public static SearchLimits depth(int depth) {
+        return new SearchLimits(depth, 0, 0);
+    }
+
+    /**
+     * Returns limits which stop a search after given number of nodes.
+     *
+     * @param nodes is a maximum number of nodes.
+     * @return search limits.
+     */
+    @NotNull
+    @Contract(pure = true)
+    public static SearchLimits nodes(long nodes) {
+        return new SearchLimits(0, nodes, 0);
+    }
+
+    /**
+     * Returns limits which stop a search after given time.
+     *
+     * @param timeMillis is a maximum search time in milliseconds.
+     * @return search limits.
+     */
+    @NotNull
+    @Contract(pure = true)
+    public static SearchLimits time(long timeMillis) {
+        return new SearchLimits(0, 0, timeMillis);
+    }
+}
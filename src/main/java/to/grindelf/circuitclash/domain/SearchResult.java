@@ -0,0 +1,57 @@
+package to.grindelf.circuitclash.domain;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Result of a search.
+ *
+ * @param bestMove           is the best move found, a packed move or {@link PackedMove#NONE}
+ *                           if the side to move has no legal moves.
+ * @param score              is the score of the best move in centipawns from the point of view
+ *                           of the side to move.
+ * @param depth              is the depth of the last completed iteration.
+ * @param nodes              is a number of visited nodes.
+ * @param timeMillis         is the time the search took, in milliseconds.
+ * @param principalVariation is the expected sequence of moves, starting with the best move.
+ */
+public record SearchResult(int bestMove, int score, int depth, long nodes, long timeMillis, int[] principalVariation) {
+
+    /**
+     * Returns the best move as a move description.
+     *
+     * @return the best move or null if there is none.
+     */
+    public Move getBestMove() {
+        return bestMove == PackedMove.NONE ? null : PackedMove.toMove(bestMove);
+    }
+
+    /**
+     * Returns the search speed.
+     *
+     * @return a number of nodes visited per second.
+     */
+    public long getNodesPerSecond() {
+        return nodes * 1000 / Math.max(1, timeMillis);
+    }
+
+    /**
+     * Overrides the toString method and generates a string representation of a search result.
+     *
+     * @return a string representation of a search result.
+     */
+    @NotNull
+    @Override
+    public String toString() {
+        StringBuilder stringBuilder = new StringBuilder()
+                .append("depth ").append(depth)
+                .append(" score ").append(score)
+                .append(" nodes ").append(nodes)
+                .append(" nps ").append(getNodesPerSecond())
+                .append(" pv");
+        for (int move : principalVariation) {
+            stringBuilder.append(' ').append(PackedMove.toString(move));
+        }
+
+        return stringBuilder.toString();
+    }
+}
@@ -0,0 +1,102 @@
+package to.grindelf.circuitclash.domain;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Set of {@link EndgameTable}s, which answers for any position with a lone king against a
+ * king with at most {@link EndgameTable#MAX_STRONG_PIECES} pieces whose table is in the set.
+ */
+public final class Tablebase implements Closeable {
+
+    /**
+     * Maximum number of pieces on the board, including kings, of a position in a tablebase.
+     */
+    public static final int MAX_PIECES = EndgameTable.MAX_STRONG_PIECES + 2;
+
+    private static final int PIECE_TYPES = PieceType.KING.ordinal();
+    private static final PieceType[] TYPES = PieceType.values();
+
+    /**
+     * Tables indexed by a material code, see {@link #materialCode(int, int)}.
+     */
+    private final EndgameTable[] tables = new EndgameTable[PIECE_TYPES * (PIECE_TYPES + 1)];
+
+    /**
+     * Opens all table files (*.cctb) of a directory.
+     *
+     * @param directory is a directory of tables.
+     * @throws IOException if a table cannot be read.
+     */
+    public Tablebase(@NotNull Path directory) throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*.cctb")) {
+            for (Path file : files) {
+                EndgameTable table = new EndgameTable(file);
+                PieceType[] pieces = EndgameTableGenerator.parseName(table.getName());
+                int code = pieces.length == 1 ? materialCode(pieces[0].ordinal(), -1) : materialCode(pieces[0].ordinal(), pieces[1].ordinal());
+                if (this.tables[code] != null) this.tables[code].close();
+                this.tables[code] = table;
+            }
+        } catch (IOException exception) {
+            close();
+            throw exception;
+        }
+    }
+
+    /**
+     * Looks up the value of a position.
+     *
+     * @param board is a chessboard with the position.
+     * @return {@link EndgameTable#WIN}, {@link EndgameTable#DRAW} or {@link EndgameTable#LOSS}
+     * for the side to move, or {@link EndgameTable#UNKNOWN} if there is no table for the position.
+     */
+    public int probe(@NotNull Chessboard board) {
+        long occupancy = board.getOccupancy();
+        int pieceCount = Long.bitCount(occupancy);
+        if (pieceCount > MAX_PIECES) return EndgameTable.UNKNOWN;
+        if (pieceCount == 2) return EndgameTable.DRAW;
+
+        PieceColor strong = Long.bitCount(board.getOccupancy(PieceColor.WHITE)) > 1 ? PieceColor.WHITE : PieceColor.BLACK;
+        int first = -1;
+        int second = -1;
+        for (int type = 0; type < PIECE_TYPES; type++) {
+            long pieces = board.getPieces(TYPES[type], strong);
+            for (; pieces != 0; pieces &= pieces - 1) {
+                if (first < 0) first = type;
+                else second = type;
+            }
+        }
+        if (first < 0) return EndgameTable.UNKNOWN;
+        EndgameTable table = this.tables[materialCode(first, second)];
+
+        return table == null ? EndgameTable.UNKNOWN : table.probe(board);
+    }
+
+    /**
+     * Closes all tables.
+     *
+     * @throws IOException if an error occurs while closing a table.
+     */
+    @Override
+    public void close() throws IOException {
+        for (EndgameTable table : this.tables) {
+            if (table != null) table.close();
+        }
+    }
+
+    /**
+     * Returns a code of a material balance.
+     *
+     * @param first  is a type ordinal of the first piece.
+     * @param second is a type ordinal of the second piece, not less than the first one, or -1.
+     * @return a code from 0 to {@code PIECE_TYPES * (PIECE_TYPES + 1) - 1}.
+     */
+    private static int materialCode(int first, int second) {
+        return first * (PIECE_TYPES + 1) + second + 1;
+    }
+}
@@ -0,0 +1,270 @@
+package to.grindelf.circuitclash.domain;
+
+import org.jetbrains.annotations.Contract;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Fixed-size cache of search results, keyed by a Zobrist key of a position
+ * (see {@link Chessboard#getZobristKey()}). The table is a single {@code long[]}: every entry
+ * is two longs, the key XORed with the data and the data itself, and entries are grouped in
+ * buckets of four, so a probe reads 64 contiguous bytes. Java arrays are not aligned to
+ * cache lines, so a bucket may span two of them. The table can be used by many threads
+ * without locks: a torn entry, written by two threads at once, fails the XOR check on probe
+ * and is treated as missing.
+ * <p>
+ * Data of an entry packs the best move (bits 0-15), the score (bits 16-31), the search depth
+ * (bits 32-39), the bound type (bits 40-41), the search generation (bits 42-47) and the static
+ * evaluation (bits 48-63). When a bucket is full, the entry with the lowest depth, counting
+ * entries of older searches as shallower, is replaced.
+ */
+public final class TranspositionTable {
+
+    /**
+     * Bound types of a stored score.
+     */
+    public static final int UPPER_BOUND = 1;
+    public static final int LOWER_BOUND = 2;
+    public static final int EXACT = 3;
+
+    /**
+     * Value returned by {@link #probe(long)} when there is no entry for a key.
+     */
+    public static final long NO_ENTRY = 0;
+
+    private static final int ENTRIES_PER_BUCKET = 4;
+    private static final int LONGS_PER_BUCKET = ENTRIES_PER_BUCKET * 2;
+    private static final int BYTES_PER_ENTRY = 16;
+    private static final int GENERATION_MASK = 0x3F;
+    /**
+     * Maximum number of buckets: the largest power of two whose slots fit in a Java array.
+     */
+    static final long MAX_BUCKETS = Integer.highestOneBit((Integer.MAX_VALUE - 8) / LONGS_PER_BUCKET);
+
+    /**
+     * Handle for opaque access to table slots, which makes every long read and written atomically.
+     */
+    private static final VarHandle SLOTS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    /**
+     * Table slots, two per entry.
+     */
+    private final long[] slots;
+    /**
+     * Mask which maps a key to a bucket index.
+     */
+    private final long bucketMask;
+    /**
+     * Generation of the current search, stored in new entries to tell them from old ones.
+     */
+    private volatile int generation;
+
+    /**
+     * Initializes a transposition table of given size. The number of buckets is rounded
+     * down to a power of two, and limited to {@link #MAX_BUCKETS} (8 GB).
+     *
+     * @param megabytes is a size of the table in megabytes, at least 1.
+     */
+    public TranspositionTable(int megabytes) {
+        long buckets = bucketCount(megabytes);
+
+        this.slots = new long[(int) (buckets * LONGS_PER_BUCKET)];
+        this.bucketMask = buckets - 1;
+    }
+
+    /**
+     * Returns a number of buckets of a table of given size.
+     *
+     * @param megabytes is a size of the table in megabytes, at least 1.
+     * @return a power of two not greater than {@link #MAX_BUCKETS}.
+     */
+    static long bucketCount(int megabytes) {
+        if (megabytes < 1) throw new IllegalArgumentException("Transposition table size must be at least 1 MB.");
+        long buckets = Long.highestOneBit((long) megabytes * 1024 * 1024 / (BYTES_PER_ENTRY * ENTRIES_PER_BUCKET));
+
+        return Math.min(buckets, MAX_BUCKETS);
+    }
+
+    /**
+     * Looks up an entry of a position.
+     *
+     * @param key is a Zobrist key of the position.
+     * @return packed data of the entry, or {@link #NO_ENTRY} if there is none.
+     */
+    public long probe(long key) {
+        int bucket = bucketOf(key);
+        for (int slot = bucket; slot < bucket + LONGS_PER_BUCKET; slot += 2) {
+            long data = (long) SLOTS.getOpaque(this.slots, slot + 1);
+            if (data != NO_ENTRY && ((long) SLOTS.getOpaque(this.slots, slot) ^ data) == key) return data;
+        }
+
+        return NO_ENTRY;
+    }
+
+    /**
+     * Stores a search result of a position. An existing entry of the same position is kept
+     * if it comes from a deeper search of the current generation and the new score is not exact.
+     *
+     * @param key        is a Zobrist key of the position.
+     * @param move       is the best move found, a packed move or {@link PackedMove#NONE}.
+     * @param score      is the score of the position.
+     * @param depth      is the depth of the search, from 0 to 255.
+     * @param bound      is a bound type of the score.
+     * @param staticEval is a static evaluation of the position.
+     */
+    public void store(long key, int move, int score, int depth, int bound, int staticEval) {
+        int generation = this.generation;
+        int bucket = bucketOf(key);
+        int replacedSlot = bucket;
+        int replacedWorth = Integer.MAX_VALUE;
+
+        for (int slot = bucket; slot < bucket + LONGS_PER_BUCKET; slot += 2) {
+            long data = (long) SLOTS.getOpaque(this.slots, slot + 1);
+            if (data == NO_ENTRY) {
+                replacedSlot = slot;
+                break;
+            }
+            if (((long) SLOTS.getOpaque(this.slots, slot) ^ data) == key) {
+                if (bound != EXACT && generation(data) == generation && depth(data) > depth + 2) return;
+                if (move == PackedMove.NONE) move = move(data);
+                replacedSlot = slot;
+                break;
+            }
+
+            int age = (generation - generation(data)) & GENERATION_MASK;
+            int worth = depth(data) - 8 * age;
+            if (worth < replacedWorth) {
+                replacedWorth = worth;
+                replacedSlot = slot;
+            }
+        }
+
+        long data = (move & 0xFFFFL)
+                | (score & 0xFFFFL) << 16
+                | (long) (depth & 0xFF) << 32
+                | (long) (bound & 3) << 40
+                | (long) (generation & GENERATION_MASK) << 42
+                | (staticEval & 0xFFFFL) << 48;
+        SLOTS.setOpaque(this.slots, replacedSlot, key ^ data);
+        SLOTS.setOpaque(this.slots, replacedSlot + 1, data);
+    }
+
+    /**
+     * Starts a new search generation, so entries of previous searches are replaced first.
+     */
+    public void newSearch() {
+        this.generation = (this.generation + 1) & GENERATION_MASK;
+    }
+
+    /**
+     * Removes all entries.
+     */
+    public void clear() {
+        for (int slot = 0; slot < this.slots.length; slot++) {
+            SLOTS.setOpaque(this.slots, slot, 0L);
+        }
+    }
+
+    /**
+     * Estimates how full the table is with entries of the current generation,
+     * by sampling the first thousand entries.
+     *
+     * @return a number of used entries per thousand.
+     */
+    public int getHashfull() {
+        int sampled = Math.min(1000, this.slots.length / 2);
+        int used = 0;
+        for (int entry = 0; entry < sampled; entry++) {
+            long data = (long) SLOTS.getOpaque(this.slots, entry * 2 + 1);
+            if (data != NO_ENTRY && generation(data) == this.generation) used++;
+        }
+
+        return used * 1000 / sampled;
+    }
+
+    /**
+     * Returns a number of entries the table can hold.
+     *
+     * @return a capacity of the table.
+     */
+    public int getCapacity() {
+        return this.slots.length / 2;
+    }
+
+    /**
+     * Returns the best move of an entry.
+     *
+     * @param data is packed data of an entry.
+     * @return a packed move or {@link PackedMove#NONE}.
+     */
+    @Contract(pure = true)
+    public static int move(long data) {
+        return (int) (data & 0xFFFF);
+    }
+
+    /**
+     * Returns the score of an entry.
+     *
+     * @param data is packed data of an entry.
+     * @return a score.
+     */
+    @Contract(pure = true)
+    public static int score(long data) {
+        return (short) (data >>> 16);
+    }
+
+    /**
+     * Returns the search depth of an entry.
+     *
+     * @param data is packed data of an entry.
+     * @return a depth.
+     */
+    @Contract(pure = true)
+    public static int depth(long data) {
+        return (int) (data >>> 32 & 0xFF);
+    }
+
+    /**
+     * Returns the bound type of an entry's score.
+     *
+     * @param data is packed data of an entry.
+     * @return {@link #UPPER_BOUND}, {@link #LOWER_BOUND} or {@link #EXACT}.
+     */
+    @Contract(pure = true)
+    public static int bound(long data) {
+        return (int) (data >>> 40 & 3);
+    }
+
+    /**
+     * Returns the static evaluation of an entry.
+     *
+     * @param data is packed data of an entry.
+     * @return a static evaluation.
+     */
+    @Contract(pure = true)
+    public static int staticEval(long data) {
+        return (short) (data >>> 48);
+    }
+
+    /**
+     * Returns the search generation of an entry.
+     *
+     * @param data is packed data of an entry.
+     * @return a generation.
+     */
+    private static int generation(long data) {
+        return (int) (data >>> 42 & GENERATION_MASK);
+    }
+
+    /**
+     * Returns an index of the first slot of a key's bucket. The low bits of a key select
+     * the bucket.
+     *
+     * @param key is a Zobrist key.
+     * @return a slot index.
+     */
+    private int bucketOf(long key) {
+        return (int) (key & this.bucketMask) * LONGS_PER_BUCKET;
+    }
+}
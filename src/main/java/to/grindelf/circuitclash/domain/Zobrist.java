@@ -0,0 +1,56 @@
+package to.grindelf.circuitclash.domain;
+
+import java.util.SplittableRandom;
+
+/**
+ * Random keys for Zobrist hashing of a board state. A position key is a XOR of keys of every
+ * piece on its square, of the side to move, of castling rights and of the en passant file,
+ * so a move updates the key with a few XORs instead of rehashing the board. Keys are
+ * generated from a fixed seed, so position keys are the same in every run.
+ */
+final class Zobrist {
+
+    /**
+     * Keys of pieces on squares, indexed by piece index and square.
+     */
+    static final long[][] PIECE_SQUARE = new long[Chessboard.PIECE_KINDS][Chessboard.SQUARES];
+    /**
+     * Key which is XORed when black is to move.
+     */
+    static final long BLACK_TO_MOVE;
+    /**
+     * Keys of castling rights, indexed by a combination of castling rights flags.
+     */
+    static final long[] CASTLING = new long[16];
+    /**
+     * Keys of en passant files.
+     */
+    static final long[] EN_PASSANT_FILE = new long[8];
+
+    static {
+        SplittableRandom random = new SplittableRandom(0x436972637569744CL);
+        for (long[] squareKeys : PIECE_SQUARE) {
+            for (int square = 0; square < squareKeys.length; square++) {
+                squareKeys[square] = random.nextLong();
+            }
+        }
+        BLACK_TO_MOVE = random.nextLong();
+
+        long[] castlingFlagKeys = new long[4];
+        for (int i = 0; i < castlingFlagKeys.length; i++) {
+            castlingFlagKeys[i] = random.nextLong();
+        }
+        for (int rights = 0; rights < CASTLING.length; rights++) {
+            for (int i = 0; i < castlingFlagKeys.length; i++) {
+                if ((rights & (1 << i)) != 0) CASTLING[rights] ^= castlingFlagKeys[i];
+            }
+        }
+
+        for (int file = 0; file < EN_PASSANT_FILE.length; file++) {
+            EN_PASSANT_FILE[file] = random.nextLong();
+        }
+    }
+
+    private Zobrist() {
+    }
+}
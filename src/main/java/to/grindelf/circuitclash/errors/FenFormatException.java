@@ -0,0 +1,15 @@
+package to.grindelf.circuitclash.errors;
+
+/**
+ * Exception for FEN texts which don't describe a valid position.
+ */
+public class FenFormatException extends Exception {
+
+    /**
+     * Initializes a FEN format exception.
+     * @param exceptionMessage is a message to be displayed.
+     */
+    public FenFormatException(String exceptionMessage) {
+        super(exceptionMessage);
+    }
+}
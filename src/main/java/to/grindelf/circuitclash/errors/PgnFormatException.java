@@ -0,0 +1,18 @@
+package to.grindelf.circuitclash.errors;
+
+import java.io.IOException;
+
+/**
+ * Exception for PGN texts which can't be read: malformed tags or moves which are
+ * not legal in the position they are played in.
+ */
+public class PgnFormatException extends IOException {
+
+    /**
+     * Initializes a PGN format exception.
+     * @param exceptionMessage is a message to be displayed.
+     */
+    public PgnFormatException(String exceptionMessage) {
+        super(exceptionMessage);
+    }
+}
@@ -1,7 +1,14 @@
 package to.grindelf.circuitclash.errors;
 
-public class RulesViolationException extends Exception {
+/**
+ * Exception for chess moves which violate the rules of the game.
+ */
+public class RulesViolationException extends WrongMoveException {
 
+    /**
+     * Initializes a rules violation exception.
+     * @param exceptionMessage is a message to be displayed.
+     */
     public RulesViolationException(String exceptionMessage) {
         super(exceptionMessage);
     }
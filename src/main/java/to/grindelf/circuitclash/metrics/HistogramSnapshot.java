@@ -0,0 +1,20 @@
+package to.grindelf.circuitclash.metrics;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Values of a {@link LatencyHistogram} at some moment. All latencies are in nanoseconds
+ * and are 0 if nothing was recorded.
+ *
+ * @param name       is a name of the measured operation.
+ * @param count      is a number of recorded latencies.
+ * @param meanNanos  is the mean latency.
+ * @param p50Nanos   is the median latency.
+ * @param p90Nanos   is the 90th percentile.
+ * @param p99Nanos   is the 99th percentile.
+ * @param p999Nanos  is the 99.9th percentile.
+ * @param maxNanos   is the maximum latency.
+ */
+public record HistogramSnapshot(@NotNull String name, long count, long meanNanos, long p50Nanos, long p90Nanos,
+                                long p99Nanos, long p999Nanos, long maxNanos) {
+}
@@ -0,0 +1,218 @@
+package to.grindelf.circuitclash.metrics;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Concurrent histogram of latencies in nanoseconds with buckets of logarithmic size, like
+ * an HDR histogram: values below {@value #SUB_BUCKETS} are counted exactly, and every power
+ * of two above is split into {@value #SUB_BUCKETS} buckets, so a reported value is within
+ * about 3% of the recorded one over the whole range of a long. Recording a value takes one
+ * atomic increment and no allocation; the memory taken is fixed, about 15 KB.
+ */
+public final class LatencyHistogram implements LatencyHistogramMXBean {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final String name;
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Initializes an empty histogram.
+     *
+     * @param name is a name of the measured operation.
+     */
+    public LatencyHistogram(@NotNull String name) {
+        this.name = name;
+    }
+
+    /**
+     * Returns a name of the measured operation.
+     *
+     * @return a name.
+     */
+    @NotNull
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Records a latency.
+     *
+     * @param nanos is a latency in nanoseconds, negative values are counted as 0.
+     */
+    public void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+        this.counts.incrementAndGet(bucketOf(nanos));
+        this.sum.add(nanos);
+        this.max.accumulate(nanos);
+    }
+
+    /**
+     * Records the time passed since a start taken with {@link Metrics#start()}. Nothing is
+     * recorded if metrics were disabled at the start.
+     *
+     * @param start is a start time in nanoseconds or 0.
+     */
+    public void recordSince(long start) {
+        if (start != 0) record(System.nanoTime() - start);
+    }
+
+    /**
+     * Takes a snapshot of the histogram. Values recorded while the snapshot is taken may be
+     * partly included.
+     *
+     * @return a snapshot.
+     */
+    @NotNull
+    public HistogramSnapshot snapshot() {
+        long[] counts = copyCounts();
+        long count = total(counts);
+        long max = this.max.get();
+
+        return new HistogramSnapshot(this.name, count, count == 0 ? 0 : this.sum.sum() / count,
+                percentile(counts, count, max, 50), percentile(counts, count, max, 90),
+                percentile(counts, count, max, 99), percentile(counts, count, max, 99.9), max);
+    }
+
+    /**
+     * Returns a value below which a percentage of recorded values lies.
+     *
+     * @param percentile is a percentage from 0 to 100.
+     * @return a value in nanoseconds, 0 if nothing was recorded.
+     */
+    public long getValueAtPercentile(double percentile) {
+        long[] counts = copyCounts();
+
+        return percentile(counts, total(counts), this.max.get(), percentile);
+    }
+
+    @Override
+    public long getCount() {
+        return total(copyCounts());
+    }
+
+    @Override
+    public long getMeanNanos() {
+        long count = getCount();
+
+        return count == 0 ? 0 : this.sum.sum() / count;
+    }
+
+    @Override
+    public long getMedianNanos() {
+        return getValueAtPercentile(50);
+    }
+
+    @Override
+    public long getP90Nanos() {
+        return getValueAtPercentile(90);
+    }
+
+    @Override
+    public long getP99Nanos() {
+        return getValueAtPercentile(99);
+    }
+
+    @Override
+    public long getMaxNanos() {
+        return this.max.get();
+    }
+
+    /**
+     * Clears the histogram. Values recorded during a reset may be partly kept.
+     */
+    @Override
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            this.counts.set(i, 0);
+        }
+        this.sum.reset();
+        this.max.reset();
+    }
+
+    /**
+     * Copies counts of all buckets.
+     *
+     * @return an array of counts.
+     */
+    private long[] copyCounts() {
+        long[] counts = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = this.counts.get(i);
+        }
+
+        return counts;
+    }
+
+    /**
+     * Sums counts of buckets.
+     *
+     * @param counts is counts of buckets.
+     * @return a total number of values.
+     */
+    private static long total(long[] counts) {
+        long count = 0;
+        for (long bucketCount : counts) {
+            count += bucketCount;
+        }
+
+        return count;
+    }
+
+    /**
+     * Returns a bucket of a value.
+     *
+     * @param value is a non-negative value.
+     * @return a bucket index.
+     */
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) return (int) value;
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * Returns the highest value counted in a bucket.
+     *
+     * @param bucket is a bucket index.
+     * @return a value.
+     */
+    static long highestValueOf(int bucket) {
+        if (bucket < SUB_BUCKETS) return bucket;
+        int shift = bucket / SUB_BUCKETS - 1;
+        long lowest = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+
+        return lowest + (1L << shift) - 1;
+    }
+
+    /**
+     * Finds a value at a percentile of bucket counts.
+     *
+     * @param counts     is counts of values in each bucket.
+     * @param count      is a total number of values.
+     * @param max        is the maximum recorded value, which bounds the result.
+     * @param percentile is a percentage from 0 to 100.
+     * @return a value, 0 if there are no values.
+     */
+    private static long percentile(long[] counts, long count, long max, double percentile) {
+        if (count == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(count * Math.min(percentile, 100) / 100));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) return Math.min(highestValueOf(i), max);
+        }
+
+        return max;
+    }
+}
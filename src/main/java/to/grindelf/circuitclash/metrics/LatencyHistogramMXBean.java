@@ -0,0 +1,54 @@
+package to.grindelf.circuitclash.metrics;
+
+/**
+ * Management interface of a {@link LatencyHistogram}, registered by {@link Metrics#registerMBeans()}.
+ */
+public interface LatencyHistogramMXBean {
+
+    /**
+     * Returns a number of recorded latencies.
+     *
+     * @return a number of values.
+     */
+    long getCount();
+
+    /**
+     * Returns the mean latency.
+     *
+     * @return a latency in nanoseconds, 0 if nothing was recorded.
+     */
+    long getMeanNanos();
+
+    /**
+     * Returns the median latency.
+     *
+     * @return a latency in nanoseconds, 0 if nothing was recorded.
+     */
+    long getMedianNanos();
+
+    /**
+     * Returns the 90th percentile of latencies.
+     *
+     * @return a latency in nanoseconds, 0 if nothing was recorded.
+     */
+    long getP90Nanos();
+
+    /**
+     * Returns the 99th percentile of latencies.
+     *
+     * @return a latency in nanoseconds, 0 if nothing was recorded.
+     */
+    long getP99Nanos();
+
+    /**
+     * Returns the maximum latency.
+     *
+     * @return a latency in nanoseconds, 0 if nothing was recorded.
+     */
+    long getMaxNanos();
+
+    /**
+     * Clears recorded latencies.
+     */
+    void reset();
+}
@@ -0,0 +1,189 @@
+package to.grindelf.circuitclash.metrics;
+
+import org.jetbrains.annotations.NotNull;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Built-in metrics of move processing: latency histograms of move validation, board updates,
+ * game log writes and searches, and counters of rejected moves and searched nodes. They can be
+ * read with {@link #snapshot()} or over JMX after {@link #registerMBeans()}, under the
+ * {@value #DOMAIN} domain.
+ * <p>
+ * Metrics are disabled by default and are enabled by the {@value #ENABLED_PROPERTY} system
+ * property or {@link #setEnabled(boolean)}. A disabled measurement costs one read of a
+ * volatile field: {@link #start()} returns 0 without reading the clock, and recording from
+ * a zero start does nothing.
+ */
+public final class Metrics {
+
+    /**
+     * Name of the system property which enables metrics.
+     */
+    public static final String ENABLED_PROPERTY = "circuitclash.metrics";
+    /**
+     * JMX domain of the metrics MBeans.
+     */
+    public static final String DOMAIN = "to.grindelf.circuitclash";
+
+    /**
+     * Latencies of move validation.
+     */
+    public static final LatencyHistogram MOVE_VALIDATION = new LatencyHistogram("MoveValidation");
+    /**
+     * Latencies of making moves on a chessboard.
+     */
+    public static final LatencyHistogram BOARD_UPDATE = new LatencyHistogram("BoardUpdate");
+    /**
+     * Latencies of game log updates.
+     */
+    public static final LatencyHistogram LOG_WRITE = new LatencyHistogram("LogWrite");
+    /**
+     * Durations of searches of the computer opponent.
+     */
+    public static final LatencyHistogram SEARCH = new LatencyHistogram("Search");
+
+    private static final LatencyHistogram[] HISTOGRAMS = {MOVE_VALIDATION, BOARD_UPDATE, LOG_WRITE, SEARCH};
+    private static final LongAdder WRONG_MOVES = new LongAdder();
+    private static final LongAdder SEARCH_NODES = new LongAdder();
+    private static final LongAdder SEARCH_NANOS = new LongAdder();
+
+    private static volatile boolean enabled = Boolean.getBoolean(ENABLED_PROPERTY);
+
+    private Metrics() {
+    }
+
+    /**
+     * Checks if metrics are recorded.
+     *
+     * @return true if metrics are enabled.
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Turns recording of metrics on or off. Recorded values are kept.
+     *
+     * @param enabled is true to record metrics.
+     */
+    public static void setEnabled(boolean enabled) {
+        Metrics.enabled = enabled;
+    }
+
+    /**
+     * Starts a measurement, to be finished with {@link LatencyHistogram#recordSince(long)}.
+     *
+     * @return the current time in nanoseconds, or 0 if metrics are disabled.
+     */
+    public static long start() {
+        if (!enabled) return 0;
+        long now = System.nanoTime();
+
+        return now == 0 ? 1 : now;
+    }
+
+    /**
+     * Counts a rejected move.
+     */
+    public static void recordWrongMove() {
+        if (enabled) WRONG_MOVES.increment();
+    }
+
+    /**
+     * Records a finished search.
+     *
+     * @param nodes is a number of positions visited by the search.
+     * @param start is a start of the search taken with {@link #start()}.
+     */
+    public static void recordSearch(long nodes, long start) {
+        if (start == 0) return;
+        long nanos = System.nanoTime() - start;
+        SEARCH.record(nanos);
+        SEARCH_NODES.add(nodes);
+        SEARCH_NANOS.add(nanos);
+    }
+
+    /**
+     * Takes a snapshot of all metrics.
+     *
+     * @return a snapshot.
+     */
+    @NotNull
+    public static MetricsSnapshot snapshot() {
+        return new MetricsSnapshot(enabled, MOVE_VALIDATION.snapshot(), BOARD_UPDATE.snapshot(), LOG_WRITE.snapshot(),
+                SEARCH.snapshot(), WRONG_MOVES.sum(), SEARCH_NODES.sum(), SEARCH_NANOS.sum());
+    }
+
+    /**
+     * Clears all counters and histograms.
+     */
+    public static void reset() {
+        for (LatencyHistogram histogram : HISTOGRAMS) {
+            histogram.reset();
+        }
+        WRONG_MOVES.reset();
+        SEARCH_NODES.reset();
+        SEARCH_NANOS.reset();
+    }
+
+    /**
+     * Registers MBeans of the metrics in the platform MBean server: one of type Metrics and
+     * one of type Latency per histogram. Registering again does nothing.
+     *
+     * @throws IllegalStateException if the MBeans cannot be registered.
+     */
+    public static synchronized void registerMBeans() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            ObjectName name = new ObjectName(DOMAIN + ":type=Metrics");
+            if (server.isRegistered(name)) return;
+            for (LatencyHistogram histogram : HISTOGRAMS) {
+                server.registerMBean(histogram, new ObjectName(DOMAIN + ":type=Latency,name=" + histogram.getName()));
+            }
+            server.registerMBean(new Bean(), name);
+        } catch (JMException exception) {
+            throw new IllegalStateException("Metrics MBeans cannot be registered.", exception);
+        }
+    }
+
+    /**
+     * MBean which exposes the static metrics.
+     */
+    private static final class Bean implements MetricsMXBean {
+
+        @Override
+        public boolean isEnabled() {
+            return Metrics.isEnabled();
+        }
+
+        @Override
+        public void setEnabled(boolean enabled) {
+            Metrics.setEnabled(enabled);
+        }
+
+        @Override
+        public long getWrongMoveCount() {
+            return WRONG_MOVES.sum();
+        }
+
+        @Override
+        public long getSearchNodes() {
+            return SEARCH_NODES.sum();
+        }
+
+        @Override
+        public long getSearchNodesPerSecond() {
+            return snapshot().searchNodesPerSecond();
+        }
+
+        @Override
+        public void reset() {
+            Metrics.reset();
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package to.grindelf.circuitclash.metrics;
+
+/**
+ * Management interface of {@link Metrics}, registered by {@link Metrics#registerMBeans()}.
+ */
+public interface MetricsMXBean {
+
+    /**
+     * Checks if metrics are recorded.
+     *
+     * @return true if metrics are enabled.
+     */
+    boolean isEnabled();
+
+    /**
+     * Turns recording of metrics on or off.
+     *
+     * @param enabled is true to record metrics.
+     */
+    void setEnabled(boolean enabled);
+
+    /**
+     * Returns a number of rejected moves.
+     *
+     * @return a number of moves.
+     */
+    long getWrongMoveCount();
+
+    /**
+     * Returns a number of positions visited by searches.
+     *
+     * @return a number of nodes.
+     */
+    long getSearchNodes();
+
+    /**
+     * Returns an average search speed.
+     *
+     * @return a number of nodes per second, 0 if there were no searches.
+     */
+    long getSearchNodesPerSecond();
+
+    /**
+     * Clears all counters and histograms.
+     */
+    void reset();
+}
@@ -0,0 +1,34 @@
+package to.grindelf.circuitclash.metrics;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Values of all {@link Metrics} at some moment.
+ *
+ * @param enabled        is true if metrics were being recorded.
+ * @param moveValidation is latencies of move validation.
+ * @param boardUpdate    is latencies of making moves on a chessboard.
+ * @param logWrite       is latencies of game log updates.
+ * @param search         is durations of searches of the computer opponent.
+ * @param wrongMoves     is a number of rejected moves.
+ * @param searchNodes    is a number of positions visited by searches.
+ * @param searchNanos    is a total duration of searches in nanoseconds.
+ */
+public record MetricsSnapshot(boolean enabled, @NotNull HistogramSnapshot moveValidation,
+                              @NotNull HistogramSnapshot boardUpdate, @NotNull HistogramSnapshot logWrite,
+                              @NotNull HistogramSnapshot search, long wrongMoves, long searchNodes,
+                              long searchNanos) {
+
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    /**
+     * Returns an average search speed over all searches.
+     *
+     * @return a number of nodes per second, 0 if there were no searches.
+     */
+    @Contract(pure = true)
+    public long searchNodesPerSecond() {
+        return this.searchNanos == 0 ? 0 : (long) ((double) this.searchNodes * NANOS_PER_SECOND / this.searchNanos);
+    }
+}
@@ -0,0 +1,281 @@
+package to.grindelf.circuitclash.utils;
+
+import org.jetbrains.annotations.Contract;
+
+/**
+ * Precomputed attack tables. Squares are numbered from 0 (a1) to 63 (h8), row by row, and
+ * attacks are returned as bitboards. Knight, king and pawn attacks are plain per-square
+ * tables. Sliding pieces use magic bitboards: relevant blockers of a square are multiplied
+ * by a magic number, and the top bits of the product index a table of precomputed attacks.
+ * Magic numbers are found once, when the class is loaded, with a fixed random seed.
+ */
+public final class AttackTables {
+
+    private static final long[] KNIGHT_ATTACKS = new long[64];
+    private static final long[] KING_ATTACKS = new long[64];
+    /**
+     * Pawn attacks, indexed by color ordinal and square.
+     */
+    private static final long[][] PAWN_ATTACKS = new long[2][64];
+
+    private static final long[] ROOK_MASKS = new long[64];
+    private static final long[] ROOK_MAGICS = new long[64];
+    private static final int[] ROOK_SHIFTS = new int[64];
+    private static final int[] ROOK_OFFSETS = new int[64];
+    private static final long[] ROOK_ATTACKS;
+
+    private static final long[] BISHOP_MASKS = new long[64];
+    private static final long[] BISHOP_MAGICS = new long[64];
+    private static final int[] BISHOP_SHIFTS = new int[64];
+    private static final int[] BISHOP_OFFSETS = new int[64];
+    private static final long[] BISHOP_ATTACKS;
+
+    private static final int[][] ROOK_DIRECTIONS = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+    private static final int[][] BISHOP_DIRECTIONS = {{1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+    private static final int[][] KNIGHT_STEPS = {{1, 2}, {2, 1}, {2, -1}, {1, -2}, {-1, -2}, {-2, -1}, {-2, 1}, {-1, 2}};
+    private static final int[][] KING_STEPS = {{1, 0}, {1, 1}, {0, 1}, {-1, 1}, {-1, 0}, {-1, -1}, {0, -1}, {1, -1}};
+
+    /**
+     * State of the random number generator used for finding magic numbers.
+     */
+    private static long seed = 0x9E3779B97F4A7C15L;
+
+    static {
+        for (int square = 0; square < 64; square++) {
+            KNIGHT_ATTACKS[square] = stepAttacks(square, KNIGHT_STEPS);
+            KING_ATTACKS[square] = stepAttacks(square, KING_STEPS);
+            PAWN_ATTACKS[0][square] = stepAttacks(square, new int[][]{{-1, 1}, {1, 1}});
+            PAWN_ATTACKS[1][square] = stepAttacks(square, new int[][]{{-1, -1}, {1, -1}});
+        }
+
+        ROOK_ATTACKS = initializeMagics(ROOK_DIRECTIONS, ROOK_MASKS, ROOK_MAGICS, ROOK_SHIFTS, ROOK_OFFSETS);
+        BISHOP_ATTACKS = initializeMagics(BISHOP_DIRECTIONS, BISHOP_MASKS, BISHOP_MAGICS, BISHOP_SHIFTS, BISHOP_OFFSETS);
+    }
+
+    private AttackTables() {
+    }
+
+    /**
+     * Returns squares attacked by a knight.
+     *
+     * @param square is a square of the knight.
+     * @return a bitboard of attacked squares.
+     */
+    @Contract(pure = true)
+    public static long knightAttacks(int square) {
+        return KNIGHT_ATTACKS[square];
+    }
+
+    /**
+     * Returns squares attacked by a king.
+     *
+     * @param square is a square of the king.
+     * @return a bitboard of attacked squares.
+     */
+    @Contract(pure = true)
+    public static long kingAttacks(int square) {
+        return KING_ATTACKS[square];
+    }
+
+    /**
+     * Returns squares attacked by a pawn.
+     *
+     * @param colorOrdinal is an ordinal of the pawn's color.
+     * @param square       is a square of the pawn.
+     * @return a bitboard of attacked squares.
+     */
+    @Contract(pure = true)
+    public static long pawnAttacks(int colorOrdinal, int square) {
+        return PAWN_ATTACKS[colorOrdinal][square];
+    }
+
+    /**
+     * Returns squares attacked by a rook.
+     *
+     * @param square    is a square of the rook.
+     * @param occupancy is a bitboard of occupied squares.
+     * @return a bitboard of attacked squares, including the first blocker in each direction.
+     */
+    @Contract(pure = true)
+    public static long rookAttacks(int square, long occupancy) {
+        int index = (int) (((occupancy & ROOK_MASKS[square]) * ROOK_MAGICS[square]) >>> ROOK_SHIFTS[square]);
+        return ROOK_ATTACKS[ROOK_OFFSETS[square] + index];
+    }
+
+    /**
+     * Returns squares attacked by a bishop.
+     *
+     * @param square    is a square of the bishop.
+     * @param occupancy is a bitboard of occupied squares.
+     * @return a bitboard of attacked squares, including the first blocker in each direction.
+     */
+    @Contract(pure = true)
+    public static long bishopAttacks(int square, long occupancy) {
+        int index = (int) (((occupancy & BISHOP_MASKS[square]) * BISHOP_MAGICS[square]) >>> BISHOP_SHIFTS[square]);
+        return BISHOP_ATTACKS[BISHOP_OFFSETS[square] + index];
+    }
+
+    /**
+     * Returns squares attacked by a queen.
+     *
+     * @param square    is a square of the queen.
+     * @param occupancy is a bitboard of occupied squares.
+     * @return a bitboard of attacked squares, including the first blocker in each direction.
+     */
+    @Contract(pure = true)
+    public static long queenAttacks(int square, long occupancy) {
+        return rookAttacks(square, occupancy) | bishopAttacks(square, occupancy);
+    }
+
+    /**
+     * Computes attacks of a piece which moves by fixed steps.
+     *
+     * @param square is a square of the piece.
+     * @param steps  is an array of (x, y) steps.
+     * @return a bitboard of attacked squares.
+     */
+    private static long stepAttacks(int square, int[][] steps) {
+        long attacks = 0;
+        for (int[] step : steps) {
+            int x = (square & 7) + step[0];
+            int y = (square >>> 3) + step[1];
+            if (x >= 0 && x < 8 && y >= 0 && y < 8) attacks |= 1L << (y * 8 + x);
+        }
+
+        return attacks;
+    }
+
+    /**
+     * Computes attacks of a sliding piece by walking its rays until the first blocker.
+     *
+     * @param square     is a square of the piece.
+     * @param occupancy  is a bitboard of occupied squares.
+     * @param directions is an array of (x, y) directions.
+     * @return a bitboard of attacked squares.
+     */
+    private static long slidingAttacks(int square, long occupancy, int[][] directions) {
+        long attacks = 0;
+        for (int[] direction : directions) {
+            int x = (square & 7) + direction[0];
+            int y = (square >>> 3) + direction[1];
+            while (x >= 0 && x < 8 && y >= 0 && y < 8) {
+                long bit = 1L << (y * 8 + x);
+                attacks |= bit;
+                if ((occupancy & bit) != 0) break;
+                x += direction[0];
+                y += direction[1];
+            }
+        }
+
+        return attacks;
+    }
+
+    /**
+     * Computes squares whose occupancy affects attacks of a sliding piece. The last square
+     * of each ray never changes the attacks, so it is excluded.
+     *
+     * @param square     is a square of the piece.
+     * @param directions is an array of (x, y) directions.
+     * @return a bitboard of relevant blocker squares.
+     */
+    private static long relevantBlockers(int square, int[][] directions) {
+        long mask = 0;
+        for (int[] direction : directions) {
+            int x = (square & 7) + direction[0];
+            int y = (square >>> 3) + direction[1];
+            while (x + direction[0] >= 0 && x + direction[0] < 8 && y + direction[1] >= 0 && y + direction[1] < 8) {
+                mask |= 1L << (y * 8 + x);
+                x += direction[0];
+                y += direction[1];
+            }
+        }
+
+        return mask;
+    }
+
+    /**
+     * Finds magic numbers for a sliding piece and fills its attack table.
+     *
+     * @param directions is an array of (x, y) directions of the piece.
+     * @param masks      is an array to fill with relevant blocker masks.
+     * @param magics     is an array to fill with magic numbers.
+     * @param shifts     is an array to fill with index shifts.
+     * @param offsets    is an array to fill with offsets of each square in the attack table.
+     * @return an attack table for all squares.
+     */
+    private static long[] initializeMagics(int[][] directions, long[] masks, long[] magics, int[] shifts, int[] offsets) {
+        int tableSize = 0;
+        for (int square = 0; square < 64; square++) {
+            masks[square] = relevantBlockers(square, directions);
+            shifts[square] = 64 - Long.bitCount(masks[square]);
+            offsets[square] = tableSize;
+            tableSize += 1 << Long.bitCount(masks[square]);
+        }
+
+        long[] table = new long[tableSize];
+        for (int square = 0; square < 64; square++) {
+            int subsetCount = 1 << Long.bitCount(masks[square]);
+            long[] blockers = new long[subsetCount];
+            long[] attacks = new long[subsetCount];
+            long subset = 0;
+            for (int i = 0; i < subsetCount; i++) {
+                blockers[i] = subset;
+                attacks[i] = slidingAttacks(square, subset, directions);
+                subset = (subset - masks[square]) & masks[square];
+            }
+
+            magics[square] = findMagic(masks[square], shifts[square], blockers, attacks);
+            for (int i = 0; i < subsetCount; i++) {
+                int index = (int) ((blockers[i] * magics[square]) >>> shifts[square]);
+                table[offsets[square] + index] = attacks[i];
+            }
+        }
+
+        return table;
+    }
+
+    /**
+     * Searches for a magic number which maps every blocker subset to a table slot without
+     * destructive collisions.
+     *
+     * @param mask     is a relevant blocker mask of a square.
+     * @param shift    is an index shift of the square.
+     * @param blockers is an array of all blocker subsets.
+     * @param attacks  is an array of attacks for each blocker subset.
+     * @return a magic number.
+     */
+    private static long findMagic(long mask, int shift, long[] blockers, long[] attacks) {
+        long[] used = new long[blockers.length];
+        int[] epochs = new int[blockers.length];
+
+        for (int epoch = 1; ; epoch++) {
+            long magic = nextRandom() & nextRandom() & nextRandom();
+            if (Long.bitCount((mask * magic) & 0xFF00000000000000L) < 6) continue;
+
+            boolean collides = false;
+            for (int i = 0; i < blockers.length && !collides; i++) {
+                int index = (int) ((blockers[i] * magic) >>> shift);
+                if (epochs[index] != epoch) {
+                    epochs[index] = epoch;
+                    used[index] = attacks[i];
+                } else if (used[index] != attacks[i]) {
+                    collides = true;
+                }
+            }
+
+            if (!collides) return magic;
+        }
+    }
+
+    /**
+     * Returns a next pseudo-random number (xorshift64*).
+     *
+     * @return a pseudo-random number.
+     */
+    private static long nextRandom() {
+        seed ^= seed >>> 12;
+        seed ^= seed << 25;
+        seed ^= seed >>> 27;
+        return seed * 0x2545F4914F6CDD1DL;
+    }
+}
@@ -0,0 +1,298 @@
+package to.grindelf.circuitclash.utils;
+
+import org.jetbrains.annotations.NotNull;
+import to.grindelf.circuitclash.domain.AttackMaps;
+import to.grindelf.circuitclash.domain.Chessboard;
+import to.grindelf.circuitclash.domain.PackedMove;
+import to.grindelf.circuitclash.domain.PieceColor;
+import to.grindelf.circuitclash.domain.PieceType;
+
+import static to.grindelf.circuitclash.domain.PieceColor.BLACK;
+import static to.grindelf.circuitclash.domain.PieceColor.WHITE;
+
+/**
+ * Generator of legal moves. Moves of each piece are taken from {@link AttackTables}, and a move
+ * is legal if it does not leave the own king attacked, which is checked by looking up attacks
+ * on the king's square with the occupancy the board would have after the move. This covers
+ * pins, checks and en passant captures which expose the king. When the board keeps
+ * {@link AttackMaps}, king moves and castling are checked against the squares attacked by the
+ * opponent instead.
+ */
+public final class MoveGenerator {
+
+    /**
+     * Maximum number of legal moves in any chess position, a safe size for move arrays.
+     */
+    public static final int MAX_MOVES = 256;
+
+    private static final PieceType[] PROMOTIONS = {PieceType.QUEEN, PieceType.ROOK, PieceType.BISHOP, PieceType.KNIGHT};
+
+    private MoveGenerator() {
+    }
+
+    /**
+     * Generates all legal moves of the side to move.
+     *
+     * @param board is a chessboard.
+     * @param moves is an array to put packed moves to, at least {@link #MAX_MOVES} long.
+     * @return a number of generated moves.
+     */
+    public static int generateLegalMoves(@NotNull Chessboard board, @NotNull int[] moves) {
+        return generate(board, moves, false);
+    }
+
+    /**
+     * Generates legal captures and promotions of the side to move, which is all a
+     * quiescence search needs.
+     *
+     * @param board is a chessboard.
+     * @param moves is an array to put packed moves to, at least {@link #MAX_MOVES} long.
+     * @return a number of generated moves.
+     */
+    public static int generateLegalCaptures(@NotNull Chessboard board, @NotNull int[] moves) {
+        return generate(board, moves, true);
+    }
+
+    /**
+     * Generates legal moves of the side to move.
+     *
+     * @param board        is a chessboard.
+     * @param moves        is an array to put packed moves to.
+     * @param capturesOnly is true to generate only captures and promotions.
+     * @return a number of generated moves.
+     */
+    private static int generate(Chessboard board, int[] moves, boolean capturesOnly) {
+        PieceColor us = board.getSideToMove();
+        long targets = capturesOnly ? board.getOccupancy(us == WHITE ? BLACK : WHITE) : ~board.getOccupancy(us);
+        int count = generatePawnMoves(board, us, moves, 0, capturesOnly);
+
+        long knights = board.getPieces(PieceType.KNIGHT, us);
+        while (knights != 0) {
+            int from = Long.numberOfTrailingZeros(knights);
+            knights &= knights - 1;
+            count = addMoves(board, from, AttackTables.knightAttacks(from) & targets, moves, count);
+        }
+
+        long diagonalSliders = board.getPieces(PieceType.BISHOP, us) | board.getPieces(PieceType.QUEEN, us);
+        while (diagonalSliders != 0) {
+            int from = Long.numberOfTrailingZeros(diagonalSliders);
+            diagonalSliders &= diagonalSliders - 1;
+            count = addMoves(board, from, AttackTables.bishopAttacks(from, board.getOccupancy()) & targets, moves, count);
+        }
+
+        long straightSliders = board.getPieces(PieceType.ROOK, us) | board.getPieces(PieceType.QUEEN, us);
+        while (straightSliders != 0) {
+            int from = Long.numberOfTrailingZeros(straightSliders);
+            straightSliders &= straightSliders - 1;
+            count = addMoves(board, from, AttackTables.rookAttacks(from, board.getOccupancy()) & targets, moves, count);
+        }
+
+        int kingSquare = board.getKingSquare(us);
+        if (kingSquare >= 0) {
+            AttackMaps attackMaps = board.getAttackMaps();
+            PieceColor them = us == WHITE ? BLACK : WHITE;
+            if (attackMaps != null && !attackMaps.isAttacked(kingSquare, them)) {
+                // a king which is not in check can step to any square which is not attacked
+                long kingTargets = AttackTables.kingAttacks(kingSquare) & targets & ~attackMaps.getAttackedSquares(them);
+                for (; kingTargets != 0; kingTargets &= kingTargets - 1) {
+                    int to = Long.numberOfTrailingZeros(kingTargets);
+                    moves[count++] = PackedMove.of(kingSquare, to, (board.getOccupancy() & (1L << to)) != 0 ? PackedMove.CAPTURE : PackedMove.QUIET);
+                }
+            } else {
+                count = addMoves(board, kingSquare, AttackTables.kingAttacks(kingSquare) & targets, moves, count);
+            }
+            if (capturesOnly) return count;
+            if (canCastle(board, true)) moves[count++] = PackedMove.of(kingSquare, kingSquare + 2, PackedMove.KING_CASTLE);
+            if (canCastle(board, false)) moves[count++] = PackedMove.of(kingSquare, kingSquare - 2, PackedMove.QUEEN_CASTLE);
+        }
+
+        return count;
+    }
+
+    /**
+     * Checks if a packed move is legal for the side to move.
+     *
+     * @param board is a chessboard.
+     * @param move  is a packed move.
+     * @return true if the move is legal.
+     */
+    public static boolean isLegal(@NotNull Chessboard board, int move) {
+        return new RulesGuardian(board, move).moveIsCorrect();
+    }
+
+    /**
+     * Checks if a pseudo-legal move of the side to move does not leave its king attacked.
+     *
+     * @param board is a chessboard.
+     * @param move  is a packed move.
+     * @return true if the king is not attacked after the move.
+     */
+    public static boolean leavesKingSafe(@NotNull Chessboard board, int move) {
+        PieceColor us = board.getSideToMove();
+        PieceColor them = us == WHITE ? BLACK : WHITE;
+        int from = PackedMove.from(move);
+        int to = PackedMove.to(move);
+        long toBit = 1L << to;
+        long capturedBit = PackedMove.flags(move) == PackedMove.EN_PASSANT
+                ? 1L << (us == WHITE ? to - 8 : to + 8)
+                : toBit;
+
+        int kingSquare = board.getKingSquare(us);
+        if (kingSquare < 0) return true;
+        AttackMaps attackMaps = board.getAttackMaps();
+        if (kingSquare == from && attackMaps != null && !attackMaps.isAttacked(kingSquare, them)) {
+            // no ray passes through a king which is not in check, so moving it away does not
+            // open new attacks
+            return !attackMaps.isAttacked(to, them);
+        }
+        if (kingSquare == from) kingSquare = to;
+        long occupancy = (board.getOccupancy() & ~(1L << from) & ~capturedBit) | toBit;
+
+        return (board.attackersOf(kingSquare, them, occupancy) & ~capturedBit) == 0;
+    }
+
+    /**
+     * Checks if the side to move can castle: it has the castling right, squares between the
+     * king and the rook are empty, and the king is not in check and does not pass through
+     * or land on an attacked square.
+     *
+     * @param board    is a chessboard.
+     * @param kingSide is true for castling on the king side, false for the queen side.
+     * @return true if castling is legal.
+     */
+    public static boolean canCastle(@NotNull Chessboard board, boolean kingSide) {
+        PieceColor us = board.getSideToMove();
+        PieceColor them = us == WHITE ? BLACK : WHITE;
+        int right = us == WHITE
+                ? (kingSide ? Chessboard.WHITE_KING_SIDE : Chessboard.WHITE_QUEEN_SIDE)
+                : (kingSide ? Chessboard.BLACK_KING_SIDE : Chessboard.BLACK_QUEEN_SIDE);
+        if ((board.getCastlingRights() & right) == 0) return false;
+
+        int kingSquare = us == WHITE ? 4 : 60;
+        long between = kingSide ? 0x60L << (kingSquare - 4) : 0x0EL << (kingSquare - 4);
+        if ((board.getOccupancy() & between) != 0) return false;
+
+        int step = kingSide ? 1 : -1;
+        AttackMaps attackMaps = board.getAttackMaps();
+        if (attackMaps != null) {
+            long path = 1L << kingSquare | 1L << (kingSquare + step) | 1L << (kingSquare + 2 * step);
+            return (attackMaps.getAttackedSquares(them) & path) == 0;
+        }
+
+        return !board.isSquareAttacked(kingSquare, them)
+                && !board.isSquareAttacked(kingSquare + step, them)
+                && !board.isSquareAttacked(kingSquare + 2 * step, them);
+    }
+
+    /**
+     * Generates legal pawn moves: pushes, double pushes, captures, en passant and promotions.
+     *
+     * @param board        is a chessboard.
+     * @param us           is a color of pawns.
+     * @param moves        is an array to put packed moves to.
+     * @param count        is a number of moves already in the array.
+     * @param capturesOnly is true to generate only captures and promotions.
+     * @return a new number of moves in the array.
+     */
+    private static int generatePawnMoves(Chessboard board, PieceColor us, int[] moves, int count, boolean capturesOnly) {
+        long empty = ~board.getOccupancy();
+        long enemies = board.getOccupancy(us == WHITE ? BLACK : WHITE);
+        int enPassantSquare = board.getEnPassantSquare();
+        int forward = us == WHITE ? 8 : -8;
+        int startRow = us == WHITE ? 1 : 6;
+        int lastRow = us == WHITE ? 7 : 0;
+
+        long pawns = board.getPieces(PieceType.PAWN, us);
+        while (pawns != 0) {
+            int from = Long.numberOfTrailingZeros(pawns);
+            pawns &= pawns - 1;
+
+            int to = from + forward;
+            if ((empty & (1L << to)) != 0) {
+                if (to >>> 3 == lastRow) {
+                    count = addPromotions(board, from, to, false, moves, count);
+                } else if (!capturesOnly) {
+                    count = addMove(board, PackedMove.of(from, to, PackedMove.QUIET), moves, count);
+                    int doubleTo = to + forward;
+                    if (from >>> 3 == startRow && (empty & (1L << doubleTo)) != 0) {
+                        count = addMove(board, PackedMove.of(from, doubleTo, PackedMove.DOUBLE_PAWN_PUSH), moves, count);
+                    }
+                }
+            }
+
+            long attacks = AttackTables.pawnAttacks(us.ordinal(), from);
+            long captures = attacks & enemies;
+            while (captures != 0) {
+                to = Long.numberOfTrailingZeros(captures);
+                captures &= captures - 1;
+                if (to >>> 3 == lastRow) {
+                    count = addPromotions(board, from, to, true, moves, count);
+                } else {
+                    count = addMove(board, PackedMove.of(from, to, PackedMove.CAPTURE), moves, count);
+                }
+            }
+
+            if (enPassantSquare >= 0 && (attacks & (1L << enPassantSquare)) != 0) {
+                count = addMove(board, PackedMove.of(from, enPassantSquare, PackedMove.EN_PASSANT), moves, count);
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Adds legal moves from a square to each target square.
+     *
+     * @param board   is a chessboard.
+     * @param from    is a square a piece is moved from.
+     * @param targets is a bitboard of target squares, not containing own pieces.
+     * @param moves   is an array to put packed moves to.
+     * @param count   is a number of moves already in the array.
+     * @return a new number of moves in the array.
+     */
+    private static int addMoves(Chessboard board, int from, long targets, int[] moves, int count) {
+        long occupancy = board.getOccupancy();
+        while (targets != 0) {
+            int to = Long.numberOfTrailingZeros(targets);
+            targets &= targets - 1;
+            int flags = (occupancy & (1L << to)) != 0 ? PackedMove.CAPTURE : PackedMove.QUIET;
+            count = addMove(board, PackedMove.of(from, to, flags), moves, count);
+        }
+
+        return count;
+    }
+
+    /**
+     * Adds all four promotions of a pawn move if they are legal.
+     *
+     * @param board   is a chessboard.
+     * @param from    is a square a pawn is moved from.
+     * @param to      is a square a pawn is moved to.
+     * @param capture is true if the move captures a piece.
+     * @param moves   is an array to put packed moves to.
+     * @param count   is a number of moves already in the array.
+     * @return a new number of moves in the array.
+     */
+    private static int addPromotions(Chessboard board, int from, int to, boolean capture, int[] moves, int count) {
+        if (!leavesKingSafe(board, PackedMove.of(from, to, PackedMove.QUIET))) return count;
+        for (PieceType promotion : PROMOTIONS) {
+            moves[count++] = PackedMove.promotion(from, to, promotion, capture);
+        }
+
+        return count;
+    }
+
+    /**
+     * Adds a move if it is legal.
+     *
+     * @param board is a chessboard.
+     * @param move  is a pseudo-legal packed move.
+     * @param moves is an array to put packed moves to.
+     * @param count is a number of moves already in the array.
+     * @return a new number of moves in the array.
+     */
+    private static int addMove(Chessboard board, int move, int[] moves, int count) {
+        if (leavesKingSafe(board, move)) moves[count++] = move;
+        return count;
+    }
+}
@@ -0,0 +1,272 @@
+package to.grindelf.circuitclash.utils;
+
+import org.jetbrains.annotations.NotNull;
+import to.grindelf.circuitclash.domain.Chessboard;
+import to.grindelf.circuitclash.domain.PackedMove;
+import to.grindelf.circuitclash.domain.PieceColor;
+import to.grindelf.circuitclash.domain.PieceType;
+
+import java.util.Arrays;
+
+/**
+ * Move ordering of an alpha-beta search. Moves are scored in this order: the move from the
+ * transposition table, captures by the most valuable victim and the least valuable attacker
+ * (MVV-LVA), promotions, two killer moves of the ply (quiet moves which caused a cutoff in
+ * a sibling node), the counter-move of the previous move, and then the rest of quiet moves
+ * by their history score (how often a move from one square to another caused a cutoff).
+ * <p>
+ * All tables are primitive arrays allocated once and reused between searches, so ordering
+ * does not allocate. An instance keeps the state of one search and is not thread-safe.
+ */
+public final class MoveOrdering {
+
+    /**
+     * Score of the move from the transposition table.
+     */
+    public static final int HASH_MOVE_SCORE = Integer.MAX_VALUE;
+
+    private static final int CAPTURE_SCORE = 1 << 28;
+    private static final int PROMOTION_SCORE = 1 << 27;
+    private static final int KILLER_SCORE = 1 << 26;
+    private static final int COUNTER_MOVE_SCORE = 1 << 25;
+    /**
+     * Bound of history scores, which keeps them below the score of any special move.
+     */
+    private static final int MAX_HISTORY = 1 << 14;
+    private static final int MAX_HISTORY_BONUS = 1200;
+    private static final int KILLERS_PER_PLY = 2;
+    private static final int[] PIECE_VALUES = {100, 500, 320, 330, 900, 0};
+
+    /**
+     * Killer moves of each ply, {@link #KILLERS_PER_PLY} per ply, the newest first.
+     */
+    private final int[] killers;
+    /**
+     * Butterfly history scores, indexed by {@code color * 4096 + to * 64 + from}, where
+     * {@code to * 64 + from} is the low 12 bits of a packed move.
+     */
+    private final int[] history = new int[2 * 64 * 64];
+    /**
+     * Counter-moves, indexed by {@code to * 64 + from} of the previous move.
+     */
+    private final int[] counterMoves = new int[64 * 64];
+
+    /**
+     * Initializes move ordering.
+     *
+     * @param maxPly is a maximum distance from the root the search goes to.
+     */
+    public MoveOrdering(int maxPly) {
+        this.killers = new int[maxPly * KILLERS_PER_PLY];
+    }
+
+    /**
+     * Prepares the tables for a new search: killers of the previous search are cleared and
+     * history scores are halved, so that they still help but adapt to the new position.
+     */
+    public void newSearch() {
+        Arrays.fill(this.killers, PackedMove.NONE);
+        for (int i = 0; i < this.history.length; i++) {
+            this.history[i] /= 2;
+        }
+    }
+
+    /**
+     * Clears all tables.
+     */
+    public void clear() {
+        Arrays.fill(this.killers, PackedMove.NONE);
+        Arrays.fill(this.history, 0);
+        Arrays.fill(this.counterMoves, PackedMove.NONE);
+    }
+
+    /**
+     * Assigns ordering scores to moves of a position, the higher the earlier a move should be searched.
+     *
+     * @param board        is a chessboard with the position the moves are generated for.
+     * @param moves        is packed moves.
+     * @param scores       is an array to put scores to, parallel to the moves.
+     * @param moveCount    is a number of moves.
+     * @param ply          is a distance from the root.
+     * @param hashMove     is a move from the transposition table or {@link PackedMove#NONE}.
+     * @param previousMove is a move which led to the position or {@link PackedMove#NONE}.
+     */
+    public void scoreMoves(@NotNull Chessboard board, @NotNull int[] moves, @NotNull int[] scores, int moveCount,
+                           int ply, int hashMove, int previousMove) {
+        int killerIndex = ply * KILLERS_PER_PLY;
+        int firstKiller = this.killers[killerIndex];
+        int secondKiller = this.killers[killerIndex + 1];
+        int counterMove = previousMove == PackedMove.NONE ? PackedMove.NONE : this.counterMoves[previousMove & 0xFFF];
+        int historyBase = board.getSideToMove().ordinal() << 12;
+
+        for (int i = 0; i < moveCount; i++) {
+            int move = moves[i];
+            if (move == hashMove) {
+                scores[i] = HASH_MOVE_SCORE;
+            } else if (PackedMove.isCapture(move)) {
+                scores[i] = CAPTURE_SCORE + captureScore(board, move);
+            } else if (PackedMove.isPromotion(move)) {
+                scores[i] = PROMOTION_SCORE + PIECE_VALUES[PackedMove.promotionType(move).ordinal()];
+            } else if (move == firstKiller) {
+                scores[i] = KILLER_SCORE + 1;
+            } else if (move == secondKiller) {
+                scores[i] = KILLER_SCORE;
+            } else if (move == counterMove) {
+                scores[i] = COUNTER_MOVE_SCORE;
+            } else {
+                scores[i] = this.history[historyBase + (move & 0xFFF)];
+            }
+        }
+    }
+
+    /**
+     * Updates the tables after a move caused a beta cutoff. A quiet move becomes a killer of
+     * the ply and the counter-move of the previous move, and its history score is raised,
+     * while history scores of quiet moves searched before it without a cutoff are lowered.
+     *
+     * @param color        is a color of the side which made the move.
+     * @param moves        is moves of the node in the order they were searched.
+     * @param index        is an index of the move which caused the cutoff.
+     * @param ply          is a distance from the root.
+     * @param depth        is a remaining depth of the node.
+     * @param previousMove is a move which led to the node or {@link PackedMove#NONE}.
+     */
+    public void recordCutoff(@NotNull PieceColor color, @NotNull int[] moves, int index, int ply, int depth,
+                             int previousMove) {
+        int move = moves[index];
+        if (!isQuiet(move)) return;
+
+        int killerIndex = ply * KILLERS_PER_PLY;
+        if (this.killers[killerIndex] != move) {
+            this.killers[killerIndex + 1] = this.killers[killerIndex];
+            this.killers[killerIndex] = move;
+        }
+        if (previousMove != PackedMove.NONE) this.counterMoves[previousMove & 0xFFF] = move;
+
+        int historyBase = color.ordinal() << 12;
+        int bonus = Math.min(depth * depth, MAX_HISTORY_BONUS);
+        updateHistory(historyBase + (move & 0xFFF), bonus);
+        for (int i = 0; i < index; i++) {
+            if (isQuiet(moves[i])) updateHistory(historyBase + (moves[i] & 0xFFF), -bonus);
+        }
+    }
+
+    /**
+     * Returns a history score of a move.
+     *
+     * @param color is a color of the side making the move.
+     * @param move  is a packed move.
+     * @return a score from {@code -MAX_HISTORY} to {@code MAX_HISTORY}.
+     */
+    public int getHistory(@NotNull PieceColor color, int move) {
+        return this.history[(color.ordinal() << 12) + (move & 0xFFF)];
+    }
+
+    /**
+     * Returns a killer move of a ply.
+     *
+     * @param ply  is a distance from the root.
+     * @param slot is 0 for the newest killer and 1 for the older one.
+     * @return a packed move or {@link PackedMove#NONE}.
+     */
+    public int getKiller(int ply, int slot) {
+        return this.killers[ply * KILLERS_PER_PLY + slot];
+    }
+
+    /**
+     * Returns the counter-move of a move.
+     *
+     * @param previousMove is a packed move.
+     * @return a packed move or {@link PackedMove#NONE}.
+     */
+    public int getCounterMove(int previousMove) {
+        return this.counterMoves[previousMove & 0xFFF];
+    }
+
+    /**
+     * Scores a capture by MVV-LVA: the victim value matters most, and of two captures of the
+     * same victim the one by the cheaper attacker goes first.
+     *
+     * @param board is a chessboard before the capture.
+     * @param move  is a packed capture.
+     * @return a score, from 0 to about 9000.
+     */
+    public static int captureScore(@NotNull Chessboard board, int move) {
+        int victim = board.pieceIndexAt(PackedMove.to(move));
+        int attacker = board.pieceIndexAt(PackedMove.from(move));
+        // the victim of an en passant capture is not on the target square
+        int victimValue = victim < 0 ? PIECE_VALUES[PieceType.PAWN.ordinal()] : PIECE_VALUES[victim % 6];
+
+        return victimValue * 10 - PIECE_VALUES[attacker % 6] / 10;
+    }
+
+    /**
+     * Selects the move with the highest score among moves from an index on and swaps it,
+     * with its score, to the index. Picking moves one by one is cheaper than sorting when a
+     * cutoff comes after the first few moves.
+     *
+     * @param moves     is packed moves.
+     * @param scores    is scores of the moves.
+     * @param index     is an index to put the selected move to.
+     * @param moveCount is a number of moves.
+     * @return the selected move.
+     */
+    public static int pickMove(@NotNull int[] moves, @NotNull int[] scores, int index, int moveCount) {
+        int best = index;
+        for (int i = index + 1; i < moveCount; i++) {
+            if (scores[i] > scores[best]) best = i;
+        }
+
+        int move = moves[best];
+        moves[best] = moves[index];
+        moves[index] = move;
+        int score = scores[best];
+        scores[best] = scores[index];
+        scores[index] = score;
+
+        return move;
+    }
+
+    /**
+     * Sorts moves by their scores, the highest first, in place. Insertion sort is used, as
+     * move lists are short; moves with equal scores keep their order.
+     *
+     * @param moves     is packed moves.
+     * @param scores    is scores of the moves, sorted along with them.
+     * @param moveCount is a number of moves.
+     */
+    public static void sort(@NotNull int[] moves, @NotNull int[] scores, int moveCount) {
+        for (int i = 1; i < moveCount; i++) {
+            int move = moves[i];
+            int score = scores[i];
+            int j = i - 1;
+            for (; j >= 0 && scores[j] < score; j--) {
+                moves[j + 1] = moves[j];
+                scores[j + 1] = scores[j];
+            }
+            moves[j + 1] = move;
+            scores[j + 1] = score;
+        }
+    }
+
+    /**
+     * Applies a bonus to a history score with gravity: the closer the score is to the bound,
+     * the less it moves, so scores stay within {@code -MAX_HISTORY} to {@code MAX_HISTORY}.
+     *
+     * @param index is an index in the history table.
+     * @param bonus is a bonus, negative for a penalty.
+     */
+    private void updateHistory(int index, int bonus) {
+        this.history[index] += bonus - this.history[index] * Math.abs(bonus) / MAX_HISTORY;
+    }
+
+    /**
+     * Checks if a move is quiet, that is neither a capture nor a promotion.
+     *
+     * @param move is a packed move.
+     * @return true if the move is quiet.
+     */
+    private static boolean isQuiet(int move) {
+        return !PackedMove.isCapture(move) && !PackedMove.isPromotion(move);
+    }
+}
@@ -1,8 +1,9 @@
 package to.grindelf.circuitclash.utils;
 
 import org.jetbrains.annotations.NotNull;
+import to.grindelf.circuitclash.domain.Chessboard;
 import to.grindelf.circuitclash.domain.Move;
-import to.grindelf.circuitclash.domain.PieceType;
+import to.grindelf.circuitclash.domain.PackedMove;
 import to.grindelf.circuitclash.errors.RulesViolationException;
 import to.grindelf.circuitclash.errors.WrongMoveException;
 
@@ -28,15 +29,32 @@ public class MoveValidator implements PieceValidation, BoardValidation {
     /**
      * Checks if a move is correct in accordance with the game rules.
      *
-     * @param move is a description of a move to be made.
+     * @param move  is a description of a move to be made.
+     * @param board is a chessboard on which the move is made.
      * @throws RulesViolationException if the move is not correct.
      */
     @Override
-    public void isCorrect(@NotNull Move move, @NotNull PieceType movedPieceType) throws RulesViolationException {
-        RulesGuardian rulesGuardian = new RulesGuardian(movedPieceType, move.from(), move.to());
-
-        if (!rulesGuardian.moveIsCorrect()) {
+    public void isCorrect(@NotNull Move move, @NotNull Chessboard board) throws RulesViolationException {
+        if (encodeLegalMove(move, board) == PackedMove.NONE) {
             throw new RulesViolationException("Move is not correct in accordance with the game rules.");
         }
     }
+
+    /**
+     * Encodes a move and checks if it is legal for the side to move, without throwing
+     * exceptions, so that many moves can be checked one after another at a low cost.
+     *
+     * @param move  is a description of a move to be made.
+     * @param board is a chessboard on which the move is made.
+     * @return a packed move, see {@link Chessboard#encodeMove}, or {@link PackedMove#NONE}
+     * if the move is not within the chessboard or violates the rules of the game.
+     */
+    public int encodeLegalMove(@NotNull Move move, @NotNull Chessboard board) {
+        int packedMove = board.encodeMove(move);
+        if (packedMove == PackedMove.NONE || !new RulesGuardian(board, packedMove).moveIsCorrect()) {
+            return PackedMove.NONE;
+        }
+
+        return packedMove;
+    }
 }
@@ -0,0 +1,285 @@
+package to.grindelf.circuitclash.utils;
+
+import org.jetbrains.annotations.NotNull;
+import to.grindelf.circuitclash.domain.Chessboard;
+import to.grindelf.circuitclash.domain.Fen;
+import to.grindelf.circuitclash.domain.PackedMove;
+import to.grindelf.circuitclash.domain.ParallelSearch;
+import to.grindelf.circuitclash.errors.FenFormatException;
+
+import java.io.PrintStream;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Perft: counts leaf nodes of the tree of legal moves to a fixed depth, which validates the
+ * move generator against known counts of reference positions. Root moves are counted in
+ * parallel by a fork/join pool, each on its own copy of the position. Counts of subtrees are
+ * cached in a table shared by all threads and keyed by a Zobrist key and a depth, so
+ * transpositions are counted once. The table is lock-free in the same way as
+ * {@link to.grindelf.circuitclash.domain.TranspositionTable}: an entry is the key XORed with
+ * the data and the data itself, and a torn entry is treated as missing.
+ * <p>
+ * {@link #main(String[])} prints divide output (the count of every root move) together with
+ * time and nodes per second, so it also serves as a throughput benchmark.
+ */
+public final class Perft implements AutoCloseable {
+
+    /**
+     * Default size of the table of subtree counts in megabytes.
+     */
+    public static final int DEFAULT_HASH_MEGABYTES = 64;
+
+    private static final VarHandle SLOTS = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final int BYTES_PER_ENTRY = 16;
+    /**
+     * Odd constant which spreads positions of different depths over the table.
+     */
+    private static final long DEPTH_MIX = 0x9E3779B97F4A7C15L;
+
+    private final ForkJoinPool pool;
+    /**
+     * Table slots, two per entry, or null if counts are not cached. Data of an entry packs
+     * the depth (bits 0-7) and the count (bits 8-63).
+     */
+    private final long[] slots;
+    private final long entryMask;
+
+    /**
+     * Initializes a perft counter.
+     *
+     * @param hashMegabytes is a size of the table of subtree counts in megabytes, or 0 to count
+     *                      without the table. The number of entries is rounded down to a power of two.
+     * @param threads       is a number of threads, at least 1.
+     */
+    public Perft(int hashMegabytes, int threads) {
+        if (hashMegabytes < 0) throw new IllegalArgumentException("A perft table size can't be negative.");
+        if (threads < 1) throw new IllegalArgumentException("A perft needs at least one thread.");
+        long entries = Long.highestOneBit((long) hashMegabytes * 1024 * 1024 / BYTES_PER_ENTRY);
+        if (entries * 2 > Integer.MAX_VALUE - 8) entries >>>= 1;
+
+        this.slots = entries == 0 ? null : new long[(int) (entries * 2)];
+        this.entryMask = entries - 1;
+        this.pool = new ForkJoinPool(threads);
+    }
+
+    /**
+     * Counts leaf nodes of a position. The position is not changed.
+     *
+     * @param position is a position to count from.
+     * @param depth    is a depth in plies, at least 0.
+     * @return a number of leaf nodes.
+     */
+    public long count(@NotNull Chessboard position, int depth) {
+        long nodes = 0;
+        for (long rootCount : countRootMoves(position, depth, new int[MoveGenerator.MAX_MOVES])) {
+            nodes += rootCount;
+        }
+
+        return depth == 0 ? 1 : nodes;
+    }
+
+    /**
+     * Counts leaf nodes of a position and prints the count of every root move in coordinate
+     * notation ({@code e2e4: 600}), followed by the total. The position is not changed.
+     *
+     * @param position is a position to count from.
+     * @param depth    is a depth in plies, at least 1.
+     * @param out      is a stream to print to.
+     * @return a number of leaf nodes.
+     */
+    public long divide(@NotNull Chessboard position, int depth, @NotNull PrintStream out) {
+        if (depth < 1) throw new IllegalArgumentException("Divide needs a depth of at least 1.");
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        long[] rootCounts = countRootMoves(position, depth, moves);
+
+        long nodes = 0;
+        for (int i = 0; i < rootCounts.length; i++) {
+            out.println(PackedMove.toString(moves[i]) + ": " + rootCounts[i]);
+            nodes += rootCounts[i];
+        }
+        out.println();
+        out.println("Nodes searched: " + nodes);
+
+        return nodes;
+    }
+
+    /**
+     * Clears the table of subtree counts.
+     */
+    public void clear() {
+        if (this.slots != null) Arrays.fill(this.slots, 0L);
+    }
+
+    /**
+     * Shuts the thread pool down.
+     */
+    @Override
+    public void close() {
+        this.pool.shutdown();
+    }
+
+    /**
+     * Prints divide output of a position with time and nodes per second. Arguments are a depth
+     * and an optional position in FEN, the initial position by default. The number of threads
+     * is taken from the {@value ParallelSearch#THREADS_PROPERTY} system property.
+     *
+     * @param args is command line arguments.
+     * @throws FenFormatException if the position is not valid FEN.
+     */
+    public static void main(String[] args) throws FenFormatException {
+        if (args.length < 1) {
+            System.err.println("Usage: Perft <depth> [fen]");
+            return;
+        }
+
+        int depth = Integer.parseInt(args[0]);
+        Chessboard position = Fen.parse(args.length > 1 ? String.join(" ", Arrays.copyOfRange(args, 1, args.length)) : Fen.INITIAL_POSITION);
+        try (Perft perft = new Perft(DEFAULT_HASH_MEGABYTES, ParallelSearch.configuredThreads())) {
+            long start = System.nanoTime();
+            long nodes = perft.divide(position, depth, System.out);
+            long nanos = Math.max(1, System.nanoTime() - start);
+            System.out.printf("Time: %d ms, %d nodes per second%n", nanos / 1_000_000, (long) (nodes * 1e9 / nanos));
+        }
+    }
+
+    /**
+     * Counts leaf nodes of each root move in parallel.
+     *
+     * @param position is a position to count from.
+     * @param depth    is a depth in plies.
+     * @param moves    is an array to put root moves to.
+     * @return counts of leaf nodes, indexed in the order of the root moves.
+     */
+    private long[] countRootMoves(Chessboard position, int depth, int[] moves) {
+        if (depth < 0) throw new IllegalArgumentException("A perft depth can't be negative.");
+        if (depth == 0) return new long[0];
+
+        int count = MoveGenerator.generateLegalMoves(position, moves);
+        RootMoveTask[] tasks = new RootMoveTask[count];
+        for (int i = 0; i < count; i++) {
+            tasks[i] = new RootMoveTask(position, moves[i], depth - 1);
+        }
+        this.pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(tasks)));
+
+        long[] rootCounts = new long[count];
+        for (int i = 0; i < count; i++) {
+            rootCounts[i] = tasks[i].getRawResult();
+        }
+
+        return rootCounts;
+    }
+
+    /**
+     * Counts leaf nodes of a position on a thread's own board.
+     *
+     * @param board is a chessboard.
+     * @param depth is a depth in plies, at least 1.
+     * @param moves is move arrays of every depth.
+     * @return a number of leaf nodes.
+     */
+    private long perft(Chessboard board, int depth, int[][] moves) {
+        int[] depthMoves = moves[depth - 1];
+        int count = MoveGenerator.generateLegalMoves(board, depthMoves);
+        if (depth == 1) return count;
+
+        long key = board.getZobristKey();
+        long nodes = probe(key, depth);
+        if (nodes >= 0) return nodes;
+
+        nodes = 0;
+        for (int i = 0; i < count; i++) {
+            board.makeMove(depthMoves[i]);
+            nodes += perft(board, depth - 1, moves);
+            board.undoMove();
+        }
+        store(key, depth, nodes);
+
+        return nodes;
+    }
+
+    /**
+     * Looks up a count of a subtree.
+     *
+     * @param key   is a Zobrist key of the position.
+     * @param depth is a depth of the subtree.
+     * @return a number of leaf nodes or -1 if it is not in the table.
+     */
+    private long probe(long key, int depth) {
+        if (this.slots == null) return -1;
+        int slot = slotOf(key, depth);
+        long data = (long) SLOTS.getOpaque(this.slots, slot + 1);
+        if (data == 0 || ((long) SLOTS.getOpaque(this.slots, slot) ^ data) != key || (data & 0xFF) != depth) return -1;
+
+        return data >>> 8;
+    }
+
+    /**
+     * Stores a count of a subtree, replacing any entry in its slot.
+     *
+     * @param key   is a Zobrist key of the position.
+     * @param depth is a depth of the subtree, from 1 to 255.
+     * @param nodes is a number of leaf nodes.
+     */
+    private void store(long key, int depth, long nodes) {
+        if (this.slots == null) return;
+        int slot = slotOf(key, depth);
+        long data = nodes << 8 | depth;
+        SLOTS.setOpaque(this.slots, slot, key ^ data);
+        SLOTS.setOpaque(this.slots, slot + 1, data);
+    }
+
+    /**
+     * Returns the index of the first slot of an entry.
+     *
+     * @param key   is a Zobrist key of the position.
+     * @param depth is a depth of the subtree.
+     * @return a slot index.
+     */
+    private int slotOf(long key, int depth) {
+        return (int) ((key ^ depth * DEPTH_MIX) & this.entryMask) * 2;
+    }
+
+    /**
+     * Task which counts leaf nodes after a root move.
+     */
+    private final class RootMoveTask extends RecursiveTask<Long> {
+
+        private final Chessboard position;
+        private final int move;
+        private final int depth;
+
+        /**
+         * Initializes a task.
+         *
+         * @param position is a root position; it is copied by the task.
+         * @param move     is a root move.
+         * @param depth    is a depth left after the move.
+         */
+        private RootMoveTask(Chessboard position, int move, int depth) {
+            this.position = position;
+            this.move = move;
+            this.depth = depth;
+        }
+
+        /**
+         * Makes the root move on a copy of the root position and counts its subtree.
+         *
+         * @return a number of leaf nodes after the move.
+         */
+        @Override
+        protected Long compute() {
+            if (this.depth == 0) return 1L;
+
+            Chessboard board = new Chessboard(this.position);
+            board.disableAttackMaps();
+            board.makeMove(this.move);
+
+            return perft(board, this.depth, new int[this.depth][MoveGenerator.MAX_MOVES]);
+        }
+    }
+}
@@ -1,8 +1,8 @@
 package to.grindelf.circuitclash.utils;
 
 import org.jetbrains.annotations.NotNull;
+import to.grindelf.circuitclash.domain.Chessboard;
 import to.grindelf.circuitclash.domain.Move;
-import to.grindelf.circuitclash.domain.PieceType;
 import to.grindelf.circuitclash.errors.RulesViolationException;
 
 /**
@@ -13,8 +13,9 @@ public interface PieceValidation {
     /**
      * Checks if a move is correct in accordance with the game rules.
      *
-     * @param move is a description of a move to be made.
+     * @param move  is a description of a move to be made.
+     * @param board is a chessboard on which the move is made.
      * @throws RulesViolationException if the move is not correct.
      */
-    public abstract void isCorrect(@NotNull Move move, @NotNull PieceType movedPieceType) throws RulesViolationException;
+    public abstract void isCorrect(@NotNull Move move, @NotNull Chessboard board) throws RulesViolationException;
 }
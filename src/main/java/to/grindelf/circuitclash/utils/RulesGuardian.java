@@ -1,22 +1,54 @@
 package to.grindelf.circuitclash.utils;
 
-import kotlin.NotImplementedError;
+import to.grindelf.circuitclash.domain.Chessboard;
+import to.grindelf.circuitclash.domain.PackedMove;
+import to.grindelf.circuitclash.domain.PieceColor;
 import to.grindelf.circuitclash.domain.PieceType;
-import to.grindelf.circuitclash.domain.Position;
 
+/**
+ * Checks if a move is legal according to the rules of chess. Geometry of each piece's move
+ * is checked by a lookup in {@link AttackTables}, then {@link MoveGenerator} checks that
+ * the move does not leave the own king attacked.
+ */
 class RulesGuardian {
 
-    private final PieceType pieceType;
-    private final Position pieceMovedFrom;
-    private final Position pieceMovedTo;
+    private final Chessboard board;
+    private final int move;
+    private final int pieceMovedFrom;
+    private final int pieceMovedTo;
 
-    public RulesGuardian(PieceType pieceType, Position pieceMovedFrom, Position pieceMovedTo) {
-        this.pieceType = pieceType;
-        this.pieceMovedFrom = pieceMovedFrom;
-        this.pieceMovedTo = pieceMovedTo;
+    /**
+     * Initializes a rules guardian for a move.
+     *
+     * @param board is a chessboard on which the move is made.
+     * @param move  is a packed move, see {@link Chessboard#encodeMove}.
+     */
+    public RulesGuardian(Chessboard board, int move) {
+        this.board = board;
+        this.move = move;
+        this.pieceMovedFrom = PackedMove.from(move);
+        this.pieceMovedTo = PackedMove.to(move);
     }
 
+    /**
+     * Checks if the move is legal for the side to move.
+     *
+     * @return true if the move is legal.
+     */
     public boolean moveIsCorrect() {
+        int pieceIndex = board.pieceIndexAt(pieceMovedFrom);
+        PieceColor sideToMove = board.getSideToMove();
+        if (move == PackedMove.NONE || pieceIndex < 0 || pieceIndex / 6 != sideToMove.ordinal()) return false;
+        if ((board.getOccupancy(sideToMove) & targetBit()) != 0) return false;
+
+        PieceType pieceType = PieceType.values()[pieceIndex % 6];
+        int flags = PackedMove.flags(move);
+        boolean capturesPiece = (board.getOccupancy() & targetBit()) != 0;
+        if (flags != PackedMove.EN_PASSANT && capturesPiece != PackedMove.isCapture(move)) return false;
+        if (pieceType != PieceType.PAWN && flags != PackedMove.QUIET && flags != PackedMove.CAPTURE
+                && !(pieceType == PieceType.KING && PackedMove.isCastling(move))) {
+            return false;
+        }
         boolean moveIsCorrect = false;
 
         if (pieceType == PieceType.PAWN) {
@@ -33,31 +65,59 @@ class RulesGuardian {
             moveIsCorrect = checkKingMove();
         }
 
-        return moveIsCorrect;
+        return moveIsCorrect && MoveGenerator.leavesKingSafe(board, move);
     }
 
     private boolean checkPawnMove() {
-        return false;
+        PieceColor color = board.getSideToMove();
+        int forward = color == PieceColor.WHITE ? 8 : -8;
+        int flags = PackedMove.flags(move);
+        long empty = ~board.getOccupancy();
+        boolean reachesLastRow = pieceMovedTo >>> 3 == (color == PieceColor.WHITE ? 7 : 0);
+        if (reachesLastRow != PackedMove.isPromotion(move)) return false;
+
+        if (flags == PackedMove.EN_PASSANT) {
+            return pieceMovedTo == board.getEnPassantSquare()
+                    && (AttackTables.pawnAttacks(color.ordinal(), pieceMovedFrom) & targetBit()) != 0;
+        } else if (flags == PackedMove.DOUBLE_PAWN_PUSH) {
+            return pieceMovedFrom >>> 3 == (color == PieceColor.WHITE ? 1 : 6)
+                    && pieceMovedTo == pieceMovedFrom + 2 * forward
+                    && (empty & (1L << (pieceMovedFrom + forward))) != 0
+                    && (empty & targetBit()) != 0;
+        } else if ((board.getOccupancy() & targetBit()) != 0) {
+            return (AttackTables.pawnAttacks(color.ordinal(), pieceMovedFrom) & targetBit()) != 0;
+        }
+
+        return pieceMovedTo == pieceMovedFrom + forward;
     }
 
     private boolean checkRookMove() {
-        return false;
+        return (AttackTables.rookAttacks(pieceMovedFrom, board.getOccupancy()) & targetBit()) != 0;
     }
 
     private boolean checkKnightMove() {
-        return false;
+        return (AttackTables.knightAttacks(pieceMovedFrom) & targetBit()) != 0;
     }
 
     private boolean checkBishopMove() {
-        return false;
+        return (AttackTables.bishopAttacks(pieceMovedFrom, board.getOccupancy()) & targetBit()) != 0;
     }
 
     private boolean checkQueenMove() {
-        return false;
+        return (AttackTables.queenAttacks(pieceMovedFrom, board.getOccupancy()) & targetBit()) != 0;
     }
 
     private boolean checkKingMove() {
-        return false;
+        int flags = PackedMove.flags(move);
+        if (PackedMove.isCastling(move)) {
+            boolean kingSide = flags == PackedMove.KING_CASTLE;
+            return pieceMovedTo == pieceMovedFrom + (kingSide ? 2 : -2) && MoveGenerator.canCastle(board, kingSide);
+        }
+
+        return (AttackTables.kingAttacks(pieceMovedFrom) & targetBit()) != 0;
     }
 
+    private long targetBit() {
+        return 1L << pieceMovedTo;
+    }
 }
@@ -0,0 +1,206 @@
+package to.grindelf.circuitclash.utils;
+
+import org.jetbrains.annotations.NotNull;
+import to.grindelf.circuitclash.domain.Chessboard;
+import to.grindelf.circuitclash.domain.PackedMove;
+import to.grindelf.circuitclash.domain.PieceType;
+
+/**
+ * Standard algebraic notation (SAN) of moves, as used by PGN: a piece letter, the squares
+ * needed to tell the move from other moves of the same piece type, {@code x} for captures,
+ * the target square, {@code =Q} for promotions and {@code +} or {@code #} for checks.
+ * A move is parsed by matching it against legal moves of the side to move, so a parsed
+ * move is always legal.
+ */
+public final class SanNotation {
+
+    private static final String PIECE_LETTERS = "PRNBQK";
+
+    private SanNotation() {
+    }
+
+    /**
+     * Parses a move in SAN.
+     *
+     * @param board is a chessboard with the position the move is made in.
+     * @param text  is a text containing the move.
+     * @return a packed move or {@link PackedMove#NONE} if the text is not a legal move.
+     */
+    public static int parse(@NotNull Chessboard board, @NotNull CharSequence text) {
+        return parse(board, text, 0, text.length(), new int[MoveGenerator.MAX_MOVES]);
+    }
+
+    /**
+     * Parses a move in SAN from a part of a text, without creating strings.
+     *
+     * @param board is a chessboard with the position the move is made in.
+     * @param text  is a text containing the move.
+     * @param start is an index of the first character of the move.
+     * @param end   is an index after the last character of the move.
+     * @param moves is a buffer for legal moves, at least {@link MoveGenerator#MAX_MOVES} long.
+     * @return a packed move or {@link PackedMove#NONE} if the text is not a legal move.
+     */
+    public static int parse(@NotNull Chessboard board, @NotNull CharSequence text, int start, int end, @NotNull int[] moves) {
+        while (end > start && "+#!?".indexOf(text.charAt(end - 1)) >= 0) end--;
+        if (end - start < 2) return PackedMove.NONE;
+
+        int count = MoveGenerator.generateLegalMoves(board, moves);
+        char first = text.charAt(start);
+        if (first == 'O' || first == '0') {
+            int flags = end - start == 3 ? PackedMove.KING_CASTLE : end - start == 5 ? PackedMove.QUEEN_CASTLE : -1;
+            for (int i = 0; i < count; i++) {
+                if (PackedMove.flags(moves[i]) == flags) return moves[i];
+            }
+            return PackedMove.NONE;
+        }
+
+        int pieceType = PieceType.PAWN.ordinal();
+        if ("RNBQK".indexOf(first) >= 0) {
+            pieceType = PIECE_LETTERS.indexOf(first);
+            start++;
+        }
+
+        PieceType promotion = null;
+        char last = text.charAt(end - 1);
+        if (pieceType == PieceType.PAWN.ordinal() && "RNBQ".indexOf(last) >= 0) {
+            promotion = PieceType.values()[PIECE_LETTERS.indexOf(last)];
+            end--;
+            if (end > start && text.charAt(end - 1) == '=') end--;
+        }
+        if (end - start < 2) return PackedMove.NONE;
+
+        int to = square(text.charAt(end - 2), text.charAt(end - 1));
+        if (to < 0) return PackedMove.NONE;
+        int fromFile = -1;
+        int fromRank = -1;
+        for (int i = start; i < end - 2; i++) {
+            char c = text.charAt(i);
+            if (c >= 'a' && c <= 'h') fromFile = c - 'a';
+            else if (c >= '1' && c <= '8') fromRank = c - '1';
+            else if (c != 'x' && c != ':' && c != '-') return PackedMove.NONE;
+        }
+
+        int found = PackedMove.NONE;
+        for (int i = 0; i < count; i++) {
+            int move = moves[i];
+            int from = PackedMove.from(move);
+            if (PackedMove.to(move) != to || board.pieceIndexAt(from) % 6 != pieceType) continue;
+            if (fromFile >= 0 && (from & 7) != fromFile || fromRank >= 0 && from >>> 3 != fromRank) continue;
+            if (PackedMove.promotionType(move) != promotion) continue;
+            if (found != PackedMove.NONE) return PackedMove.NONE;
+            found = move;
+        }
+
+        return found;
+    }
+
+    /**
+     * Writes a legal move in SAN.
+     *
+     * @param board is a chessboard with the position the move is made in. It is the same after the call.
+     * @param move  is a legal packed move.
+     * @return the move in SAN.
+     */
+    @NotNull
+    public static String format(@NotNull Chessboard board, int move) {
+        StringBuilder stringBuilder = new StringBuilder(8);
+        appendTo(stringBuilder, board, move, new int[MoveGenerator.MAX_MOVES]);
+
+        return stringBuilder.toString();
+    }
+
+    /**
+     * Appends a legal move in SAN to a string builder.
+     *
+     * @param stringBuilder is a string builder to append to.
+     * @param board         is a chessboard with the position the move is made in. It is the same after the call.
+     * @param move          is a legal packed move.
+     * @param moves         is a buffer for legal moves, at least {@link MoveGenerator#MAX_MOVES} long.
+     */
+    public static void appendTo(@NotNull StringBuilder stringBuilder, @NotNull Chessboard board, int move, @NotNull int[] moves) {
+        int from = PackedMove.from(move);
+        int to = PackedMove.to(move);
+        int flags = PackedMove.flags(move);
+        int pieceType = board.pieceIndexAt(from) % 6;
+
+        if (flags == PackedMove.KING_CASTLE) {
+            stringBuilder.append("O-O");
+        } else if (flags == PackedMove.QUEEN_CASTLE) {
+            stringBuilder.append("O-O-O");
+        } else if (pieceType == PieceType.PAWN.ordinal()) {
+            if (PackedMove.isCapture(move)) stringBuilder.append((char) ('a' + (from & 7))).append('x');
+            appendSquare(stringBuilder, to);
+            PieceType promotion = PackedMove.promotionType(move);
+            if (promotion != null) stringBuilder.append('=').append(PIECE_LETTERS.charAt(promotion.ordinal()));
+        } else {
+            stringBuilder.append(PIECE_LETTERS.charAt(pieceType));
+            appendDisambiguation(stringBuilder, board, move, pieceType, moves);
+            if (PackedMove.isCapture(move)) stringBuilder.append('x');
+            appendSquare(stringBuilder, to);
+        }
+
+        board.makeMove(move);
+        if (board.isInCheck(board.getSideToMove())) {
+            stringBuilder.append(MoveGenerator.generateLegalMoves(board, moves) == 0 ? '#' : '+');
+        }
+        board.undoMove();
+    }
+
+    /**
+     * Appends the file, the rank or both of the square a piece moves from, if another piece
+     * of the same type can move to the same square.
+     *
+     * @param stringBuilder is a string builder to append to.
+     * @param board         is a chessboard with the position the move is made in.
+     * @param move          is a legal packed move.
+     * @param pieceType     is an ordinal of the type of the moved piece.
+     * @param moves         is a buffer for legal moves.
+     */
+    private static void appendDisambiguation(StringBuilder stringBuilder, Chessboard board, int move, int pieceType, int[] moves) {
+        int from = PackedMove.from(move);
+        int count = MoveGenerator.generateLegalMoves(board, moves);
+        boolean ambiguous = false;
+        boolean sameFile = false;
+        boolean sameRank = false;
+        for (int i = 0; i < count; i++) {
+            int otherFrom = PackedMove.from(moves[i]);
+            if (otherFrom == from || PackedMove.to(moves[i]) != PackedMove.to(move)) continue;
+            if (board.pieceIndexAt(otherFrom) % 6 != pieceType) continue;
+            ambiguous = true;
+            sameFile |= (otherFrom & 7) == (from & 7);
+            sameRank |= otherFrom >>> 3 == from >>> 3;
+        }
+
+        if (!ambiguous) return;
+        if (!sameFile) {
+            stringBuilder.append((char) ('a' + (from & 7)));
+        } else if (!sameRank) {
+            stringBuilder.append((char) ('1' + (from >>> 3)));
+        } else {
+            appendSquare(stringBuilder, from);
+        }
+    }
+
+    /**
+     * Appends a square name, like e4.
+     *
+     * @param stringBuilder is a string builder to append to.
+     * @param square        is a square index.
+     */
+    private static void appendSquare(StringBuilder stringBuilder, int square) {
+        stringBuilder.append((char) ('a' + (square & 7))).append((char) ('1' + (square >>> 3)));
+    }
+
+    /**
+     * Returns an index of a square given by its name.
+     *
+     * @param file is a file letter.
+     * @param rank is a rank digit.
+     * @return a square index or -1 if the name is not a square.
+     */
+    private static int square(char file, char rank) {
+        if (file < 'a' || file > 'h' || rank < '1' || rank > '8') return -1;
+
+        return (rank - '1') * 8 + (file - 'a');
+    }
+}
@@ -0,0 +1,90 @@
+package to.grindelf.circuitclash.visualization;
+
+import org.jetbrains.annotations.NotNull;
+import to.grindelf.circuitclash.domain.Chessboard;
+import to.grindelf.circuitclash.domain.Piece;
+import to.grindelf.circuitclash.domain.PieceColor;
+import to.grindelf.circuitclash.domain.PieceType;
+
+/**
+ * Incremental text renderer of a {@link Chessboard}, which gives the same text as
+ * {@link BoardVisualizer#visualizeAsString}. The renderer keeps the text of the board it
+ * rendered last in a char buffer, together with bitboards of its pieces. Rendering compares
+ * them with bitboards of the board, rewrites only the squares which changed since then and
+ * copies the buffer to a string, so a board printed after each move costs a few bitboard
+ * operations and a copy instead of a lookup per square.
+ * <p>
+ * A renderer can be used with any number of boards, but works best with the same board
+ * every time. Rendering is synchronized, so it is safe to render from several threads.
+ */
+public final class BoardRenderer {
+
+    private static final int PIECE_KINDS = 12;
+    private static final PieceType[] TYPES = PieceType.values();
+    private static final PieceColor[] COLORS = PieceColor.values();
+    /**
+     * Symbols of pieces, indexed by a piece index.
+     */
+    private static final char[] SYMBOLS = new char[PIECE_KINDS];
+
+    static {
+        for (int i = 0; i < PIECE_KINDS; i++) {
+            SYMBOLS[i] = Piece.of(TYPES[i % 6], COLORS[i / 6]).toString().charAt(0);
+        }
+    }
+
+    /**
+     * Text of the last rendered board.
+     */
+    private final char[] buffer;
+    /**
+     * Offsets of the symbol of each square in the buffer.
+     */
+    private final int[] squareOffsets = new int[64];
+    /**
+     * Bitboards of pieces of the last rendered board, indexed by a piece index.
+     */
+    private final long[] renderedPieces = new long[PIECE_KINDS];
+
+    /**
+     * Initializes a renderer with the text of an empty board.
+     */
+    public BoardRenderer() {
+        StringBuilder text = new StringBuilder(BoardVisualizer.ROW_SEPARATOR);
+        for (int row = 7; row >= 0; row--) {
+            text.append(row + 1).append(" |");
+            for (int file = 0; file < 8; file++) {
+                this.squareOffsets[row * 8 + file] = text.length() + 1;
+                text.append("   |");
+            }
+            text.append("\n").append(BoardVisualizer.ROW_SEPARATOR);
+        }
+        text.append(BoardVisualizer.FILE_LABELS);
+
+        this.buffer = text.toString().toCharArray();
+    }
+
+    /**
+     * Renders a board as text.
+     *
+     * @param board is a board to be rendered.
+     * @return a string that represents the board.
+     */
+    @NotNull
+    public synchronized String render(@NotNull Chessboard board) {
+        long dirtySquares = 0;
+        for (int pieceIndex = 0; pieceIndex < PIECE_KINDS; pieceIndex++) {
+            long pieces = board.getPieces(TYPES[pieceIndex % 6], COLORS[pieceIndex / 6]);
+            dirtySquares |= pieces ^ this.renderedPieces[pieceIndex];
+            this.renderedPieces[pieceIndex] = pieces;
+        }
+
+        for (; dirtySquares != 0; dirtySquares &= dirtySquares - 1) {
+            int square = Long.numberOfTrailingZeros(dirtySquares);
+            int pieceIndex = board.pieceIndexAt(square);
+            this.buffer[this.squareOffsets[square]] = pieceIndex < 0 ? ' ' : SYMBOLS[pieceIndex];
+        }
+
+        return new String(this.buffer);
+    }
+}
@@ -1,42 +1,51 @@
 package to.grindelf.circuitclash.visualization;
 
 import org.jetbrains.annotations.NotNull;
+import to.grindelf.circuitclash.domain.BoardStateRearranger;
 import to.grindelf.circuitclash.domain.Piece;
 import to.grindelf.circuitclash.domain.Position;
 
-import java.util.Map;
-
 /**
- * Class for visualizing chess board as text.
+ * Class for visualizing chess board as text. A {@link to.grindelf.circuitclash.domain.Chessboard}
+ * which is printed often is better visualized with a {@link BoardRenderer}, which gives the same text.
  */
 public class BoardVisualizer {
 
+    /**
+     * Line between rows of squares.
+     */
+    static final String ROW_SEPARATOR = "  +---+---+---+---+---+---+---+---+\n";
+    /**
+     * Line with file letters under the board.
+     */
+    static final String FILE_LABELS = "    a   b   c   d   e   f   g   h  ";
+
     /**
      * Visualizes a board as a string.
      *
-     * @param state is a current state of the board.
+     * @param board is a board to be visualized.
      * @return a string that represents the board.
      */
     @NotNull
-    public static String visualizeAsString(@NotNull Map<Position, Piece> state) {
+    public static String visualizeAsString(@NotNull BoardStateRearranger board) {
         StringBuilder stringBuilder = new StringBuilder();
-        stringBuilder.append("  +---+---+---+---+---+---+---+---+\n");
+        stringBuilder.append(ROW_SEPARATOR);
 
         for (int i = 7; i >= 0; i--) {
             stringBuilder.append(i + 1).append(" |");
             for (int j = 0; j < 8; j++) {
-                Position position = new Position(j, i);
-                Piece piece = state.get(position);
+                Position position = Position.of(j, i);
+                Piece piece = board.getPieceAt(position);
                 if (piece == null) {
                     stringBuilder.append("   |");
                 } else {
                     stringBuilder.append(" ").append(piece).append(" |");
                 }
             }
-            stringBuilder.append("\n  +---+---+---+---+---+---+---+---+\n");
+            stringBuilder.append("\n").append(ROW_SEPARATOR);
         }
 
-        stringBuilder.append("    a   b   c   d   e   f   g   h  ");
+        stringBuilder.append(FILE_LABELS);
 
         return stringBuilder.toString();
     }
@@ -0,0 +1,172 @@
+package to.grindelf.circuitclash.visualization;
+
+import javafx.geometry.Rectangle2D;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+import javafx.scene.image.PixelReader;
+import javafx.scene.image.PixelWriter;
+import javafx.scene.image.WritableImage;
+import org.jetbrains.annotations.NotNull;
+import to.grindelf.circuitclash.domain.PieceColor;
+import to.grindelf.circuitclash.domain.PieceType;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Locale;
+import java.util.function.Function;
+
+/**
+ * Texture atlas of piece images. All twelve images (white_king.png, black_pawn.png and so on)
+ * are read once from the root of the classpath and copied into one {@link WritableImage}:
+ * white pieces in the first row and black pieces in the second, in the order of
+ * {@link PieceType}, each in a square cell as large as the largest image. Views of pieces
+ * show a part of the atlas, so drawing a board neither reads files nor decodes images.
+ * <p>
+ * The atlas is loaded on the first call of {@link #getInstance()}; it can be used from any
+ * thread, but image views, like all nodes, belong to the JavaFX application thread once
+ * they are shown.
+ */
+public final class PieceImageAtlas {
+
+    private static final PieceType[] TYPES = PieceType.values();
+    private static final PieceColor[] COLORS = PieceColor.values();
+
+    private static PieceImageAtlas instance;
+
+    private final WritableImage atlas;
+    private final int cellSize;
+    /**
+     * Parts of the atlas with each piece, indexed by {@code color * 6 + type}.
+     */
+    private final Rectangle2D[] viewports = new Rectangle2D[TYPES.length * COLORS.length];
+
+    /**
+     * Builds an atlas of images.
+     *
+     * @param images is images of pieces, indexed by {@code color * 6 + type}.
+     */
+    private PieceImageAtlas(@NotNull Image[] images) {
+        int cellSize = 1;
+        for (Image image : images) {
+            cellSize = Math.max(cellSize, (int) Math.max(image.getWidth(), image.getHeight()));
+        }
+        this.cellSize = cellSize;
+        this.atlas = new WritableImage(cellSize * TYPES.length, cellSize * COLORS.length);
+
+        PixelWriter writer = this.atlas.getPixelWriter();
+        for (int i = 0; i < images.length; i++) {
+            int x = (i % TYPES.length) * cellSize;
+            int y = (i / TYPES.length) * cellSize;
+            PixelReader reader = images[i].getPixelReader();
+            writer.setPixels(x, y, (int) images[i].getWidth(), (int) images[i].getHeight(), reader, 0, 0);
+            this.viewports[i] = new Rectangle2D(x, y, cellSize, cellSize);
+        }
+    }
+
+    /**
+     * Returns the atlas of images from the classpath, loading it on the first call.
+     *
+     * @return the shared atlas.
+     * @throws IOException if an image is not found or cannot be decoded.
+     */
+    @NotNull
+    public static synchronized PieceImageAtlas getInstance() throws IOException {
+        if (instance == null) instance = load(PieceImageAtlas.class::getResourceAsStream);
+
+        return instance;
+    }
+
+    /**
+     * Loads piece images and builds an atlas of them.
+     *
+     * @param resources is a function which opens a resource by its absolute name, or returns
+     *                  null if there is no such resource.
+     * @return an atlas.
+     * @throws IOException if an image is not found or cannot be decoded.
+     */
+    @NotNull
+    static PieceImageAtlas load(@NotNull Function<String, InputStream> resources) throws IOException {
+        Image[] images = new Image[TYPES.length * COLORS.length];
+        for (int i = 0; i < images.length; i++) {
+            String name = resourceName(TYPES[i % TYPES.length], COLORS[i / TYPES.length]);
+            try (InputStream stream = resources.apply(name)) {
+                if (stream == null) throw new IOException("Piece image " + name + " is not found.");
+                images[i] = new Image(stream);
+            }
+            if (images[i].isError()) throw new IOException("Piece image " + name + " cannot be decoded.", images[i].getException());
+        }
+
+        return new PieceImageAtlas(images);
+    }
+
+    /**
+     * Returns the image with all pieces.
+     *
+     * @return the atlas image.
+     */
+    @NotNull
+    public Image getImage() {
+        return this.atlas;
+    }
+
+    /**
+     * Returns a size of the cell of each piece in the atlas.
+     *
+     * @return a width and height in pixels.
+     */
+    public int getCellSize() {
+        return this.cellSize;
+    }
+
+    /**
+     * Returns the part of the atlas with a piece.
+     *
+     * @param pieceType  is a type of the piece.
+     * @param pieceColor is a color of the piece.
+     * @return a rectangle in pixels of the atlas.
+     */
+    @NotNull
+    public Rectangle2D getViewport(@NotNull PieceType pieceType, @NotNull PieceColor pieceColor) {
+        return this.viewports[pieceColor.ordinal() * TYPES.length + pieceType.ordinal()];
+    }
+
+    /**
+     * Creates a view of a piece, ready to be added to a scene.
+     *
+     * @param pieceType  is a type of the piece.
+     * @param pieceColor is a color of the piece.
+     * @return a new image view.
+     */
+    @NotNull
+    public ImageView createImageView(@NotNull PieceType pieceType, @NotNull PieceColor pieceColor) {
+        ImageView view = new ImageView(this.atlas);
+        view.setViewport(getViewport(pieceType, pieceColor));
+
+        return view;
+    }
+
+    /**
+     * Makes an existing view show a piece, so that views of squares can be reused when a board
+     * is redrawn.
+     *
+     * @param view       is an image view.
+     * @param pieceType  is a type of the piece.
+     * @param pieceColor is a color of the piece.
+     */
+    public void show(@NotNull ImageView view, @NotNull PieceType pieceType, @NotNull PieceColor pieceColor) {
+        view.setImage(this.atlas);
+        view.setViewport(getViewport(pieceType, pieceColor));
+    }
+
+    /**
+     * Returns an absolute name of the resource with the image of a piece.
+     *
+     * @param pieceType  is a type of the piece.
+     * @param pieceColor is a color of the piece.
+     * @return a resource name, like /white_king.png.
+     */
+    @NotNull
+    static String resourceName(@NotNull PieceType pieceType, @NotNull PieceColor pieceColor) {
+        return "/" + pieceColor.name().toLowerCase(Locale.ROOT) + "_" + pieceType.name().toLowerCase(Locale.ROOT) + ".png";
+    }
+}
@@ -0,0 +1,92 @@
+package to.grindelf.circuitclash.domain;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+class AsyncLogWriterTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void givenAppendedTexts_whenFlushed_thenAllTextsAreWrittenInOrder() throws IOException {
+        Path file = this.directory.resolve("game.log");
+        StringBuilder expected = new StringBuilder();
+
+        try (AsyncLogWriter writer = new AsyncLogWriter(16, 1_000); AsyncLogWriter.LogFile log = writer.open(file)) {
+            for (int i = 0; i < 500; i++) {
+                String line = "Move " + i + "\n";
+                log.append(line);
+                expected.append(line);
+            }
+            log.flush();
+
+            assertThat(Files.readString(file)).isEqualTo(expected.toString());
+        }
+    }
+
+    @Test
+    void givenClosedWriter_whenAppended_thenExceptionIsThrown() throws IOException {
+        Path file = this.directory.resolve("game.log");
+        try (AsyncLogWriter writer = new AsyncLogWriter()) {
+            AsyncLogWriter.LogFile log = writer.open(file);
+            log.append("Last move\n");
+            log.close();
+
+            assertThat(Files.readString(file)).isEqualTo("Last move\n");
+            assertThatExceptionOfType(IOException.class)
+                    .isThrownBy(() -> log.append("Too late\n"))
+                    .withMessage("The log is closed.");
+        }
+    }
+
+    @Test
+    void givenManyFilesOfOneWriter_whenAppendedInTurns_thenEachFileGetsItsTexts() throws IOException {
+        AsyncLogWriter writer = new AsyncLogWriter(8, 1_000);
+        AsyncLogWriter.LogFile[] logs = new AsyncLogWriter.LogFile[20];
+        for (int i = 0; i < logs.length; i++) {
+            logs[i] = writer.open(this.directory.resolve("game_" + i + ".log"));
+        }
+
+        for (int move = 0; move < 50; move++) {
+            for (AsyncLogWriter.LogFile log : logs) {
+                log.append("Move " + move + "\n");
+            }
+        }
+        logs[0].close();
+        logs[1].append("Move 50\n");
+        writer.close();
+
+        StringBuilder moves = new StringBuilder();
+        for (int move = 0; move < 50; move++) {
+            moves.append("Move ").append(move).append('\n');
+        }
+        for (int i = 0; i < logs.length; i++) {
+            assertThat(Files.readString(this.directory.resolve("game_" + i + ".log")))
+                    .isEqualTo(i == 1 ? moves + "Move 50\n" : moves.toString());
+        }
+        assertThatExceptionOfType(IOException.class).isThrownBy(() -> logs[2].append("Too late\n"));
+    }
+
+    @Test
+    void givenUnwritableFile_whenFlushed_thenWriteErrorIsReported() throws IOException {
+        try (AsyncLogWriter writer = new AsyncLogWriter()) {
+            AsyncLogWriter.LogFile log = writer.open(this.directory.resolve("missing").resolve("game.log"));
+            AsyncLogWriter.LogFile other = writer.open(this.directory.resolve("game.log"));
+            log.append("Move\n");
+            other.append("Move\n");
+
+            assertThatExceptionOfType(IOException.class).isThrownBy(log::flush);
+            assertThatExceptionOfType(IOException.class).isThrownBy(log::close);
+            other.close();
+            assertThat(Files.readString(this.directory.resolve("game.log"))).isEqualTo("Move\n");
+        }
+    }
+}
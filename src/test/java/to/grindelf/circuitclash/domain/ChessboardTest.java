@@ -1,8 +1,14 @@
 package to.grindelf.circuitclash.domain;
 
 import org.junit.jupiter.api.Test;
+import to.grindelf.circuitclash.errors.FenFormatException;
+import to.grindelf.circuitclash.errors.WrongMoveException;
+import to.grindelf.circuitclash.utils.MoveGenerator;
+
+import java.util.Random;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
 import static to.grindelf.circuitclash.domain.PieceColor.BLACK;
 import static to.grindelf.circuitclash.domain.PieceColor.WHITE;
 
@@ -21,6 +27,148 @@ class ChessboardTest {
         System.out.println(chessboard);
     }
 
+    @Test
+    void givenChessboards_whenSameMovesPerformed_thenBitboardMatchesMap() throws WrongMoveException {
+        MapChessboard mapChessboard = new MapChessboard();
+        Move[] moves = {
+                new Move(new Position(4, 1), new Position(4, 3)),
+                new Move(new Position(3, 6), new Position(3, 4)),
+                new Move(new Position(4, 3), new Position(3, 4)),
+                new Move(new Position(3, 7), new Position(3, 4))
+        };
+
+        for (Move move : moves) {
+            assertThat(chessboard.movePiece(move)).isEqualTo(mapChessboard.movePiece(move));
+        }
+
+        for (int x = 0; x < 8; x++) {
+            for (int y = 0; y < 8; y++) {
+                Position position = new Position(x, y);
+                assertThat(chessboard.getPieceAt(position)).isEqualTo(mapChessboard.getPieceAt(position));
+            }
+        }
+        assertThat(Long.bitCount(chessboard.getOccupancy())).isEqualTo(30);
+        assertThat(chessboard.getPieces(PieceType.QUEEN, BLACK)).isEqualTo(1L << 35);
+        assertThat(chessboard.toString()).isEqualTo(mapChessboard.toString());
+
+        for (int i = 0; i < moves.length; i++) {
+            assertThat(chessboard.unmakeMove()).isEqualTo(mapChessboard.unmakeMove());
+        }
+        assertThat(chessboard.toString()).isEqualTo(mapChessboard.toString());
+        assertThat(chessboard.toString()).isEqualTo(new Chessboard().toString());
+    }
+
+    @Test
+    void givenTransposedMoveOrders_whenPlayed_thenZobristKeysAreEqual() throws WrongMoveException {
+        Chessboard transposed = new Chessboard();
+        long initialKey = chessboard.getZobristKey();
+
+        play(chessboard, "g1f3", "g8f6", "b1c3", "b8c6");
+        play(transposed, "b1c3", "b8c6", "g1f3", "g8f6");
+
+        assertThat(chessboard.getZobristKey()).isEqualTo(transposed.getZobristKey());
+        assertThat(chessboard.getZobristKey()).isNotEqualTo(initialKey);
+        assertThat(chessboard.getZobristKey()).isEqualTo(chessboard.computeZobristKey());
+    }
+
+    @Test
+    void givenCastlingAndEnPassant_whenPlayed_thenIncrementalKeyMatchesRecomputedKey() throws WrongMoveException {
+        play(chessboard, "e2e4", "d7d5", "e4e5", "f7f5", "e5f6", "g8h6", "g1f3", "e7e5", "f1c4", "b8c6", "e1g1");
+
+        assertThat(chessboard.getZobristKey()).isEqualTo(chessboard.computeZobristKey());
+        assertThat(new Chessboard(chessboard).getZobristKey()).isEqualTo(chessboard.getZobristKey());
+    }
+
+    @Test
+    void givenPlayedMoves_whenAllUnmade_thenInitialStateIsRestored() throws WrongMoveException {
+        Chessboard initial = new Chessboard();
+        String[] moves = {
+                "e2e4", "d7d5", "e4e5", "f7f5", "e5f6", "g8h6", "g1f3", "e7e5", "f1c4", "b8c6", "e1g1",
+                "h6g4", "h2h4", "g7g5", "h4g5", "h7h6", "g5h6", "a7a6", "h6h7", "a6a5", "h7h8"
+        };
+        play(chessboard, moves);
+        assertThat(chessboard.getPieceAt(Position.of(7, 7))).isEqualTo(new Queen(WHITE));
+
+        assertThat(chessboard.unmakeMove()).isEqualTo(new Pawn(WHITE));
+        for (int i = 1; i < moves.length; i++) {
+            chessboard.unmakeMove();
+            assertThat(chessboard.getZobristKey()).isEqualTo(chessboard.computeZobristKey());
+        }
+
+        assertThat(chessboard.getZobristKey()).isEqualTo(initial.getZobristKey());
+        assertThat(chessboard.getCastlingRights()).isEqualTo(Chessboard.ALL_CASTLING_RIGHTS);
+        assertThat(chessboard.getSideToMove()).isEqualTo(WHITE);
+        assertThat(chessboard.toString()).isEqualTo(initial.toString());
+    }
+
+    @Test
+    void givenAttackMaps_whenRandomGamesPlayedAndUnmade_thenMapsMatchRebuiltMaps() throws FenFormatException {
+        Random random = new Random(42);
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        for (String fen : new String[]{Fen.INITIAL_POSITION, "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1"}) {
+            Chessboard board = Fen.parse(fen);
+            board.enableAttackMaps();
+            for (int ply = 0; ply < 120; ply++) {
+                int count = MoveGenerator.generateLegalMoves(board, moves);
+                if (count == 0) break;
+                board.makeMove(moves[random.nextInt(count)]);
+                checkAttackMaps(board);
+            }
+            while (board.getUndoCount() > 0) {
+                board.undoMove();
+                checkAttackMaps(board);
+            }
+        }
+    }
+
+    @Test
+    void givenLongGame_whenMovesOnlyMade_thenUndoStackStaysBoundedAndRecentMovesCanBeUnmade() throws WrongMoveException {
+        Chessboard initial = new Chessboard();
+        for (int i = 0; i < 3 * Chessboard.MAX_UNDO_DEPTH; i++) {
+            play(chessboard, "g1f3", "g8f6", "f3g1", "f6g8");
+            assertThat(chessboard.getUndoCount()).isLessThanOrEqualTo(Chessboard.MAX_UNDO_DEPTH);
+        }
+
+        for (int i = 0; i < Chessboard.MAX_UNDO_DEPTH / 2; i++) {
+            chessboard.unmakeMove();
+        }
+        assertThat(chessboard.getZobristKey()).isEqualTo(initial.getZobristKey());
+        assertThat(chessboard.toString()).isEqualTo(initial.toString());
+    }
+
+    @Test
+    void givenNoMoves_whenUnmade_thenExceptionIsThrown() {
+        assertThatExceptionOfType(WrongMoveException.class)
+                .isThrownBy(chessboard::unmakeMove)
+                .withMessage("You can't take back a move, no moves were made.");
+        assertThatExceptionOfType(WrongMoveException.class)
+                .isThrownBy(new MapChessboard()::unmakeMove);
+    }
+
+    private void checkAttackMaps(Chessboard board) {
+        Chessboard rebuilt = new Chessboard(board);
+        rebuilt.disableAttackMaps();
+        AttackMaps expected = rebuilt.enableAttackMaps();
+        AttackMaps actual = board.getAttackMaps();
+        for (PieceColor color : PieceColor.values()) {
+            assertThat(actual.getAttackedSquares(color)).isEqualTo(expected.getAttackedSquares(color));
+            for (int square = 0; square < 64; square++) {
+                assertThat(actual.getAttackerCount(square, color))
+                        .isEqualTo(Long.bitCount(board.attackersOf(square, color, board.getOccupancy())));
+            }
+        }
+    }
+
+    private void play(Chessboard board, String... moves) throws WrongMoveException {
+        for (String move : moves) {
+            board.movePiece(new Move(
+                    Position.of(move.charAt(0) - 'a', move.charAt(1) - '1'),
+                    Position.of(move.charAt(2) - 'a', move.charAt(3) - '1')
+            ));
+            assertThat(board.getZobristKey()).isEqualTo(board.computeZobristKey());
+        }
+    }
+
     private void checkFigures(PieceColor color) {
         int rowNumber = color == WHITE ? 0 : 7;
         assertThat(chessboard.getPieceAt(new Position(0, rowNumber))).isEqualTo(new Rook(color));
@@ -0,0 +1,159 @@
+package to.grindelf.circuitclash.domain;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import to.grindelf.circuitclash.errors.FenFormatException;
+import to.grindelf.circuitclash.utils.MoveGenerator;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EndgameTableTest {
+
+    @TempDir
+    static Path directory;
+
+    @BeforeAll
+    static void generateTables() throws IOException {
+        EndgameTableGenerator generator = new EndgameTableGenerator(2);
+        generator.generate(directory, PieceType.QUEEN);
+        generator.generate(directory, PieceType.ROOK);
+        generator.generate(directory, PieceType.PAWN);
+    }
+
+    @Test
+    void givenGeneratedTables_whenOpened_thenSizesFollowSymmetry() throws IOException {
+        assertThat(Files.size(directory.resolve("KQK.cctb"))).isEqualTo(EndgameTable.HEADER_BYTES + 10 * 64 * 64 * 2 / 4);
+        assertThat(Files.size(directory.resolve("KPK.cctb"))).isEqualTo(EndgameTable.HEADER_BYTES + 32 * 64 * 64 * 2 / 4);
+        try (EndgameTable table = new EndgameTable(directory.resolve("KRK.cctb"))) {
+            assertThat(table.getName()).isEqualTo("KRK");
+        }
+    }
+
+    @Test
+    void givenKnownPositions_whenProbed_thenValuesAreCorrect() throws IOException, FenFormatException {
+        try (Tablebase tablebase = new Tablebase(directory)) {
+            assertThat(tablebase.probe(Fen.parse("7k/8/8/8/8/8/8/KQ6 w - - 0 1"))).isEqualTo(EndgameTable.WIN);
+            assertThat(tablebase.probe(Fen.parse("7k/8/8/8/8/8/8/KQ6 b - - 0 1"))).isEqualTo(EndgameTable.LOSS);
+            // the undefended queen is taken
+            assertThat(tablebase.probe(Fen.parse("8/8/8/8/8/2k5/1Q6/7K b - - 0 1"))).isEqualTo(EndgameTable.DRAW);
+            assertThat(tablebase.probe(Fen.parse("k7/8/1K6/8/8/8/8/7R w - - 0 1"))).isEqualTo(EndgameTable.WIN);
+            // the same position with colors swapped
+            assertThat(tablebase.probe(Fen.parse("7r/8/8/8/8/1k6/8/K7 b - - 0 1"))).isEqualTo(EndgameTable.WIN);
+            // stalemate, and a win with the opposition
+            assertThat(tablebase.probe(Fen.parse("4k3/4P3/4K3/8/8/8/8/8 b - - 0 1"))).isEqualTo(EndgameTable.DRAW);
+            assertThat(tablebase.probe(Fen.parse("4k3/4P3/4K3/8/8/8/8/8 w - - 0 1"))).isEqualTo(EndgameTable.WIN);
+            // a rook pawn can't be won against a king in front of it
+            assertThat(tablebase.probe(Fen.parse("k7/8/8/8/8/8/P7/7K w - - 0 1"))).isEqualTo(EndgameTable.DRAW);
+            assertThat(tablebase.probe(Fen.parse("8/8/8/8/8/8/8/K6k w - - 0 1"))).isEqualTo(EndgameTable.DRAW);
+            assertThat(tablebase.probe(Fen.parse("7k/8/8/8/8/8/8/KB6 w - - 0 1"))).isEqualTo(EndgameTable.UNKNOWN);
+        }
+    }
+
+    @Test
+    void givenFourPieceTable_whenKnownPositionsProbed_thenValuesAreCorrect(@TempDir Path kbnkDirectory)
+            throws IOException, FenFormatException {
+        // KBNK is built on the KBK and KNK tables, which it reaches by captures
+        new EndgameTableGenerator().generate(kbnkDirectory, PieceType.BISHOP, PieceType.KNIGHT);
+
+        try (Tablebase tablebase = new Tablebase(kbnkDirectory)) {
+            assertThat(tablebase.probe(Fen.parse("8/8/8/4k3/8/8/8/KBN5 w - - 0 1"))).isEqualTo(EndgameTable.WIN);
+            assertThat(tablebase.probe(Fen.parse("8/8/8/4k3/8/8/8/KBN5 b - - 0 1"))).isEqualTo(EndgameTable.LOSS);
+            // mate in the corner of the color of the bishop
+            assertThat(tablebase.probe(Fen.parse("7k/8/5BKN/8/8/8/8/8 b - - 0 1"))).isEqualTo(EndgameTable.LOSS);
+            // stalemate
+            assertThat(tablebase.probe(Fen.parse("7k/8/6K1/8/2B5/8/8/N7 b - - 0 1"))).isEqualTo(EndgameTable.DRAW);
+            // the undefended knight is taken, and a king and a bishop can't mate
+            assertThat(tablebase.probe(Fen.parse("B6K/8/8/8/3k4/2N5/8/8 b - - 0 1"))).isEqualTo(EndgameTable.DRAW);
+            // the same position with colors swapped and white to move
+            assertThat(tablebase.probe(Fen.parse("8/8/2n5/3K4/8/8/8/b6k w - - 0 1"))).isEqualTo(EndgameTable.DRAW);
+            assertThat(tablebase.probe(Fen.parse("8/8/8/8/8/2k5/8/K1b4n w - - 0 1"))).isEqualTo(EndgameTable.LOSS);
+        }
+    }
+
+    @Test
+    void givenRandomPositions_whenProbed_thenValuesAgreeWithMoves() throws IOException, FenFormatException {
+        Random random = new Random(3);
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        try (Tablebase tablebase = new Tablebase(directory)) {
+            for (int checked = 0; checked < 300; ) {
+                Chessboard chessboard = randomPosition(random);
+                if (chessboard == null) continue;
+                int value = tablebase.probe(chessboard);
+                int moveCount = MoveGenerator.generateLegalMoves(chessboard, moves);
+                if (moveCount == 0) continue;
+                checked++;
+
+                boolean anyLost = false;
+                boolean allWon = true;
+                for (int i = 0; i < moveCount; i++) {
+                    chessboard.makeMove(moves[i]);
+                    int next = tablebase.probe(chessboard);
+                    chessboard.undoMove();
+                    anyLost |= next == EndgameTable.LOSS;
+                    allWon &= next == EndgameTable.WIN;
+                }
+
+                if (anyLost) assertThat(value).isEqualTo(EndgameTable.WIN);
+                else if (allWon) assertThat(value).isEqualTo(EndgameTable.LOSS);
+                else assertThat(value).isEqualTo(EndgameTable.DRAW);
+            }
+        }
+    }
+
+    @Test
+    void givenTablebase_whenSearching_thenWinningMoveIsFound() throws IOException, FenFormatException {
+        try (Tablebase tablebase = new Tablebase(directory)) {
+            SearchEngine engine = new SearchEngine(new TranspositionTable(1));
+            engine.setTablebase(tablebase);
+            // the rook is attacked and has to be saved
+            SearchResult result = engine.search(Fen.parse("8/8/8/8/8/2k5/1R6/7K w - - 0 1"), SearchLimits.depth(2));
+
+            Chessboard afterMove = Fen.parse("8/8/8/8/8/2k5/1R6/7K w - - 0 1");
+            afterMove.makeMove(result.bestMove());
+            assertThat(tablebase.probe(afterMove)).isEqualTo(EndgameTable.LOSS);
+        }
+    }
+
+    private static Chessboard randomPosition(Random random) throws FenFormatException {
+        String pieces = new String[]{"Q", "R", "P"}[random.nextInt(3)];
+        char[] board = new char[64];
+        Arrays.fill(board, '.');
+        int[] squares = {random.nextInt(64), random.nextInt(64), random.nextInt(64)};
+        if (squares[0] == squares[1] || squares[1] == squares[2] || squares[0] == squares[2]) return null;
+        if (pieces.equals("P") && (squares[2] < 8 || squares[2] >= 56)) return null;
+        board[squares[0]] = 'K';
+        board[squares[1]] = 'k';
+        board[squares[2]] = pieces.charAt(0);
+
+        StringBuilder fen = new StringBuilder();
+        for (int row = 7; row >= 0; row--) {
+            int empty = 0;
+            for (int file = 0; file < 8; file++) {
+                char piece = board[row * 8 + file];
+                if (piece == '.') {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) fen.append(empty);
+                empty = 0;
+                fen.append(piece);
+            }
+            if (empty > 0) fen.append(empty);
+            if (row > 0) fen.append('/');
+        }
+        fen.append(random.nextBoolean() ? " w" : " b").append(" - - 0 1");
+
+        try {
+            return Fen.parse(fen);
+        } catch (FenFormatException exception) {
+            return null;
+        }
+    }
+}
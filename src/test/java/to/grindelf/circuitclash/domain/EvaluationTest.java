@@ -0,0 +1,79 @@
+package to.grindelf.circuitclash.domain;
+
+import org.junit.jupiter.api.Test;
+import to.grindelf.circuitclash.errors.FenFormatException;
+import to.grindelf.circuitclash.utils.MoveGenerator;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EvaluationTest {
+
+    @Test
+    void givenInitialPosition_whenEvaluated_thenScoreIsZero() {
+        Chessboard chessboard = new Chessboard();
+
+        assertThat(chessboard.getMiddlegameScore()).isZero();
+        assertThat(chessboard.getEndgameScore()).isZero();
+        assertThat(chessboard.getGamePhase()).isEqualTo(Evaluation.MAX_PHASE);
+        assertThat(Evaluation.evaluate(chessboard)).isZero();
+    }
+
+    @Test
+    void givenRandomGame_whenMovesMadeAndUndone_thenIncrementalScoresMatchScoresFromScratch() throws FenFormatException {
+        Chessboard chessboard = new Chessboard();
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        Random random = new Random(42);
+
+        for (int ply = 0; ply < 300; ply++) {
+            int moveCount = MoveGenerator.generateLegalMoves(chessboard, moves);
+            if (moveCount == 0) break;
+            chessboard.makeMove(moves[random.nextInt(moveCount)]);
+            assertScoresMatchFromScratch(chessboard);
+        }
+        while (chessboard.getUndoCount() > 0) {
+            chessboard.undoMove();
+        }
+
+        assertThat(chessboard.getMiddlegameScore()).isZero();
+        assertThat(chessboard.getEndgameScore()).isZero();
+        assertThat(chessboard.getGamePhase()).isEqualTo(Evaluation.MAX_PHASE);
+    }
+
+    @Test
+    void givenExtraQueen_whenEvaluated_thenScoreFavoursItsOwner() throws FenFormatException {
+        Chessboard whiteToMove = Fen.parse("rnb1kbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1");
+        Chessboard blackToMove = Fen.parse("rnb1kbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR b KQkq - 0 1");
+
+        assertThat(Evaluation.evaluate(whiteToMove)).isGreaterThan(800);
+        assertThat(Evaluation.evaluate(blackToMove)).isEqualTo(-Evaluation.evaluate(whiteToMove));
+    }
+
+    @Test
+    void givenMirroredPositions_whenEvaluated_thenScoresAreEqual() throws FenFormatException {
+        Chessboard position = Fen.parse("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        Chessboard mirrored = Fen.parse("r3k2r/pppbbppp/2n2q1P/1P2p3/3pn3/BN2PNP1/P1PPQPB1/R3K2R b KQkq - 0 1");
+
+        assertThat(Evaluation.evaluate(mirrored)).isEqualTo(Evaluation.evaluate(position));
+    }
+
+    @Test
+    void givenWindowFarFromScore_whenEvaluated_thenTaperedScoreIsReturned() throws FenFormatException {
+        Chessboard chessboard = Fen.parse("4k3/8/8/8/8/8/8/QQQQK3 w - - 0 1");
+        int phase = chessboard.getGamePhase();
+        int tapered = (chessboard.getMiddlegameScore() * phase + chessboard.getEndgameScore() * (Evaluation.MAX_PHASE - phase))
+                / Evaluation.MAX_PHASE;
+
+        assertThat(Evaluation.evaluate(chessboard, -100, 100)).isEqualTo(tapered);
+        assertThat(Evaluation.evaluate(chessboard)).isNotEqualTo(tapered);
+    }
+
+    private static void assertScoresMatchFromScratch(Chessboard chessboard) throws FenFormatException {
+        Chessboard fromScratch = Fen.parse(Fen.toString(chessboard));
+
+        assertThat(chessboard.getMiddlegameScore()).isEqualTo(fromScratch.getMiddlegameScore());
+        assertThat(chessboard.getEndgameScore()).isEqualTo(fromScratch.getEndgameScore());
+        assertThat(chessboard.getGamePhase()).isEqualTo(fromScratch.getGamePhase());
+    }
+}
@@ -0,0 +1,83 @@
+package to.grindelf.circuitclash.domain;
+
+import org.junit.jupiter.api.Test;
+import to.grindelf.circuitclash.errors.FenFormatException;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+class FenTest {
+
+    @Test
+    void givenInitialFen_whenParsed_thenBoardEqualsInitialBoard() throws FenFormatException {
+        Chessboard chessboard = Fen.parse(Fen.INITIAL_POSITION);
+
+        assertThat(chessboard.getZobristKey()).isEqualTo(new Chessboard().getZobristKey());
+        assertThat(Fen.toString(new Chessboard())).isEqualTo(Fen.INITIAL_POSITION);
+    }
+
+    @Test
+    void givenPlayedMoves_whenWritten_thenAllSixFieldsAreKept() throws FenFormatException {
+        Chessboard chessboard = new Chessboard();
+        for (int move : new int[]{
+                PackedMove.of(12, 28, PackedMove.DOUBLE_PAWN_PUSH),
+                PackedMove.of(62, 45, PackedMove.QUIET),
+                PackedMove.of(28, 36, PackedMove.QUIET),
+                PackedMove.of(51, 35, PackedMove.DOUBLE_PAWN_PUSH)
+        }) {
+            chessboard.makeMove(move);
+        }
+        String fen = "rnbqkb1r/ppp1pppp/5n2/3pP3/8/8/PPPP1PPP/RNBQKBNR w KQkq d6 0 3";
+
+        assertThat(Fen.toString(chessboard)).isEqualTo(fen);
+        Chessboard parsed = Fen.parse(fen);
+        assertThat(parsed.getZobristKey()).isEqualTo(chessboard.getZobristKey());
+        assertThat(parsed.getEnPassantSquare()).isEqualTo(43);
+        assertThat(parsed.getFullmoveNumber()).isEqualTo(3);
+
+        chessboard.undoMove();
+        assertThat(Fen.toString(chessboard)).isEqualTo("rnbqkb1r/pppppppp/5n2/4P3/8/8/PPPP1PPP/RNBQKBNR b KQkq - 0 2");
+    }
+
+    @Test
+    void givenBufferWithLines_whenParsed_thenPositionsAreReadOneByOne() throws FenFormatException {
+        String lines = "8/8/8/8/8/8/8/K6k w - - 12 40\r\n"
+                + "r3k2r/8/8/8/8/8/8/R3K2R b Kq -\n";
+        ByteBuffer buffer = ByteBuffer.wrap(lines.getBytes(StandardCharsets.US_ASCII));
+        Chessboard chessboard = new Chessboard();
+
+        Fen.parse(buffer, chessboard);
+        assertThat(chessboard.getHalfmoveClock()).isEqualTo(12);
+        assertThat(chessboard.getFullmoveNumber()).isEqualTo(40);
+        assertThat(chessboard.getUndoCount()).isZero();
+
+        Fen.parse(buffer, chessboard);
+        assertThat(buffer.hasRemaining()).isFalse();
+        assertThat(chessboard.getSideToMove()).isEqualTo(PieceColor.BLACK);
+        assertThat(chessboard.getCastlingRights()).isEqualTo(Chessboard.WHITE_KING_SIDE | Chessboard.BLACK_QUEEN_SIDE);
+
+        ByteBuffer output = ByteBuffer.allocate(90);
+        Fen.write(output, chessboard);
+        assertThat(new String(output.array(), 0, output.position(), StandardCharsets.US_ASCII))
+                .isEqualTo("r3k2r/8/8/8/8/8/8/R3K2R b Kq - 0 1");
+    }
+
+    @Test
+    void givenInvalidFen_whenParsed_thenExceptionIsThrown() {
+        assertThatExceptionOfType(FenFormatException.class)
+                .isThrownBy(() -> Fen.parse("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP w KQkq - 0 1"))
+                .withMessage("Piece placement does not have 8 full ranks.");
+        assertThatExceptionOfType(FenFormatException.class)
+                .isThrownBy(() -> Fen.parse("8/8/8/8/8/8/8/K6k x - - 0 1"))
+                .withMessage("Side to move must be w or b.");
+        assertThatExceptionOfType(FenFormatException.class)
+                .isThrownBy(() -> Fen.parse("8/8/8/8/8/8/8/K7 w - - 0 1"))
+                .withMessage("Each side must have exactly one king.");
+        assertThatExceptionOfType(FenFormatException.class)
+                .isThrownBy(() -> Fen.parse("k6R/8/8/8/8/8/8/K7 w - - 0 1"))
+                .withMessage("The side which is not to move is in check.");
+    }
+}
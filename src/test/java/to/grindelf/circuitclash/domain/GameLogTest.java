@@ -36,6 +36,7 @@ class GameLogTest {
         );
 
         System.out.println(gameLog);
+        gameLog.close();
     }
 
     private void stop(long time) {
@@ -1,9 +1,13 @@
 package to.grindelf.circuitclash.domain;
 
 import org.junit.jupiter.api.Test;
+import to.grindelf.circuitclash.errors.RulesViolationException;
 import to.grindelf.circuitclash.errors.WrongMoveException;
+import to.grindelf.circuitclash.metrics.Metrics;
+import to.grindelf.circuitclash.metrics.MetricsSnapshot;
 
 import java.io.IOException;
+import java.util.List;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 import static org.assertj.core.api.AssertionsForClassTypes.assertThatExceptionOfType;
@@ -14,6 +18,7 @@ class GameProcessorTest {
     private final Move moveTwo = new Move(new Position(6, 6), new Position(6, 5));
     private final Move moveThree = new Move(new Position(2, 0), new Position(0, 2));
     private final Move wrongMove = new Move(new Position(3, 0), new Position(3, 1));
+    private final Move illegalMove = new Move(new Position(1, 0), new Position(1, 2));
 
     @Test
     void givenGameProcessor_andMoves_whenMovesPerformed_thenMovesPerformedCorrectly() throws WrongMoveException, IOException {
@@ -39,4 +44,85 @@ class GameProcessorTest {
                 .isThrownBy(() -> gameProcessor.makeMove(wrongMove))
                 .withMessage("You can't move your piece on your piece.");
     }
-}
\ No newline at end of file
+
+    @Test
+    void givenGameProcessor_andIllegalMove_whenIllegalMovePerformed_thenRulesViolationIsThrown() {
+        assertThatExceptionOfType(RulesViolationException.class)
+                .isThrownBy(() -> gameProcessor.makeMove(illegalMove))
+                .withMessage("Move is not correct in accordance with the game rules.");
+    }
+
+    @Test
+    void givenGameProcessor_whenPositionRepeats_thenRepetitionsAreCounted() throws WrongMoveException, IOException {
+        long initialKey = gameProcessor.getPositionKey();
+        Move[] knightsOutAndBack = {
+                new Move(Position.of(6, 0), Position.of(5, 2)),
+                new Move(Position.of(6, 7), Position.of(5, 5)),
+                new Move(Position.of(5, 2), Position.of(6, 0)),
+                new Move(Position.of(5, 5), Position.of(6, 7))
+        };
+
+        assertThat(gameProcessor.countRepetitions()).isEqualTo(1);
+        for (Move move : knightsOutAndBack) {
+            gameProcessor.makeMove(move);
+        }
+
+        assertThat(gameProcessor.getPositionKey()).isEqualTo(initialKey);
+        assertThat(gameProcessor.countRepetitions()).isEqualTo(2);
+    }
+
+    @Test
+    void givenGameProcessor_andMovesBatch_whenMovesMade_thenAllMovesAreMade() throws IOException {
+        Move[] moves = {moveOne, moveTwo, moveThree};
+
+        assertThat(gameProcessor.makeMoves(moves)).isEqualTo(-1);
+        assertThat(gameProcessor.getChessboard().getPieceAt(new Position(0, 2))).isEqualTo(new Bishop(PieceColor.WHITE));
+        assertThat(gameProcessor.countRepetitions()).isEqualTo(1);
+    }
+
+    @Test
+    void givenGameProcessor_andMovesBatchWithIllegalMove_whenMovesMade_thenFirstFailingIndexIsReturned() throws IOException {
+        Move outsideTheBoard = new Move(new Position(0, 1), new Position(0, 8));
+
+        assertThat(gameProcessor.makeMoves(List.of(moveOne, moveTwo, illegalMove, moveThree))).isEqualTo(2);
+        assertThat(gameProcessor.getChessboard().getPieceAt(new Position(6, 5))).isEqualTo(new Pawn(PieceColor.BLACK));
+        assertThat(gameProcessor.getChessboard().getPieceAt(new Position(1, 2))).isNull();
+        assertThat(gameProcessor.makeMoves(List.of(moveThree, wrongMove))).isEqualTo(1);
+        assertThat(gameProcessor.makeMoves(List.of(outsideTheBoard))).isEqualTo(0);
+    }
+
+    @Test
+    void givenEnabledMetrics_whenMovesMade_thenLatenciesAndWrongMovesAreRecorded() throws WrongMoveException, IOException {
+        Metrics.reset();
+        Metrics.setEnabled(true);
+        try {
+            gameProcessor.makeMove(moveOne);
+            assertThat(gameProcessor.makeMoves(List.of(moveTwo, illegalMove))).isEqualTo(1);
+            assertThatExceptionOfType(WrongMoveException.class).isThrownBy(() -> gameProcessor.makeMove(wrongMove));
+
+            MetricsSnapshot snapshot = Metrics.snapshot();
+            assertThat(snapshot.moveValidation().count()).isEqualTo(2);
+            assertThat(snapshot.boardUpdate().count()).isEqualTo(2);
+            assertThat(snapshot.logWrite().count()).isEqualTo(2);
+            assertThat(snapshot.wrongMoves()).isEqualTo(2);
+        } finally {
+            Metrics.setEnabled(false);
+            Metrics.reset();
+        }
+    }
+
+    @Test
+    void givenPlayedMoves_whenReplayCreated_thenItSeeksToEveryPly() throws WrongMoveException, IOException {
+        gameProcessor.makeMove(moveOne);
+        gameProcessor.makeMove(moveTwo);
+        gameProcessor.makeMove(moveThree);
+
+        GameReplay replay = gameProcessor.createReplay(2);
+
+        assertThat(replay.getPlyCount()).isEqualTo(3);
+        assertThat(replay.seek(3).getZobristKey()).isEqualTo(gameProcessor.getPositionKey());
+        assertThat(replay.seek(1).getPieceAt(new Position(1, 3))).isEqualTo(new Pawn(PieceColor.WHITE));
+        assertThat(replay.seek(1).getPieceAt(new Position(6, 5))).isNull();
+        assertThat(replay.seek(0).getZobristKey()).isEqualTo(new Chessboard().getZobristKey());
+    }
+}
@@ -0,0 +1,85 @@
+package to.grindelf.circuitclash.domain;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+class GameRecordTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void givenWrittenGames_whenRead_thenMovesAndTimesAreRestored() throws IOException {
+        Path file = this.directory.resolve("games.ccgr");
+        int[] moves = {
+                PackedMove.of(12, 28, PackedMove.DOUBLE_PAWN_PUSH),
+                PackedMove.of(52, 36, PackedMove.DOUBLE_PAWN_PUSH),
+                PackedMove.of(6, 21, PackedMove.QUIET)
+        };
+        long[] timestamps = {1_700_000_000_000L, 1_700_000_001_500L, 1_700_000_004_000L};
+
+        try (GameRecordWriter writer = new GameRecordWriter(file)) {
+            writer.writeGame(moves, timestamps, 3);
+            writer.writeGame(new int[0], new long[0], 0);
+            writer.writeGame(moves, timestamps, 2);
+        }
+
+        assertThat(Files.size(file)).isEqualTo(8 + 3 * 12 + 5 * 6 + 3 * 8 + 16);
+        try (GameRecordReader reader = new GameRecordReader(file)) {
+            assertThat(reader.getGameCount()).isEqualTo(3);
+            assertThat(reader.getMoveCount(0)).isEqualTo(3);
+            assertThat(reader.getMoveCount(1)).isZero();
+            assertThat(reader.getMoveCount(2)).isEqualTo(2);
+            assertThat(reader.getMove(0, 2)).isEqualTo(moves[2]);
+            assertThat(reader.getTimestamp(0, 2)).isEqualTo(timestamps[2]);
+            assertThat(reader.getStartTime(2)).isEqualTo(timestamps[0]);
+
+            long[] visited = new long[3];
+            reader.forEachMove(0, (index, move, timestamp) -> {
+                assertThat(move).isEqualTo(moves[index]);
+                visited[index] = timestamp;
+            });
+            assertThat(visited).containsExactly(timestamps);
+
+            Chessboard chessboard = reader.replay(0, 3);
+            assertThat(chessboard.getPieceAt(Position.of(5, 2)).getType()).isEqualTo(PieceType.KNIGHT);
+            assertThatExceptionOfType(IndexOutOfBoundsException.class).isThrownBy(() -> reader.getMove(2, 2));
+        }
+    }
+
+    @Test
+    void givenGameLog_whenWritten_thenMovesArePacked() throws IOException {
+        Path file = this.directory.resolve("log.ccgr");
+        GameLog gameLog = new GameLog(this.directory.resolve("game.log").toFile(), AsyncLogWriter.DEFAULT_FLUSH_INTERVAL_MILLIS);
+        gameLog.update(new Move(Position.of(4, 1), Position.of(4, 3)), Piece.of(PieceType.PAWN, PieceColor.WHITE));
+        gameLog.update(new Move(Position.of(3, 6), Position.of(3, 4)), Piece.of(PieceType.PAWN, PieceColor.BLACK));
+        gameLog.update(new Move(Position.of(4, 3), Position.of(3, 4)), Piece.of(PieceType.PAWN, PieceColor.WHITE));
+        gameLog.close();
+
+        try (GameRecordWriter writer = new GameRecordWriter(file)) {
+            writer.writeGame(gameLog);
+        }
+
+        try (GameRecordReader reader = new GameRecordReader(file)) {
+            assertThat(reader.getMove(0, 0)).isEqualTo(PackedMove.of(12, 28, PackedMove.DOUBLE_PAWN_PUSH));
+            assertThat(reader.getMove(0, 2)).isEqualTo(PackedMove.of(28, 35, PackedMove.CAPTURE));
+        }
+    }
+
+    @Test
+    void givenOtherFile_whenOpened_thenExceptionIsThrown() throws IOException {
+        Path file = this.directory.resolve("other.txt");
+        Files.writeString(file, "Moved white pawn from e2 to e4 at 12:03:11.\n");
+
+        assertThatExceptionOfType(IOException.class)
+                .isThrownBy(() -> new GameRecordReader(file))
+                .withMessage("Not a game record file.");
+    }
+}
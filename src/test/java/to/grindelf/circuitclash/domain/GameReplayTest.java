@@ -0,0 +1,93 @@
+package to.grindelf.circuitclash.domain;
+
+import org.junit.jupiter.api.Test;
+import to.grindelf.circuitclash.errors.FenFormatException;
+import to.grindelf.circuitclash.utils.MoveGenerator;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+class GameReplayTest {
+
+    @Test
+    void givenRandomGames_whenSeekingToRandomPlies_thenPositionsMatchPlayedOnes() throws FenFormatException {
+        Random random = new Random(11);
+        for (String fen : new String[]{Fen.INITIAL_POSITION, "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1"}) {
+            Chessboard start = Fen.parse(fen);
+            int[] moves = new int[300];
+            String[] positions = new String[moves.length + 1];
+            long[] keys = new long[moves.length + 1];
+            int[] scores = new int[moves.length + 1];
+
+            Chessboard chessboard = new Chessboard(start);
+            int[] legalMoves = new int[MoveGenerator.MAX_MOVES];
+            int plies = 0;
+            positions[0] = Fen.toString(chessboard);
+            keys[0] = chessboard.getZobristKey();
+            scores[0] = chessboard.getMiddlegameScore();
+            for (int moveCount; plies < moves.length && (moveCount = MoveGenerator.generateLegalMoves(chessboard, legalMoves)) > 0; ) {
+                moves[plies] = legalMoves[random.nextInt(moveCount)];
+                chessboard.makeMove(moves[plies++]);
+                positions[plies] = Fen.toString(chessboard);
+                keys[plies] = chessboard.getZobristKey();
+                scores[plies] = chessboard.getMiddlegameScore();
+            }
+
+            GameReplay replay = new GameReplay(start, moves, plies, 8);
+            assertThat(replay.getPlyCount()).isEqualTo(plies);
+            assertThat(replay.getPly()).isZero();
+            for (int i = 0; i < 500; i++) {
+                int ply = random.nextInt(plies + 1);
+                boolean far = Math.abs(ply - replay.getPly()) >= replay.getSnapshotInterval();
+                Chessboard position = replay.seek(ply);
+
+                assertThat(replay.getPly()).isEqualTo(ply);
+                assertThat(Fen.toString(position)).isEqualTo(positions[ply]);
+                assertThat(position.getZobristKey()).isEqualTo(keys[ply]);
+                assertThat(position.getMiddlegameScore()).isEqualTo(scores[ply]);
+                // a far seek restores the nearest snapshot and makes only the moves after it
+                if (far) assertThat(position.getUndoCount()).isEqualTo(ply % replay.getSnapshotInterval());
+            }
+            assertThat(Fen.toString(start)).isEqualTo(fen);
+        }
+    }
+
+    @Test
+    void givenReplay_whenSteppedThroughTheGame_thenEveryPlyIsVisited() {
+        int[] moves = {
+                PackedMove.of(12, 28, PackedMove.DOUBLE_PAWN_PUSH),
+                PackedMove.of(52, 36, PackedMove.DOUBLE_PAWN_PUSH),
+                PackedMove.of(6, 21, PackedMove.QUIET),
+                PackedMove.of(57, 42, PackedMove.QUIET),
+                PackedMove.of(5, 33, PackedMove.QUIET)
+        };
+        GameReplay replay = new GameReplay(moves);
+        Chessboard chessboard = new Chessboard();
+
+        for (int ply = 0; ply < moves.length; ply++) {
+            assertThat(replay.next().getZobristKey()).isNotEqualTo(chessboard.getZobristKey());
+            chessboard.makeMove(replay.getMove(ply));
+            assertThat(replay.getBoard().getZobristKey()).isEqualTo(chessboard.getZobristKey());
+        }
+        assertThat(replay.next().getZobristKey()).isEqualTo(chessboard.getZobristKey());
+
+        for (int ply = moves.length; ply > 0; ply--) {
+            chessboard.undoMove();
+            assertThat(replay.previous().getZobristKey()).isEqualTo(chessboard.getZobristKey());
+        }
+        assertThat(replay.getPly()).isZero();
+        assertThat(replay.previous().getZobristKey()).isEqualTo(new Chessboard().getZobristKey());
+    }
+
+    @Test
+    void givenPlyOutOfRange_whenSeeking_thenExceptionIsThrown() {
+        GameReplay replay = new GameReplay(new int[]{PackedMove.of(12, 28, PackedMove.DOUBLE_PAWN_PUSH)});
+
+        assertThatExceptionOfType(IndexOutOfBoundsException.class).isThrownBy(() -> replay.seek(2));
+        assertThatExceptionOfType(IndexOutOfBoundsException.class).isThrownBy(() -> replay.seek(-1));
+        assertThatExceptionOfType(IllegalArgumentException.class)
+                .isThrownBy(() -> new GameReplay(new Chessboard(), new int[0], 0, 0));
+    }
+}
@@ -0,0 +1,212 @@
+package to.grindelf.circuitclash.domain;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import to.grindelf.circuitclash.errors.RulesViolationException;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+class GameSessionHostTest {
+
+    @TempDir
+    Path directory;
+
+    private static final Move[] KNIGHTS_OUT_AND_BACK = {
+            new Move(Position.of(6, 0), Position.of(5, 2)),
+            new Move(Position.of(6, 7), Position.of(5, 5)),
+            new Move(Position.of(5, 2), Position.of(6, 0)),
+            new Move(Position.of(5, 5), Position.of(6, 7))
+    };
+
+    @Test
+    void givenManyGames_whenMovesSubmittedConcurrently_thenEachGameAppliesItsMovesInOrder() throws Exception {
+        try (GameSessionHost host = new GameSessionHost()) {
+            long[] gameIds = new long[500];
+            for (int i = 0; i < gameIds.length; i++) {
+                gameIds[i] = host.createGame("White " + i, "Black " + i);
+            }
+
+            ExecutorService clients = Executors.newFixedThreadPool(8);
+            List<CompletableFuture<Void>> moves = new ArrayList<>();
+            List<java.util.concurrent.Future<?>> submissions = new ArrayList<>();
+            for (long gameId : gameIds) {
+                submissions.add(clients.submit(() -> {
+                    for (Move move : KNIGHTS_OUT_AND_BACK) {
+                        synchronized (moves) {
+                            moves.add(host.makeMove(gameId, move));
+                        }
+                    }
+                }));
+            }
+            for (java.util.concurrent.Future<?> submission : submissions) {
+                submission.get();
+            }
+            clients.shutdown();
+            CompletableFuture.allOf(moves.toArray(new CompletableFuture[0])).join();
+
+            long initialKey = new Chessboard().getZobristKey();
+            for (long gameId : gameIds) {
+                assertThat(host.getPositionKey(gameId).join()).isEqualTo(initialKey);
+            }
+            assertThat(host.getGameCount()).isEqualTo(gameIds.length);
+        }
+    }
+
+    @Test
+    void givenIllegalMove_whenSubmitted_thenFutureFailsAndGameGoesOn() {
+        try (GameSessionHost host = new GameSessionHost()) {
+            long gameId = host.createGame("Alice", "Bob");
+
+            CompletableFuture<Void> illegal = host.makeMove(gameId, new Move(Position.of(1, 0), Position.of(1, 2)));
+            CompletableFuture<Void> legal = host.makeMove(gameId, new Move(Position.of(4, 1), Position.of(4, 3)));
+
+            assertThatExceptionOfType(CompletionException.class)
+                    .isThrownBy(illegal::join)
+                    .withCauseInstanceOf(RulesViolationException.class);
+            legal.join();
+        }
+    }
+
+    @Test
+    void givenEndedGame_whenMoveSubmitted_thenFutureFails() {
+        try (GameSessionHost host = new GameSessionHost()) {
+            long gameId = host.createGame("Alice", "Bob");
+            host.endGame(gameId).join();
+
+            assertThat(host.hasGame(gameId)).isFalse();
+            assertThatExceptionOfType(CompletionException.class)
+                    .isThrownBy(() -> host.makeMove(gameId, KNIGHTS_OUT_AND_BACK[0]).join())
+                    .withCauseInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    @Test
+    void givenManyLoggedGames_whenMovesMade_thenOneWriterThreadWritesAllLogs() throws Exception {
+        long writersBefore = countLogWriterThreads();
+        try (GameSessionHost host = new GameSessionHost(this.directory)) {
+            long[] gameIds = new long[100];
+            for (int i = 0; i < gameIds.length; i++) {
+                gameIds[i] = host.createGame("White " + i, "Black " + i);
+                host.makeMove(gameIds[i], KNIGHTS_OUT_AND_BACK[0]);
+            }
+            for (long gameId : gameIds) {
+                host.endGame(gameId).join();
+            }
+
+            assertThat(countLogWriterThreads()).isLessThanOrEqualTo(writersBefore + 1);
+            for (long gameId : gameIds) {
+                assertThat(Files.readString(this.directory.resolve("game_" + gameId + ".log"))).startsWith("-- Game log");
+            }
+        }
+    }
+
+    @Test
+    void givenQueuedTasks_whenHostClosed_thenTheirFuturesFail() throws Exception {
+        GameSessionHost host = new GameSessionHost();
+        long gameId = host.createGame("Alice", "Bob");
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch blocked = new CountDownLatch(1);
+        CompletableFuture<Object> running = host.submit(gameId, gameProcessor -> {
+            started.countDown();
+            blocked.await();
+            return null;
+        });
+        List<CompletableFuture<Void>> queued = new ArrayList<>();
+        for (Move move : KNIGHTS_OUT_AND_BACK) {
+            queued.add(host.makeMove(gameId, move));
+        }
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        host.close();
+
+        assertThatExceptionOfType(CompletionException.class)
+                .isThrownBy(() -> running.orTimeout(5, TimeUnit.SECONDS).join())
+                .withCauseInstanceOf(InterruptedException.class);
+        for (CompletableFuture<Void> future : queued) {
+            assertThatExceptionOfType(CompletionException.class)
+                    .isThrownBy(() -> future.orTimeout(5, TimeUnit.SECONDS).join())
+                    .withCauseInstanceOf(RejectedExecutionException.class);
+        }
+        assertThatExceptionOfType(CompletionException.class)
+                .isThrownBy(() -> host.makeMove(gameId, KNIGHTS_OUT_AND_BACK[0]).join())
+                .withCauseInstanceOf(RejectedExecutionException.class);
+    }
+
+    @Test
+    void givenGamesSearchingMoves_whenHostClosed_thenOneSearchServedThemAndItsThreadsStop() throws Exception {
+        String threads = System.setProperty(ParallelSearch.THREADS_PROPERTY, "3");
+        try {
+            long helpersBefore = countSearchHelperThreads();
+            GameSessionHost host = new GameSessionHost();
+            for (int i = 0; i < 4; i++) {
+                long gameId = host.createGame("White " + i, "Black " + i);
+                assertThat(host.findBestMove(gameId, 2_000, 0).join()).isNotNull();
+            }
+            host.endGame(1).join();
+
+            assertThat(countSearchHelperThreads()).isEqualTo(helpersBefore + 2);
+            host.close();
+            assertThat(awaitSearchHelperThreads(helpersBefore)).isEqualTo(helpersBefore);
+        } finally {
+            restoreThreadsProperty(threads);
+        }
+    }
+
+    @Test
+    void givenGameWithItsOwnSearch_whenClosed_thenSearchThreadsStop() throws Exception {
+        String threads = System.setProperty(ParallelSearch.THREADS_PROPERTY, "3");
+        try {
+            long helpersBefore = countSearchHelperThreads();
+            GameProcessor gameProcessor = new GameProcessor();
+            assertThat(gameProcessor.findBestMove(2_000, 0)).isNotNull();
+
+            assertThat(countSearchHelperThreads()).isEqualTo(helpersBefore + 2);
+            gameProcessor.close();
+            assertThat(awaitSearchHelperThreads(helpersBefore)).isEqualTo(helpersBefore);
+        } finally {
+            restoreThreadsProperty(threads);
+        }
+    }
+
+    private static void restoreThreadsProperty(String threads) {
+        if (threads == null) System.clearProperty(ParallelSearch.THREADS_PROPERTY);
+        else System.setProperty(ParallelSearch.THREADS_PROPERTY, threads);
+    }
+
+    /**
+     * Waits up to 5 seconds until no more than a number of search helper threads are alive.
+     */
+    private static long awaitSearchHelperThreads(long expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (countSearchHelperThreads() > expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        return countSearchHelperThreads();
+    }
+
+    private static long countSearchHelperThreads() {
+        return Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> thread.getName().equals("search-helper") && thread.isAlive())
+                .count();
+    }
+
+    private static long countLogWriterThreads() {
+        return Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> thread.getName().equals("game-log-writer"))
+                .count();
+    }
+}
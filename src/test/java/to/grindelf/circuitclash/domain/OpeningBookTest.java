@@ -0,0 +1,171 @@
+package to.grindelf.circuitclash.domain;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import to.grindelf.circuitclash.errors.FenFormatException;
+import to.grindelf.circuitclash.utils.MoveGenerator;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+class OpeningBookTest {
+
+    private static final int E2E4 = PackedMove.of(12, 28, PackedMove.DOUBLE_PAWN_PUSH);
+    private static final int D2D4 = PackedMove.of(11, 27, PackedMove.DOUBLE_PAWN_PUSH);
+    private static final int E7E5 = PackedMove.of(52, 36, PackedMove.DOUBLE_PAWN_PUSH);
+    private static final int C7C5 = PackedMove.of(50, 34, PackedMove.DOUBLE_PAWN_PUSH);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void givenBookOfGames_whenInitialPositionLookedUp_thenMovesWithMergedWeightsAreFound() throws IOException {
+        Path file = this.directory.resolve("book.bin");
+        OpeningBookWriter writer = new OpeningBookWriter();
+        writer.addGame(new int[]{E2E4, E7E5}, 2, 1);
+        writer.addGame(new int[]{E2E4, C7C5}, 2, 1);
+        writer.addGame(new int[]{D2D4}, 1, 1);
+        writer.write(file);
+
+        assertThat(Files.size(file)).isEqualTo(4L * OpeningBook.ENTRY_BYTES);
+        try (OpeningBook book = new OpeningBook(file)) {
+            int[] moves = new int[8];
+            int[] weights = new int[8];
+            int count = book.getMoves(new Chessboard(), moves, weights);
+
+            assertThat(count).isEqualTo(2);
+            for (int i = 0; i < count; i++) {
+                assertThat(moves[i]).isIn(E2E4, D2D4);
+                assertThat(weights[i]).isEqualTo(moves[i] == E2E4 ? 2 : 1);
+            }
+
+            Chessboard afterE4 = new Chessboard();
+            afterE4.makeMove(E2E4);
+            assertThat(book.getMoves(afterE4, moves, weights)).isEqualTo(2);
+            afterE4.makeMove(E7E5);
+            assertThat(book.selectMove(afterE4, new Random())).isEqualTo(PackedMove.NONE);
+        }
+    }
+
+    @Test
+    void givenWeightedMoves_whenSelectedManyTimes_thenFrequenciesFollowWeights() throws IOException {
+        Path file = this.directory.resolve("book.bin");
+        OpeningBookWriter writer = new OpeningBookWriter();
+        Chessboard chessboard = new Chessboard();
+        writer.add(chessboard, E2E4, 3);
+        writer.add(chessboard, D2D4, 1);
+        writer.add(chessboard, PackedMove.of(6, 21, PackedMove.QUIET), 0);
+        writer.write(file);
+
+        try (OpeningBook book = new OpeningBook(file)) {
+            Random random = new Random(7);
+            int e4Count = 0;
+            for (int i = 0; i < 4000; i++) {
+                int move = book.selectMove(chessboard, random);
+                assertThat(move).isIn(E2E4, D2D4);
+                if (move == E2E4) e4Count++;
+            }
+
+            assertThat(e4Count).isBetween(2800, 3200);
+        }
+    }
+
+    @Test
+    void givenCastlingAndPromotion_whenStored_thenDecodedToTheSameMoves() throws IOException, FenFormatException {
+        Path file = this.directory.resolve("book.bin");
+        Chessboard castling = Fen.parse("r3k2r/8/8/8/8/8/8/R3K2R w KQkq - 0 1");
+        Chessboard promotion = Fen.parse("8/1P5k/8/8/8/8/8/K7 w - - 0 1");
+        int kingCastle = PackedMove.of(4, 6, PackedMove.KING_CASTLE);
+        int queenCastle = PackedMove.of(4, 2, PackedMove.QUEEN_CASTLE);
+        int knightPromotion = PackedMove.promotion(49, 57, PieceType.KNIGHT, false);
+        OpeningBookWriter writer = new OpeningBookWriter();
+        writer.add(castling, kingCastle, 1);
+        writer.add(castling, queenCastle, 1);
+        writer.add(promotion, knightPromotion, 1);
+        writer.write(file);
+
+        assertThat(OpeningBook.encodeMove(kingCastle)).isEqualTo(7 | 4 << 6);
+        try (OpeningBook book = new OpeningBook(file)) {
+            int[] moves = new int[8];
+            int[] weights = new int[8];
+
+            assertThat(book.getMoves(castling, moves, weights)).isEqualTo(2);
+            assertThat(new int[]{moves[0], moves[1]}).containsExactlyInAnyOrder(kingCastle, queenCastle);
+            assertThat(book.selectMove(promotion, new Random())).isEqualTo(knightPromotion);
+        }
+    }
+
+    @Test
+    void givenManyPositions_whenLookedUp_thenEveryPositionIsFound() throws IOException {
+        Path file = this.directory.resolve("book.bin");
+        OpeningBookWriter writer = new OpeningBookWriter();
+        Random random = new Random(1);
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int[][] games = new int[200][];
+        for (int i = 0; i < games.length; i++) {
+            Chessboard chessboard = new Chessboard();
+            int[] game = new int[12];
+            int plies = 0;
+            for (int moveCount; plies < game.length && (moveCount = MoveGenerator.generateLegalMoves(chessboard, moves)) > 0; plies++) {
+                game[plies] = moves[random.nextInt(moveCount)];
+                chessboard.makeMove(game[plies]);
+            }
+            games[i] = Arrays.copyOf(game, plies);
+            writer.addGame(games[i], plies, 1);
+        }
+        writer.write(file);
+
+        try (OpeningBook book = new OpeningBook(file)) {
+            for (int[] game : games) {
+                Chessboard chessboard = new Chessboard();
+                for (int move : game) {
+                    int[] bookMoves = new int[MoveGenerator.MAX_MOVES];
+                    int count = book.getMoves(chessboard, bookMoves, new int[MoveGenerator.MAX_MOVES]);
+                    assertThat(Arrays.copyOf(bookMoves, count)).contains(move);
+                    chessboard.makeMove(move);
+                }
+            }
+        }
+    }
+
+    @Test
+    void givenBookWithPolyglotKeys_whenLookedUp_thenPositionsAreFoundByPolyglotKeys() throws IOException {
+        Path file = this.directory.resolve("book.bin");
+        long[] random64 = new long[PolyglotKey.TABLE_SIZE];
+        Random random = new Random(781);
+        Arrays.setAll(random64, i -> random.nextLong());
+        PolyglotKey polyglotKey = new PolyglotKey(random64);
+        OpeningBookWriter writer = new OpeningBookWriter(polyglotKey);
+        writer.addGame(new int[]{E2E4, E7E5}, 2, 1);
+        writer.write(file);
+
+        ByteBuffer firstEntry = ByteBuffer.wrap(Files.readAllBytes(file));
+        Chessboard chessboard = new Chessboard();
+        assertThat(new long[]{firstEntry.getLong(0), firstEntry.getLong(OpeningBook.ENTRY_BYTES)})
+                .contains(polyglotKey.compute(chessboard));
+        try (OpeningBook book = new OpeningBook(file, polyglotKey);
+             OpeningBook zobristBook = new OpeningBook(file)) {
+            assertThat(book.selectMove(chessboard, random)).isEqualTo(E2E4);
+            assertThat(zobristBook.selectMove(chessboard, random)).isEqualTo(PackedMove.NONE);
+            chessboard.makeMove(E2E4);
+            assertThat(book.selectMove(chessboard, random)).isEqualTo(E7E5);
+        }
+    }
+
+    @Test
+    void givenFileOfWrongSize_whenOpened_thenExceptionIsThrown() throws IOException {
+        Path file = this.directory.resolve("book.bin");
+        Files.write(file, new byte[17]);
+
+        assertThatExceptionOfType(IOException.class)
+                .isThrownBy(() -> new OpeningBook(file))
+                .withMessage("Not an opening book file.");
+    }
+}
@@ -0,0 +1,54 @@
+package to.grindelf.circuitclash.domain;
+
+import org.junit.jupiter.api.Test;
+import to.grindelf.circuitclash.errors.WrongMoveException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ParallelSearchTest {
+
+    @Test
+    void givenMateInOne_whenSearchedWithFourThreads_thenMateIsFound() throws WrongMoveException {
+        Chessboard chessboard = new Chessboard();
+        for (String move : new String[]{"e2e4", "e7e5", "f1c4", "b8c6", "d1h5", "g8f6"}) {
+            chessboard.makeMove(chessboard.encodeMove(new Move(
+                    Position.of(move.charAt(0) - 'a', move.charAt(1) - '1'),
+                    Position.of(move.charAt(2) - 'a', move.charAt(3) - '1')
+            )));
+        }
+
+        try (ParallelSearch parallelSearch = new ParallelSearch(new TranspositionTable(4), 4)) {
+            SearchResult result = parallelSearch.search(chessboard, SearchLimits.depth(3));
+
+            assertThat(PackedMove.toString(result.bestMove())).isEqualTo("h5f7");
+            assertThat(result.score()).isEqualTo(SearchEngine.MATE - 1);
+        }
+    }
+
+    @Test
+    void givenSeveralThreads_whenSearched_thenNodesOfAllThreadsAreCombined() {
+        try (ParallelSearch parallelSearch = new ParallelSearch(new TranspositionTable(4), 3)) {
+            SearchResult result = parallelSearch.search(new Chessboard(), SearchLimits.depth(5));
+            SearchResult[] threadResults = parallelSearch.getThreadResults();
+
+            assertThat(threadResults).hasSize(3);
+            long threadNodes = 0;
+            for (SearchResult threadResult : threadResults) {
+                threadNodes += threadResult.nodes();
+            }
+            assertThat(result.nodes()).isEqualTo(threadNodes);
+            assertThat(result.depth()).isGreaterThanOrEqualTo(5);
+            assertThat(result.bestMove()).isNotEqualTo(PackedMove.NONE);
+        }
+    }
+
+    @Test
+    void givenThreadsProperty_whenConfiguredThreadsRead_thenPropertyIsUsed() {
+        System.setProperty(ParallelSearch.THREADS_PROPERTY, "3");
+        try {
+            assertThat(ParallelSearch.configuredThreads()).isEqualTo(3);
+        } finally {
+            System.clearProperty(ParallelSearch.THREADS_PROPERTY);
+        }
+    }
+}
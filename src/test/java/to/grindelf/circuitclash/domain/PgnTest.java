@@ -0,0 +1,212 @@
+package to.grindelf.circuitclash.domain;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import to.grindelf.circuitclash.errors.FenFormatException;
+import to.grindelf.circuitclash.errors.PgnFormatException;
+import to.grindelf.circuitclash.errors.WrongMoveException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+class PgnTest {
+
+    private static final String OPERA_GAME = """
+            [Event "Paris"]
+            [Site "Paris FRA"]
+            [Date "1858.??.??"]
+            [Round "?"]
+            [White "Paul Morphy"]
+            [Black "Duke Karl / Count Isouard"]
+            [Result "1-0"]
+
+            1. e4 e5 2. Nf3 d6 3. d4 Bg4 {This is a weak move already.} 4. dxe5 Bxf3 5. Qxf3 dxe5
+            6. Bc4 Nf6 7. Qb3 Qe7 8. Nc3 c6 9. Bg5 b5 $6 10. Nxb5 cxb5 11. Bxb5+ Nbd7 12. O-O-O Rd8
+            13. Rxd7 Rxd7 (13... Nxd7 14. Qb8+) 14. Rd1 Qe6 15. Bxd7+ Nxd7 16. Qb8+ Nxb8 17. Rd8# 1-0
+            """;
+
+    private static final String PROMOTION_GAME = """
+            [Event "Promotion"]
+
+            1.e4 f5 2.exf5 g6 3.fxg6 Nf6 4.gxh7 Rg8 5.hxg8=Q *
+            """;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void givenPgnText_whenRead_thenGamesAreParsed() throws IOException {
+        PgnReader reader = new PgnReader(channelOf(OPERA_GAME + "\n" + PROMOTION_GAME));
+
+        PgnGame opera = reader.nextGame();
+        assertThat(opera.getTag("White")).isEqualTo("Paul Morphy");
+        assertThat(opera.moves()).hasSize(33);
+        assertThat(opera.result()).isEqualTo(PgnGame.WHITE_WINS);
+        Chessboard finalPosition = opera.replay(33);
+        assertThat(finalPosition.isInCheck(PieceColor.BLACK)).isTrue();
+        assertThat(finalPosition.getPieceAt(Position.of(3, 7)).getType()).isEqualTo(PieceType.ROOK);
+
+        PgnGame promotion = reader.nextGame();
+        assertThat(promotion.moves()).hasSize(9);
+        assertThat(PackedMove.promotionType(promotion.moves()[8])).isEqualTo(PieceType.QUEEN);
+        assertThat(promotion.result()).isEqualTo(PgnGame.UNFINISHED);
+        assertThat(reader.nextGame()).isNull();
+    }
+
+    @Test
+    void givenManyGames_whenReadInParallel_thenOrderIsKept() throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 50; i++) {
+            text.append(i % 2 == 0 ? OPERA_GAME : PROMOTION_GAME).append('\n');
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        try {
+            List<PgnGame> games = PgnReader.readAll(channelOf(text.toString()), executor);
+
+            assertThat(games).hasSize(50);
+            for (int i = 0; i < games.size(); i++) {
+                assertThat(games.get(i).moves()).hasSize(i % 2 == 0 ? 33 : 9);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void givenFileLargerThanChunk_whenRead_thenGamesAcrossChunkBoundariesAreParsed() throws IOException {
+        int chunkBytes = 64 * 1024;
+        StringBuilder text = new StringBuilder();
+        int games = 0;
+        while (text.length() + OPERA_GAME.length() < chunkBytes - 100) {
+            text.append(OPERA_GAME).append('\n');
+            games++;
+        }
+        // the text so far is ASCII, so the king symbol, three bytes in UTF-8, is split
+        // between the first and the second chunk, in the middle of a game
+        String tagStart = "[Annotator \"";
+        String annotator = "x".repeat(chunkBytes - 1 - text.length() - tagStart.length()) + "\u2654 Morphy";
+        text.append(tagStart).append(annotator).append("\"]\n").append(OPERA_GAME).append('\n');
+        int splitGame = games++;
+        while (text.length() < 3 * chunkBytes) {
+            text.append(PROMOTION_GAME).append('\n');
+            games++;
+        }
+        Path file = this.directory.resolve("games.pgn");
+        Files.writeString(file, text, StandardCharsets.UTF_8);
+
+        try (PgnReader reader = new PgnReader(FileChannel.open(file, StandardOpenOption.READ))) {
+            for (int i = 0; i < games; i++) {
+                PgnGame game = reader.nextGame();
+                assertThat(game.moves()).hasSize(i <= splitGame ? 33 : 9);
+                if (i == splitGame) assertThat(game.getTag("Annotator")).isEqualTo(annotator);
+            }
+            assertThat(reader.nextGame()).isNull();
+        }
+    }
+
+    @Test
+    void givenGame_whenWrittenAndReadBack_thenItIsTheSame() throws IOException {
+        PgnGame opera = PgnReader.parse(OPERA_GAME);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        try (PgnWriter writer = new PgnWriter(Channels.newChannel(output))) {
+            writer.write(opera);
+        }
+        String written = output.toString(StandardCharsets.UTF_8);
+
+        assertThat(written).startsWith("[Event \"Paris\"]\n");
+        assertThat(written).contains("12. O-O-O Rd8", "17. Rd8# 1-0\n");
+        assertThat(written.lines()).allMatch(line -> line.length() <= 80);
+        PgnGame readBack = PgnReader.parse(written);
+        assertThat(readBack.moves()).containsExactly(opera.moves());
+        assertThat(readBack.tags()).isEqualTo(opera.tags());
+    }
+
+    @Test
+    void givenGameFromSetUpPosition_whenWrittenAndReadBack_thenItStartsFromThePosition()
+            throws IOException, FenFormatException {
+        String fen = "4k3/8/8/8/8/8/4P3/4K2R b K - 0 30";
+        int[] moves = PgnReader.parse("[SetUp \"1\"]\n[FEN \"" + fen + "\"]\n\n30... Kd7 31. O-O Ke6 32. e4 *").moves();
+        PgnGame game = PgnGame.withStartPosition(Map.of("Event", "Endgame"), Fen.parse(fen), moves, PgnGame.UNFINISHED);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        try (PgnWriter writer = new PgnWriter(Channels.newChannel(output))) {
+            writer.write(game);
+        }
+        String written = output.toString(StandardCharsets.UTF_8);
+
+        assertThat(written).contains("[Result \"*\"]\n[SetUp \"1\"]\n[FEN \"" + fen + "\"]\n",
+                "30... Kd7 31. O-O Ke6 32. e4 *\n");
+        PgnGame readBack = PgnReader.parse(written);
+        assertThat(readBack.moves()).containsExactly(moves);
+        assertThat(readBack.getTag(PgnGame.FEN_TAG)).isEqualTo(fen);
+        assertThat(Fen.toString(readBack.replay(moves.length)))
+                .isEqualTo("8/8/4k3/8/4P3/8/8/5RK1 b - - 0 32");
+        assertThat(PgnGame.withStartPosition(Map.of(), new Chessboard(), moves, PgnGame.UNFINISHED).tags()).isEmpty();
+    }
+
+    @Test
+    void givenBatchWithSetUpGame_whenReadInParallel_thenAllGamesAreParsed() throws IOException {
+        String setUpGame = "[SetUp \"1\"]\n[FEN \"4k3/8/8/8/8/8/4P3/4K2R w K - 0 1\"]\n\n1. O-O Kd7 *\n";
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        try {
+            List<PgnGame> games = PgnReader.readAll(channelOf(OPERA_GAME + "\n" + setUpGame), executor);
+
+            assertThat(games).hasSize(2);
+            assertThat(games.get(1).moves()).hasSize(2);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void givenMalformedFenTag_whenParsed_thenExceptionIsThrown() {
+        assertThatExceptionOfType(PgnFormatException.class)
+                .isThrownBy(() -> PgnReader.parse("[SetUp \"1\"]\n[FEN \"8/8 w\"]\n\n1. e4 *"))
+                .withMessageStartingWith("Invalid FEN tag: ");
+    }
+
+    @Test
+    void givenIllegalMove_whenParsed_thenExceptionIsThrown() {
+        assertThatExceptionOfType(PgnFormatException.class)
+                .isThrownBy(() -> PgnReader.parse("1. e4 e5 2. Ke3 *"))
+                .withMessage("Illegal move Ke3 after 2 plies.");
+    }
+
+    @Test
+    void givenGameProcessor_whenExported_thenPgnContainsMoves() throws IOException, WrongMoveException {
+        GameProcessor gameProcessor = new GameProcessor("Alice", "Bob", PieceColor.WHITE, PieceColor.BLACK);
+        gameProcessor.makeMove(new Move(Position.of(4, 1), Position.of(4, 3)));
+        gameProcessor.makeMove(new Move(Position.of(4, 6), Position.of(4, 4)));
+        gameProcessor.closeLog();
+        Path file = this.directory.resolve("game.pgn");
+
+        gameProcessor.exportPgn(file);
+
+        PgnGame game = PgnReader.parse(Files.readString(file));
+        assertThat(game.getTag("White")).isEqualTo("Alice");
+        assertThat(game.getTag("Black")).isEqualTo("Bob");
+        assertThat(game.moves()).hasSize(2);
+    }
+
+    private static ReadableByteChannel channelOf(String text) {
+        return Channels.newChannel(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)));
+    }
+}
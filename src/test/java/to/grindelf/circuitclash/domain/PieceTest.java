@@ -15,4 +15,11 @@ class PieceTest {
         assertThat(piece1).isEqualTo(piece2);
         assertThat(piece1).isNotEqualTo(piece3);
     }
-}
\ No newline at end of file
+
+    @Test
+    void givenTypeAndColor_whenPieceTakenOf_thenSharedInstanceReturned() {
+        assertThat(Piece.of(PieceType.KNIGHT, PieceColor.BLACK)).isSameAs(Piece.of(PieceType.KNIGHT, PieceColor.BLACK));
+        assertThat(Piece.of(PieceType.KNIGHT, PieceColor.BLACK)).isEqualTo(new Knight(PieceColor.BLACK));
+        assertThat(new Chessboard().getPieceAt(Position.of(1, 7))).isSameAs(Piece.of(PieceType.KNIGHT, PieceColor.BLACK));
+    }
+}
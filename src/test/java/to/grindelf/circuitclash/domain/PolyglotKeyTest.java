@@ -0,0 +1,123 @@
+package to.grindelf.circuitclash.domain;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import to.grindelf.circuitclash.errors.FenFormatException;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+class PolyglotKeyTest {
+
+    /**
+     * Keys of the test positions of the Polyglot book format description.
+     */
+    private static final long INITIAL_KEY = 0x463B96181691FC9CL;
+    private static final long AFTER_E4_KEY = 0x823C9B50FD114196L;
+    private static final long AFTER_E4_D5_KEY = 0x0756B94461C50FB0L;
+    private static final long AFTER_E4_D5_E5_KEY = 0x662FAFB965DB29D4L;
+    private static final long AFTER_E4_D5_E5_F5_KEY = 0x22A48B5A8E47FF78L;
+    private static final long AFTER_A4_B5_H4_B4_C4_KEY = 0x3C8123EA7B067637L;
+    private static final long AFTER_A4_B5_H4_B4_C4_BXC3_RA3_KEY = 0x5C3F9B829B279560L;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void givenRandom64Entries_whenMovesMade_thenKeysChangeLikeInPolyglotTestPositions() throws FenFormatException {
+        PolyglotKey polyglotKey = new PolyglotKey(createTable());
+
+        assertThat(keyChange(polyglotKey, "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1", 12, 28, PackedMove.DOUBLE_PAWN_PUSH))
+                .isEqualTo(INITIAL_KEY ^ AFTER_E4_KEY);
+        assertThat(keyChange(polyglotKey, "rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1", 51, 35, PackedMove.DOUBLE_PAWN_PUSH))
+                .isEqualTo(AFTER_E4_KEY ^ AFTER_E4_D5_KEY);
+        assertThat(keyChange(polyglotKey, "rnbqkbnr/ppp1pppp/8/3p4/4P3/8/PPPP1PPP/RNBQKBNR w KQkq d6 0 2", 28, 36, PackedMove.QUIET))
+                .isEqualTo(AFTER_E4_D5_KEY ^ AFTER_E4_D5_E5_KEY);
+        // f5 can be captured en passant, so the key of the f file is included
+        assertThat(keyChange(polyglotKey, "rnbqkbnr/ppp1pppp/8/3pP3/8/8/PPPP1PPP/RNBQKBNR b KQkq - 0 2", 53, 37, PackedMove.DOUBLE_PAWN_PUSH))
+                .isEqualTo(AFTER_E4_D5_E5_KEY ^ AFTER_E4_D5_E5_F5_KEY);
+
+        Chessboard chessboard = Fen.parse("rnbqkbnr/p1pppppp/8/8/PpP4P/8/1P1PPPP1/RNBQKBNR b KQkq c3 0 3");
+        long before = polyglotKey.compute(chessboard);
+        chessboard.makeMove(PackedMove.of(25, 18, PackedMove.EN_PASSANT));
+        chessboard.makeMove(PackedMove.of(0, 16, PackedMove.QUIET));
+        assertThat(before ^ polyglotKey.compute(chessboard))
+                .isEqualTo(AFTER_A4_B5_H4_B4_C4_KEY ^ AFTER_A4_B5_H4_B4_C4_BXC3_RA3_KEY);
+    }
+
+    @Test
+    void givenPositionFromFen_whenKeyComputed_thenItEqualsKeyOfTheSameGamePosition() throws FenFormatException {
+        PolyglotKey polyglotKey = new PolyglotKey(createTable());
+        Chessboard chessboard = new Chessboard();
+        chessboard.makeMove(PackedMove.of(12, 28, PackedMove.DOUBLE_PAWN_PUSH));
+        chessboard.makeMove(PackedMove.of(51, 35, PackedMove.DOUBLE_PAWN_PUSH));
+
+        assertThat(polyglotKey.compute(chessboard))
+                .isEqualTo(polyglotKey.compute(Fen.parse("rnbqkbnr/ppp1pppp/8/3p4/4P3/8/PPPP1PPP/RNBQKBNR w KQkq d6 0 2")))
+                .isNotEqualTo(polyglotKey.compute(Fen.parse("rnbqkbnr/ppp1pppp/8/3p4/4P3/8/PPPP1PPP/RNBQKBNR b KQkq - 0 2")));
+    }
+
+    @Test
+    void givenTableFile_whenLoaded_thenKeysAreTheSameAsOfTheTable() throws IOException {
+        long[] table = createTable();
+        StringBuilder text = new StringBuilder("static const uint64 Random64[781] = {\n");
+        for (long entry : table) {
+            text.append(String.format("   0x%016XULL,%n", entry));
+        }
+        Path file = this.directory.resolve("random64.txt");
+        Files.writeString(file, text.append("};\n"));
+
+        assertThat(PolyglotKey.load(file).compute(new Chessboard()))
+                .isEqualTo(new PolyglotKey(table).compute(new Chessboard()));
+
+        Files.writeString(file, text.substring(0, text.lastIndexOf("0x")));
+        assertThatExceptionOfType(IOException.class)
+                .isThrownBy(() -> PolyglotKey.load(file))
+                .withMessage("Random64 table has 780 entries instead of 781.");
+    }
+
+    /**
+     * Returns a change of a Polyglot key made by a move.
+     */
+    private static long keyChange(PolyglotKey polyglotKey, String fen, int from, int to, int flags) throws FenFormatException {
+        Chessboard chessboard = Fen.parse(fen);
+        long before = polyglotKey.compute(chessboard);
+        chessboard.makeMove(PackedMove.of(from, to, flags));
+
+        return before ^ polyglotKey.compute(chessboard);
+    }
+
+    /**
+     * Creates a Random64 table with the published entries used by the test moves and
+     * arbitrary other entries, which cancel out in the key changes.
+     */
+    private static long[] createTable() {
+        SplittableRandom random = new SplittableRandom(781);
+        long[] table = new long[PolyglotKey.TABLE_SIZE];
+        Arrays.setAll(table, i -> random.nextLong());
+        table[18] = 0x7449BBFF801FED0BL;
+        table[25] = 0x8DBD98A352AFD40BL;
+        table[35] = 0x03488B95B0F1850FL;
+        table[37] = 0x09D1BC9A3DD90A94L;
+        table[51] = 0x7EF48F2B83024E20L;
+        table[53] = 0x6568FCA92C76A243L;
+        table[76] = 0xBB6E2924F03912EAL;
+        table[90] = 0xAE4A9346CC3F7CF2L;
+        table[92] = 0x87BF02C6B49E2AE9L;
+        table[100] = 0x1E1032911FA78984L;
+        table[448] = 0xA09E8C8C35AB96DEL;
+        table[464] = 0x66C1A2A1A60CD889L;
+        table[769] = 0xF165B587DF898190L;
+        table[774] = 0x003A93D8B2806962L;
+        table[777] = 0xD0E4427A5514FB72L;
+        table[780] = 0xF8D626AAAF278509L;
+
+        return table;
+    }
+}
@@ -25,4 +25,12 @@ class PositionTest {
         assertThat(position3.getAlphanumerical()).isEqualTo("h8");
     }
 
-}
\ No newline at end of file
+    @Test
+    void givenCoordinates_whenPositionTakenOf_thenCanonicalInstanceReturned() {
+        assertThat(Position.of(4, 3)).isSameAs(Position.of(4, 3));
+        assertThat(Position.of(4, 3)).isSameAs(Position.ofSquare(28));
+        assertThat(Position.of(4, 3)).isEqualTo(new Position(4, 3));
+        assertThat(Position.of(4, 3).hashCode()).isEqualTo(new Position(4, 3).hashCode());
+        assertThat(Position.of(8, 3).getNumerical().x()).isEqualTo(8);
+    }
+}
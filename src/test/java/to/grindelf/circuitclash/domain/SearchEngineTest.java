@@ -0,0 +1,62 @@
+package to.grindelf.circuitclash.domain;
+
+import org.junit.jupiter.api.Test;
+import to.grindelf.circuitclash.errors.WrongMoveException;
+
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SearchEngineTest {
+    private final SearchEngine searchEngine = new SearchEngine(new TranspositionTable(1));
+
+    @Test
+    void givenMateInOne_whenSearched_thenMateIsFound() throws WrongMoveException {
+        Chessboard chessboard = new Chessboard();
+        play(chessboard, "e2e4", "e7e5", "f1c4", "b8c6", "d1h5", "g8f6");
+
+        SearchResult result = searchEngine.search(chessboard, SearchLimits.depth(3));
+
+        assertThat(PackedMove.toString(result.bestMove())).isEqualTo("h5f7");
+        assertThat(result.score()).isEqualTo(SearchEngine.MATE - 1);
+        assertThat(chessboard.getUndoCount()).isEqualTo(6);
+    }
+
+    @Test
+    void givenHangingQueen_whenSearched_thenQueenIsCaptured() throws WrongMoveException {
+        Chessboard chessboard = new Chessboard();
+        play(chessboard, "e2e4", "e7e5", "g1f3", "d8g5");
+
+        SearchResult result = searchEngine.search(chessboard, SearchLimits.depth(4));
+
+        assertThat(PackedMove.toString(result.bestMove())).isEqualTo("f3g5");
+        assertThat(result.principalVariation()[0]).isEqualTo(result.bestMove());
+    }
+
+    @Test
+    void givenNodeLimit_whenSearched_thenSearchStopsWithMove() {
+        SearchResult result = searchEngine.search(new Chessboard(), SearchLimits.nodes(5_000));
+
+        assertThat(result.nodes()).isLessThanOrEqualTo(5_000);
+        assertThat(result.bestMove()).isNotEqualTo(PackedMove.NONE);
+    }
+
+    @Test
+    void givenGameProcessor_whenBestMoveSearched_thenMoveCanBeMade() throws WrongMoveException, IOException {
+        GameProcessor gameProcessor = new GameProcessor();
+
+        Move bestMove = gameProcessor.findBestMove(20_000, 0);
+        gameProcessor.makeMove(bestMove);
+
+        assertThat(gameProcessor.getChessboard().getSideToMove()).isEqualTo(PieceColor.BLACK);
+    }
+
+    private static void play(Chessboard chessboard, String... moves) throws WrongMoveException {
+        for (String move : moves) {
+            chessboard.movePiece(new Move(
+                    Position.of(move.charAt(0) - 'a', move.charAt(1) - '1'),
+                    Position.of(move.charAt(2) - 'a', move.charAt(3) - '1')
+            ));
+        }
+    }
+}
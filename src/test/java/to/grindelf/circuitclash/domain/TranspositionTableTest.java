@@ -0,0 +1,106 @@
+package to.grindelf.circuitclash.domain;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class TranspositionTableTest {
+
+    private final TranspositionTable table = new TranspositionTable(1);
+
+    @Test
+    void givenTable_whenSizedInMegabytes_thenCapacityMatchesSize() {
+        assertThat(table.getCapacity()).isEqualTo(1024 * 1024 / 16);
+        assertThatIllegalArgumentException().isThrownBy(() -> new TranspositionTable(0));
+    }
+
+    @Test
+    void givenHugeSize_whenBucketsCounted_thenTheyAreLimitedToTheLargestArray() {
+        assertThat(TranspositionTable.MAX_BUCKETS * 8).isLessThanOrEqualTo(Integer.MAX_VALUE - 8);
+        assertThat(TranspositionTable.bucketCount(4 * 1024)).isEqualTo(TranspositionTable.MAX_BUCKETS / 2);
+        assertThat(TranspositionTable.bucketCount(8 * 1024)).isEqualTo(TranspositionTable.MAX_BUCKETS);
+        assertThat(TranspositionTable.bucketCount(16 * 1024)).isEqualTo(TranspositionTable.MAX_BUCKETS);
+        assertThat(TranspositionTable.bucketCount(32 * 1024)).isEqualTo(TranspositionTable.MAX_BUCKETS);
+        assertThat(TranspositionTable.bucketCount(Integer.MAX_VALUE)).isEqualTo(TranspositionTable.MAX_BUCKETS);
+        assertThatIllegalArgumentException().isThrownBy(() -> TranspositionTable.bucketCount(-1));
+    }
+
+    @Test
+    void givenStoredEntry_whenProbed_thenDataIsReturned() {
+        long key = new Chessboard().getZobristKey();
+        int move = PackedMove.of(12, 28, PackedMove.DOUBLE_PAWN_PUSH);
+
+        assertThat(table.probe(key)).isEqualTo(TranspositionTable.NO_ENTRY);
+        table.store(key, move, -35, 7, TranspositionTable.LOWER_BOUND, 12);
+
+        long data = table.probe(key);
+        assertThat(TranspositionTable.move(data)).isEqualTo(move);
+        assertThat(TranspositionTable.score(data)).isEqualTo(-35);
+        assertThat(TranspositionTable.depth(data)).isEqualTo(7);
+        assertThat(TranspositionTable.bound(data)).isEqualTo(TranspositionTable.LOWER_BOUND);
+        assertThat(TranspositionTable.staticEval(data)).isEqualTo(12);
+        assertThat(table.probe(key ^ 1L << 40)).isEqualTo(TranspositionTable.NO_ENTRY);
+    }
+
+    @Test
+    void givenDeepEntry_whenShallowerBoundStored_thenDeepEntryIsKept() {
+        long key = 0x1234_5678_9ABC_DEF0L;
+        table.store(key, PackedMove.of(1, 18, PackedMove.QUIET), 50, 10, TranspositionTable.EXACT, 0);
+        table.store(key, PackedMove.NONE, 20, 3, TranspositionTable.UPPER_BOUND, 0);
+
+        assertThat(TranspositionTable.depth(table.probe(key))).isEqualTo(10);
+
+        table.store(key, PackedMove.NONE, 20, 3, TranspositionTable.EXACT, 0);
+        assertThat(TranspositionTable.depth(table.probe(key))).isEqualTo(3);
+        assertThat(TranspositionTable.move(table.probe(key))).isEqualTo(PackedMove.of(1, 18, PackedMove.QUIET));
+    }
+
+    @Test
+    void givenFullBucket_whenNewEntryStored_thenShallowestEntryIsReplaced() {
+        long bucketStride = table.getCapacity() / 4;
+        for (int i = 0; i < 4; i++) {
+            table.store(7 + i * bucketStride, PackedMove.NONE, 0, 10 + i, TranspositionTable.EXACT, 0);
+        }
+        table.store(7 + 4 * bucketStride, PackedMove.NONE, 0, 1, TranspositionTable.EXACT, 0);
+
+        assertThat(table.probe(7)).isEqualTo(TranspositionTable.NO_ENTRY);
+        assertThat(table.probe(7 + 3 * bucketStride)).isNotEqualTo(TranspositionTable.NO_ENTRY);
+        assertThat(table.probe(7 + 4 * bucketStride)).isNotEqualTo(TranspositionTable.NO_ENTRY);
+    }
+
+    @Test
+    void givenManyThreads_whenStoringAndProbing_thenOnlyConsistentEntriesAreSeen() throws InterruptedException {
+        List<Thread> threads = new ArrayList<>();
+        List<Throwable> failures = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            int seed = t;
+            threads.add(new Thread(() -> {
+                SplittableRandom random = new SplittableRandom(seed);
+                try {
+                    for (int i = 0; i < 200_000; i++) {
+                        long key = random.nextLong(1 << 16) * 0x9E3779B97F4A7C15L;
+                        table.store(key, PackedMove.NONE, (short) key, 5, TranspositionTable.EXACT, 0);
+                        long data = table.probe(key);
+                        if (data != TranspositionTable.NO_ENTRY) {
+                            assertThat(TranspositionTable.score(data)).isEqualTo((short) key);
+                        }
+                    }
+                } catch (Throwable failure) {
+                    synchronized (failures) {
+                        failures.add(failure);
+                    }
+                }
+            }));
+        }
+
+        for (Thread thread : threads) thread.start();
+        for (Thread thread : threads) thread.join();
+
+        assertThat(failures).isEmpty();
+    }
+}
@@ -0,0 +1,58 @@
+package to.grindelf.circuitclash.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class LatencyHistogramTest {
+
+    @Test
+    void givenUniformLatencies_whenSnapshotTaken_thenPercentilesAreWithinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram("Test");
+        for (long nanos = 1; nanos <= 100_000; nanos++) {
+            histogram.record(nanos * 10);
+        }
+
+        HistogramSnapshot snapshot = histogram.snapshot();
+
+        assertThat(snapshot.name()).isEqualTo("Test");
+        assertThat(snapshot.count()).isEqualTo(100_000);
+        assertThat(snapshot.meanNanos()).isEqualTo(500_005);
+        assertThat(snapshot.p50Nanos()).isCloseTo(500_000, within(500_000L / 32));
+        assertThat(snapshot.p90Nanos()).isCloseTo(900_000, within(900_000L / 32));
+        assertThat(snapshot.p99Nanos()).isCloseTo(990_000, within(990_000L / 32));
+        assertThat(snapshot.p999Nanos()).isBetween(snapshot.p99Nanos(), snapshot.maxNanos());
+        assertThat(snapshot.maxNanos()).isEqualTo(1_000_000);
+    }
+
+    @Test
+    void givenValuesOfWholeRange_whenBucketed_thenBucketsBoundTheValues() {
+        for (long value : new long[]{0, 1, 31, 32, 33, 63, 64, 1_000, 123_456_789, Long.MAX_VALUE / 3, Long.MAX_VALUE}) {
+            int bucket = LatencyHistogram.bucketOf(value);
+            long highest = LatencyHistogram.highestValueOf(bucket);
+
+            assertThat(highest).isGreaterThanOrEqualTo(value);
+            assertThat(highest - value).isLessThanOrEqualTo(value / 32);
+            if (bucket > 0) assertThat(LatencyHistogram.highestValueOf(bucket - 1)).isLessThan(value);
+        }
+    }
+
+    @Test
+    void givenRecordedLatencies_whenReset_thenHistogramIsEmpty() {
+        LatencyHistogram histogram = new LatencyHistogram("Test");
+        histogram.record(-5);
+        histogram.record(42);
+
+        assertThat(histogram.getCount()).isEqualTo(2);
+        assertThat(histogram.getMedianNanos()).isZero();
+        assertThat(histogram.getMaxNanos()).isEqualTo(42);
+
+        histogram.reset();
+
+        assertThat(histogram.getCount()).isZero();
+        assertThat(histogram.getMeanNanos()).isZero();
+        assertThat(histogram.getP99Nanos()).isZero();
+        assertThat(histogram.getMaxNanos()).isZero();
+    }
+}
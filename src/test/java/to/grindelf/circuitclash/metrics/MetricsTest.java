@@ -0,0 +1,78 @@
+package to.grindelf.circuitclash.metrics;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import javax.management.Attribute;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MetricsTest {
+
+    @AfterEach
+    void resetMetrics() {
+        Metrics.setEnabled(false);
+        Metrics.reset();
+    }
+
+    @Test
+    void givenDisabledMetrics_whenMeasured_thenNothingIsRecorded() {
+        Metrics.setEnabled(false);
+        long start = Metrics.start();
+        Metrics.MOVE_VALIDATION.recordSince(start);
+        Metrics.recordWrongMove();
+        Metrics.recordSearch(1_000, start);
+
+        MetricsSnapshot snapshot = Metrics.snapshot();
+
+        assertThat(start).isZero();
+        assertThat(snapshot.enabled()).isFalse();
+        assertThat(snapshot.moveValidation().count()).isZero();
+        assertThat(snapshot.wrongMoves()).isZero();
+        assertThat(snapshot.searchNodes()).isZero();
+        assertThat(snapshot.searchNodesPerSecond()).isZero();
+    }
+
+    @Test
+    void givenEnabledMetrics_whenMeasured_thenSnapshotHoldsValues() {
+        Metrics.setEnabled(true);
+        Metrics.BOARD_UPDATE.recordSince(Metrics.start());
+        Metrics.recordWrongMove();
+        Metrics.recordWrongMove();
+        Metrics.recordSearch(5_000, Metrics.start());
+
+        MetricsSnapshot snapshot = Metrics.snapshot();
+
+        assertThat(snapshot.enabled()).isTrue();
+        assertThat(snapshot.boardUpdate().count()).isEqualTo(1);
+        assertThat(snapshot.logWrite().count()).isZero();
+        assertThat(snapshot.wrongMoves()).isEqualTo(2);
+        assertThat(snapshot.search().count()).isEqualTo(1);
+        assertThat(snapshot.searchNodes()).isEqualTo(5_000);
+        assertThat(snapshot.searchNodesPerSecond()).isPositive();
+    }
+
+    @Test
+    void givenRegisteredMBeans_whenAttributesRead_thenTheyMatchMetrics() throws Exception {
+        Metrics.registerMBeans();
+        Metrics.registerMBeans();
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName metrics = new ObjectName(Metrics.DOMAIN + ":type=Metrics");
+        ObjectName logWrite = new ObjectName(Metrics.DOMAIN + ":type=Latency,name=LogWrite");
+
+        server.setAttribute(metrics, new Attribute("Enabled", true));
+        Metrics.recordWrongMove();
+        Metrics.LOG_WRITE.record(1_000);
+
+        assertThat(Metrics.isEnabled()).isTrue();
+        assertThat(server.getAttribute(metrics, "WrongMoveCount")).isEqualTo(1L);
+        assertThat(server.getAttribute(logWrite, "Count")).isEqualTo(1L);
+        assertThat(server.getAttribute(logWrite, "MaxNanos")).isEqualTo(1_000L);
+
+        server.invoke(metrics, "reset", null, null);
+        assertThat(server.getAttribute(logWrite, "Count")).isEqualTo(0L);
+    }
+}
@@ -0,0 +1,144 @@
+package to.grindelf.circuitclash.utils;
+
+import org.junit.jupiter.api.Test;
+import to.grindelf.circuitclash.domain.Chessboard;
+import to.grindelf.circuitclash.domain.Fen;
+import to.grindelf.circuitclash.domain.Move;
+import to.grindelf.circuitclash.domain.PackedMove;
+import to.grindelf.circuitclash.domain.PieceColor;
+import to.grindelf.circuitclash.domain.PieceType;
+import to.grindelf.circuitclash.domain.Position;
+import to.grindelf.circuitclash.errors.FenFormatException;
+import to.grindelf.circuitclash.errors.WrongMoveException;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MoveGeneratorTest {
+
+    @Test
+    void givenInitialChessboard_whenPerftCounted_thenCountsMatchReference() {
+        Chessboard chessboard = new Chessboard();
+
+        assertThat(perft(chessboard, 1)).isEqualTo(20);
+        assertThat(perft(chessboard, 2)).isEqualTo(400);
+        assertThat(perft(chessboard, 3)).isEqualTo(8_902);
+        assertThat(perft(chessboard, 4)).isEqualTo(197_281);
+        assertThat(chessboard.getUndoCount()).isZero();
+        assertThat(chessboard.getZobristKey()).isEqualTo(new Chessboard().getZobristKey());
+    }
+
+    @Test
+    void givenKiwipete_whenPerftCounted_thenCountsMatchReference() throws FenFormatException {
+        Chessboard chessboard = Fen.parse("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+
+        assertThat(perft(chessboard, 1)).isEqualTo(48);
+        assertThat(perft(chessboard, 2)).isEqualTo(2_039);
+        assertThat(perft(chessboard, 3)).isEqualTo(97_862);
+    }
+
+    @Test
+    void givenEndgameAndPromotionPositions_whenPerftCounted_thenCountsMatchReference() throws FenFormatException {
+        assertThat(perft(Fen.parse("8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1"), 4)).isEqualTo(43_238);
+        assertThat(perft(Fen.parse("r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1"), 3)).isEqualTo(9_467);
+        assertThat(perft(Fen.parse("rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8"), 3)).isEqualTo(62_379);
+    }
+
+    @Test
+    void givenAttackMaps_whenPerftCounted_thenCountsMatchReference() throws FenFormatException {
+        Chessboard kiwipete = Fen.parse("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        kiwipete.enableAttackMaps();
+        Chessboard endgame = Fen.parse("8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1");
+        endgame.enableAttackMaps();
+
+        assertThat(perft(kiwipete, 3)).isEqualTo(97_862);
+        assertThat(perft(endgame, 4)).isEqualTo(43_238);
+    }
+
+    @Test
+    void givenDoublePawnPush_whenEnPassantAvailable_thenEnPassantGeneratedAndCaptures() throws WrongMoveException {
+        Chessboard chessboard = new Chessboard();
+        play(chessboard, "e2e4", "a7a6", "e4e5", "d7d5");
+
+        int enPassant = PackedMove.of(36, 43, PackedMove.EN_PASSANT);
+        assertThat(generate(chessboard)).contains(enPassant);
+        assertThat(MoveGenerator.isLegal(chessboard, enPassant)).isTrue();
+
+        chessboard.makeMove(enPassant);
+        assertThat(chessboard.getPieceAt(new Position(3, 4))).isNull();
+        assertThat(chessboard.getPieceAt(new Position(3, 5)).getType()).isEqualTo(PieceType.PAWN);
+    }
+
+    @Test
+    void givenClearedBackRank_whenCastling_thenRookMovesAndRightsAreLost() throws WrongMoveException {
+        Chessboard chessboard = new Chessboard();
+        play(chessboard, "e2e4", "e7e5", "g1f3", "b8c6", "f1c4", "g8f6");
+
+        assertThat(MoveGenerator.canCastle(chessboard, true)).isTrue();
+        assertThat(MoveGenerator.canCastle(chessboard, false)).isFalse();
+
+        chessboard.movePiece(move("e1g1"));
+        assertThat(chessboard.getPieceAt(new Position(5, 0)).getType()).isEqualTo(PieceType.ROOK);
+        assertThat(chessboard.getPieceAt(new Position(6, 0)).getType()).isEqualTo(PieceType.KING);
+        assertThat(chessboard.getCastlingRights() & (Chessboard.WHITE_KING_SIDE | Chessboard.WHITE_QUEEN_SIDE)).isZero();
+    }
+
+    @Test
+    void givenPinnedPiece_whenMoveExposesKing_thenMoveIsIllegal() throws WrongMoveException {
+        Chessboard chessboard = new Chessboard();
+        play(chessboard, "e2e4", "e7e5", "d2d3", "f8b4");
+
+        assertThat(MoveGenerator.isLegal(chessboard, chessboard.encodeMove(move("c2c3")))).isTrue();
+        assertThat(MoveGenerator.isLegal(chessboard, chessboard.encodeMove(move("e1e2")))).isTrue();
+        assertThat(MoveGenerator.isLegal(chessboard, chessboard.encodeMove(move("b1c3")))).isTrue();
+        assertThat(chessboard.isInCheck(PieceColor.WHITE)).isTrue();
+        assertThat(MoveGenerator.isLegal(chessboard, chessboard.encodeMove(move("g1f3")))).isFalse();
+        assertThat(MoveGenerator.isLegal(chessboard, chessboard.encodeMove(move("a2a3")))).isFalse();
+    }
+
+    @Test
+    void givenFoolsMate_whenMovesGenerated_thenNoMovesAreLeft() throws WrongMoveException {
+        Chessboard chessboard = new Chessboard();
+        play(chessboard, "f2f3", "e7e5", "g2g4", "d8h4");
+
+        assertThat(chessboard.isInCheck(PieceColor.WHITE)).isTrue();
+        assertThat(generate(chessboard)).isEmpty();
+    }
+
+    private long perft(Chessboard chessboard, int depth) {
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int count = MoveGenerator.generateLegalMoves(chessboard, moves);
+        if (depth == 1) return count;
+
+        long nodes = 0;
+        for (int i = 0; i < count; i++) {
+            chessboard.makeMove(moves[i]);
+            nodes += perft(chessboard, depth - 1);
+            chessboard.undoMove();
+        }
+
+        return nodes;
+    }
+
+    private int[] generate(Chessboard chessboard) {
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int count = MoveGenerator.generateLegalMoves(chessboard, moves);
+
+        return Arrays.copyOf(moves, count);
+    }
+
+    private void play(Chessboard chessboard, String... moves) throws WrongMoveException {
+        for (String move : moves) {
+            assertThat(MoveGenerator.isLegal(chessboard, chessboard.encodeMove(move(move)))).isTrue();
+            chessboard.movePiece(move(move));
+        }
+    }
+
+    private Move move(String move) {
+        return new Move(
+                new Position(move.charAt(0) - 'a', move.charAt(1) - '1'),
+                new Position(move.charAt(2) - 'a', move.charAt(3) - '1')
+        );
+    }
+}
@@ -0,0 +1,99 @@
+package to.grindelf.circuitclash.utils;
+
+import org.junit.jupiter.api.Test;
+import to.grindelf.circuitclash.domain.Chessboard;
+import to.grindelf.circuitclash.domain.Fen;
+import to.grindelf.circuitclash.domain.PackedMove;
+import to.grindelf.circuitclash.domain.PieceColor;
+import to.grindelf.circuitclash.errors.FenFormatException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MoveOrderingTest {
+
+    @Test
+    void givenCapturesOfDifferentPieces_whenScored_thenMostValuableVictimByCheapestAttackerGoesFirst() throws FenFormatException {
+        // the queen on d5 is attacked by the pawn on e4 and the knight on c3, the pawn on f5 by the pawn on e4
+        Chessboard chessboard = Fen.parse("4k3/8/8/3q1p2/4P3/2N5/8/4K3 w - - 0 1");
+        int pawnTakesQueen = PackedMove.of(28, 35, PackedMove.CAPTURE);
+        int knightTakesQueen = PackedMove.of(18, 35, PackedMove.CAPTURE);
+        int pawnTakesPawn = PackedMove.of(28, 37, PackedMove.CAPTURE);
+        int quiet = PackedMove.of(4, 3, PackedMove.QUIET);
+        int[] moves = {quiet, pawnTakesPawn, knightTakesQueen, pawnTakesQueen};
+        int[] scores = new int[moves.length];
+
+        new MoveOrdering(8).scoreMoves(chessboard, moves, scores, moves.length, 0, PackedMove.NONE, PackedMove.NONE);
+        MoveOrdering.sort(moves, scores, moves.length);
+
+        assertThat(moves).containsExactly(pawnTakesQueen, knightTakesQueen, pawnTakesPawn, quiet);
+    }
+
+    @Test
+    void givenCutoffs_whenScored_thenHashMoveKillersAndCounterMoveGoBeforeOtherQuietMoves() {
+        Chessboard chessboard = new Chessboard();
+        MoveOrdering ordering = new MoveOrdering(8);
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int moveCount = MoveGenerator.generateLegalMoves(chessboard, moves);
+        int previousMove = PackedMove.of(52, 36, PackedMove.DOUBLE_PAWN_PUSH);
+
+        ordering.recordCutoff(PieceColor.WHITE, moves, 5, 2, 4, previousMove);
+        int firstKiller = moves[5];
+        ordering.recordCutoff(PieceColor.WHITE, moves, 7, 2, 4, PackedMove.NONE);
+        int secondKiller = firstKiller;
+        firstKiller = moves[7];
+        ordering.recordCutoff(PieceColor.WHITE, moves, 9, 3, 4, previousMove);
+        int counterMove = moves[9];
+
+        assertThat(ordering.getKiller(2, 0)).isEqualTo(firstKiller);
+        assertThat(ordering.getKiller(2, 1)).isEqualTo(secondKiller);
+        assertThat(ordering.getCounterMove(previousMove)).isEqualTo(counterMove);
+        // moves searched before a cutoff move are penalized
+        assertThat(ordering.getHistory(PieceColor.WHITE, moves[0])).isNegative();
+        assertThat(ordering.getHistory(PieceColor.WHITE, counterMove)).isPositive();
+
+        int[] scores = new int[MoveGenerator.MAX_MOVES];
+        int hashMove = moves[12];
+        ordering.scoreMoves(chessboard, moves, scores, moveCount, 2, hashMove, previousMove);
+        MoveOrdering.sort(moves, scores, moveCount);
+
+        assertThat(moves[0]).isEqualTo(hashMove);
+        assertThat(moves[1]).isEqualTo(firstKiller);
+        assertThat(moves[2]).isEqualTo(secondKiller);
+        assertThat(moves[3]).isEqualTo(counterMove);
+        for (int i = 1; i < moveCount; i++) {
+            assertThat(scores[i]).isLessThanOrEqualTo(scores[i - 1]);
+        }
+    }
+
+    @Test
+    void givenManyCutoffs_whenHistoryUpdated_thenScoresStayBoundedAndAgeBetweenSearches() {
+        MoveOrdering ordering = new MoveOrdering(8);
+        int[] moves = {PackedMove.of(1, 18, PackedMove.QUIET), PackedMove.of(6, 21, PackedMove.QUIET)};
+        for (int i = 0; i < 10_000; i++) {
+            ordering.recordCutoff(PieceColor.BLACK, moves, 1, 0, 20, PackedMove.NONE);
+        }
+
+        int history = ordering.getHistory(PieceColor.BLACK, moves[1]);
+        assertThat(history).isBetween(1, 1 << 14);
+        assertThat(ordering.getHistory(PieceColor.BLACK, moves[0])).isBetween(-(1 << 14), -1);
+        assertThat(ordering.getHistory(PieceColor.WHITE, moves[1])).isZero();
+
+        ordering.newSearch();
+        assertThat(ordering.getHistory(PieceColor.BLACK, moves[1])).isEqualTo(history / 2);
+        assertThat(ordering.getKiller(0, 0)).isEqualTo(PackedMove.NONE);
+
+        ordering.clear();
+        assertThat(ordering.getHistory(PieceColor.BLACK, moves[1])).isZero();
+    }
+
+    @Test
+    void givenEqualScores_whenSorted_thenOriginalOrderIsKept() {
+        int[] moves = {1, 2, 3, 4, 5};
+        int[] scores = {0, 7, 0, 7, -3};
+
+        MoveOrdering.sort(moves, scores, moves.length);
+
+        assertThat(moves).containsExactly(2, 4, 1, 3, 5);
+        assertThat(scores).containsExactly(7, 7, 0, 0, -3);
+    }
+}
@@ -0,0 +1,52 @@
+package to.grindelf.circuitclash.utils;
+
+import org.junit.jupiter.api.Test;
+import to.grindelf.circuitclash.domain.Chessboard;
+import to.grindelf.circuitclash.domain.Fen;
+import to.grindelf.circuitclash.errors.FenFormatException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PerftTest {
+
+    private static final String KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+
+    @Test
+    void givenHashedParallelPerft_whenCounted_thenCountsMatchReference() throws FenFormatException {
+        try (Perft perft = new Perft(4, 3)) {
+            assertThat(perft.count(new Chessboard(), 0)).isEqualTo(1);
+            assertThat(perft.count(new Chessboard(), 4)).isEqualTo(197_281);
+            assertThat(perft.count(Fen.parse(KIWIPETE), 3)).isEqualTo(97_862);
+            assertThat(perft.count(Fen.parse("8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1"), 5)).isEqualTo(674_624);
+        }
+    }
+
+    @Test
+    void givenPerftWithoutTable_whenCounted_thenCountsEqualHashedCounts() throws FenFormatException {
+        Chessboard position = Fen.parse(KIWIPETE);
+        String fen = Fen.toString(position);
+
+        try (Perft plain = new Perft(0, 1); Perft hashed = new Perft(1, 2)) {
+            assertThat(plain.count(position, 3)).isEqualTo(hashed.count(position, 3));
+        }
+        assertThat(Fen.toString(position)).isEqualTo(fen);
+    }
+
+    @Test
+    void givenInitialPosition_whenDivided_thenEveryRootMoveAndTotalArePrinted() {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        long nodes;
+        try (Perft perft = new Perft(1, 2)) {
+            nodes = perft.divide(new Chessboard(), 3, new PrintStream(output, true, StandardCharsets.UTF_8));
+        }
+
+        String[] lines = output.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(nodes).isEqualTo(8_902);
+        assertThat(lines).hasSize(22).contains("e2e4: 600", "g1f3: 440", "Nodes searched: 8902");
+    }
+}
@@ -0,0 +1,61 @@
+package to.grindelf.circuitclash.visualization;
+
+import org.junit.jupiter.api.Test;
+import to.grindelf.circuitclash.domain.Chessboard;
+import to.grindelf.circuitclash.domain.Fen;
+import to.grindelf.circuitclash.domain.Move;
+import to.grindelf.circuitclash.domain.Position;
+import to.grindelf.circuitclash.errors.FenFormatException;
+import to.grindelf.circuitclash.errors.WrongMoveException;
+import to.grindelf.circuitclash.utils.MoveGenerator;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BoardRendererTest {
+
+    @Test
+    void givenInitialChessboard_whenRendered_thenTextMatchesVisualizer() throws WrongMoveException {
+        Chessboard chessboard = new Chessboard();
+        BoardRenderer renderer = new BoardRenderer();
+
+        assertThat(renderer.render(chessboard)).isEqualTo(BoardVisualizer.visualizeAsString(chessboard));
+
+        chessboard.movePiece(new Move(new Position(4, 1), new Position(4, 3)));
+        assertThat(renderer.render(chessboard)).isEqualTo(BoardVisualizer.visualizeAsString(chessboard));
+        assertThat(chessboard.toString()).isEqualTo(BoardVisualizer.visualizeAsString(chessboard));
+        assertThat(chessboard.toString()).isEqualTo(BoardVisualizer.visualizeAsString(chessboard));
+    }
+
+    @Test
+    void givenRandomGames_whenRenderedAfterEveryMove_thenTextMatchesVisualizer() throws FenFormatException {
+        Random random = new Random(5);
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        for (String fen : new String[]{Fen.INITIAL_POSITION, "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+                "8/2P5/8/8/8/8/5p2/K6k w - - 0 1"}) {
+            Chessboard chessboard = Fen.parse(fen);
+            BoardRenderer renderer = new BoardRenderer();
+            for (int ply = 0; ply < 80; ply++) {
+                int moveCount = MoveGenerator.generateLegalMoves(chessboard, moves);
+                if (moveCount == 0) break;
+                chessboard.makeMove(moves[random.nextInt(moveCount)]);
+                // taking back a move now and then checks that restored squares are redrawn too
+                if (random.nextInt(4) == 0) chessboard.undoMove();
+
+                assertThat(renderer.render(chessboard)).isEqualTo(BoardVisualizer.visualizeAsString(chessboard));
+            }
+        }
+    }
+
+    @Test
+    void givenDifferentBoards_whenRenderedWithOneRenderer_thenEachTextMatchesVisualizer() throws FenFormatException {
+        BoardRenderer renderer = new BoardRenderer();
+        Chessboard first = new Chessboard();
+        Chessboard second = Fen.parse("4k3/8/8/8/8/8/8/4K2R w K - 0 1");
+
+        assertThat(renderer.render(first)).isEqualTo(BoardVisualizer.visualizeAsString(first));
+        assertThat(renderer.render(second)).isEqualTo(BoardVisualizer.visualizeAsString(second));
+        assertThat(renderer.render(first)).isEqualTo(BoardVisualizer.visualizeAsString(first));
+    }
+}
@@ -0,0 +1,127 @@
+package to.grindelf.circuitclash.visualization;
+
+import javafx.geometry.Rectangle2D;
+import javafx.scene.image.ImageView;
+import javafx.scene.image.PixelReader;
+import org.junit.jupiter.api.Test;
+import to.grindelf.circuitclash.domain.PieceColor;
+import to.grindelf.circuitclash.domain.PieceType;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.DeflaterOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+class PieceImageAtlasTest {
+
+    @Test
+    void givenPieceImages_whenAtlasLoaded_thenEveryPieceIsInItsOwnCell() throws IOException {
+        Map<String, byte[]> images = new HashMap<>();
+        int color = 0xFF000001;
+        for (PieceColor pieceColor : PieceColor.values()) {
+            for (PieceType pieceType : PieceType.values()) {
+                // images of different sizes are aligned to the largest one
+                int size = pieceType == PieceType.KING ? 6 : 4;
+                images.put(PieceImageAtlas.resourceName(pieceType, pieceColor), png(size, size, color++));
+            }
+        }
+
+        PieceImageAtlas atlas = PieceImageAtlas.load(name -> images.containsKey(name) ? new ByteArrayInputStream(images.get(name)) : null);
+
+        assertThat(atlas.getCellSize()).isEqualTo(6);
+        assertThat(atlas.getImage().getWidth()).isEqualTo(36);
+        assertThat(atlas.getImage().getHeight()).isEqualTo(12);
+        PixelReader reader = atlas.getImage().getPixelReader();
+        int expectedColor = 0xFF000001;
+        for (PieceColor pieceColor : PieceColor.values()) {
+            for (PieceType pieceType : PieceType.values()) {
+                Rectangle2D viewport = atlas.getViewport(pieceType, pieceColor);
+                assertThat(viewport.getWidth()).isEqualTo(6);
+                assertThat(reader.getArgb((int) viewport.getMinX() + 3, (int) viewport.getMinY() + 3)).isEqualTo(expectedColor++);
+            }
+        }
+
+        ImageView view = atlas.createImageView(PieceType.QUEEN, PieceColor.BLACK);
+        assertThat(view.getImage()).isSameAs(atlas.getImage());
+        assertThat(view.getViewport()).isEqualTo(new Rectangle2D(24, 6, 6, 6));
+        atlas.show(view, PieceType.PAWN, PieceColor.WHITE);
+        assertThat(view.getViewport()).isEqualTo(new Rectangle2D(0, 0, 6, 6));
+    }
+
+    @Test
+    void givenMissingImage_whenAtlasLoaded_thenExceptionIsThrown() {
+        assertThatExceptionOfType(IOException.class)
+                .isThrownBy(() -> PieceImageAtlas.load(name -> null))
+                .withMessage("Piece image /white_pawn.png is not found.");
+    }
+
+    @Test
+    void givenBrokenImage_whenAtlasLoaded_thenExceptionIsThrown() {
+        assertThatExceptionOfType(IOException.class)
+                .isThrownBy(() -> PieceImageAtlas.load(name -> new ByteArrayInputStream(new byte[]{1, 2, 3})))
+                .withMessage("Piece image /white_pawn.png cannot be decoded.");
+    }
+
+    /**
+     * Encodes an image of one color as a PNG file.
+     *
+     * @param width  is a width of the image.
+     * @param height is a height of the image.
+     * @param argb   is a color of all pixels.
+     * @return contents of the file.
+     */
+    private static byte[] png(int width, int height, int argb) throws IOException {
+        ByteArrayOutputStream pixels = new ByteArrayOutputStream();
+        for (int y = 0; y < height; y++) {
+            pixels.write(0);
+            for (int x = 0; x < width; x++) {
+                pixels.write(new byte[]{(byte) (argb >> 16), (byte) (argb >> 8), (byte) argb, (byte) (argb >>> 24)});
+            }
+        }
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (DeflaterOutputStream deflater = new DeflaterOutputStream(compressed)) {
+            deflater.write(pixels.toByteArray());
+        }
+
+        ByteArrayOutputStream file = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(file);
+        output.write(new byte[]{(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'});
+        ByteArrayOutputStream header = new ByteArrayOutputStream();
+        DataOutputStream headerOutput = new DataOutputStream(header);
+        headerOutput.writeInt(width);
+        headerOutput.writeInt(height);
+        // 8 bits per channel, RGBA, default compression, filtering and no interlacing
+        headerOutput.write(new byte[]{8, 6, 0, 0, 0});
+        writeChunk(output, "IHDR", header.toByteArray());
+        writeChunk(output, "IDAT", compressed.toByteArray());
+        writeChunk(output, "IEND", new byte[0]);
+
+        return file.toByteArray();
+    }
+
+    /**
+     * Writes a chunk of a PNG file.
+     *
+     * @param output is a stream to write to.
+     * @param type   is a type of the chunk.
+     * @param data   is data of the chunk.
+     */
+    private static void writeChunk(DataOutputStream output, String type, byte[] data) throws IOException {
+        byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+        CRC32 crc = new CRC32();
+        crc.update(typeBytes);
+        crc.update(data);
+        output.writeInt(data.length);
+        output.write(typeBytes);
+        output.write(data);
+        output.writeInt((int) crc.getValue());
+    }
+}